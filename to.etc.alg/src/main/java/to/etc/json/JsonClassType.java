@@ -1,6 +1,5 @@
 package to.etc.json;
 
-import java.lang.reflect.*;
 import java.util.*;
 
 import javax.annotation.*;
@@ -26,7 +25,7 @@ public class JsonClassType<T> implements ITypeMapping {
 		for(PropertyMapping pm : m_map.values()) {
 			Object value;
 			try {
-				value = pm.getGetter().invoke(instance);
+				value = pm.getValue(instance);
 			} catch(Exception x) {
 				Exception nx = WrappedException.unwrap(x);
 				throw new RuntimeException("JSON encode failed for " + pm.getName() + ": " + nx, nx);
@@ -83,14 +82,11 @@ public class JsonClassType<T> implements ITypeMapping {
 
 			reader.nextToken();										// Prepare for parser.
 			Object value = pm.getMapper().parse(reader);			// Parse property value
-			Method setter = pm.getSetter();
-			if(null != setter) {
-				try {
-					value = setter.invoke(instance, value);
-				} catch(Exception x) {
-					Exception nx = WrappedException.unwrap(x);
-					throw new RuntimeException("JSON decode failed for " + pm.getName() + " value " + value + ": " + nx, nx);
-				}
+			try {
+				pm.setValue(instance, value);
+			} catch(Exception x) {
+				Exception nx = WrappedException.unwrap(x);
+				throw new RuntimeException("JSON decode failed for " + pm.getName() + " value " + value + ": " + nx, nx);
 			}
 
 			//--
@@ -2,6 +2,10 @@ package to.etc.json;
 
 import java.lang.reflect.*;
 
+import javax.annotation.*;
+
+import to.etc.util.*;
+
 public class PropertyMapping {
 	final private Method m_getter;
 
@@ -11,11 +15,18 @@ public class PropertyMapping {
 
 	final private ITypeMapping m_mapper;
 
+	final private PropertyAccessorFactory.IGetter m_getterAccessor;
+
+	@Nullable
+	final private PropertyAccessorFactory.ISetter m_setterAccessor;
+
 	public PropertyMapping(Method getter, Method setter, String name, ITypeMapping mapper) {
 		m_getter = getter;
 		m_setter = setter;
 		m_name = name;
 		m_mapper = mapper;
+		m_getterAccessor = PropertyAccessorFactory.createGetter(getter);
+		m_setterAccessor = setter == null ? null : PropertyAccessorFactory.createSetter(setter);
 	}
 
 	public String getName() {
@@ -33,4 +44,18 @@ public class PropertyMapping {
 	public ITypeMapping getMapper() {
 		return m_mapper;
 	}
+
+	@Nullable
+	public Object getValue(@Nonnull Object instance) throws Exception {
+		return m_getterAccessor.get(instance);
+	}
+
+	/**
+	 * Set the value in the instance; does nothing if the property has no setter.
+	 */
+	public void setValue(@Nonnull Object instance, @Nullable Object value) throws Exception {
+		PropertyAccessorFactory.ISetter setter = m_setterAccessor;
+		if(null != setter)
+			setter.set(instance, value);
+	}
 }
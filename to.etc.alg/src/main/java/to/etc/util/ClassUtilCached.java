@@ -24,7 +24,6 @@
  */
 package to.etc.util;
 
-import java.lang.ref.*;
 import java.util.*;
 
 import javax.annotation.*;
@@ -44,26 +43,30 @@ public class ClassUtilCached {
 		@Nonnull
 		private Class<?>	m_theClass;
 
-		private Map<String, PropertyInfo>	m_propertyMap;
+		private volatile Map<String, PropertyInfo>	m_propertyMap;
 
-		private List<PropertyInfo>	m_propertyList;
+		private volatile List<PropertyInfo>	m_propertyList;
 
 		ClassInfo(@Nonnull Class< ? > theClass) {
 			m_theClass = theClass;
 		}
 
-		synchronized void initialize() {
+		void initialize() {
 			if(null != m_propertyList)
 				return;
+			synchronized(this) {
+				if(null == m_propertyList)
+					decode();
+			}
+		}
 
-			//-- Decode
+		private void decode() {
 			List<PropertyInfo> plist = ClassUtil.getProperties(m_theClass);
-			m_propertyList = Collections.unmodifiableList(plist);
-
 			Map<String, PropertyInfo> pmap = new HashMap<String, PropertyInfo>();
 			for(PropertyInfo pi : plist)
 				pmap.put(pi.getName(), pi);
 			m_propertyMap = Collections.unmodifiableMap(pmap);
+			m_propertyList = Collections.unmodifiableList(plist);		// Last: this marks the info as initialized
 		}
 
 		@Nonnull
@@ -82,8 +85,17 @@ public class ClassUtilCached {
 		}
 	}
 
-	/** The class discovery cache. */
-	private Map<Class< ? >, Reference<ClassInfo>>	m_classMap	= new HashMap<Class< ? >, Reference<ClassInfo>>();
+	/**
+	 * The class discovery cache. This used to be a map of weak references, but the ClassInfo is rarely
+	 * referenced by anything else, so it got discarded at every GC together with the property accessors
+	 * generated for it. ClassValue keeps it as long as the class itself lives, and needs no locking.
+	 */
+	private final ClassValue<ClassInfo> m_classMap = new ClassValue<ClassInfo>() {
+		@Override
+		protected ClassInfo computeValue(Class< ? > type) {
+			return new ClassInfo(type);
+		}
+	};
 
 	public ClassUtilCached() {
 	}
@@ -104,16 +116,7 @@ public class ClassUtilCached {
 	 */
 	@Nonnull
 	public ClassInfo getClassInfo(@Nonnull Class< ? > clz) {
-		ClassInfo ci = null;
-		synchronized(m_classMap) {
-			Reference<ClassInfo> rci = m_classMap.get(clz);
-			if(null != rci)
-				ci = rci.get();
-			if(null == ci) {
-				ci = new ClassInfo(clz);
-				m_classMap.put(clz, new WeakReference<ClassInfo>(ci));
-			}
-		}
+		ClassInfo ci = m_classMap.get(clz);
 		ci.initialize();
 		return ci;
 	}
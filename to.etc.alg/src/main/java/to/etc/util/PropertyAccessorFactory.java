@@ -0,0 +1,255 @@
+package to.etc.util;
+
+import java.lang.invoke.*;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.*;
+
+import javax.annotation.*;
+
+/**
+ * Creates getters and setters that call a property's methods directly instead of through
+ * Method.invoke(). The accessors are generated with LambdaMetafactory, which makes the JIT treat them
+ * like normal method calls: they can be inlined, and they do not box arguments into an array or wrap
+ * exceptions. Creating an accessor is expensive, so this should be done once per property; see
+ * {@link PropertyInfo}.
+ *
+ * <p>On Java 9 and later the accessor is defined in the property's own class through
+ * MethodHandles.privateLookupIn, so any method can be called. On Java 8 the accessor is defined in this
+ * class' class loader, so it is only generated for public methods on public classes that are visible
+ * from that loader; all other methods use reflection. Reflection is also used when generation fails for
+ * any other reason.</p>
+ *
+ * <p>Exceptions thrown by the property's method are thrown as-is by both kinds of accessor.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class PropertyAccessorFactory {
+	public interface IGetter {
+		@Nullable
+		Object get(@Nullable Object instance) throws Exception;
+	}
+
+	public interface ISetter {
+		void set(@Nullable Object instance, @Nullable Object value) throws Exception;
+	}
+
+	/** MethodHandles.privateLookupIn, only present on Java 9 and later. */
+	@Nullable
+	static private final Method m_privateLookupIn = findPrivateLookupIn();
+
+	static private volatile boolean m_disabled = DeveloperOptions.getBool("domui.reflectionaccessors", false);
+
+	private PropertyAccessorFactory() {}
+
+	@Nullable
+	static private Method findPrivateLookupIn() {
+		try {
+			return MethodHandles.class.getMethod("privateLookupIn", Class.class, Lookup.class);
+		} catch(Exception x) {
+			return null;
+		}
+	}
+
+	/**
+	 * When set, all accessors use reflection. For tests and benchmarks.
+	 */
+	static public void setDisabled(boolean disabled) {
+		m_disabled = disabled;
+	}
+
+	/**
+	 * Create a getter for the specified getter method.
+	 */
+	@Nonnull
+	static public IGetter createGetter(@Nonnull Method getter) {
+		makeAccessible(getter);
+		if(!m_disabled && isGeneratable(getter, getter.getReturnType())) {
+			try {
+				Class< ? > clz = getter.getDeclaringClass();
+				MethodHandles.Lookup lookup = getLookup(clz);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(IGetter.class), MethodType.methodType(Object.class, Object.class), lookup.unreflect(getter),
+					MethodType.methodType(box(getter.getReturnType()), clz));
+				return (IGetter) site.getTarget().invoke();
+			} catch(Throwable x) {
+				//-- Use reflection
+			}
+		}
+		return new ReflectionGetter(getter);
+	}
+
+	/**
+	 * Create a setter for the specified setter method. The setter checks the value's type before
+	 * calling the method, and throws IllegalArgumentException when it is not assignable, just like
+	 * Method.invoke() does.
+	 */
+	@Nonnull
+	static public ISetter createSetter(@Nonnull Method setter) {
+		if(setter.getParameterTypes().length != 1)
+			throw new IllegalArgumentException(setter + " is not a setter");
+		makeAccessible(setter);
+		Class< ? > type = setter.getParameterTypes()[0];
+		if(!m_disabled && isGeneratable(setter, type)) {
+			try {
+				Class< ? > clz = setter.getDeclaringClass();
+				MethodHandles.Lookup lookup = getLookup(clz);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "set", MethodType.methodType(ISetter.class), MethodType.methodType(void.class, Object.class, Object.class), lookup.unreflect(setter),
+					MethodType.methodType(void.class, clz, box(type)));
+				return new CheckedSetter((ISetter) site.getTarget().invoke(), type);
+			} catch(Throwable x) {
+				//-- Use reflection
+			}
+		}
+		return new ReflectionSetter(setter);
+	}
+
+	/**
+	 * Returns T if the value can be passed as a parameter of the specified type.
+	 */
+	static public boolean isAssignable(@Nonnull Class< ? > type, @Nullable Object value) {
+		if(null == value)
+			return !type.isPrimitive();
+		return box(type).isInstance(value);
+	}
+
+	static private void makeAccessible(@Nonnull Method m) {
+		try {
+			m.setAccessible(true);
+		} catch(Exception x) {
+			//-- Not allowed: public methods will still work.
+		}
+	}
+
+	/**
+	 * Can an accessor be generated for this method?
+	 */
+	static private boolean isGeneratable(@Nonnull Method m, @Nonnull Class< ? > valueType) {
+		if(Modifier.isStatic(m.getModifiers()))
+			return false;
+		if(m_privateLookupIn != null)
+			return true;
+
+		//-- Java 8: the accessor is defined in our own class, so it must be able to see and call the method.
+		Class< ? > clz = m.getDeclaringClass();
+		return Modifier.isPublic(m.getModifiers()) && Modifier.isPublic(clz.getModifiers()) && isVisible(clz) && isVisible(valueType);
+	}
+
+	static private boolean isVisible(@Nonnull Class< ? > clz) {
+		while(clz.isArray())
+			clz = clz.getComponentType();
+		if(clz.isPrimitive())
+			return true;
+		try {
+			return Class.forName(clz.getName(), false, PropertyAccessorFactory.class.getClassLoader()) == clz;
+		} catch(Throwable x) {
+			return false;
+		}
+	}
+
+	@Nonnull
+	static private MethodHandles.Lookup getLookup(@Nonnull Class< ? > clz) throws Exception {
+		Method privateLookupIn = m_privateLookupIn;
+		if(null == privateLookupIn)
+			return MethodHandles.lookup();
+		return (MethodHandles.Lookup) privateLookupIn.invoke(null, clz, MethodHandles.lookup());
+	}
+
+	@Nonnull
+	static private Class< ? > box(@Nonnull Class< ? > type) {
+		if(!type.isPrimitive())
+			return type;
+		if(type == int.class)
+			return Integer.class;
+		if(type == long.class)
+			return Long.class;
+		if(type == boolean.class)
+			return Boolean.class;
+		if(type == double.class)
+			return Double.class;
+		if(type == float.class)
+			return Float.class;
+		if(type == short.class)
+			return Short.class;
+		if(type == byte.class)
+			return Byte.class;
+		if(type == char.class)
+			return Character.class;
+		return Void.class;
+	}
+
+	/**
+	 * Rethrow the exception thrown by the invoked method itself.
+	 */
+	@Nonnull
+	static private Exception unwrap(@Nonnull InvocationTargetException itx) {
+		Throwable c = itx.getCause();
+		if(c instanceof Exception)
+			return (Exception) c;
+		if(c instanceof Error)
+			throw (Error) c;
+		return itx;
+	}
+
+	static private final class CheckedSetter implements ISetter {
+		@Nonnull
+		private final ISetter m_setter;
+
+		@Nonnull
+		private final Class< ? > m_type;
+
+		/** The boxed type, which the value must be an instance of. */
+		@Nonnull
+		private final Class< ? > m_valueType;
+
+		private final boolean m_primitive;
+
+		CheckedSetter(@Nonnull ISetter setter, @Nonnull Class< ? > type) {
+			m_setter = setter;
+			m_type = type;
+			m_valueType = box(type);
+			m_primitive = type.isPrimitive();
+		}
+
+		@Override
+		public void set(@Nullable Object instance, @Nullable Object value) throws Exception {
+			if(value == null ? m_primitive : !m_valueType.isInstance(value))
+				throw new IllegalArgumentException("argument type mismatch: " + (value == null ? "null" : value.getClass().getName()) + " cannot be assigned to " + m_type.getName());
+			m_setter.set(instance, value);
+		}
+	}
+
+	static final class ReflectionGetter implements IGetter {
+		@Nonnull
+		private final Method m_method;
+
+		ReflectionGetter(@Nonnull Method method) {
+			m_method = method;
+		}
+
+		@Override
+		public Object get(@Nullable Object instance) throws Exception {
+			try {
+				return m_method.invoke(instance);
+			} catch(InvocationTargetException itx) {
+				throw unwrap(itx);
+			}
+		}
+	}
+
+	static final class ReflectionSetter implements ISetter {
+		@Nonnull
+		private final Method m_method;
+
+		ReflectionSetter(@Nonnull Method method) {
+			m_method = method;
+		}
+
+		@Override
+		public void set(@Nullable Object instance, @Nullable Object value) throws Exception {
+			try {
+				m_method.invoke(instance, value);
+			} catch(InvocationTargetException itx) {
+				throw unwrap(itx);
+			}
+		}
+	}
+}
@@ -44,6 +44,13 @@ final public class PropertyInfo implements IPropertyAccessor {
 
 	final private Method	m_setter;
 
+	/** The generated accessors, created on first use. */
+	@Nullable
+	private volatile PropertyAccessorFactory.IGetter m_getterAccessor;
+
+	@Nullable
+	private volatile PropertyAccessorFactory.ISetter m_setterAccessor;
+
 	public PropertyInfo(String name, Method getter, Method setter) {
 		if(getter == null || name == null)
 			throw new IllegalStateException("Name or getter null not allowed");
@@ -108,21 +115,19 @@ final public class PropertyInfo implements IPropertyAccessor {
 	public Object getValue(@Nullable Object instance) throws Exception {
 		if(null == m_getter)
 			throw new IllegalAccessException("The property " + this + " does not have a getter method - it is writeonly");
-		try {
-			return m_getter.invoke(instance);
-		} catch(InvocationTargetException xte) {
-			throw WrappedException.unwrap(xte);
-		}
+		PropertyAccessorFactory.IGetter getter = m_getterAccessor;
+		if(null == getter)
+			m_getterAccessor = getter = PropertyAccessorFactory.createGetter(m_getter);
+		return getter.get(instance);
 	}
 
 	public void setValue(@Nullable Object instance, @Nullable Object value) throws Exception {
 		if(null == m_setter)
-			throw new IllegalAccessException("The property " + this + " does not have a getter method - it is writeonly");
-		try {
-			m_setter.invoke(instance, value);
-		} catch(InvocationTargetException xte) {
-			throw WrappedException.unwrap(xte);
-		}
+			throw new IllegalAccessException("The property " + this + " does not have a setter method - it is readonly");
+		PropertyAccessorFactory.ISetter setter = m_setterAccessor;
+		if(null == setter)
+			m_setterAccessor = setter = PropertyAccessorFactory.createSetter(m_setter);
+		setter.set(instance, value);
 	}
 
 	@Override
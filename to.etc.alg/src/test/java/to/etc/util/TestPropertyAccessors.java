@@ -0,0 +1,337 @@
+package to.etc.util;
+
+import java.math.*;
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+/**
+ * Checks the generated property accessors against reflection, and that copying all properties of a list
+ * of wide entities gives the same result with both. {@link PropertyAccessorBench} compares their speed.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPropertyAccessors {
+	static final int ROWS = 10_000;
+
+	static public class Wide {
+		private int m_id;
+
+		private long m_version;
+
+		private boolean m_active;
+
+		private double m_amount;
+
+		private char m_code;
+
+		private String m_name;
+
+		private String m_description;
+
+		private String m_street;
+
+		private String m_city;
+
+		private String m_zip;
+
+		private Integer m_count;
+
+		private Long m_reference;
+
+		private Boolean m_flag;
+
+		private BigDecimal m_price;
+
+		private Date m_created;
+
+		private Date m_modified;
+
+		public int getId() {
+			return m_id;
+		}
+
+		public void setId(int id) {
+			m_id = id;
+		}
+
+		public long getVersion() {
+			return m_version;
+		}
+
+		public void setVersion(long version) {
+			m_version = version;
+		}
+
+		public boolean isActive() {
+			return m_active;
+		}
+
+		public void setActive(boolean active) {
+			m_active = active;
+		}
+
+		public double getAmount() {
+			return m_amount;
+		}
+
+		public void setAmount(double amount) {
+			m_amount = amount;
+		}
+
+		public char getCode() {
+			return m_code;
+		}
+
+		public void setCode(char code) {
+			m_code = code;
+		}
+
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			m_name = name;
+		}
+
+		public String getDescription() {
+			return m_description;
+		}
+
+		public void setDescription(String description) {
+			m_description = description;
+		}
+
+		public String getStreet() {
+			return m_street;
+		}
+
+		public void setStreet(String street) {
+			m_street = street;
+		}
+
+		public String getCity() {
+			return m_city;
+		}
+
+		public void setCity(String city) {
+			m_city = city;
+		}
+
+		public String getZip() {
+			return m_zip;
+		}
+
+		public void setZip(String zip) {
+			if(null != zip && zip.length() > 6)
+				throw new IllegalArgumentException("zip too long");
+			m_zip = zip;
+		}
+
+		public Integer getCount() {
+			return m_count;
+		}
+
+		public void setCount(Integer count) {
+			m_count = count;
+		}
+
+		public Long getReference() {
+			return m_reference;
+		}
+
+		public void setReference(Long reference) {
+			m_reference = reference;
+		}
+
+		public Boolean getFlag() {
+			return m_flag;
+		}
+
+		public void setFlag(Boolean flag) {
+			m_flag = flag;
+		}
+
+		public BigDecimal getPrice() {
+			return m_price;
+		}
+
+		public void setPrice(BigDecimal price) {
+			m_price = price;
+		}
+
+		public Date getCreated() {
+			return m_created;
+		}
+
+		public void setCreated(Date created) {
+			m_created = created;
+		}
+
+		public Date getModified() {
+			return m_modified;
+		}
+
+		public void setModified(Date modified) {
+			m_modified = modified;
+		}
+	}
+
+	/** Not public, so on Java 8 this must use the reflection fallback. */
+	static class Hidden {
+		private String m_value;
+
+		String getValue() {
+			return m_value;
+		}
+
+		void setValue(String value) {
+			m_value = value;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		PropertyAccessorFactory.setDisabled(false);
+	}
+
+	@Nonnull
+	static private PropertyInfo property(@Nonnull Class< ? > clz, @Nonnull String name) {
+		for(PropertyInfo pi : ClassUtil.getProperties(clz)) {
+			if(pi.getName().equals(name))
+				return pi;
+		}
+		throw new IllegalStateException("No property " + name);
+	}
+
+	@Test
+	public void testGeneratedForPublicProperties() throws Exception {
+		PropertyInfo pi = property(Wide.class, "id");
+		Assert.assertFalse(PropertyAccessorFactory.createGetter(pi.getGetter()) instanceof PropertyAccessorFactory.ReflectionGetter);
+		Assert.assertFalse(PropertyAccessorFactory.createSetter(pi.getSetter()) instanceof PropertyAccessorFactory.ReflectionSetter);
+	}
+
+	@Test
+	public void testPrimitiveAndBoxedValues() throws Exception {
+		Wide w = new Wide();
+		property(Wide.class, "id").setValue(w, Integer.valueOf(12));
+		property(Wide.class, "active").setValue(w, Boolean.TRUE);
+		property(Wide.class, "code").setValue(w, Character.valueOf('x'));
+		property(Wide.class, "count").setValue(w, null);
+		property(Wide.class, "price").setValue(w, new BigDecimal("1.5"));
+
+		Assert.assertEquals(Integer.valueOf(12), property(Wide.class, "id").getValue(w));
+		Assert.assertEquals(Boolean.TRUE, property(Wide.class, "active").getValue(w));
+		Assert.assertEquals(Character.valueOf('x'), property(Wide.class, "code").getValue(w));
+		Assert.assertNull(property(Wide.class, "count").getValue(w));
+		Assert.assertEquals(new BigDecimal("1.5"), property(Wide.class, "price").getValue(w));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullToPrimitive() throws Exception {
+		property(Wide.class, "id").setValue(new Wide(), null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongValueType() throws Exception {
+		property(Wide.class, "version").setValue(new Wide(), Integer.valueOf(1));		// No widening, like Method.invoke
+	}
+
+	/**
+	 * Exceptions thrown by the setter itself must arrive unwrapped.
+	 */
+	@Test
+	public void testSetterException() throws Exception {
+		try {
+			property(Wide.class, "zip").setValue(new Wide(), "1234567");
+			Assert.fail("Expected exception");
+		} catch(IllegalArgumentException x) {
+			Assert.assertEquals("zip too long", x.getMessage());
+		}
+	}
+
+	@Test
+	public void testNonPublicClass() throws Exception {
+		Hidden h = new Hidden();
+		PropertyAccessorFactory.ISetter setter = PropertyAccessorFactory.createSetter(Hidden.class.getDeclaredMethod("setValue", String.class));
+		PropertyAccessorFactory.IGetter getter = PropertyAccessorFactory.createGetter(Hidden.class.getDeclaredMethod("getValue"));
+		setter.set(h, "hidden");
+		Assert.assertEquals("hidden", getter.get(h));
+	}
+
+	@Nonnull
+	static List<Wide> createRows() {
+		List<Wide> list = new ArrayList<>(ROWS);
+		for(int i = 0; i < ROWS; i++) {
+			Wide w = new Wide();
+			w.setId(i);
+			w.setVersion(i * 3L);
+			w.setActive((i & 1) == 0);
+			w.setAmount(i * 1.5);
+			w.setCode((char) ('a' + i % 26));
+			w.setName("name " + i);
+			w.setDescription("description " + i);
+			w.setStreet("street " + i);
+			w.setCity("city " + i % 100);
+			w.setZip("" + i % 10000);
+			w.setCount(Integer.valueOf(i % 1000));
+			w.setReference(Long.valueOf(i));
+			w.setFlag(Boolean.valueOf(i % 3 == 0));
+			w.setPrice(BigDecimal.valueOf(i, 2));
+			w.setCreated(new Date(i * 1000L));
+			w.setModified(new Date(i * 2000L));
+			list.add(w);
+		}
+		return list;
+	}
+
+	/**
+	 * Return fresh PropertyInfo's for all writable properties of {@link Wide}, so that their accessors are
+	 * created with the current factory setting.
+	 */
+	@Nonnull
+	static List<PropertyInfo> getCopyProperties() {
+		List<PropertyInfo> props = new ArrayList<>();
+		for(PropertyInfo pi : ClassUtil.getProperties(Wide.class)) {
+			if(pi.getSetter() != null)
+				props.add(new PropertyInfo(pi.getName(), pi.getGetter(), pi.getSetter()));
+		}
+		return props;
+	}
+
+	/**
+	 * Copy all properties of all rows to a new row.
+	 */
+	@Nonnull
+	static List<Wide> copyRows(@Nonnull List<PropertyInfo> props, @Nonnull List<Wide> rows) throws Exception {
+		List<Wide> target = new ArrayList<>(rows.size());
+		for(Wide src : rows) {
+			Wide dst = new Wide();
+			for(PropertyInfo pi : props)
+				pi.setValue(dst, pi.getValue(src));
+			target.add(dst);
+		}
+		return target;
+	}
+
+	private void checkCopy(@Nonnull List<Wide> rows, boolean reflection) throws Exception {
+		PropertyAccessorFactory.setDisabled(reflection);
+		List<PropertyInfo> props = getCopyProperties();
+		Assert.assertEquals(16, props.size());
+		List<Wide> target = copyRows(props, rows);
+		for(int i = 0; i < rows.size(); i++) {
+			for(PropertyInfo pi : props)
+				Assert.assertEquals(pi.getName() + " of row " + i, pi.getValue(rows.get(i)), pi.getValue(target.get(i)));
+		}
+	}
+
+	@Test
+	public void testCopy() throws Exception {
+		List<Wide> rows = createRows();
+		checkCopy(rows, true);
+		checkCopy(rows, false);
+	}
+}
@@ -29,6 +29,8 @@ import java.math.*;
 import java.sql.*;
 import java.util.*;
 import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
 import javax.annotation.*;
@@ -170,6 +172,13 @@ import to.etc.dbpool.info.*;
  * check for a threadconnection first causes a shitload of trouble when that connection
  * gets closed.
  *
+ * <h2>Locking</h2>
+ * <p>Allocating and releasing pooled connections does not lock the pool. Free entries are kept in a
+ * lock-free stack, the connections in use in a concurrent set, and all counters are atomic. The number
+ * of pooled connections in use is bounded by a fair semaphore with one permit per connection: when all
+ * connections are in use callers wait for a permit in FIFO order, with a timeout. The pool's monitor
+ * is only used for configuration, listeners and the error list.</p>
+ *
  * @author 	jal
  * @version $Version$
  */
@@ -194,80 +203,87 @@ final public class ConnectionPool {
 	private Driver m_driver;
 
 	/** T if this pool is set to pooled mode. */
-	private boolean m_isPooled;
+	private volatile boolean m_isPooled;
 
 	/** The properties to pass to the driver's connect method. */
 	private final Properties m_properties = new Properties();
 
 	/** When T this pool has been destroyed and cannot be used anymore. */
-	private boolean m_destroyed;
+	private volatile boolean m_destroyed;
 
 	/** The dbtype obtained from the driver. */
 	private DbType m_dbType = DbType.UNKNOWN;
 
 	/** The CALCULATED SQL statement that is to be sent as a check for valid cnnections, if m_check is null. */
-	private String m_check_calc;
+	private volatile String m_check_calc;
 
 	/** Per-thread configuration of connection handling for debug and JUnit test purposes. */
 	private ThreadLocal<ThreadConfig> m_threadConfig = new ThreadLocal<ThreadConfig>();
 
 	/*---------- Connection administration ---------------------------*/
-	/** All connection entries that are allocated but free for use. */
-	private Stack<PoolEntry> m_freeList = new Stack<PoolEntry>();
+	/** All connection entries that are allocated but free for use. Used as a stack, so that the most recently used connection is reused first. */
+	private final ConcurrentLinkedDeque<PoolEntry> m_freeList = new ConcurrentLinkedDeque<PoolEntry>();
 
 	/** The connections that are currently in use (both pooled and unpooled), */
-	private Set<PoolEntry> m_usedSet = new HashSet<PoolEntry>();
+	private final Set<PoolEntry> m_usedSet = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * One permit for every pooled connection that may be in use. A pooled allocation takes a permit
+	 * before it takes or creates a connection, and returns it when the connection is released. The
+	 * semaphore is fair, so callers that have to wait get their connection in FIFO order.
+	 */
+	private final Semaphore m_usePermits;
 
 	/** The current #of allocated and used unpooled connections. */
-	private int m_unpooledAllocatedCount;
+	private final AtomicInteger m_unpooledAllocatedCount = new AtomicInteger();
 
-	private int m_unpooledMaxUsed;
+	private final AtomicInteger m_unpooledMaxUsed = new AtomicInteger();
 
 	/**
 	 * The current #of connections allocated for the POOL. This does NOT include
 	 * the unpooled connections. The total #of connections used by the pool is
 	 * the sum of this variable plus m_n_unpooled_inuse.
 	 */
-	private int m_pooledAllocatedCount;
+	private final AtomicInteger m_pooledAllocatedCount = new AtomicInteger();
 
 	/** The current #of connections used by the clients of the pool, */
-	private int m_pooledUsedCount;
+	private final AtomicInteger m_pooledUsedCount = new AtomicInteger();
 
 	/** The max. #of connections that was simultaneously used by the pool. */
-	private int m_pooledMaxUsed;
+	private final AtomicInteger m_pooledMaxUsed = new AtomicInteger();
 
 	/** #of connection allocations (alloc/free) done. */
-	private int m_poolAllocationCount;
+	private final AtomicInteger m_poolAllocationCount = new AtomicInteger();
 
 	/** #of connection allocations directly from the database.. */
-	private int m_databaseAllocationCount;
+	private final AtomicInteger m_databaseAllocationCount = new AtomicInteger();
 
 	/** The #of times we had to wait for a pooled connection. */
-	private int m_n_connectionwaits;
+	private final AtomicInteger m_n_connectionwaits = new AtomicInteger();
 
 	/** The #of times we failed an allocation because all pooled connections were used. */
-	private int m_n_connectionfails;
+	private final AtomicInteger m_n_connectionfails = new AtomicInteger();
 
 	/** The #of connections that were disconnected because they were assumed to be hanging. */
-	private int m_n_hangdisconnects;
+	private final AtomicInteger m_n_hangdisconnects = new AtomicInteger();
 
 	/** The connections last found in the expiry scanner that look to be hanging. */
-	private List<ConnectionProxy> m_currentlyHangingConnections = Collections.EMPTY_LIST;
+	private volatile List<ConnectionProxy> m_currentlyHangingConnections = Collections.EMPTY_LIST;
 
 	/** The connections last released by the connection scanner. */
 	private List<ConnectionProxy> m_releasedConnections = Collections.EMPTY_LIST;
 
 	/** The #of statements CURRENTLY allocated by the pool */
-	protected int m_n_open_stmt;
+	private final LongAdder m_n_open_stmt = new LongAdder();
 
-	/** The #of statements MAX allocated by the pool */
-	protected int m_peak_open_stmt;
+	/** The #of statements MAX allocated by the pool, sampled when statistics are taken or the pool is scanned. */
+	private final AtomicInteger m_peak_open_stmt = new AtomicInteger();
 
 	/** The #of resultsets opened by all statements in the pool */
-	protected long m_n_open_rs;
+	private final LongAdder m_n_open_rs = new LongAdder();
 
 	/** The #of prepare statements executed. */
-	protected long m_statementTotalPrepareCount;
+	private final LongAdder m_statementTotalPrepareCount = new LongAdder();
 
 	/// The #of rows returned.
 	@Deprecated
@@ -285,15 +301,15 @@ final public class ConnectionPool {
 	private final int m_conntime_warning_ms = 8000;
 
 	/** T if this pool has stack tracing enabled. */
-	protected boolean m_dbg_stacktrace = true;
+	protected volatile boolean m_dbg_stacktrace = true;
 
 	/** The sequence generator for entries. */
-	private int m_entryidgen;
+	private final AtomicInteger m_entryidgen = new AtomicInteger();
 
 	private volatile int m_forceTimeout;
 
 	/** Per-pool attributes that can be used for extensions. */
-	final private Map<String, Object> m_attributeMap = new HashMap<>();
+	final private Map<String, Object> m_attributeMap = new ConcurrentHashMap<>();
 
 	@Nullable
 	private IConnectionStatisticsFactory m_connectionStatisticsFactory;
@@ -312,7 +328,7 @@ final public class ConnectionPool {
 	}
 
 	@Nonnull
-	private List<IPoolEvent> m_poolListeners = Collections.EMPTY_LIST;
+	private volatile List<IPoolEvent> m_poolListeners = Collections.EMPTY_LIST;
 
 	private boolean m_hasPlSqlHandler;
 
@@ -320,6 +336,7 @@ final public class ConnectionPool {
 		m_manager = pm;
 		m_id = id;
 		m_config = config;
+		m_usePermits = new Semaphore(config.getMaxConns(), true);
 	}
 
 	/**
@@ -353,7 +370,7 @@ final public class ConnectionPool {
 	}
 
 	@Nonnull
-	private synchronized List<IPoolEvent> getPoolListeners() {
+	private List<IPoolEvent> getPoolListeners() {
 		return m_poolListeners;
 	}
 
@@ -555,9 +572,7 @@ final public class ConnectionPool {
 
 		while(tries-- > 0) {
 			Connection dbc = null;
-			synchronized(this) {
-				m_databaseAllocationCount++;
-			}
+			m_databaseAllocationCount.incrementAndGet();
 
 			try {
 				//				ALLOC.msg(m_id+": get connection on "+m_url+", uid="+m_uid);
@@ -612,11 +627,11 @@ final public class ConnectionPool {
 			//-- Allocate to the min. #of connections. If it fails we die.
 			for(int i = 0; i < c().getMinConns(); i++) {
 				Connection c = getCheckedConnection();
-				PoolEntry pe = new PoolEntry(c, this, m_entryidgen++, c().getUid());
-				m_freeList.add(pe);
+				PoolEntry pe = new PoolEntry(c, this, m_entryidgen.getAndIncrement(), c().getUid());
+				m_freeList.addFirst(pe);
 				if(c().isSqlTraceMode())
 					pe.setSqlTraceMode(true);
-				m_pooledAllocatedCount++;
+				m_pooledAllocatedCount.incrementAndGet();
 			}
 			m_isPooled = true;
 			System.out.println(m_pooledAllocatedCount + " connections allocated, okay.");
@@ -635,27 +650,27 @@ final public class ConnectionPool {
 			return;
 
 		//-- We are no longer reachable from the pool manager- destroy ourself in piece.
-		Set<PoolEntry> usedset;
-		Stack<PoolEntry> freelist;
+		List<PoolEntry> usedset;
+		List<PoolEntry> freelist;
 		synchronized(this) {
 			if(m_destroyed)
 				return;
 			m_destroyed = true;
 
-			usedset = m_usedSet;
-			freelist = m_freeList;
-			m_usedSet = new HashSet<PoolEntry>();
-			m_freeList = new Stack<PoolEntry>();
-			m_statementTotalPrepareCount = 0;
-			m_n_open_rs = 0;
-			m_n_open_stmt = 0;
-			m_pooledUsedCount = 0;
-			m_pooledAllocatedCount = 0;
+			usedset = new ArrayList<PoolEntry>(m_usedSet);
+			freelist = new ArrayList<PoolEntry>(m_freeList);
+			m_usedSet.clear();
+			m_freeList.clear();
+			m_statementTotalPrepareCount.reset();
+			m_n_open_rs.reset();
+			m_n_open_stmt.reset();
+			m_pooledUsedCount.set(0);
+			m_pooledAllocatedCount.set(0);
 			m_n_rows = 0;
-			m_unpooledAllocatedCount = 0;
+			m_unpooledAllocatedCount.set(0);
 			m_isPooled = false;
-			m_pooledMaxUsed = 0;
-			m_peak_open_stmt = 0;
+			m_pooledMaxUsed.set(0);
+			m_peak_open_stmt.set(0);
 		}
 
 		deinitPool(freelist);
@@ -677,7 +692,7 @@ final public class ConnectionPool {
 		}
 	}
 
-	private synchronized void usable() {
+	private void usable() {
 		if(m_destroyed)
 			throw new IllegalStateException("This pool(" + getID() + ") has been destroyed.");
 	}
@@ -691,8 +706,8 @@ final public class ConnectionPool {
 	 * @param what
 	 * @param dbc
 	 */
-	private synchronized void dbgAlloc(final String what, final Connection dbc) {
-		m_poolAllocationCount++;
+	private void dbgAlloc(final String what, final Connection dbc) {
+		m_poolAllocationCount.incrementAndGet();
 		if(c().isLogAllocation() || c().isLogAllocationStack()) {
 			System.out.println("DEBUG: pool(" + m_id + ") ALLOCATED connection " + dbc);
 			if(c().isLogAllocationStack()) {
@@ -709,7 +724,7 @@ final public class ConnectionPool {
 		ALLOC.fine(sb.toString());
 	}
 
-	public synchronized void dbgRelease(final String what, final Connection dbc) {
+	public void dbgRelease(final String what, final Connection dbc) {
 		if(c().isLogAllocation() || c().isLogAllocationStack()) {
 			System.out.println("DEBUG: pool(" + m_id + ") CLOSED connection " + dbc + " (back to pool set)");
 			if(c().isLogAllocationStack()) {
@@ -736,127 +751,149 @@ final public class ConnectionPool {
 	 * this returns null. In all cases where a wait is needed will the wait variable
 	 * be incremented.
 	 *
-	 * <p>If the freelist is exhausted we need to allocate a new connection, if
-	 * allowed. This needs to be done outside the lock because JDBC can lock too
-	 * and this would cause the pool to be locked while a connection gets allocated.
-	 * Before allocating the connection we up the connection counts to ensure that
-	 * the connection count is not exceeded.
+	 * <p>A pooled allocation first takes a use permit. This is the only place where
+	 * callers wait, and waiters are served in FIFO order. A newly arriving thread may
+	 * take a permit that is free without queueing; forcing it to queue behind the
+	 * waiters would make every allocation park once the pool is busy, which is the
+	 * convoy this is meant to prevent. The timed wait still bounds the time a waiter
+	 * can be overtaken. With a permit there is either a free connection, or the pool has room to
+	 * allocate a new one. The new connection is allocated without holding any lock
+	 * because JDBC can lock too; before allocating it the connection counts are
+	 * upped to ensure that the connection count is not exceeded.
 	 *
 	 * @return
 	 * @throws SQLException
 	 */
 	private PoolEntry allocateConnectionInner(final boolean unpooled) throws SQLException {
-		int newid = 0;
-		long ets = -1; // No end time yet known
+		usable();
+		if(unpooled)
+			return allocateUnpooledEntry();
 
-		synchronized(this) {
-			//-- Inner loop: check if we CAN allocate any way. This loop blocks on connection expiry.
+		try {
+			if(!m_usePermits.tryAcquire()) {
+				//-- Auch! Nothing! Wait till a connection is released!!
+				m_n_connectionwaits.incrementAndGet();
+				if(!m_usePermits.tryAcquire(10, TimeUnit.SECONDS))
+					return null;
+			}
+		} catch(InterruptedException e) {
+			throw new SQLException("dbPool " + m_id + ": interrupted while waiting for connection to become available");
+		}
+
+		boolean ok = false;
+		try {
 			for(;;) {
 				usable();
 
 				//-- 1. Is a connection available in the free pool?
-				while(!m_freeList.isEmpty()) {
-					PoolEntry pe = m_freeList.pop();
-					m_usedSet.add(pe); // Saved used entry.
-					pe.setUnpooled(unpooled); // Tell the entry whether it is a pooled one or not
-
-					if(unpooled) {
-						/*
-						 * Unpooled connections are no longer part of the pool. Because
-						 * this connection was gotten from the pooled set we decrement
-						 * the "connections allocated" for the pool.
-						 */
-						m_pooledAllocatedCount--; // One less allocated in the poolset.
-						m_unpooledAllocatedCount++; // And one more in use
-						if(m_unpooledAllocatedCount > m_unpooledMaxUsed)
-							m_unpooledMaxUsed = m_unpooledAllocatedCount;
-					} else {
-						//-- Unpooled connections influence the "used" count.
-						m_pooledUsedCount++;
-						if(m_pooledUsedCount > m_pooledMaxUsed)
-							m_pooledMaxUsed = m_pooledUsedCount;
-					}
+				PoolEntry pe = m_freeList.pollFirst();
+				if(null != pe) {
+					pe.setUnpooled(false);
+					m_usedSet.add(pe);
+					incPooledUsed();
+					ok = true;
 					return pe;
 				}
 
-				//-- 2. No free connections. Can we allocate another one?
-				if(m_pooledAllocatedCount < c().getMaxConns() || unpooled) {
-					/*
-					 * We may allocate a new connection. Update data to show
-					 * that we allocate one, then break the loop to do the
-					 * actual allocation OUTSIDE the lock. This makes sure that
-					 * the connection count is not exceeded while we allocate
-					 * another connection.
-					 */
-					if(!unpooled) {
-						m_pooledAllocatedCount++; // Increment actual allocation count
-						m_pooledUsedCount++; // One more used,
-						if(m_pooledUsedCount > m_pooledMaxUsed)
-							m_pooledMaxUsed = m_pooledUsedCount;
-					} else {
-						m_unpooledAllocatedCount++;
-						if(m_unpooledAllocatedCount > m_unpooledMaxUsed)
-							m_unpooledMaxUsed = m_unpooledAllocatedCount;
+				//-- 2. No free connections. We may allocate another one if the pool is not full.
+				if(reservePooledSlot()) {
+					incPooledUsed();
+					try {
+						pe = createEntry(false);
+					} finally {
+						if(null == pe) {
+							//-- Decrement all counters that were upped assuming the code worked.
+							m_pooledAllocatedCount.decrementAndGet();
+							m_pooledUsedCount.decrementAndGet();
+						}
 					}
-
-					//-- Save data for the creation later,
-					newid = m_entryidgen++;
-					break; // Enter the "allocate new" code.
-				}
-
-				//-- 3. Auch! Nothing! Wait till a connection is released!!
-				m_n_connectionwaits++;
-				long cts = System.currentTimeMillis();
-				if(ets == -1) {
-					//-- This is the 1st time through the loop: set the end time;
-					ets = cts + 10 * 1000; // Delay max. 10 secs
-				} else if(cts >= ets) {
-					//-- We have waited too long- return failure and release lock
-					return null;
+					ok = true;
+					return pe;
 				}
 
-				//-- We're allowed to wait.
-				try {
-					wait(10000); // Wait max. 10 secs,
-				} catch(InterruptedException e) {
-					throw new SQLException("dbPool " + m_id + ": interrupted while waiting for connection to become available");
-				}
+				/*
+				 * 3. The pool is full but no connection is free, while we have a permit. This means
+				 * a connection is being moved to the free list by another thread right now.
+				 */
+				Thread.yield();
 			}
+		} finally {
+			if(!ok)
+				m_usePermits.release();
 		}
+	}
 
-		/*
-		 * When here we're NO longer locking the pool AND we are allowed to allocate a
-		 * new connection. The connection has already been counted in. This
-		 * must be done outside a lock because JDBC (Oracle driver) may lock also.
-		 */
-		boolean ok = false;
-		PoolEntry pe = null;
-		try {
-			//-- Allocate a connection AND A new proxydude
-			Connection c = getCheckedConnection();
-			pe = new PoolEntry(c, this, newid, c().getUid());
-			pe.setUnpooled(unpooled);
-			if(c().isSqlTraceMode())
-				pe.setSqlTraceMode(true);
-			ok = true;
+	/**
+	 * Unpooled connections are not limited: take a free connection from the pool if one is available,
+	 * else allocate a new one.
+	 */
+	private PoolEntry allocateUnpooledEntry() throws SQLException {
+		PoolEntry pe = m_freeList.pollFirst();
+		if(null != pe) {
+			/*
+			 * Unpooled connections are no longer part of the pool. Because
+			 * this connection was gotten from the pooled set we decrement
+			 * the "connections allocated" for the pool.
+			 */
+			m_pooledAllocatedCount.decrementAndGet();	// One less allocated in the poolset.
+			pe.setUnpooled(true);
+			m_usedSet.add(pe);
+			incUnpooledAllocated();
 			return pe;
+		}
+
+		incUnpooledAllocated();
+		try {
+			pe = createEntry(true);
 		} finally {
-			//-- We need to handle accounting!!
-			synchronized(this) {
-				if(ok) {
-					m_usedSet.add(pe);
-				} else {
-					//-- Decrement all counters that were upped assuming the code worked.
-					if(!unpooled) {
-						m_pooledAllocatedCount--;
-						m_pooledUsedCount--;
-					} else
-						m_unpooledAllocatedCount--;
-				}
-			}
+			if(null == pe)
+				m_unpooledAllocatedCount.decrementAndGet();
+		}
+		return pe;
+	}
+
+	/**
+	 * Allocate a new connection and its entry, and register it as used. The connection must
+	 * have been counted in already. Must be called outside any lock because JDBC (Oracle driver)
+	 * may lock also.
+	 */
+	private PoolEntry createEntry(boolean unpooled) throws SQLException {
+		//-- Allocate a connection AND A new proxydude
+		Connection c = getCheckedConnection();
+		PoolEntry pe = new PoolEntry(c, this, m_entryidgen.getAndIncrement(), c().getUid());
+		pe.setUnpooled(unpooled);
+		if(c().isSqlTraceMode())
+			pe.setSqlTraceMode(true);
+		m_usedSet.add(pe);
+		return pe;
+	}
+
+	/**
+	 * Count one more connection for the pool, if that does not exceed the pool's max #of connections.
+	 * @return	false if the pool is full.
+	 */
+	private boolean reservePooledSlot() {
+		int max = c().getMaxConns();
+		for(;;) {
+			int count = m_pooledAllocatedCount.get();
+			if(count >= max)
+				return false;
+			if(m_pooledAllocatedCount.compareAndSet(count, count + 1))
+				return true;
 		}
 	}
 
+	private void incPooledUsed() {
+		int count = m_pooledUsedCount.incrementAndGet();
+		if(count > m_pooledMaxUsed.get())
+			m_pooledMaxUsed.accumulateAndGet(count, Math::max);
+	}
+
+	private void incUnpooledAllocated() {
+		int count = m_unpooledAllocatedCount.incrementAndGet();
+		if(count > m_unpooledMaxUsed.get())
+			m_unpooledMaxUsed.accumulateAndGet(count, Math::max);
+	}
 
 	/**
 	 * Allocates a connection or aborts if it is impossible to do so within
@@ -895,14 +932,14 @@ final public class ConnectionPool {
 			}
 
 			if(ctries > 5) { // If too many retries abort,
-				m_n_connectionfails++;
+				m_n_connectionfails.incrementAndGet();
 				StringBuilder sb = new StringBuilder(1024 * 1024);
 				dumpUsedConnections(sb);
 				String msg = sb.toString();
 				saveError("No more database connections for pool=" + getID() + " - ABORTING REQUEST", msg);
 				throw new SQLException("PANIC: Could not obtain a database connection - pool is exhausted!");
 			}
-			m_n_connectionwaits++;
+			m_n_connectionwaits.incrementAndGet();
 
 
 		}
@@ -916,9 +953,7 @@ final public class ConnectionPool {
 			return pe;
 
 		//-- We're dyyyyyying.....
-		synchronized(this) {
-			m_n_connectionfails++;
-		}
+		m_n_connectionfails.incrementAndGet();
 		throw new SQLException("PANIC: Could not obtain a database connection - pool is exhausted (and no connections can be forcefully released)!");
 	}
 
@@ -958,52 +993,47 @@ final public class ConnectionPool {
 			ex.printStackTrace();
 			throw ex;
 		} finally {
-			synchronized(this) {
-				/*
-				 * If the reset was okay AND the connection count does not exceed
-				 * the max count we return this to the pool, else we discard the
-				 * connection.
-				 */
-				boolean unpooled = pe.isUnpooled();
-				if(ok) {
-					if(unpooled && (m_pooledAllocatedCount >= c().getMaxConns() || !pe.getUserID().equals(c().getUid()))) // Unpooled are returned only when #allocated not too big,
-						ok = false; // ok=false means do not re-use the connection
+			/*
+			 * If the reset was okay AND the connection count does not exceed
+			 * the max count we return this to the pool, else we discard the
+			 * connection.
+			 */
+			boolean unpooled = pe.isUnpooled();
+			if(ok && unpooled) {
+				if(!pe.getUserID().equals(c().getUid()) || !reservePooledSlot()) // Unpooled are returned only when #allocated not too big,
+					ok = false; // ok=false means do not re-use the connection
+			}
+			if(ok) {
+				//-- We are sure that we want to put this back into the poolset's free list.
+				if(!m_usedSet.remove(pe)) {
+					//--cannot happen.
+					if(unpooled)
+						m_pooledAllocatedCount.decrementAndGet();
+					String subj = "pool(" + m_id + "): connection not in USED pool??";
+					StringBuilder sb = new StringBuilder(65536);
+					sb.append("Connection not in used pool! Location of release is:\n");
+					DbPoolUtil.getThreadAndLocation(sb);
+					sb.append("\n\nConnection dump:\n");
+					DbPoolUtil.printTracepoints(new StringPrinter(sb), pc, true);
+					String msg = sb.toString();
+					saveError(subj, msg);
+					m_manager.panic(subj, msg);
+					throw new IllegalStateException(subj);
 				}
-				if(ok) {
-					//-- We are sure that we want to put this back into the poolset's free list.
-					if(!m_usedSet.remove(pe)) {
-						//--cannot happen.
-						String subj = "pool(" + m_id + "): connection not in USED pool??";
-						StringBuilder sb = new StringBuilder(65536);
-						sb.append("Connection not in used pool! Location of release is:\n");
-						DbPoolUtil.getThreadAndLocation(sb);
-						sb.append("\n\nConnection dump:\n");
-						DbPoolUtil.printTracepoints(new StringPrinter(sb), pc, true);
-						String msg = sb.toString();
-						saveError(subj, msg);
-						m_manager.panic(subj, msg);
-						throw new IllegalStateException(subj);
-					}
-					if(unpooled) {
-						m_unpooledAllocatedCount--; // Decrement #of unpooled, because this moves to pooled.
-						m_pooledAllocatedCount++; // Unpooled means another allocated one now
-					} else
-						m_pooledUsedCount--; // Decrement pool use count for pooled,
-					m_freeList.push(pe);
-					pe = null; // Make sure we do not use this again ;-)
-					dbgRelease("returned to pool", pc);
+				if(unpooled)
+					m_unpooledAllocatedCount.decrementAndGet(); // Decrement #of unpooled, because this moves to pooled.
+				m_freeList.addFirst(pe);
+				if(!unpooled) {
+					m_pooledUsedCount.decrementAndGet(); // Decrement pool use count for pooled,
+					m_usePermits.release(); // and let the first waiter, if any, have it
 				}
-
-				//-- Notify any waiters that another slot is available
-				//				System.out.println("POOL["+m_id+"]: connection returned, #used is "+m_n_used);
-				try {
-					notify();
-				} catch(Exception x) {}
+				pe = null; // Make sure we do not use this again ;-)
+				dbgRelease("returned to pool", pc);
 			}
 			if(ok)
 				return;
 
-			//-- If the code above was not OK we need to discard outside of the lock
+			//-- If the code above was not OK we need to discard the connection
 			discardEntry(pe);
 		}
 	}
@@ -1014,14 +1044,7 @@ final public class ConnectionPool {
 	 * this. The database connection itself is released elsewhere.
 	 * @param pe
 	 */
-	synchronized void removeEntryFromPool(PoolEntry pe) {
-		boolean unpooled = pe.isUnpooled();
-		if(unpooled)
-			m_unpooledAllocatedCount--; // #of unpooled is one down
-		else {
-			m_pooledUsedCount--;
-			m_pooledAllocatedCount--; // One less allocated because it's connection will be/is freed.
-		}
+	void removeEntryFromPool(PoolEntry pe) {
 		if(!m_usedSet.remove(pe)) {
 			//-- cannot happen.
 			//			String subj = "pool(" + m_id + "): connection not in USED pool??";
@@ -1030,6 +1053,21 @@ final public class ConnectionPool {
 			DbPoolUtil.getThreadAndLocation(sb);
 			String msg = sb.toString();
 			System.out.println(msg);
+			return;									// Do not count it twice
+		}
+		releaseCounts(pe);
+	}
+
+	/**
+	 * Uncount an entry that is removed from the used set and will not return to the pool.
+	 */
+	private void releaseCounts(PoolEntry pe) {
+		if(pe.isUnpooled())
+			m_unpooledAllocatedCount.decrementAndGet(); // #of unpooled is one down
+		else {
+			m_pooledAllocatedCount.decrementAndGet(); // One less allocated because it's connection will be/is freed.
+			m_pooledUsedCount.decrementAndGet();
+			m_usePermits.release();
 		}
 	}
 
@@ -1043,28 +1081,18 @@ final public class ConnectionPool {
 	private void discardEntry(final PoolEntry pe) {
 		String subj = null;
 		String msg = null;
-		synchronized(this) {
-			if(!pe.isUnpooled()) { // Discarding pooled means current allocation count must be decremented.
-				m_pooledAllocatedCount--; // One less allocated in the pool
-				m_pooledUsedCount--; // And one less used,
-			} else
-				m_unpooledAllocatedCount--;
-			//System.out.println("DISCARD pool=" + m_id + " connection discarded to server; conns=" + m_pooledAllocatedCount + ", #unpooled=" + m_unpooledAllocatedCount);
-
-			if(!m_usedSet.remove(pe)) {
-				subj = "pool(" + m_id + "): connection not in USED pool??";
-				StringBuilder sb = new StringBuilder(65536);
-				sb.append("Connection not in used pool! Location of release is:\n");
-				DbPoolUtil.getThreadAndLocation(sb);
-				//				sb.append("\n\nConnection stack dump:\n");
-				//				DbPoolUtil.printTracepoints(sb, )
-				msg = sb.toString();
-				saveError(subj, msg);
-			}
-
-			try {
-				notify();
-			} catch(Exception x) {}
+		//System.out.println("DISCARD pool=" + m_id + " connection discarded to server; conns=" + m_pooledAllocatedCount + ", #unpooled=" + m_unpooledAllocatedCount);
+		if(m_usedSet.remove(pe)) {
+			releaseCounts(pe);					// Discarding pooled means current allocation count must be decremented.
+		} else {
+			subj = "pool(" + m_id + "): connection not in USED pool??";
+			StringBuilder sb = new StringBuilder(65536);
+			sb.append("Connection not in used pool! Location of release is:\n");
+			DbPoolUtil.getThreadAndLocation(sb);
+			//				sb.append("\n\nConnection stack dump:\n");
+			//				DbPoolUtil.printTracepoints(sb, )
+			msg = sb.toString();
+			saveError(subj, msg);
 		}
 
 		/*
@@ -1084,8 +1112,9 @@ final public class ConnectionPool {
 	/*	CODING:	Accessing all connections.							*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Get a list of all ConnextionProxy's currently in use. It gets that list with
-	 * "this" locked but locks nothing else. The entries returned are live, so by the
+	 * Get a list of all ConnextionProxy's currently in use. It gets that list without
+	 * locking the pool. Entries that are just being handed out or returned have
+	 * no proxy; these are skipped. The entries returned are live, so by the
 	 * time you are using them they can be dead (because they are closed/invalidated
 	 * at that time).
 	 * <p>We return the proxies, not the entries, because the proxies remain valid for
@@ -1095,16 +1124,13 @@ final public class ConnectionPool {
 	 * @return
 	 */
 	public List<ConnectionProxy> getUsedConnections() {
-		synchronized(this) {
-			List<ConnectionProxy> res = new ArrayList<ConnectionProxy>(m_usedSet.size());
-			for(PoolEntry pe : m_usedSet) {
-				ConnectionProxy px = pe.getProxy();
-				if(px == null) // cannot happen
-					throw new IllegalStateException("POOLERR: proxy is null on USED entry=" + pe);
+		List<ConnectionProxy> res = new ArrayList<ConnectionProxy>(m_usedSet.size());
+		for(PoolEntry pe : m_usedSet) {
+			ConnectionProxy px = pe.getProxy();
+			if(px != null)
 				res.add(px);
-			}
-			return res;
 		}
+		return res;
 	}
 
 	/**
@@ -1140,10 +1166,7 @@ final public class ConnectionPool {
 	 */
 	public Connection getUnpooledConnection(String username, String password) throws SQLException {
 		IConnectionEventListener d = m_manager.getConnectionEventListener();
-		int newid;
-		synchronized(this) {
-			newid = m_entryidgen++;
-		}
+		int newid = m_entryidgen.getAndIncrement();
 
 		boolean ok = false;
 		PoolEntry pe = null;
@@ -1160,11 +1183,9 @@ final public class ConnectionPool {
 			return dbc;
 		} finally {
 			//-- We need to handle accounting!!
-			synchronized(this) {
-				if(ok) {
-					m_unpooledAllocatedCount++;
-					m_usedSet.add(pe);
-				}
+			if(ok) {
+				incUnpooledAllocated();
+				m_usedSet.add(pe);
 			}
 		}
 	}
@@ -1196,10 +1217,9 @@ final public class ConnectionPool {
 		/*
 		 * Report the result of the hang check. At this point all actions have already been taken.
 		 */
-		synchronized(this) {
-			m_n_hangdisconnects += hs.getDestroyCount();
-			m_currentlyHangingConnections = hs.getHangingList();
-		}
+		m_n_hangdisconnects.addAndGet(hs.getDestroyCount());
+		m_currentlyHangingConnections = hs.getHangingList();
+		sampleOpenStatementPeak();
 
 		//-- Always at least log the result @ sysout.
 		String report = hs.getReport();
@@ -1214,7 +1234,7 @@ final public class ConnectionPool {
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Connection usage time statistics.					*/
 	/*--------------------------------------------------------------*/
-	private final int[] m_usetime_ar = new int[10];
+	private final AtomicIntegerArray m_usetime_ar = new AtomicIntegerArray(10);
 
 	static private final int[] TIMES = new int[]{10, 20, 50, 100, 250, 500, 1000, 2000, 4000};
 
@@ -1242,9 +1262,7 @@ final public class ConnectionPool {
 	void handleConnectionUsageTime(final ConnectionProxy pe, final long ut) {
 		//-- Add to statistics.
 		int slot = getTimeSlot(ut);
-		synchronized(m_usetime_ar) {
-			m_usetime_ar[slot]++;
-		}
+		m_usetime_ar.incrementAndGet(slot);
 		if(ut < m_conntime_warning_ms)
 			return;
 		//
@@ -1265,11 +1283,10 @@ final public class ConnectionPool {
 	}
 
 	public int[] getUseTimeTable() {
-		int[] ar = new int[m_usetime_ar.length];
-		synchronized(m_usetime_ar) {
-			System.arraycopy(m_usetime_ar, 0, ar, 0, m_usetime_ar.length);
-			return ar;
-		}
+		int[] ar = new int[m_usetime_ar.length()];
+		for(int i = 0; i < ar.length; i++)
+			ar[i] = m_usetime_ar.get(i);
+		return ar;
 	}
 
 	//	static private final String[] COLOR = new String[]{"#660000", "#330000",};
@@ -1691,11 +1708,11 @@ final public class ConnectionPool {
 	 * @return
 	 * @throws SQLException
 	 */
-	private synchronized String getCheckString() throws SQLException {
+	private String getCheckString() throws SQLException {
 		return m_check_calc;
 	}
 
-	synchronized public boolean isPooledMode() {
+	public boolean isPooledMode() {
 		return m_isPooled;
 	}
 
@@ -1723,7 +1740,7 @@ final public class ConnectionPool {
 	/**
 	 *	Returns T if stack tracking is enabled for debugging purposes.
 	 */
-	public synchronized boolean dbgIsStackTraceEnabled() {
+	public boolean dbgIsStackTraceEnabled() {
 		return m_dbg_stacktrace;
 	}
 
@@ -1733,7 +1750,7 @@ final public class ConnectionPool {
 	 *  servlet path) causes the pool to remember the last 10 stack paths that
 	 *  accessed a connection.
 	 */
-	public synchronized void dbgSetStacktrace(final boolean on) {
+	public void dbgSetStacktrace(final boolean on) {
 		m_dbg_stacktrace = on;
 	}
 
@@ -1775,59 +1792,68 @@ final public class ConnectionPool {
 	/*	CODING:	Access to statistics.								*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Copies all pool data into the poolStats structure. This provides a point-in-time copy of all
-	 * pool statistics in proper relation.
+	 * Copies all pool data into the poolStats structure. The counters are read without locking the
+	 * pool, so while the pool is busy they can be slightly out of relation with each other.
 	 */
-	public synchronized PoolStats getPoolStatistics() {
-		return new PoolStats(m_unpooledAllocatedCount, m_pooledAllocatedCount, m_pooledUsedCount, //
-			m_pooledMaxUsed, m_poolAllocationCount, m_n_connectionwaits, //
-			m_n_connectionfails, m_n_hangdisconnects, m_n_open_stmt, //
-			m_peak_open_stmt, m_n_open_rs, m_statementTotalPrepareCount, //
+	public PoolStats getPoolStatistics() {
+		int openStmt = sampleOpenStatementPeak();
+		return new PoolStats(m_unpooledAllocatedCount.get(), m_pooledAllocatedCount.get(), m_pooledUsedCount.get(), //
+			m_pooledMaxUsed.get(), m_poolAllocationCount.get(), m_n_connectionwaits.get(), //
+			m_n_connectionfails.get(), m_n_hangdisconnects.get(), openStmt, //
+			m_peak_open_stmt.get(), m_n_open_rs.sum(), m_statementTotalPrepareCount.sum(), //
 			m_n_rows, //
 			new ArrayList<ConnectionProxy>(m_currentlyHangingConnections), //
-			m_databaseAllocationCount, //
-			m_unpooledMaxUsed
+			m_databaseAllocationCount.get(), //
+			m_unpooledMaxUsed.get()
 		);
 	}
 
-	synchronized void incOpenStmt() {
-		m_n_open_stmt++;
-		m_statementTotalPrepareCount++;
-		if(m_n_open_stmt > m_peak_open_stmt)
-			m_peak_open_stmt = m_n_open_stmt;
+	/**
+	 * The open statement count is a LongAdder, which is cheap to update but expensive to read, so
+	 * the peak is not maintained on every update but sampled here.
+	 * @return	the current #of open statements.
+	 */
+	private int sampleOpenStatementPeak() {
+		int count = (int) m_n_open_stmt.sum();
+		if(count > m_peak_open_stmt.get())
+			m_peak_open_stmt.accumulateAndGet(count, Math::max);
+		return count;
+	}
+
+	void incOpenStmt() {
+		m_n_open_stmt.increment();
+		m_statementTotalPrepareCount.increment();
 	}
 
-	synchronized void decOpenStmt() {
-		m_n_open_stmt--;
+	void decOpenStmt() {
+		m_n_open_stmt.decrement();
 	}
 
 	//	synchronized void decOpenStmt(final int count) {
 	//		m_n_open_stmt -= count;
 	//	}
 
-	synchronized void incOpenRS() {
-		m_n_open_rs++;
+	void incOpenRS() {
+		m_n_open_rs.increment();
 	}
 
-	synchronized void decOpenRS() {
-		m_n_open_rs--;
+	void decOpenRS() {
+		m_n_open_rs.decrement();
 	}
 
-	public synchronized void setAttribute(@Nonnull String name, @Nullable Object value) {
-		m_attributeMap.put(name, value);
+	public void setAttribute(@Nonnull String name, @Nullable Object value) {
+		if(null == value)
+			m_attributeMap.remove(name);
+		else
+			m_attributeMap.put(name, value);
 	}
 
-	public synchronized Object getAttribute(@Nonnull String name) {
+	public Object getAttribute(@Nonnull String name) {
 		return m_attributeMap.get(name);
 	}
 
-	public synchronized <T> T getOrCreateAttribute(@Nonnull String name, @Nonnull java.util.function.Supplier<T> supplier) {
-		T value = (T) m_attributeMap.get(name);
-		if(null == value) {
-			value = supplier.get();
-			m_attributeMap.put(name, value);
-		}
-		return value;
+	public <T> T getOrCreateAttribute(@Nonnull String name, @Nonnull java.util.function.Supplier<T> supplier) {
+		return (T) m_attributeMap.computeIfAbsent(name, k -> supplier.get());
 	}
 
 	@Nullable public IConnectionStatisticsFactory getConnectionStatisticsFactory() {
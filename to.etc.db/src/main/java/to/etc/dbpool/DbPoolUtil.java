@@ -556,6 +556,81 @@ public class DbPoolUtil {
 		return strCommad(count) + "/" + strNanoTime(nanotime);
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	SQL normalization.									*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Normalize a SQL statement so that statements that only differ in their literal values
+	 * are seen as the same statement: string and numeric literals are replaced by ?, lists of
+	 * parameters like "in (?, ?, ?)" are collapsed into a single ?, and all whitespace becomes a
+	 * single space.
+	 */
+	@Nonnull
+	static public String normalizeSQL(@Nonnull String sql) {
+		int len = sql.length();
+		StringBuilder sb = new StringBuilder(len);
+		boolean space = false;
+		int i = 0;
+		while(i < len) {
+			char c = sql.charAt(i);
+			if(Character.isWhitespace(c)) {
+				space = true;
+				i++;
+				continue;
+			}
+			if(space) {
+				if(sb.length() > 0)
+					sb.append(' ');
+				space = false;
+			}
+
+			if(c == '\'') {
+				i++;
+				while(i < len) {
+					char d = sql.charAt(i++);
+					if(d == '\'') {
+						if(i < len && sql.charAt(i) == '\'')		// Quoted quote
+							i++;
+						else
+							break;
+					}
+				}
+				appendParameter(sb);
+			} else if(Character.isDigit(c) && (sb.length() == 0 || !isIdentifierChar(sb.charAt(sb.length() - 1)))) {
+				while(i < len && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.'))
+					i++;
+				appendParameter(sb);
+			} else if(c == '?') {
+				appendParameter(sb);
+				i++;
+			} else {
+				sb.append(c);
+				i++;
+			}
+		}
+		return sb.toString();
+	}
+
+	static private boolean isIdentifierChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '.' || c == '"';
+	}
+
+	/**
+	 * Append a ?, unless it follows another ? in a list.
+	 */
+	static private void appendParameter(@Nonnull StringBuilder sb) {
+		int l = sb.length();
+		if(l >= 3 && sb.charAt(l - 1) == ' ' && sb.charAt(l - 2) == ',' && sb.charAt(l - 3) == '?') {
+			sb.setLength(l - 2);
+			return;
+		}
+		if(l >= 2 && sb.charAt(l - 1) == ',' && sb.charAt(l - 2) == '?') {
+			sb.setLength(l - 1);
+			return;
+		}
+		sb.append('?');
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	pool.jsp helper code.								*/
 	/*--------------------------------------------------------------*/
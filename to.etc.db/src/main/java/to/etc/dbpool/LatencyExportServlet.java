@@ -0,0 +1,46 @@
+package to.etc.dbpool;
+
+import java.io.*;
+
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+import to.etc.dbpool.info.*;
+
+/**
+ * Exports the latency histograms collected by {@link StatisticsRequestListener} as text/plain, one
+ * histogram per line, in the format described at {@link LatencyHistogramStore#export(Writer, String)}.
+ * Statement histograms have type "stmt", request histograms type "req". The bucket counts are included so
+ * that exports from several servers can be merged with {@link LatencyHistogram#parseBuckets(String)}.
+ * Pass "kind=stmt" or "kind=req" to export only one kind, and "clear=true" to clear all global
+ * statistics after the export, so that every export covers the period since the previous one.
+ *
+ * <p>Map this servlet in web.xml next to pool.jsp; it is not protected, so like pool.jsp it should only be
+ * reachable for administrators.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class LatencyExportServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws ServletException, IOException {
+		GlobalPerformanceStore store = StatisticsRequestListener.getGlobalStore();
+		if(null == store) {
+			res.sendError(HttpServletResponse.SC_NOT_FOUND, "Global statistics are not being collected");
+			return;
+		}
+		res.setContentType("text/plain; charset=utf-8");
+		res.setHeader("Cache-Control", "no-cache");
+		String kind = req.getParameter("kind");
+		Writer w = new OutputStreamWriter(res.getOutputStream(), "utf-8");
+		w.write("# type\tcount\tmean\tp50\tp95\tp99\tmax\tbuckets\tkey\n");
+		if(kind == null || "stmt".equals(kind))
+			store.getStatementLatencies().export(w, "stmt");
+		if(kind == null || "req".equals(kind))
+			store.getRequestLatencies().export(w, "req");
+		w.flush();
+		if("true".equals(req.getParameter("clear")))
+			store.clear();
+	}
+}
@@ -31,7 +31,8 @@ import javax.annotation.concurrent.*;
 
 /**
  * Entry in the connection pool, either used or free. Data in here is protected
- * by the POOL.
+ * by the entry itself, so that statements on different connections do not
+ * contend on the pool's lock.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Nov 2, 2010
@@ -50,7 +51,7 @@ final class PoolEntry {
 	private final Connection m_cx;
 
 	/** T if this is an unpooled connection. */
-	private boolean m_unpooled;
+	private volatile boolean m_unpooled;
 
 	private boolean m_sqlTrace;
 
@@ -60,7 +61,7 @@ final class PoolEntry {
 	private int m_timeout;
 
 	/** This entry's state; will change if the entry is forced closed. */
-	@GuardedBy("m_pool")
+	@GuardedBy("this")
 	private ConnState m_state = ConnState.OPEN;
 
 	PoolEntry(final Connection cx, final ConnectionPool pool, final int idnr, final String userid) throws SQLException {
@@ -110,27 +111,21 @@ final class PoolEntry {
 	/*	CODING:	Simple locking accessor code.						*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Abort if the entry has been closed. LOCKS POOL
+	 * Abort if the entry has been closed. LOCKS ENTRY
 	 */
 	private void usable() {
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(m_state != ConnState.OPEN)
 				throw new IllegalStateException("PoolEntry was " + m_state);
 		}
 	}
 
-	@GuardedBy("m_pool")
 	void setUnpooled(final boolean unpooled) {
-		synchronized(m_pool) {
-			m_unpooled = unpooled;
-		}
+		m_unpooled = unpooled;
 	}
 
-	@GuardedBy("m_pool")
 	boolean isUnpooled() {
-		synchronized(m_pool) {
-			return m_unpooled;
-		}
+		return m_unpooled;
 	}
 
 	/**
@@ -173,12 +168,12 @@ final class PoolEntry {
 	/*	CODING:	Proxy management.									*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Returns the current proxy. Returns null if unassigned. LOCKS POOL.
+	 * Returns the current proxy. Returns null if unassigned. LOCKS ENTRY.
 	 * @return
 	 */
-	@GuardedBy("m_pool")
+	@GuardedBy("this")
 	ConnectionProxy getProxy() {
-		synchronized(m_pool) {
+		synchronized(this) {
 			return m_proxy;
 		}
 	}
@@ -190,7 +185,7 @@ final class PoolEntry {
 	ConnectionProxy proxyMake() {
 		int id = PoolManager.nextConnID();
 		ConnectionProxy px = new ConnectionProxy(this, id, Thread.currentThread(), m_pool.dbgIsStackTraceEnabled(), isUnpooled());
-		synchronized(m_pool) {
+		synchronized(this) {
 			usable();
 
 			if(m_proxy != null) {
@@ -212,7 +207,7 @@ final class PoolEntry {
 	 */
 	void release(final ConnectionProxy pc) throws SQLException {
 		String panictext = null;
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(pc != m_proxy) {
 				panictext = "DB Proxy closed but entry is not owning it??";
 			} else {
@@ -248,7 +243,7 @@ final class PoolEntry {
 	 */
 	void invalidate(final ConnectionProxy pc) {
 		String panictext = null;
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(m_state != ConnState.OPEN)
 				return; // Already released/releasing
 
@@ -335,7 +330,7 @@ final class PoolEntry {
 	/*	CODING:	Connection resource management...					*/
 	/*--------------------------------------------------------------*/
 	/** All objects allocated FROM this connection. */
-	@GuardedBy("m_pool")
+	@GuardedBy("this")
 	private HashSet<Object> m_use_set = new HashSet<Object>();
 
 	/**
@@ -343,7 +338,7 @@ final class PoolEntry {
 	 * released when the time comes. Aborts if the entry is currently closed.
 	 */
 	void addResource(final Object o) {
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(m_state == ConnState.OPEN) {
 				//-- No problems: just add to the set of resources. If we are between proxy invalidate and this-invalidate the latter closes this too.
 				m_use_set.add(o); // Add, do not allow duplicates.
@@ -361,7 +356,7 @@ final class PoolEntry {
 	 * Removes a tracked resource when it was closed normally.
 	 */
 	void removeResource(final ConnectionProxy pc, final Object o) {
-		synchronized(m_pool) {
+		synchronized(this) {
 			if(m_state != ConnState.OPEN)
 				return;
 			if(!m_use_set.remove(o)) { // Remove from set,
@@ -383,7 +378,7 @@ final class PoolEntry {
 	 */
 	void closeResources() {
 		Set<Object> todo;
-		synchronized(m_pool) {
+		synchronized(this) {
 			todo = m_use_set;
 			m_use_set = new HashSet<Object>();
 		}
@@ -156,6 +156,7 @@ final public class StatisticsRequestListener implements ServletRequestListener {
 					global.getStore().merge(pc);
 					global.addRequestInfo(icb);
 				}
+				global.addLatencies(statisticsCollector, duration);
 			}
 
 			//-- Merge into session
@@ -26,6 +26,8 @@ package to.etc.dbpool.info;
 
 import java.util.*;
 
+import to.etc.dbpool.*;
+
 /**
  * This stores global statistics for database queries all through the pool for
  * session based requests.
@@ -38,8 +40,18 @@ final public class GlobalPerformanceStore {
 
 	static private final String REQ_CONNALLOCS = "request-connection-allocations";
 
+	/** The max #of distinct (normalized) statements to keep latency histograms for. */
+	static private final int MAX_STATEMENT_HISTOGRAMS = 1000;
+
+	/** The max #of distinct request URLs to keep latency histograms for. */
+	static private final int MAX_REQUEST_HISTOGRAMS = 500;
+
 	final private PerformanceStore m_store = new PerformanceCollector();
 
+	final private LatencyHistogramStore m_statementLatencies = new LatencyHistogramStore(MAX_STATEMENT_HISTOGRAMS);
+
+	final private LatencyHistogramStore m_requestLatencies = new LatencyHistogramStore(MAX_REQUEST_HISTOGRAMS);
+
 	public GlobalPerformanceStore() {
 		//-- Register the other performance classes for requests.
 		m_store.define(REQ_EXEC_TIME, "REQ: slowest requests", true, 20);
@@ -89,9 +101,40 @@ final public class GlobalPerformanceStore {
 		}
 	}
 
+	/**
+	 * Add the latencies of all statements executed in the request to the per-statement histograms,
+	 * and the request's duration to the per-URL histogram. Statements are normalized first, so that
+	 * statements that only differ in their literals share a histogram. The request's duration is
+	 * recorded even when it did not use the database.
+	 */
+	public void addLatencies(StatisticsCollector sc, long duration) {
+		m_requestLatencies.record(sc.getIdent(), duration);
+		if(sc.getNAnything() == 0)
+			return;
+		List<StatementStatistics> list = sc.getCounters();
+		String[] keys = new String[list.size()];
+		for(int i = 0; i < keys.length; i++)
+			keys[i] = DbPoolUtil.normalizeSQL(list.get(i).getSQL());
+
+		synchronized(m_statementLatencies) {
+			for(int i = 0; i < keys.length; i++)
+				list.get(i).addLatencies(m_statementLatencies.getHistogram(keys[i]));
+		}
+	}
+
+	public LatencyHistogramStore getStatementLatencies() {
+		return m_statementLatencies;
+	}
+
+	public LatencyHistogramStore getRequestLatencies() {
+		return m_requestLatencies;
+	}
+
 	public void clear() {
 		synchronized(getStore()) {
 			getStore().clear();
 		}
+		m_statementLatencies.clear();
+		m_requestLatencies.clear();
 	}
 }
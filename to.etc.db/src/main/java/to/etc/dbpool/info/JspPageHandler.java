@@ -680,6 +680,20 @@ final public class JspPageHandler {
 		expandTemplate2("perf-stmt-stmtcount", "plist", pl, "items", iteml);
 	}
 
+	/**
+	 * Show the latency percentiles per statement or per request URL.
+	 * @throws Exception
+	 */
+	public void showHistograms() throws Exception {
+		backlink();
+		full("br");
+		atag("<--- Back to list of indicators", "show", "globalstats");
+		full("br");
+		boolean requests = "requests".equals(getParam("kind"));
+		LatencyHistogramStore store = requests ? m_globalStore.getRequestLatencies() : m_globalStore.getStatementLatencies();
+		expandTemplate2("jspHistogramList", "title", requests ? "per request URL" : "per statement", "store", store, "map", store.getHistograms());
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Session-based tracing...							*/
 	/*--------------------------------------------------------------*/
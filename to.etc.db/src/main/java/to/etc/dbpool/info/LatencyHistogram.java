@@ -0,0 +1,194 @@
+package to.etc.dbpool.info;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+/**
+ * A fixed-size latency histogram, in nanoseconds. Every power of two between 1&micro;s and about 275 seconds
+ * is split into {@link #SUB_BUCKETS} equally wide buckets, so a percentile read from it is at most 1/8th
+ * (12.5%) too high. Values below 1&micro;s count in the first bucket, values above the range in the last one.
+ * The bucket layout is the same for all histograms, so histograms can be merged by adding their counts,
+ * including histograms exported on another server.
+ *
+ * <p>This class is not threadsafe: it is recorded by a single request thread, and merged into the global
+ * store while holding that store's lock.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class LatencyHistogram {
+	static private final int SUB_BITS = 3;
+
+	static public final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/** The lowest value that gets a bucket of its own: 2^10 ns, about 1&micro;s. */
+	static private final int MIN_SHIFT = 10;
+
+	/** The #of powers of two covered, up to 2^38 ns. */
+	static private final int OCTAVES = 28;
+
+	/** The #of buckets, including the underflow and overflow buckets. */
+	static public final int BUCKETS = OCTAVES * SUB_BUCKETS + 2;
+
+	final private long[] m_counts = new long[BUCKETS];
+
+	private long m_count;
+
+	private long m_total;
+
+	private long m_max;
+
+	public LatencyHistogram() {
+	}
+
+	public LatencyHistogram(@Nonnull LatencyHistogram h) {
+		merge(h);
+	}
+
+	static int getBucketIndex(long nanos) {
+		if(nanos < (1L << MIN_SHIFT))
+			return 0;
+		int msb = 63 - Long.numberOfLeadingZeros(nanos);
+		int octave = msb - MIN_SHIFT;
+		if(octave >= OCTAVES)
+			return BUCKETS - 1;
+		int sub = (int) (nanos >>> (msb - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return 1 + octave * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Return the (exclusive) upper bound of the values counted in the specified bucket.
+	 */
+	static public long getBucketLimit(int index) {
+		if(index == 0)
+			return 1L << MIN_SHIFT;
+		if(index >= BUCKETS - 1)
+			return Long.MAX_VALUE;
+		int octave = (index - 1) / SUB_BUCKETS;
+		int sub = (index - 1) % SUB_BUCKETS;
+		int msb = octave + MIN_SHIFT;
+		return (1L << msb) + ((long) (sub + 1) << (msb - SUB_BITS));
+	}
+
+	public void record(long nanos) {
+		record(nanos, 1);
+	}
+
+	/**
+	 * Record count executions that each took the specified time.
+	 */
+	public void record(long nanos, int count) {
+		if(count <= 0)
+			return;
+		if(nanos < 0)
+			nanos = 0;
+		m_counts[getBucketIndex(nanos)] += count;
+		m_count += count;
+		m_total += nanos * count;
+		if(nanos > m_max)
+			m_max = nanos;
+	}
+
+	/**
+	 * Add all counts from the other histogram to this one.
+	 */
+	public void merge(@Nonnull LatencyHistogram h) {
+		for(int i = 0; i < BUCKETS; i++)
+			m_counts[i] += h.m_counts[i];
+		m_count += h.m_count;
+		m_total += h.m_total;
+		if(h.m_max > m_max)
+			m_max = h.m_max;
+	}
+
+	public void clear() {
+		Arrays.fill(m_counts, 0);
+		m_count = 0;
+		m_total = 0;
+		m_max = 0;
+	}
+
+	public long getCount() {
+		return m_count;
+	}
+
+	public long getTotal() {
+		return m_total;
+	}
+
+	public long getMax() {
+		return m_max;
+	}
+
+	public long getMean() {
+		return m_count == 0 ? 0 : m_total / m_count;
+	}
+
+	public long getBucketCount(int index) {
+		return m_counts[index];
+	}
+
+	/**
+	 * Return the value below which the specified percentage of all recorded values lies. This returns
+	 * the upper bound of the bucket containing that value, but never more than the largest value recorded.
+	 */
+	public long getPercentile(double percentage) {
+		if(m_count == 0)
+			return 0;
+		long rank = (long) Math.ceil(percentage / 100.0 * m_count);
+		if(rank < 1)
+			rank = 1;
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += m_counts[i];
+			if(seen >= rank)
+				return Math.min(getBucketLimit(i), m_max);
+		}
+		return m_max;
+	}
+
+	/**
+	 * Render the nonzero buckets as a list of "index:count" pairs, separated by commas. This is the
+	 * format used by the export, and it is read back by {@link #parseBuckets(String)}.
+	 */
+	@Nonnull
+	public String getBucketString() {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < BUCKETS; i++) {
+			if(m_counts[i] != 0) {
+				if(sb.length() > 0)
+					sb.append(',');
+				sb.append(i).append(':').append(m_counts[i]);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Create a histogram from the output of {@link #getBucketString()}. As the exact values are lost, the
+	 * total and maximum are estimated from the bucket limits.
+	 */
+	@Nonnull
+	static public LatencyHistogram parseBuckets(@Nonnull String buckets) {
+		LatencyHistogram h = new LatencyHistogram();
+		for(String pair : buckets.split(",")) {
+			pair = pair.trim();
+			if(pair.length() == 0)
+				continue;
+			int pos = pair.indexOf(':');
+			if(pos == -1)
+				throw new IllegalArgumentException("Invalid bucket '" + pair + "'");
+			int index = Integer.parseInt(pair.substring(0, pos));
+			long count = Long.parseLong(pair.substring(pos + 1));
+			if(index < 0 || index >= BUCKETS || count < 0)
+				throw new IllegalArgumentException("Invalid bucket '" + pair + "'");
+			long limit = index == BUCKETS - 1 ? getBucketLimit(index - 1) : getBucketLimit(index);
+			h.m_counts[index] += count;
+			h.m_count += count;
+			h.m_total += limit * count;
+			if(count > 0 && limit > h.m_max)
+				h.m_max = limit;
+		}
+		return h;
+	}
+}
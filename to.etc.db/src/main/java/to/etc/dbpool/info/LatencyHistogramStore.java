@@ -0,0 +1,108 @@
+package to.etc.dbpool.info;
+
+import java.io.*;
+import java.util.*;
+
+import javax.annotation.*;
+
+/**
+ * A set of latency histograms by key, with a hard limit on the #of keys. Once the limit is reached all
+ * values for new keys are added to a single {@link #OTHER} histogram, so the memory used never exceeds
+ * (limit + 1) histograms of {@link LatencyHistogram#BUCKETS} longs each.
+ *
+ * <p>All methods lock the store itself; code that merges many histograms at once can lock the store
+ * and use {@link #getHistogram(String)} directly.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class LatencyHistogramStore {
+	static public final String OTHER = "(other)";
+
+	final private int m_maxKeys;
+
+	final private Map<String, LatencyHistogram> m_map = new HashMap<String, LatencyHistogram>();
+
+	final private LatencyHistogram m_other = new LatencyHistogram();
+
+	/** The #of values that were recorded in the "other" histogram because the store was full. */
+	private long m_overflowCount;
+
+	public LatencyHistogramStore(int maxKeys) {
+		m_maxKeys = maxKeys;
+	}
+
+	/**
+	 * Get the histogram to record values for the key in. The caller must hold the lock on this store.
+	 */
+	@Nonnull
+	LatencyHistogram getHistogram(@Nonnull String key) {
+		LatencyHistogram h = m_map.get(key);
+		if(null == h) {
+			if(m_map.size() >= m_maxKeys) {
+				m_overflowCount++;
+				return m_other;
+			}
+			h = new LatencyHistogram();
+			m_map.put(key, h);
+		}
+		return h;
+	}
+
+	public synchronized void record(@Nonnull String key, long nanos) {
+		getHistogram(key).record(nanos);
+	}
+
+	public synchronized void merge(@Nonnull String key, @Nonnull LatencyHistogram h) {
+		getHistogram(key).merge(h);
+	}
+
+	public synchronized void clear() {
+		m_map.clear();
+		m_other.clear();
+		m_overflowCount = 0;
+	}
+
+	public int getMaxKeys() {
+		return m_maxKeys;
+	}
+
+	public synchronized int size() {
+		return m_map.size();
+	}
+
+	public synchronized long getOverflowCount() {
+		return m_overflowCount;
+	}
+
+	/**
+	 * Returns a copy of all histograms, ordered by key, including the "other" histogram if it has data.
+	 */
+	@Nonnull
+	public synchronized SortedMap<String, LatencyHistogram> getHistograms() {
+		SortedMap<String, LatencyHistogram> res = new TreeMap<String, LatencyHistogram>();
+		for(Map.Entry<String, LatencyHistogram> me : m_map.entrySet())
+			res.put(me.getKey(), new LatencyHistogram(me.getValue()));
+		if(m_other.getCount() > 0)
+			res.put(OTHER, new LatencyHistogram(m_other));
+		return res;
+	}
+
+	/**
+	 * Write all histograms as tab-separated lines: the type, count, mean, p50, p95, p99 and max in nanoseconds,
+	 * the nonzero buckets (see {@link LatencyHistogram#getBucketString()}) and the key. Tabs and newlines
+	 * in the key are replaced by spaces.
+	 */
+	public void export(@Nonnull Writer w, @Nonnull String type) throws IOException {
+		for(Map.Entry<String, LatencyHistogram> me : getHistograms().entrySet()) {
+			LatencyHistogram h = me.getValue();
+			w.write(type);
+			w.write('\t');
+			w.write(h.getCount() + "\t" + h.getMean() + "\t" + h.getPercentile(50) + "\t" + h.getPercentile(95) + "\t" + h.getPercentile(99) + "\t" + h.getMax());
+			w.write('\t');
+			w.write(h.getBucketString());
+			w.write('\t');
+			w.write(me.getKey().replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+			w.write('\n');
+		}
+	}
+}
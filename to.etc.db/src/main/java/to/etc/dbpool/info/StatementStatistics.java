@@ -1,5 +1,7 @@
 package to.etc.dbpool.info;
 
+import java.util.*;
+
 /**
  * The statistics for a single SQL statement during the request/response cycle.
  */
@@ -15,6 +17,15 @@ final public class StatementStatistics {
 	/** Total time spent executing all these queries. */
 	private long m_totalExecuteNS;
 
+	/** The durations of the first executions, in nanos, until there are too many to keep: then they move to m_histogram. */
+	private long[] m_latencies;
+
+	private int m_latencyCount;
+
+	private LatencyHistogram m_histogram;
+
+	static private final int MAX_LATENCIES = 64;
+
 	StatementStatistics(String sql) {
 		m_sql = sql;
 	}
@@ -62,4 +73,49 @@ final public class StatementStatistics {
 	void addTotalFetchDuration(long d) {
 		m_totalFetchDuration += d;
 	}
+
+	/**
+	 * Record the duration of count executions of this statement. Single executions are kept as-is in a small
+	 * array; only statements that execute often in one request get a histogram of their own.
+	 */
+	void recordLatency(long nanos, int count) {
+		LatencyHistogram h = m_histogram;
+		if(null != h) {
+			h.record(nanos, count);
+			return;
+		}
+		if(count == 1) {
+			long[] ar = m_latencies;
+			if(null == ar)
+				ar = m_latencies = new long[4];
+			if(m_latencyCount < ar.length) {
+				ar[m_latencyCount++] = nanos;
+				return;
+			}
+			if(ar.length < MAX_LATENCIES) {
+				m_latencies = ar = Arrays.copyOf(ar, ar.length * 2);
+				ar[m_latencyCount++] = nanos;
+				return;
+			}
+		}
+
+		//-- Too many: move everything to a histogram.
+		h = m_histogram = new LatencyHistogram();
+		addLatencies(h);
+		m_latencies = null;
+		m_latencyCount = 0;
+		h.record(nanos, count);
+	}
+
+	/**
+	 * Add the durations of all executions of this statement to the histogram.
+	 */
+	void addLatencies(LatencyHistogram target) {
+		LatencyHistogram h = m_histogram;
+		if(null != h)
+			target.merge(h);
+		long[] ar = m_latencies;
+		for(int i = 0; i < m_latencyCount; i++)
+			target.record(ar[i]);
+	}
 }
@@ -168,6 +168,7 @@ final public class StatisticsCollector extends StatisticsCollectorBase implement
 		c.incRows(rowCount);
 		c.addTotalFetchDuration(fetchDuration);
 		c.addTotalExecuteDuration(executeDuration);
+		c.recordLatency(executeDuration + fetchDuration, 1);
 	}
 
 	@Override
@@ -181,6 +182,7 @@ final public class StatisticsCollector extends StatisticsCollectorBase implement
 		c.incExecutions();
 		c.incRows(rowcount);
 		c.addTotalExecuteDuration(updateDuration);
+		c.recordLatency(updateDuration, 1);
 	}
 
 	@Override
@@ -194,6 +196,7 @@ final public class StatisticsCollector extends StatisticsCollectorBase implement
 		c.incExecutions();
 		c.incRows(updatedrowcount);
 		c.addTotalExecuteDuration(updateDuration);
+		c.recordLatency(updateDuration, 1);
 	}
 
 	@Override
@@ -205,6 +208,7 @@ final public class StatisticsCollector extends StatisticsCollectorBase implement
 		StatementStatistics c = findCounter(sp.getSQL());
 		c.incExecutions();
 		c.addTotalExecuteDuration(updateDuration);
+		c.recordLatency(updateDuration, 1);
 	}
 
 
@@ -237,6 +241,8 @@ final public class StatisticsCollector extends StatisticsCollectorBase implement
 			totalToGive -= duration;
 
 			c.addTotalExecuteDuration((long) duration);
+			if(be.getExecCount() > 0)
+				c.recordLatency((long) duration / be.getExecCount(), be.getExecCount());
 		}
 	}
 
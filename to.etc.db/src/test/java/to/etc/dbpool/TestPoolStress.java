@@ -0,0 +1,214 @@
+package to.etc.dbpool;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+import javax.sql.*;
+
+import org.junit.*;
+
+/**
+ * Hammers a pool on an embedded Derby database from many threads, and checks that the pool's
+ * counters are consistent afterwards. The Derby driver is loaded from the jar in the derbydata
+ * module through the pool's driver path; the test is skipped if it is not there.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPoolStress {
+	static private final File DERBY_JAR = new File("../to.etc.domui.derbydata/derby.jar");
+
+	static private final int MAX_CONNS = 8;
+
+	static private final int THREADS = 32;
+
+	static private final long RUN_TIME = 2000;
+
+	static private ConnectionPool m_pool;
+
+	static private File m_derbyHome;
+
+	@BeforeClass
+	static public void setUp() throws Exception {
+		Assume.assumeTrue("Derby jar not found at " + DERBY_JAR.getAbsolutePath(), DERBY_JAR.exists());
+		m_derbyHome = Files.createTempDirectory("poolstress").toFile();
+		System.setProperty("derby.system.home", m_derbyHome.getAbsolutePath());
+
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+		t.setDriverPath(DERBY_JAR.getAbsoluteFile());
+		t.setUrl("jdbc:derby:memory:poolstress;create=true");
+		t.setUid("");
+		t.setPw("");
+		t.setMinConns(2);
+		t.setMaxConns(MAX_CONNS);
+		m_pool = PoolManager.getInstance().definePool("poolstress", new PoolConfig(t));
+		m_pool.initialize();
+
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection(); Statement st = dbc.createStatement()) {
+			st.executeUpdate("create table stress(id integer not null primary key, name varchar(40))");
+			for(int i = 0; i < 100; i++)
+				st.executeUpdate("insert into stress values(" + i + ", 'name " + i + "')");
+		}
+	}
+
+	@AfterClass
+	static public void tearDown() throws Exception {
+		ConnectionPool pool = m_pool;
+		if(null != pool)
+			pool.destroyPool();
+		File home = m_derbyHome;
+		if(null != home) {
+			for(File f : home.listFiles())
+				f.delete();
+			home.delete();
+		}
+	}
+
+	/**
+	 * Run the specified action from all threads for a fixed time.
+	 * @return	the #of actions executed.
+	 */
+	static private long runThreads(int threadCount, @Nonnull IAction action) throws Exception {
+		AtomicLong count = new AtomicLong();
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch start = new CountDownLatch(1);
+		long end = System.currentTimeMillis() + RUN_TIME;
+		List<Thread> list = new ArrayList<>();
+		for(int t = 0; t < threadCount; t++) {
+			final int thread = t;
+			Thread th = new Thread(() -> {
+				try {
+					start.await();
+					Random r = new Random(thread);
+					while(System.currentTimeMillis() < end && error.get() == null) {
+						action.execute(r);
+						count.incrementAndGet();
+					}
+				} catch(Throwable x) {
+					error.compareAndSet(null, x);
+				}
+			});
+			list.add(th);
+			th.start();
+		}
+		start.countDown();
+		for(Thread th : list)
+			th.join();
+		Throwable x = error.get();
+		if(null != x)
+			throw new AssertionError("Worker failed: " + x, x);
+		return count.get();
+	}
+
+	private interface IAction {
+		void execute(@Nonnull Random r) throws Exception;
+	}
+
+	/**
+	 * Allocate, query and release a pooled connection.
+	 */
+	static private void query(@Nonnull DataSource ds, @Nonnull Random r) throws Exception {
+		try(Connection dbc = ds.getConnection(); PreparedStatement ps = dbc.prepareStatement("select name from stress where id=?")) {
+			ps.setInt(1, r.nextInt(100));
+			try(ResultSet rs = ps.executeQuery()) {
+				Assert.assertTrue(rs.next());
+			}
+		}
+	}
+
+	private void checkQuiescent() {
+		PoolStats ps = m_pool.getPoolStatistics();
+		Assert.assertEquals("pooled used", 0, ps.getPooledUsed());
+		Assert.assertEquals("unpooled allocated", 0, ps.getUnpooledAllocated());
+		Assert.assertEquals("open statements", 0, ps.getStatementOpenCount());
+		Assert.assertEquals("open result sets", 0, ps.getResultsetOpenCount());
+		Assert.assertTrue("pooled allocated " + ps.getPooledAllocated(), ps.getPooledAllocated() <= MAX_CONNS);
+		Assert.assertTrue("pooled max used " + ps.getPooledMaxUsed(), ps.getPooledMaxUsed() <= MAX_CONNS);
+		Assert.assertEquals(0, m_pool.getUsedConnections().size());
+	}
+
+	@Test
+	public void testPooledStress() throws Exception {
+		DataSource ds = m_pool.getPooledDataSource();
+		long total = 0;
+		for(int threads : new int[]{1, MAX_CONNS, THREADS}) {
+			long count = runThreads(threads, r -> query(ds, r));
+			Assert.assertTrue("No allocations with " + threads + " threads", count > 0);
+			total += count;
+			checkQuiescent();
+		}
+		PoolStats ps = m_pool.getPoolStatistics();
+		Assert.assertEquals(0, ps.getPoolFailureCount());
+		Assert.assertTrue("allocations " + ps.getTotalAllocations(), ps.getTotalAllocations() >= total);
+
+		//-- Released connections must be reused, not reconnected.
+		Assert.assertTrue("database connects " + ps.getTotalDatabaseAllocations(), ps.getTotalDatabaseAllocations() * 100L < total);
+	}
+
+	@Test
+	public void testMixedPooledAndUnpooled() throws Exception {
+		DataSource pooled = m_pool.getPooledDataSource();
+		DataSource unpooled = m_pool.getUnpooledDataSource();
+		runThreads(THREADS, r -> query(r.nextInt(8) == 0 ? unpooled : pooled, r));
+		checkQuiescent();
+	}
+
+	/**
+	 * When all connections are used, waiters must get a connection as soon as one is released.
+	 */
+	@Test
+	public void testWaitersGetReleasedConnections() throws Exception {
+		DataSource ds = m_pool.getPooledDataSource();
+		List<Connection> held = new ArrayList<>();
+		for(int i = 0; i < MAX_CONNS; i++)
+			held.add(ds.getConnection());
+
+		ExecutorService es = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Long>> waiters = new ArrayList<>();
+			for(int i = 0; i < 4; i++) {
+				waiters.add(es.submit(() -> {
+					long ts = System.nanoTime();
+					try(Connection dbc = ds.getConnection()) {
+						return System.nanoTime() - ts;
+					}
+				}));
+			}
+			Thread.sleep(200);
+			for(Future<Long> f : waiters)
+				Assert.assertFalse("Allocation did not wait", f.isDone());
+
+			//-- Release one connection: all waiters should now get it in turn.
+			held.remove(0).close();
+			for(Future<Long> f : waiters)
+				Assert.assertTrue(f.get(5, TimeUnit.SECONDS).longValue() >= 100_000_000L);
+		} finally {
+			es.shutdown();
+			for(Connection dbc : held)
+				dbc.close();
+		}
+		checkQuiescent();
+		Assert.assertTrue(m_pool.getPoolStatistics().getConnectionWaitCount() > 0);
+	}
+
+	/**
+	 * Connections that are used too long must still be found and released by the hang scanner.
+	 */
+	@Test
+	public void testHangDetection() throws Exception {
+		Connection dbc = m_pool.getPooledDataSource().getConnection();
+		Assert.assertEquals(1, m_pool.getUsedConnections().size());
+		int before = m_pool.getPoolStatistics().getExpiredDisconnects();
+		Thread.sleep(1100);
+		Assert.assertTrue(m_pool.scanExpiredConnections(1, true));
+		Assert.assertEquals(before + 1, m_pool.getPoolStatistics().getExpiredDisconnects());
+		Assert.assertEquals(ConnState.INVALIDATED, ((ConnectionProxy) dbc).getState());
+		dbc.close();
+		checkQuiescent();
+	}
+}
@@ -0,0 +1,109 @@
+package to.etc.dbpool.info;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.dbpool.*;
+
+/**
+ * Checks the accuracy of the latency histograms, merging, the key limit of the store and
+ * statement normalization.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestLatencyHistogram {
+	static private void assertClose(long expected, long actual) {
+		Assert.assertTrue("expected about " + expected + " but got " + actual, actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS + 1);
+	}
+
+	@Test
+	public void testBuckets() {
+		long last = 0;
+		for(int i = 0; i < LatencyHistogram.BUCKETS - 1; i++) {
+			long limit = LatencyHistogram.getBucketLimit(i);
+			Assert.assertTrue(limit > last);
+			Assert.assertEquals(i, LatencyHistogram.getBucketIndex(limit - 1));
+			Assert.assertEquals(i + 1, LatencyHistogram.getBucketIndex(limit));
+			last = limit;
+		}
+		Assert.assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram h = new LatencyHistogram();
+		for(int i = 1; i <= 10000; i++)
+			h.record(i * 1000L);						// 1us .. 10ms
+		Assert.assertEquals(10000, h.getCount());
+		Assert.assertEquals(10_000_000L, h.getMax());
+		assertClose(5_000_000L, h.getPercentile(50));
+		assertClose(9_500_000L, h.getPercentile(95));
+		assertClose(9_900_000L, h.getPercentile(99));
+		Assert.assertEquals(10_000_000L, h.getPercentile(100));
+		Assert.assertEquals(5_000_500L, h.getMean());
+	}
+
+	@Test
+	public void testMergeAndParse() {
+		LatencyHistogram a = new LatencyHistogram();
+		LatencyHistogram b = new LatencyHistogram();
+		for(int i = 0; i < 1000; i++) {
+			a.record(100_000L);
+			b.record(50_000_000L);
+		}
+		a.merge(b);
+		Assert.assertEquals(2000, a.getCount());
+		assertClose(100_000L, a.getPercentile(50));
+		assertClose(50_000_000L, a.getPercentile(99));
+
+		LatencyHistogram p = LatencyHistogram.parseBuckets(a.getBucketString());
+		Assert.assertEquals(a.getCount(), p.getCount());
+		for(int i = 0; i < LatencyHistogram.BUCKETS; i++)
+			Assert.assertEquals(a.getBucketCount(i), p.getBucketCount(i));
+	}
+
+	@Test
+	public void testStoreLimit() throws Exception {
+		LatencyHistogramStore store = new LatencyHistogramStore(10);
+		for(int i = 0; i < 100; i++)
+			store.record("key" + i, 1000L * i);
+		Assert.assertEquals(10, store.size());
+		Assert.assertEquals(90, store.getOverflowCount());
+		SortedMap<String, LatencyHistogram> map = store.getHistograms();
+		Assert.assertEquals(11, map.size());
+		Assert.assertEquals(90, map.get(LatencyHistogramStore.OTHER).getCount());
+
+		StringWriter sw = new StringWriter();
+		store.export(sw, "stmt");
+		Assert.assertEquals(11, sw.toString().split("\n").length);
+	}
+
+	@Test
+	public void testStatementLatencies() {
+		StatementStatistics ss = new StatementStatistics("select 1");
+		for(int i = 0; i < 1000; i++)
+			ss.recordLatency(1_000_000L, 1);
+		ss.recordLatency(2_000_000L, 10);
+		LatencyHistogram h = new LatencyHistogram();
+		ss.addLatencies(h);
+		Assert.assertEquals(1010, h.getCount());
+		Assert.assertEquals(2_000_000L, h.getMax());
+	}
+
+	@Test
+	public void testRequestWithoutStatements() {
+		GlobalPerformanceStore gps = new GlobalPerformanceStore();
+		gps.addLatencies(new StatisticsCollector("/page.jsp", null, false), 3_000_000L);
+		Assert.assertEquals(1, gps.getRequestLatencies().getHistograms().get("/page.jsp").getCount());
+		Assert.assertEquals(0, gps.getStatementLatencies().size());
+	}
+
+	@Test
+	public void testNormalizeSQL() {
+		Assert.assertEquals("select * from t1 where id = ? and name = ?", DbPoolUtil.normalizeSQL("select *\n  from t1 where id = 12 and name = 'it''s'"));
+		Assert.assertEquals("select a from b where id in (?) and x=?", DbPoolUtil.normalizeSQL("select a from b where id in (?, ?, ?) and x=1.5"));
+		Assert.assertEquals("insert into t(a,b) values(?)", DbPoolUtil.normalizeSQL("insert into t(a,b) values(?,'x')"));
+	}
+}
@@ -0,0 +1,69 @@
+package to.etc.domui.derbydata;
+
+import java.util.*;
+
+import to.etc.domui.derbydata.db.*;
+import to.etc.domui.hibernate.config.*;
+import to.etc.domui.hibernate.generic.*;
+import to.etc.webapp.query.*;
+
+/**
+ * Measures the load time and the retained heap of a data context that keeps before images, in copy mode
+ * or in snapshot mode. It loads all tracks and invoice lines of the demo database a few times, and checks
+ * that an original can still be had after a flush. Run it from this module's directory with its test
+ * classpath, with "copy" or "snapshot" as argument; Hibernate can only be configured once per JVM, so
+ * each mode needs its own run.
+ *
+ * Created on Oct 18, 2026
+ */
+public class BeforeImageBench {
+	static private final int RUNS = 6;
+
+	static private final int WARMUP = 2;
+
+	static private long getUsedMemory() {
+		Runtime r = Runtime.getRuntime();
+		for(int i = 0; i < 4; i++)
+			System.gc();
+		return r.totalMemory() - r.freeMemory();
+	}
+
+	static public void main(String[] args) throws Exception {
+		if(args.length != 1 || !("copy".equals(args[0]) || "snapshot".equals(args[0]))) {
+			System.err.println("Usage: BeforeImageBench copy|snapshot");
+			System.exit(10);
+		}
+		String mode = args[0];
+		if(!DerbyTestPool.isAvailable())
+			throw new IllegalStateException("Derby jar not found at " + DerbyTestPool.DERBY_JAR.getAbsolutePath());
+		DerbyTestPool.initialize("beforeimagebench", "snapshot".equals(mode));
+
+		for(int run = 0; run < RUNS; run++) {
+			long base = getUsedMemory();
+			QDataContext dc = HibernateConfigurator.getDataContextFactory().getDataContext();
+			try {
+				dc.setKeepOriginals();
+				long ts = System.nanoTime();
+				List<Track> tracks = dc.query(QCriteria.create(Track.class));
+				List<InvoiceLine> lines = dc.query(QCriteria.create(InvoiceLine.class));
+				long ms = (System.nanoTime() - ts) / 1000000;
+				long retained = getUsedMemory() - base;
+				if(run >= WARMUP)
+					System.out.println(mode + " run " + run + ": " + (tracks.size() + lines.size()) + " rows, load " + ms + " ms, retained " + retained / 1024 + " KB");
+
+				if(run == RUNS - 1) {
+					Track t = tracks.get(5);
+					String name = t.getName();
+					t.setName("changed");
+					((BuggyHibernateBaseContext) dc).getSession().flush();
+					Track o = dc.original(t);
+					if(null == o || !name.equals(o.getName()) || o.getAlbum() == t.getAlbum())
+						throw new IllegalStateException("The original of a flushed track is wrong");
+				}
+				dc.rollback();
+			} finally {
+				dc.close();
+			}
+		}
+	}
+}
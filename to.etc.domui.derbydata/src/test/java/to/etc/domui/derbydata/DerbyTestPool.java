@@ -0,0 +1,59 @@
+package to.etc.domui.derbydata;
+
+import java.io.*;
+import java.nio.file.*;
+
+import javax.annotation.*;
+
+import to.etc.dbpool.*;
+import to.etc.domui.derbydata.db.*;
+import to.etc.domui.derbydata.init.*;
+import to.etc.domui.hibernate.config.*;
+
+/**
+ * Creates the demo database in memory, with the Derby driver loaded from the jar in this module through the
+ * pool's driver path, and initializes Hibernate on it. Hibernate can be initialized once per JVM.
+ *
+ * Created on Oct 18, 2026
+ */
+final class DerbyTestPool {
+	static final File DERBY_JAR = new File("derby.jar");
+
+	private DerbyTestPool() {}
+
+	static boolean isAvailable() {
+		return DERBY_JAR.exists();
+	}
+
+	/**
+	 * Create and fill the database, and initialize Hibernate with before images in copy or snapshot mode.
+	 */
+	@Nonnull
+	static ConnectionPool initialize(@Nonnull String name, boolean snapshots) throws Exception {
+		File home = Files.createTempDirectory(name).toFile();		// Keeps derby.log out of the module
+		home.deleteOnExit();
+		new File(home, "derby.log").deleteOnExit();
+		System.setProperty("derby.system.home", home.getAbsolutePath());
+
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+		t.setDriverPath(DERBY_JAR.getAbsoluteFile());
+		t.setUrl("jdbc:derby:memory:" + name + ";create=true");
+		t.setUid("");
+		t.setPw("");
+		t.setMinConns(1);
+		t.setMaxConns(4);
+		ConnectionPool pool = PoolManager.getInstance().definePool(name, new PoolConfig(t));
+		pool.initialize();
+		DBInitialize.fillDatabase(pool.getUnpooledDataSource());
+
+		HibernateConfigurator.addClasses(Artist.class, Album.class, MediaType.class, Track.class);
+		HibernateConfigurator.addClasses(Genre.class, Customer.class, Employee.class, Invoice.class, InvoiceLine.class);
+		if(snapshots)
+			HibernateConfigurator.enableBeforeImageSnapshots(true);
+		else
+			HibernateConfigurator.enableBeforeImages(true);
+		HibernateConfigurator.initialize(pool.getPooledDataSource());
+		return pool;
+	}
+}
@@ -0,0 +1,169 @@
+package to.etc.domui.derbydata;
+
+import java.util.*;
+
+import org.hibernate.*;
+import org.junit.*;
+
+import to.etc.domui.derbydata.db.*;
+import to.etc.domui.hibernate.config.*;
+import to.etc.domui.hibernate.generic.*;
+import to.etc.util.*;
+import to.etc.webapp.query.*;
+
+/**
+ * Runs the before-image interceptor in snapshot mode on the demo database: loaded instances only register
+ * their loaded state, and the before images built from it must show the state at load time, also after
+ * the instances or their collections were changed and flushed. The test is skipped if the Derby jar is
+ * not there.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestBeforeImageSnapshotMode {
+	private QDataContext m_dc;
+
+	@BeforeClass
+	static public void setUpClass() throws Exception {
+		Assume.assumeTrue("Derby jar not found at " + DerbyTestPool.DERBY_JAR.getAbsolutePath(), DerbyTestPool.isAvailable());
+		DerbyTestPool.initialize("beforeimages", true);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		m_dc = HibernateConfigurator.getDataContextFactory().getDataContext();
+		m_dc.setKeepOriginals();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		QDataContext dc = m_dc;
+		if(null != dc) {
+			dc.rollback();
+			FileTool.closeAll(dc);
+		}
+	}
+
+	private DefaultBeforeImageCache getCache() {
+		return ((BuggyHibernateBaseContext) m_dc).getBeforeCache();
+	}
+
+	private Session getSession() throws Exception {
+		return ((BuggyHibernateBaseContext) m_dc).getSession();
+	}
+
+	/**
+	 * Loading registers snapshots; asking for the original builds the image from it once.
+	 */
+	@Test
+	public void testImageIsBuiltFromLoadedState() throws Exception {
+		List<Album> list = m_dc.query(QCriteria.create(Album.class).ascending("id").limit(20));
+		Assert.assertEquals(20, list.size());
+		Assert.assertTrue(getCache().getSnapshotCount() >= 20);
+
+		Album a = list.get(0);
+		String title = a.getTitle();
+		a.setTitle("changed");
+		int count = getCache().getSnapshotCount();
+		Album o = m_dc.original(a);
+		Assert.assertNotNull(o);
+		Assert.assertNotSame(a, o);
+		Assert.assertEquals(title, o.getTitle());
+		Assert.assertEquals(a.getId(), o.getId());
+		Assert.assertEquals(count - 1, getCache().getSnapshotCount());
+		Assert.assertSame(o, m_dc.original(a));
+	}
+
+	/**
+	 * A flush replaces Hibernate's loaded state, so the image of a dirty instance is built while flushing.
+	 */
+	@Test
+	public void testImageSurvivesFlush() throws Exception {
+		List<Track> list = m_dc.query(QCriteria.create(Track.class).ascending("id").limit(5));
+		Track t = list.get(0);
+		String name = t.getName();
+		t.setName("changed during the test");
+		int count = getCache().getSnapshotCount();
+		getSession().flush();
+		Assert.assertEquals(count - 1, getCache().getSnapshotCount());
+
+		Track o = m_dc.original(t);
+		Assert.assertNotNull(o);
+		Assert.assertEquals(name, o.getName());
+		Assert.assertEquals("changed during the test", t.getName());
+	}
+
+	/**
+	 * A many-to-one in an image refers to the before image of the parent, not to the live instance. The
+	 * parent here is a proxy that was loaded after the child.
+	 */
+	@Test
+	public void testParentIsImage() throws Exception {
+		Track t = m_dc.query(QCriteria.create(Track.class).isnotnull("album").ascending("id").limit(1)).get(0);
+		Album album = t.getAlbum();
+		String title = album.getTitle();					// Load it
+		album.setTitle("changed");
+
+		Track o = m_dc.original(t);
+		Assert.assertNotNull(o);
+		Album oa = o.getAlbum();
+		Assert.assertNotNull(oa);
+		Assert.assertNotSame(album, oa);
+		Assert.assertEquals(title, oa.getTitle());
+		Assert.assertEquals("changed", album.getTitle());
+	}
+
+	/**
+	 * The image of a loaded collection is made from Hibernate's snapshot of it, so it holds the members at load time.
+	 */
+	@Test
+	public void testCollectionFromSnapshot() throws Exception {
+		Album a = m_dc.query(QCriteria.create(Album.class).ascending("id").limit(1)).get(0);
+		List<Track> tracks = a.getTrackList();
+		int size = tracks.size();							// Load the collection
+		Assert.assertTrue(size > 0);
+		Track removed = tracks.remove(0);
+
+		Album o = m_dc.original(a);
+		Assert.assertNotNull(o);
+		List<Track> otracks = o.getTrackList();
+		Assert.assertEquals(size, otracks.size());
+		Assert.assertTrue(otracks.contains(removed));
+		try {
+			otracks.clear();
+			Assert.fail("The image of a collection must be immutable");
+		} catch(UnsupportedOperationException x) {
+			//-- Expected
+		}
+	}
+
+	/**
+	 * Changing a collection and flushing builds the owner's image before the collection snapshot is replaced.
+	 */
+	@Test
+	public void testCollectionSurvivesFlush() throws Exception {
+		Album a = m_dc.query(QCriteria.create(Album.class).ascending("id").limit(1)).get(0);
+		List<Track> tracks = a.getTrackList();
+		int size = tracks.size();
+		tracks.remove(0);
+		getSession().flush();
+		Assert.assertEquals(size - 1, a.getTrackList().size());
+
+		Album o = m_dc.original(a);
+		Assert.assertNotNull(o);
+		Assert.assertEquals(size, o.getTrackList().size());
+	}
+
+	/**
+	 * A lazy collection that is not loaded gets a mirror that is filled when the collection loads.
+	 */
+	@Test
+	public void testUnloadedCollection() throws Exception {
+		Album a = m_dc.query(QCriteria.create(Album.class).ascending("id").limit(1)).get(0);
+		Album o = m_dc.original(a);
+		Assert.assertNotNull(o);
+		Assert.assertFalse(Hibernate.isInitialized(a.getTrackList()));
+
+		int size = a.getTrackList().size();
+		Assert.assertEquals(size, o.getTrackList().size());
+	}
+}
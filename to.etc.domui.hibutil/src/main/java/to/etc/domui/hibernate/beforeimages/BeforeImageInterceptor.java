@@ -8,8 +8,12 @@ import javax.annotation.concurrent.*;
 
 import org.hibernate.*;
 import org.hibernate.collection.*;
+import org.hibernate.engine.EntityEntry;
+import org.hibernate.engine.Status;
 import org.hibernate.event.*;
+import org.hibernate.persister.entity.*;
 import org.hibernate.proxy.*;
+import org.hibernate.type.Type;
 
 import to.etc.domui.component.meta.*;
 import to.etc.util.*;
@@ -18,6 +22,12 @@ import to.etc.webapp.query.*;
 /**
  * This session interceptor delegates load events to the before-image load cache.
  *
+ * <p>By default a copy of every loaded instance is made when it is loaded. In snapshot mode only the
+ * loaded-state array that Hibernate keeps for dirty checking anyway is registered with the cache, and the
+ * copy is built from it when {@link QDataContext#original(Object)} asks for it. Hibernate replaces that array
+ * and the collection snapshots when it flushes, so the images of instances that are flushed are built just
+ * before that happens.</p>
+ *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Jan 13, 2014
  */
@@ -25,6 +35,9 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 	@Nonnull
 	final private IBeforeImageCache m_cache;
 
+	/** When T, only the loaded state is kept, and the before image is built when it is asked for. */
+	final private boolean m_snapshots;
+
 	static private final boolean DEBUG = false;
 
 	/**
@@ -92,7 +105,12 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 	final private Map<CollectionKey, IBeforeImageCollectionProxy< ? >> m_mirrorMap = new HashMap<CollectionKey, IBeforeImageCollectionProxy< ? >>();
 
 	public BeforeImageInterceptor(@Nonnull IBeforeImageCache cache) {
+		this(cache, false);
+	}
+
+	public BeforeImageInterceptor(@Nonnull IBeforeImageCache cache, boolean snapshots) {
 		m_cache = cache;
+		m_snapshots = snapshots;
 	}
 
 	@Nonnull
@@ -115,6 +133,14 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 //		System.out.println("Interceptor: afterload " + MetaManager.identify(instance));
 		try {
 			Class real = Hibernate.getClass(instance);
+			if(m_snapshots) {
+				EntityEntry ee = loadevent.getSession().getPersistenceContext().getEntry(instance);
+				if(null != ee && ee.getStatus() == Status.MANAGED && null != ee.getLoadedState()) {
+					m_cache.registerSnapshot(instance, new LoadedStateSnapshot(real, instance, ee.getPersister(), ee.getLoadedState()));
+					return;
+				}
+				//-- Read-only instances have no separate loaded state: copy them now.
+			}
 
 			Object copy = m_cache.createImage(real, instance, true);
 			copyProperties(copy, instance);				// Copy whatever properties we can
@@ -148,7 +174,10 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 			return;
 
 		V value = pmm.getValue(src);							// Get the source instance.
+		setImageProperty(dst, pmm, value);
+	}
 
+	private <T, V> void setImageProperty(@Nonnull T dst, @Nonnull PropertyMetaModel<V> pmm, @Nullable V value) throws Exception {
 		switch(pmm.getRelationType()){
 			case NONE:
 				pmm.setValue(dst, value);						// Just copy
@@ -158,7 +187,7 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 				if(null != value) {
 					if(!(value instanceof Collection))
 						throw new IllegalStateException("Before-image is supported only for OneToMany of type Collection<T>.");
-					value = (V) convertChildCollection((Collection) value);
+					value = (V) (m_snapshots ? convertChildSnapshot((Collection) value) : convertChildCollection((Collection) value));
 					pmm.setValue(dst, value);
 				}
 				break;
@@ -180,8 +209,10 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 	 */
 	private <V> V convertParentRelation(@Nonnull V src) throws Exception {
 		if(Hibernate.isInitialized(src)) {						// Loaded?
-			//-- Replace the instance with the before image of that instance.
+			//-- Replace the instance with the before image of that instance. The image of a loaded proxy is that of its implementation.
 			V before = m_cache.findBeforeImage(src);
+			if(null == before && src instanceof HibernateProxy)
+				before = (V) m_cache.findBeforeImage(((HibernateProxy) src).getHibernateLazyInitializer().getImplementation());
 			if(null != before) {
 				return before;
 			}
@@ -240,6 +271,22 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 		return (C) proxy;
 	}
 
+	/**
+	 * In snapshot mode the collection can have changed since it was loaded, so the mirror of a loaded
+	 * collection is made from the snapshot Hibernate took of it when it was loaded.
+	 */
+	private <E, C extends Collection<E>> C convertChildSnapshot(@Nonnull C src) throws Exception {
+		if(!Hibernate.isInitialized(src) || !(src instanceof PersistentCollection))
+			return convertChildCollection(src);
+
+		Serializable snapshot = ((PersistentCollection) src).getStoredSnapshot();
+		if(snapshot instanceof Map)								// Sets keep their snapshot as a map of element to element
+			return createMirrorCollection(src, ((Map<E, E>) snapshot).keySet());
+		if(snapshot instanceof Collection)
+			return createMirrorCollection(src, (Collection<E>) snapshot);
+		return createMirrorCollection(src);
+	}
+
 	/**
 	 * This creates the mirrored collection for an already-loaded collection. It just creates a new base
 	 * type of the real collection type expected as an immutable type, then returns it.
@@ -265,11 +312,19 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 	 */
 	@Nonnull
 	static private <T, V extends Collection<T>> V createMirrorCollection(@Nonnull V source) {
+		return createMirrorCollection(source, source);
+	}
+
+	/**
+	 * Create the immutable mirror for a collection of the type of source, containing content.
+	 */
+	@Nonnull
+	static private <T, V extends Collection<T>> V createMirrorCollection(@Nonnull V source, @Nonnull Collection<T> content) {
 		Class<V> clz = (Class<V>) source.getClass();
 		if(List.class.isAssignableFrom(clz)) {
-			return (V) Collections.unmodifiableList(new ArrayList<T>(source));
+			return (V) Collections.unmodifiableList(new ArrayList<T>(content));
 		} else if(Set.class.isAssignableFrom(clz)) {
-			return (V) Collections.unmodifiableSet(new HashSet<T>(source));
+			return (V) Collections.unmodifiableSet(new HashSet<T>(content));
 		} else
 			throw new IllegalStateException("Before Images Interceptor: cannot create before images for collection of type " + source.getClass());
 	}
@@ -305,4 +360,87 @@ public class BeforeImageInterceptor extends EmptyInterceptor {
 		mirror.initializeFromOriginal(collection);
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Snapshot mode.										*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * The loaded state of an instance, as kept by Hibernate's persistence context. The array is not copied:
+	 * Hibernate replaces it with a new one when the instance is flushed.
+	 */
+	private final class LoadedStateSnapshot implements IBeforeImageSnapshot {
+		@Nonnull
+		final private Class< ? > m_class;
+
+		@Nonnull
+		final private Object m_instance;
+
+		@Nonnull
+		final private EntityPersister m_persister;
+
+		@Nonnull
+		final private Object[] m_state;
+
+		public LoadedStateSnapshot(@Nonnull Class< ? > clz, @Nonnull Object instance, @Nonnull EntityPersister persister, @Nonnull Object[] state) {
+			m_class = clz;
+			m_instance = instance;
+			m_persister = persister;
+			m_state = state;
+		}
+
+		@Nonnull
+		@Override
+		public Class< ? > getImageClass() {
+			return m_class;
+		}
+
+		@Override
+		public void initializeImage(@Nonnull Object image) throws Exception {
+			ClassMetaModel cmm = MetaManager.findClassMeta(m_class);
+			PropertyMetaModel< ? > pkmm = cmm.getPrimaryKey();
+			if(null != pkmm)
+				copyProperty(image, m_instance, pkmm);			// The id is not part of the loaded state, and cannot change
+
+			String[] names = m_persister.getPropertyNames();
+			for(int i = 0; i < names.length; i++) {
+				PropertyMetaModel<Object> pmm = (PropertyMetaModel<Object>) cmm.findProperty(names[i]);
+				if(null == pmm || pmm.getReadOnly() == YesNoType.YES || pmm.isTransient())
+					continue;
+				setImageProperty(image, pmm, m_state[i]);
+			}
+		}
+	}
+
+	/**
+	 * Build the before image of the instance if it is still a snapshot, before a flush replaces its loaded state.
+	 */
+	private void buildImage(@Nullable Object instance) {
+		if(m_snapshots && null != instance)
+			m_cache.findBeforeImage(instance);
+	}
+
+	private void buildOwnerImage(@Nullable Object collection) {
+		if(collection instanceof PersistentCollection)
+			buildImage(((PersistentCollection) collection).getOwner());
+	}
+
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState, String[] propertyNames, Type[] types) {
+		buildImage(entity);
+		return false;
+	}
+
+	@Override
+	public void onCollectionUpdate(Object collection, Serializable key) throws CallbackException {
+		buildOwnerImage(collection);
+	}
+
+	@Override
+	public void onCollectionRemove(Object collection, Serializable key) throws CallbackException {
+		buildOwnerImage(collection);
+	}
+
+	@Override
+	public void onCollectionRecreate(Object collection, Serializable key) throws CallbackException {
+		buildOwnerImage(collection);
+	}
 }
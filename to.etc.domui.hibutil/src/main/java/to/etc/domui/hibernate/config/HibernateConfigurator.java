@@ -104,6 +104,12 @@ final public class HibernateConfigurator {
 
 	static private boolean m_beforeImagesEnabled;
 
+	/** When set, before images are built from Hibernate's loaded state when they are asked for, instead of being copied on load. */
+	static private boolean m_beforeImageSnapshots;
+
+	/** The value for hibernate.jdbc.batch_size, or -1 to use the value from the configuration file. */
+	static private int m_jdbcBatchSize = -1;
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Accessing the completed configuration's data.		*/
 	/*--------------------------------------------------------------*/
@@ -198,6 +204,17 @@ final public class HibernateConfigurator {
 		m_mode = m;
 	}
 
+	/**
+	 * Set the JDBC batch size Hibernate uses when flushing (hibernate.jdbc.batch_size). When set to a value &gt; 0
+	 * inserts and updates are also ordered by entity so that more of them can be batched. The default
+	 * configuration has batching disabled.
+	 * @param size
+	 */
+	static public void jdbcBatchSize(int size) {
+		configured();
+		m_jdbcBatchSize = size;
+	}
+
 	/**
 	 * Register a DomUI {@link IQueryListener} that will be called when DomUI executes {@link QCriteria} queries.
 	 * @param ql
@@ -230,6 +247,19 @@ final public class HibernateConfigurator {
 		m_beforeImagesEnabled = yes;
 	}
 
+	/**
+	 * Enable before images, and only keep Hibernate's loaded state for every loaded instance. The before image
+	 * itself is built when {@link QDataContext#original(Object)} is called for the instance, or just before the
+	 * instance or one of its collections is flushed. This saves a copy per loaded instance for contexts that
+	 * load a lot but ask for few originals.
+	 */
+	static public void enableBeforeImageSnapshots(boolean yes) {
+		configured();
+		m_beforeImageSnapshots = yes;
+		if(yes)
+			m_beforeImagesEnabled = true;
+	}
+
 	static public void enableObservableCollections(boolean yes) {
 		configured();
 		m_observableEnabled = yes;
@@ -295,6 +325,14 @@ final public class HibernateConfigurator {
 			config.setProperty("hibernate.format_sql", "true");
 		}
 
+		if(m_jdbcBatchSize >= 0) {
+			config.setProperty("hibernate.jdbc.batch_size", Integer.toString(m_jdbcBatchSize));
+			if(m_jdbcBatchSize > 0) {
+				config.setProperty("hibernate.order_inserts", "true");
+				config.setProperty("hibernate.order_updates", "true");
+			}
+		}
+
 		switch(m_mode){
 			default:
 				throw new IllegalStateException("Mode: " + m_mode);
@@ -342,7 +380,7 @@ final public class HibernateConfigurator {
 			hsm = new HibernateSessionMaker() {
 				@Override
 				public Session makeSession(@Nonnull BuggyHibernateBaseContext dc) throws Exception {
-					return m_sessionFactory.openSession(new BeforeImageInterceptor(dc.getBeforeCache()));
+					return m_sessionFactory.openSession(new BeforeImageInterceptor(dc.getBeforeCache(), m_beforeImageSnapshots));
 				}
 			};
 		} else {
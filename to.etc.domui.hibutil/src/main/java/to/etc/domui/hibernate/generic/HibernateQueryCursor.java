@@ -0,0 +1,128 @@
+package to.etc.domui.hibernate.generic;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.hibernate.*;
+import org.hibernate.engine.EntityEntry;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.PersistenceContext;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.engine.Status;
+import org.hibernate.persister.entity.*;
+
+import to.etc.webapp.query.*;
+
+/**
+ * A cursor over Hibernate ScrollableResults. For entity queries every row is evicted from the
+ * session when the cursor moves to the next row, so that the session does not collect all
+ * entities of the result. A row is not evicted when its entity was already in the session when
+ * the cursor was opened, or when it has unflushed changes, so that no changes are lost. Entities
+ * loaded along with a row, like eager relations, stay in the session.
+ *
+ * Created on Oct 18, 2026
+ */
+final class HibernateQueryCursor<T> implements IQueryCursor<T> {
+	@Nonnull
+	final private Session m_session;
+
+	@Nullable
+	private ScrollableResults m_results;
+
+	/** T if the rows are entities, F if they are the selected columns as an Object[]. */
+	final private boolean m_entities;
+
+	@Nullable
+	private Object m_current;
+
+	private int m_rowCount;
+
+	/** The keys of the entities that were in the session when the cursor was opened; these are never evicted. */
+	@Nonnull
+	final private Set<EntityKey> m_knownKeys;
+
+	HibernateQueryCursor(@Nonnull Session session, @Nonnull ScrollableResults results, boolean entities) {
+		m_session = session;
+		m_results = results;
+		m_entities = entities;
+		m_knownKeys = entities ? new HashSet<EntityKey>(getPersistenceContext().getEntitiesByKey().keySet()) : Collections.<EntityKey> emptySet();
+	}
+
+	@Nonnull
+	private PersistenceContext getPersistenceContext() {
+		return ((SessionImplementor) m_session).getPersistenceContext();
+	}
+
+	@Override
+	public boolean next() throws Exception {
+		ScrollableResults results = m_results;
+		if(null == results)
+			return false;
+		try {
+			evictCurrent();
+			if(!results.next()) {
+				close();
+				return false;
+			}
+			m_current = m_entities ? results.get(0) : results.get();
+			m_rowCount++;
+			return true;
+		} catch(Exception x) {
+			close();
+			throw x;
+		}
+	}
+
+	private void evictCurrent() {
+		Object current = m_current;
+		m_current = null;
+		if(m_entities && null != current && isEvictable(current))
+			m_session.evict(current);
+	}
+
+	/**
+	 * T if the entity was loaded by this cursor and is unchanged.
+	 */
+	private boolean isEvictable(@Nonnull Object entity) {
+		EntityEntry ee = getPersistenceContext().getEntry(entity);
+		if(null == ee || ee.getStatus() != Status.MANAGED)
+			return false;
+		EntityPersister persister = ee.getPersister();
+		if(m_knownKeys.contains(new EntityKey(ee.getId(), persister, EntityMode.POJO)))
+			return false;
+		Object[] loadedState = ee.getLoadedState();
+		if(null == loadedState)
+			return false;
+		Object[] state = persister.getPropertyValues(entity, EntityMode.POJO);
+		return persister.findDirty(state, loadedState, entity, (SessionImplementor) m_session) == null;
+	}
+
+	@Override
+	@Nonnull
+	public T get() {
+		Object current = m_current;
+		if(null == current)
+			throw new IllegalStateException("The cursor is not on a row");
+		return (T) current;
+	}
+
+	@Override
+	public int getRowCount() {
+		return m_rowCount;
+	}
+
+	@Override
+	public void close() {
+		ScrollableResults results = m_results;
+		m_results = null;
+		if(null == results)
+			return;
+		try {
+			evictCurrent();
+		} catch(Exception x) {}
+		try {
+			results.close();
+		} catch(Exception x) {}
+	}
+}
@@ -118,6 +118,26 @@ public class HibernateQueryExecutor implements IQueryExecutor<BuggyHibernateBase
 		return resl;
 	}
 
+	@Override
+	public <T> IQueryCursor<T> cursor(BuggyHibernateBaseContext root, QCriteria<T> q, int fetchSize) throws Exception {
+		Criteria crit = GenericHibernateHandler.createCriteria(root.getSession(), q);
+		if(fetchSize > 0)
+			crit.setFetchSize(fetchSize);
+		return new HibernateQueryCursor<T>(root.getSession(), crit.scroll(ScrollMode.FORWARD_ONLY), true);
+	}
+
+	/**
+	 * Like {@link #query(BuggyHibernateBaseContext, QSelection)}, single-column rows are returned as an Object[] too,
+	 * as ScrollableResults always returns an array.
+	 */
+	@Override
+	public IQueryCursor<Object[]> cursor(BuggyHibernateBaseContext root, QSelection< ? > sel, int fetchSize) throws Exception {
+		Criteria crit = GenericHibernateHandler.createCriteria(root.getSession(), sel);
+		if(fetchSize > 0)
+			crit.setFetchSize(fetchSize);
+		return new HibernateQueryCursor<Object[]>(root.getSession(), crit.scroll(ScrollMode.FORWARD_ONLY), false);
+	}
+
 	@Override
 	public void refresh(BuggyHibernateBaseContext root, Object o) throws Exception {
 		root.getSession().refresh(o);
@@ -128,6 +148,44 @@ public class HibernateQueryExecutor implements IQueryExecutor<BuggyHibernateBase
 		root.getSession().save(o);
 	}
 
+	/**
+	 * Saves all objects and flushes the session after every batchSize objects, so that Hibernate can send the
+	 * inserts in JDBC batches when hibernate.jdbc.batch_size is set (see HibernateConfigurator#jdbcBatchSize(int)).
+	 * Sessions in MANUAL flush mode are not flushed; their inserts are batched when the session is flushed at commit.
+	 * Objects with an identity-generated key are always inserted one by one by Hibernate. Each flush also
+	 * writes all other dirty entities in the session, not only the ones in the list.
+	 */
+	@Override
+	public void saveAll(BuggyHibernateBaseContext root, List< ? > list, int batchSize) throws Exception {
+		Session ses = root.getSession();
+		boolean flush = ses.getFlushMode() != FlushMode.MANUAL;
+		int count = 0;
+		for(Object o : list) {
+			ses.save(o);
+			if(flush && ++count % batchSize == 0)
+				ses.flush();
+		}
+		if(flush)
+			ses.flush();
+	}
+
+	/**
+	 * Deletes all objects, flushing like {@link #saveAll(BuggyHibernateBaseContext, List, int)}.
+	 */
+	@Override
+	public void deleteAll(BuggyHibernateBaseContext root, List< ? > list, int batchSize) throws Exception {
+		Session ses = root.getSession();
+		boolean flush = ses.getFlushMode() != FlushMode.MANUAL;
+		int count = 0;
+		for(Object o : list) {
+			ses.delete(o);
+			if(flush && ++count % batchSize == 0)
+				ses.flush();
+		}
+		if(flush)
+			ses.flush();
+	}
+
 	@Override
 	public void attach(BuggyHibernateBaseContext root, Object o) throws Exception {
 		root.getSession().update(o);
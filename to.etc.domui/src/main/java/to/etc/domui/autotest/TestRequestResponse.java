@@ -105,6 +105,17 @@ public class TestRequestResponse implements IRequestResponse {
 		return m_testInfo.getUserAgent();
 	}
 
+	@Override
+	@Nullable
+	public String getRequestHeader(@Nonnull String name) {
+		return null;
+	}
+
+	@Override
+	public long getRequestDateHeader(@Nonnull String name) {
+		return -1;
+	}
+
 	@Override
 	@Nonnull
 	public String getApplicationURL() {
@@ -176,6 +187,20 @@ public class TestRequestResponse implements IRequestResponse {
 		return os;
 	}
 
+	/**
+	 * Test responses are never compressed.
+	 */
+	@Override
+	public boolean acceptsContentEncoding(@Nonnull String contentEncoding) {
+		return false;
+	}
+
+	@Override
+	@Nonnull
+	public OutputStream getCompressedOutputStream(@Nonnull String contentType, @Nullable String encoding) throws Exception {
+		return getOutputStream(contentType, encoding, -1);
+	}
+
 	public void flush() throws Exception {
 		if(m_writer != null)
 			m_writer.flush();
@@ -232,6 +257,12 @@ public class TestRequestResponse implements IRequestResponse {
 	@Override
 	public void addHeader(@Nonnull String name, @Nonnull String value) {}
 
+	@Override
+	public void addDateHeader(@Nonnull String name, long time) {}
+
+	@Override
+	public void setStatus(int httpStatus) {}
+
 	@Nonnull
 	public TestResponseType getResponseType() {
 		return m_responseType;
@@ -82,7 +82,7 @@ public class BreadCrumb extends Div {
 			} else {
 				if(p instanceof ShelvedDomUIPage) {
 					ShelvedDomUIPage pg = (ShelvedDomUIPage) p;
-					s = new ALink(pg.getPage().getBody().getClass(), pg.getPage().getPageParameters());
+					s = new ALink(pg.getPageClass(), pg.getPageParameters());
 				} else {
 					ATag a = new ATag();
 					a.setHref(p.getURL());
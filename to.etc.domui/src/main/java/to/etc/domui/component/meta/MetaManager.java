@@ -26,6 +26,7 @@ package to.etc.domui.component.meta;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import javax.annotation.*;
 
@@ -59,15 +60,28 @@ final public class MetaManager {
 	static private List<IClassMetaModelFactory> m_modelList = new ArrayList<IClassMetaModelFactory>();
 
 	/**
-	 * Map indexed by Class<?> or IMetaClass returning the classmodel for that instance.
+	 * Map indexed by Class<?> or IMetaClass returning the classmodel for that instance. This only
+	 * contains fully initialized models, and is read without locking.
 	 */
-	static private Map<Object, ClassMetaModel> m_classMap = new HashMap<Object, ClassMetaModel>();
+	final static private Map<Object, ClassMetaModel> m_classMap = new ConcurrentHashMap<Object, ClassMetaModel>();
+
+	/**
+	 * Models that have been created but whose secondary initialization (m_initList) has not yet
+	 * completed. These are visible only to the thread creating them, which holds the lock.
+	 */
+	final static private Map<Object, ClassMetaModel> m_pendingMap = new HashMap<Object, ClassMetaModel>();
+
+	/** The nesting depth of model creation; pending models are published when it drops to 0. */
+	static private int m_initDepth;
 
 	/** While a metamodel is being initialized this keeps track of recursive init's */
 	final static private Stack<Object> m_initStack = new Stack<Object>();
 
 	final static private List<Runnable> m_initList = new ArrayList<Runnable>();
 
+	/** The results of parsePropertyPath, per class model and property path. Only used for models in m_classMap. */
+	final static private Map<ClassMetaModel, Map<String, List<PropertyMetaModel< ? >>>> m_propertyPathMap = new ConcurrentHashMap<>();
+
 	private MetaManager() {}
 
 	static synchronized public void registerModel(@Nonnull IClassMetaModelFactory model) {
@@ -112,30 +126,51 @@ final public class MetaManager {
 	 */
 	public synchronized static void internalClear() {
 		m_classMap.clear();
+		m_propertyPathMap.clear();
 	}
 
+	/**
+	 * Find or create the model. Models that are known are returned without locking; creating a
+	 * model is done with the global lock held. A model created while creating another one is only
+	 * published for lock-free access when the outermost creation has completed both phases, so that
+	 * other threads never see a model whose secondary initialization has not yet run.
+	 */
 	@Nonnull
 	private static ClassMetaModel findAndInitialize(@Nonnull Object mc) {
+		ClassMetaModel cmm = m_classMap.get(mc);
+		if(cmm != null)
+			return cmm;
+
 		//-- We need some factory to create it.
 		synchronized(MetaManager.class) {
-			ClassMetaModel cmm = m_classMap.get(mc);
+			cmm = m_classMap.get(mc);
+			if(cmm == null)
+				cmm = m_pendingMap.get(mc);				// Created by this thread, still initializing
 			if(cmm != null)
 				return cmm;
 
-			//-- Phase 1: create the metamodel and it's direct properties.
-			checkInitStack(mc, "primary initialization");
-			IClassMetaModelFactory best = findModelFactory(mc);
-			m_initStack.add(mc);
-			cmm = best.createModel(m_initList, mc);
-			m_classMap.put(mc, cmm);
-			m_initStack.remove(mc);
-
-			//-- Phase 2: create the secondary model.
-			if(m_initStack.size() == 0 && m_initList.size() > 0) {
-				List<Runnable> dl = new ArrayList<Runnable>(m_initList);
-				m_initList.clear();
-				for(Runnable r : dl) {
-					r.run();
+			m_initDepth++;
+			try {
+				//-- Phase 1: create the metamodel and it's direct properties.
+				checkInitStack(mc, "primary initialization");
+				IClassMetaModelFactory best = findModelFactory(mc);
+				m_initStack.add(mc);
+				cmm = best.createModel(m_initList, mc);
+				m_pendingMap.put(mc, cmm);
+				m_initStack.remove(mc);
+
+				//-- Phase 2: create the secondary model.
+				if(m_initStack.size() == 0 && m_initList.size() > 0) {
+					List<Runnable> dl = new ArrayList<Runnable>(m_initList);
+					m_initList.clear();
+					for(Runnable r : dl) {
+						r.run();
+					}
+				}
+			} finally {
+				if(--m_initDepth == 0) {
+					m_classMap.putAll(m_pendingMap);
+					m_pendingMap.clear();
 				}
 			}
 			return cmm;
@@ -497,11 +532,30 @@ final public class MetaManager {
 	/**
 	 * Parse the property path and return the list of properties in the path. This explicitly allows
 	 * traversing child relations provided generic type information is present to denote the child's type.
+	 * The result is cached for the models known by MetaManager, and is immutable.
 	 * @param m
 	 * @param compoundName
 	 * @return
 	 */
 	static public List<PropertyMetaModel< ? >> parsePropertyPath(@Nonnull ClassMetaModel m, String compoundName) {
+		Class< ? > clz = m.getActualClass();
+		if(clz == null || m_classMap.get(clz) != m)
+			return Collections.unmodifiableList(calculatePropertyPath(m, compoundName));	// Not a cached model: do not keep it alive
+
+		Map<String, List<PropertyMetaModel< ? >>> map = m_propertyPathMap.computeIfAbsent(m, k -> new ConcurrentHashMap<>());
+		List<PropertyMetaModel< ? >> res = map.get(compoundName);
+		if(null == res) {
+			//-- Calculate outside any lock, as this can initialize other models. Several threads can do this at the same time; the first one wins.
+			res = Collections.unmodifiableList(calculatePropertyPath(m, compoundName));
+			List<PropertyMetaModel< ? >> race = map.putIfAbsent(compoundName, res);
+			if(null != race)
+				res = race;
+		}
+		return res;
+	}
+
+	@Nonnull
+	static private List<PropertyMetaModel< ? >> calculatePropertyPath(@Nonnull ClassMetaModel m, String compoundName) {
 		int ix = 0;
 		int len = compoundName.length();
 		List<PropertyMetaModel< ? >> res = new ArrayList<PropertyMetaModel< ? >>();
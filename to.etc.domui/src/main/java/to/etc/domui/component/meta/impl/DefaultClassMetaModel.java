@@ -33,6 +33,7 @@ import to.etc.webapp.query.*;
 import javax.annotation.*;
 import javax.annotation.concurrent.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * This is a DomUI class metamodel info record that only contains data. It can be constructed by
@@ -62,8 +63,9 @@ public class DefaultClassMetaModel implements ClassMetaModel {
 	@Nonnull
 	private Map<String, PropertyMetaModel< ? >> m_simplePropertyMap = Collections.EMPTY_MAP;
 
+	/** Dotted properties, calculated on first use. */
 	@Nonnull
-	final private Map<String, PropertyMetaModel< ? >> m_dottedPropertyMap = new HashMap<>();
+	final private Map<String, PropertyMetaModel< ? >> m_dottedPropertyMap = new ConcurrentHashMap<>();
 
 	/**
 	 * When this object type is defined in an UP relation somewhere, this is a hint on what
@@ -224,27 +226,21 @@ public class DefaultClassMetaModel implements ClassMetaModel {
 
 		/*
 		 * We need to check the dotted map, and we need to prevent deadlocking the system when multiple classes are
-		  * initializing.
+		  * initializing. The map is concurrent, so known paths are found without locking.
 		 */
-		PropertyMetaModel< ? > pmm;
-		synchronized(this) {
-			pmm = m_dottedPropertyMap.get(name);
-			if(pmm != null)
-				return pmm;
-		}
+		PropertyMetaModel< ? > pmm = m_dottedPropertyMap.get(name);
+		if(pmm != null)
+			return pmm;
 
-		//-- Create a compound property outside the lock; this prevents deadlock at the costs of running several copies at the same time.
+		//-- Create a compound property outside any lock; this prevents deadlock at the costs of running several copies at the same time.
 		pmm = MetaManager.internalCalculateDottedPath(this, name);
 		if(pmm != null) {
 			/*
 			 * Now resolve the possible multiple resolutions of the same dotted path, by checking if some other thread "stored first".
 			 */
-			synchronized(this) {
-				PropertyMetaModel<?> racePmm = m_dottedPropertyMap.get(name);        // Was a path stored in the meanwhile?
-				if(null != racePmm)
-					return racePmm;                                                    // Yes-> the earlier thread won, use it's result
-				m_dottedPropertyMap.put(name, pmm);                // We won ;)
-			}
+			PropertyMetaModel<?> racePmm = m_dottedPropertyMap.putIfAbsent(name, pmm);	// Was a path stored in the meanwhile?
+			if(null != racePmm)
+				return racePmm;                                                    // Yes-> the earlier thread won, use it's result
 		}
 		return pmm;
 	}
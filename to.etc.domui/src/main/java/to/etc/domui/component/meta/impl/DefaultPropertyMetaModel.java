@@ -41,6 +41,9 @@ public class DefaultPropertyMetaModel<T> extends BasicPropertyMetaModel<T> imple
 
 	private final PropertyInfo m_descriptor;
 
+	/** The parameter type of the setter, cached because getParameterTypes() copies. */
+	private Class< ? > m_setterType;
+
 	private int m_length = -1;
 
 	private boolean m_primaryKey;
@@ -144,24 +147,18 @@ public class DefaultPropertyMetaModel<T> extends BasicPropertyMetaModel<T> imple
 		Method setter = m_descriptor.getSetter();
 		if(setter == null)
 			throw new IllegalAccessException("The property " + this + " is read-only.");
-		try {
-			setter.setAccessible(true);
-			setter.invoke(target, value);
-		} catch(InvocationTargetException itx) {
-			Throwable c = itx.getCause();
-//			System.err.println("(in calling " + setter + " with input object " + target + " and value " + value + ")");
-			if(c instanceof Exception) {
-				throw (Exception) c;
-			} else if(c instanceof Error)
-				throw (Error) c;
-			else
-				throw itx;
-		} catch(IllegalArgumentException x) {
+
+		/*
+		 * The setter is called through a generated accessor, which does not report a wrong target or value type
+		 * as IllegalArgumentException like Method.invoke() did, so check those here. Any IllegalArgumentException
+		 * after this comes from the setter itself, and is passed on as-is.
+		 */
+		Class< ? > setterType = m_setterType;
+		if(null == setterType)
+			m_setterType = setterType = setter.getParameterTypes()[0];
+		if(!setter.getDeclaringClass().isInstance(target) || !PropertyAccessorFactory.isAssignable(setterType, value))
 			throw new PropertyValueInvalidException(value, target, this);
-		} catch(Exception x) {
-//			System.err.println("(in calling " + setter + " with input object " + target + " and value " + value + ")");
-			throw x;
-		}
+		m_descriptor.setValue(target, value);
 	}
 
 	@Override public boolean isReadOnly() {
@@ -179,18 +176,8 @@ public class DefaultPropertyMetaModel<T> extends BasicPropertyMetaModel<T> imple
 		if(in == null)
 			throw new IllegalStateException("The 'input' object is null (getter method=" + m_descriptor.getGetter() + ")");
 		try {
-			m_descriptor.getGetter().setAccessible(true);
-			return (T) m_descriptor.getGetter().invoke(in);
-		} catch(InvocationTargetException itx) {
-//			System.err.println(itx + " (in calling " + m_descriptor.getGetter() + " with input object " + in + ")");
-			Throwable c = itx.getCause();
-			if(c instanceof Exception)
-				throw (Exception) c;
-			else if(c instanceof Error)
-				throw (Error) c;
-			else
-				throw itx;
-		} catch(Exception x) {
+			return (T) m_descriptor.getValue(in);
+		} catch(IllegalArgumentException | ClassCastException x) {
 			try {
 				System.err.println(x + " in calling " + m_descriptor.getGetter() + " with input object " + in);
 			} catch(Exception xx) {}
@@ -0,0 +1,482 @@
+package to.etc.domui.component.tbl;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.slf4j.*;
+
+import to.etc.domui.component.meta.*;
+import to.etc.domui.dom.html.*;
+import to.etc.domui.util.*;
+import to.etc.util.*;
+import to.etc.webapp.query.*;
+
+/**
+ * A table model that queries the database one page at a time, using keyset ("seek") pagination instead of
+ * loading the whole result like {@link SimpleSearchModel} does. The rows are ordered on the sort properties
+ * followed by the primary key, and a page that follows an already read page is selected with a restriction
+ * that starts after the last row of that page:
+ * <pre>
+ *	(s1 &gt; :s1) or (s1 = :s1 and s2 &gt; :s2) or ... or (s1 = :s1 and ... and id &gt; :id)
+ * </pre>
+ * so the database never has to skip rows. The model remembers the last row of every page it read. When the
+ * pager jumps to a page whose predecessor was never read, the rows in between are skipped by selecting only
+ * the sort and primary key columns, again starting at the nearest known page.
+ *
+ * <p>A keyset restriction never selects rows that have a null in a sort property, so when one of the sort properties
+ * (or a property on its path) is not required, see {@link PropertyMetaModel#isRequired()}, all pages are selected
+ * with an offset instead. When the row before a page has a null in a required sort property anyway that page is
+ * selected with an offset too. Only the restrictions, the order and the timeout of the criteria are used.</p>
+ *
+ * <p>The #of rows shown by the pager comes from a separate query, see {@link CountMode}.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class KeysetSearchModel<T> extends TableModelBase<T> implements ITruncateableDataModel, ISortableTableModel, IShelvedListener {
+	private static final Logger LOG = LoggerFactory.getLogger(KeysetSearchModel.class);
+
+	/**
+	 * How the model determines the #of rows for the pager.
+	 */
+	public enum CountMode {
+		/**
+		 * Count the rows, but stop at the max row count: only the primary keys of at most that many rows are
+		 * read. When there are more the model is truncated, like {@link SimpleSearchModel} is, and the rows
+		 * after the max row count cannot be paged to. This is the default.
+		 */
+		LIMITED,
+
+		/** Use a select count(*) with the same restrictions; all rows can be paged to. */
+		EXACT
+	}
+
+	@Nullable
+	final private IQDataContextSource m_sessionSource;
+
+	@Nullable
+	final private NodeBase m_contextSourceNode;
+
+	@Nonnull
+	final private Class<T> m_dataClass;
+
+	@Nonnull
+	private QCriteria<T> m_query;
+
+	@Nonnull
+	private CountMode m_countMode = CountMode.LIMITED;
+
+	/** The max. #of rows counted in {@link CountMode#LIMITED} mode. When &lt;= 0 {@link ITableModel#DEFAULT_MAX_SIZE} is used. */
+	private int m_maxRowCount;
+
+	/** If we sort on property name this is the property name to sort on, replacing the criteria's order. */
+	@Nullable
+	private String m_sort;
+
+	private boolean m_desc;
+
+	/** The order used for the query: the sort properties followed by the primary key, calculated on first use. */
+	@Nullable
+	private List<QOrder> m_keyOrder;
+
+	/** T when all properties in the key order are required, so that keyset restrictions find all rows; calculated with the key order. */
+	private boolean m_keysetPaging;
+
+	/** The key values of the last row of every page read, by row index. */
+	final private TreeMap<Integer, Object[]> m_anchorMap = new TreeMap<Integer, Object[]>();
+
+	/** The #of rows, or -1 if not yet counted. */
+	private int m_rowCount = -1;
+
+	private boolean m_truncated;
+
+	@Nullable
+	private List<T> m_page;
+
+	private int m_pageStart;
+
+	private int m_pageEnd;
+
+	public KeysetSearchModel(@Nonnull IQDataContextSource ss, @Nonnull QCriteria<T> qc) {
+		m_sessionSource = ss;
+		m_contextSourceNode = null;
+		m_dataClass = getDataClass(qc);
+		m_query = qc;
+	}
+
+	public KeysetSearchModel(@Nonnull NodeBase contextSourceNode, @Nonnull QCriteria<T> qc) {
+		m_contextSourceNode = contextSourceNode;
+		m_sessionSource = null;
+		m_dataClass = getDataClass(qc);
+		m_query = qc;
+	}
+
+	@Nonnull
+	static private <T> Class<T> getDataClass(@Nonnull QCriteria<T> qc) {
+		Class<T> clz = qc.getBaseClass();
+		if(null == clz)
+			throw new IllegalArgumentException("Keyset paging needs a class-based criteria");
+		return clz;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Simple getters and setters.							*/
+	/*--------------------------------------------------------------*/
+	@Nonnull
+	public QCriteria<T> getQuery() {
+		return m_query;
+	}
+
+	/**
+	 * Replace the query. When the new criteria has an order it replaces the order set by {@link #sortOn(String, boolean)}.
+	 */
+	public void setCriteria(@Nonnull QCriteria<T> query) throws Exception {
+		if(getDataClass(query) != m_dataClass)
+			throw new IllegalArgumentException("The criteria must query " + m_dataClass.getName());
+		m_query = query;
+		if(query.getOrder().size() > 0)
+			m_sort = null;
+		clear();
+		fireModelChanged();
+	}
+
+	@Nonnull
+	public CountMode getCountMode() {
+		return m_countMode;
+	}
+
+	public void setCountMode(@Nonnull CountMode countMode) {
+		if(m_countMode == countMode)
+			return;
+		m_countMode = countMode;
+		clear();
+	}
+
+	/**
+	 * Return the max #of rows counted in {@link CountMode#LIMITED} mode. When &lt;= 0 the default limit is used.
+	 */
+	public int getMaxRowCount() {
+		return m_maxRowCount;
+	}
+
+	public void setMaxRowCount(int maxRowCount) {
+		m_maxRowCount = maxRowCount;
+		clear();
+	}
+
+	@Override
+	public boolean isTruncated() {
+		return m_truncated;
+	}
+
+	/**
+	 * Allocate and return a datacontext.
+	 */
+	@Nonnull
+	private QDataContext getQueryContext() throws Exception {
+		IQDataContextSource ss = m_sessionSource;
+		if(ss != null)
+			return ss.getDataContext();
+		NodeBase node = m_contextSourceNode;
+		if(node != null)
+			return node.getSharedContext();
+		throw new IllegalStateException("No sessionSource and no contextSourceNode present - I do not know how to allocate a QDataContext");
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	ITableModel implementation.							*/
+	/*--------------------------------------------------------------*/
+	@Override
+	public int getRows() throws Exception {
+		if(m_rowCount < 0)
+			m_rowCount = countRows();
+		return m_rowCount;
+	}
+
+	@Override
+	protected T getItem(int ix) throws Exception {
+		List<T> res = getItems(ix, ix + 1);
+		if(res.size() == 0)
+			throw new IndexOutOfBoundsException("Row " + ix + " is not present");
+		return res.get(0);
+	}
+
+	@Nonnull
+	@Override
+	public List<T> getItems(int start, int end) throws Exception {
+		if(start < 0)
+			start = 0;
+		if(end > getRows())
+			end = getRows();
+		if(end <= start)
+			return Collections.EMPTY_LIST;
+		List<T> page = m_page;
+		if(null != page && start == m_pageStart && end == m_pageEnd)
+			return page;
+
+		long ts = System.nanoTime();
+		QDataContext dc = getQueryContext();
+		try {
+			page = queryPage(dc, start, end - start);
+		} finally {
+			try {
+				dc.close();
+			} catch(Exception x) {}
+		}
+		m_page = page;
+		m_pageStart = start;
+		m_pageEnd = end;
+		if(LOG.isDebugEnabled())
+			LOG.debug("db: keyset page " + start + ".." + end + " took " + StringTool.strNanoTime(System.nanoTime() - ts));
+		return page;
+	}
+
+	/**
+	 * Discard the page, the page positions and the row count, so that everything is queried again.
+	 */
+	public void clear() {
+		m_page = null;
+		m_anchorMap.clear();
+		m_keyOrder = null;
+		m_rowCount = -1;
+		m_truncated = false;
+	}
+
+	@Override
+	public void refresh() {
+		clear();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Querying.											*/
+	/*--------------------------------------------------------------*/
+	@Nonnull
+	private List<T> queryPage(@Nonnull QDataContext dc, int start, int count) throws Exception {
+		List<QOrder> order = getKeyOrder();
+		Object[] anchor = null;
+		boolean offset = false;
+		if(start > 0) {
+			if(m_keysetPaging) {
+				anchor = findAnchor(dc, start - 1);
+				if(null == anchor)
+					return Collections.EMPTY_LIST;				// Rows were deleted since counting
+				offset = hasNull(anchor);
+			} else
+				offset = true;
+		}
+
+		QCriteria<T> qc = QCriteria.create(m_dataClass);
+		initQuery(qc, order, offset ? null : anchor);
+		if(offset)
+			qc.start(start);
+		qc.limit(count);
+		List<T> res = dc.query(qc);
+		if(res.size() > 0 && m_keysetPaging)
+			m_anchorMap.put(Integer.valueOf(start + res.size() - 1), getKey(order, res.get(res.size() - 1)));
+		return res;
+	}
+
+	/**
+	 * Find the key values of row index. If that row was never the last row of a page, the rows after
+	 * the nearest page before it are skipped by selecting their key columns only. Returns null if there
+	 * are less rows than that.
+	 */
+	@Nullable
+	private Object[] findAnchor(@Nonnull QDataContext dc, int index) throws Exception {
+		Map.Entry<Integer, Object[]> e = m_anchorMap.floorEntry(Integer.valueOf(index));
+		if(null != e && e.getKey().intValue() == index)
+			return e.getValue();
+
+		List<QOrder> order = getKeyOrder();
+		QSelection<T> sel = QSelection.create(m_dataClass);
+		for(QOrder o : order)
+			sel.selectProperty(o.getProperty());
+		int from = -1;
+		if(null != e) {
+			from = e.getKey().intValue();
+			if(hasNull(e.getValue())) {
+				initQuery(sel, order, null);
+				sel.start(from + 1);
+			} else
+				initQuery(sel, order, e.getValue());
+		} else
+			initQuery(sel, order, null);
+		int skip = index - from;
+		sel.limit(skip);
+		List<Object[]> res = dc.query(sel);
+		if(res.size() < skip)
+			return null;
+		Object[] key = res.get(skip - 1);
+		m_anchorMap.put(Integer.valueOf(index), key);
+		return key;
+	}
+
+	/**
+	 * Add the restrictions, the order and the keyset restriction after the anchor, if present.
+	 */
+	private void initQuery(@Nonnull QCriteriaQueryBase<T> q, @Nonnull List<QOrder> order, @Nullable Object[] anchor) {
+		q.mergeCriteria(m_query);
+		q.setTimeout(m_query.getTimeout());
+		for(QOrder o : order) {
+			if(o.getDirection() == QSortOrderDirection.DESC)
+				q.descending(o.getProperty());
+			else
+				q.ascending(o.getProperty());
+		}
+		if(null == anchor)
+			return;
+
+		QRestrictor<T> or = q.or();
+		for(int i = 0; i < order.size(); i++) {
+			QRestrictor<T> and = or.and();
+			for(int j = 0; j < i; j++)
+				and.eq(order.get(j).getProperty(), anchor[j]);
+			QOrder o = order.get(i);
+			Object value = anchor[i];
+			if(null == value)
+				throw new IllegalStateException("Null key value for " + o.getProperty());
+			if(o.getDirection() == QSortOrderDirection.DESC)
+				and.lt(o.getProperty(), value);
+			else
+				and.gt(o.getProperty(), value);
+		}
+	}
+
+	static private boolean hasNull(@Nonnull Object[] key) {
+		for(Object o : key) {
+			if(null == o)
+				return true;
+		}
+		return false;
+	}
+
+	@Nonnull
+	private Object[] getKey(@Nonnull List<QOrder> order, @Nonnull T instance) throws Exception {
+		ClassMetaModel cmm = MetaManager.findClassMeta(m_dataClass);
+		Object[] key = new Object[order.size()];
+		for(int i = 0; i < key.length; i++)
+			key[i] = cmm.getProperty(order.get(i).getProperty()).getValue(instance);
+		return key;
+	}
+
+	/**
+	 * The sort order with the primary key appended, so that every row has a unique position.
+	 */
+	@Nonnull
+	private List<QOrder> getKeyOrder() {
+		List<QOrder> order = m_keyOrder;
+		if(null != order)
+			return order;
+		PropertyMetaModel< ? > pk = MetaManager.findClassMeta(m_dataClass).getPrimaryKey();
+		if(null == pk)
+			throw new IllegalStateException(m_dataClass.getName() + " has no primary key, it cannot be used for keyset paging");
+
+		order = new ArrayList<QOrder>();
+		String sort = m_sort;
+		if(null != sort)
+			order.add(m_desc ? QOrder.descending(sort) : QOrder.ascending(sort));
+		else
+			order.addAll(m_query.getOrder());
+		boolean haspk = false;
+		for(QOrder o : order) {
+			if(o.getProperty().equals(pk.getName()))
+				haspk = true;
+		}
+		if(!haspk)
+			order.add(QOrder.ascending(pk.getName()));
+		m_keysetPaging = isRequired(order, pk);
+		m_keyOrder = order;
+		return order;
+	}
+
+	/**
+	 * T if all properties in the order, and the properties on their paths, are required or the primary key.
+	 */
+	private boolean isRequired(@Nonnull List<QOrder> order, @Nonnull PropertyMetaModel< ? > pk) {
+		ClassMetaModel cmm = MetaManager.findClassMeta(m_dataClass);
+		for(QOrder o : order) {
+			if(o.getProperty().equals(pk.getName()))
+				continue;
+			for(PropertyMetaModel< ? > pmm : MetaManager.parsePropertyPath(cmm, o.getProperty())) {
+				if(!pmm.isRequired() && !pmm.isPrimaryKey()) {
+					LOG.debug("keyset: " + o.getProperty() + " is not required, paging with offsets");
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private int countRows() throws Exception {
+		PropertyMetaModel< ? > pk = MetaManager.findClassMeta(m_dataClass).getPrimaryKey();
+		if(null == pk)
+			throw new IllegalStateException(m_dataClass.getName() + " has no primary key, it cannot be used for keyset paging");
+		QSelection<T> sel = QSelection.create(m_dataClass);
+		sel.mergeCriteria(m_query);
+		sel.setTimeout(m_query.getTimeout());
+
+		QDataContext dc = getQueryContext();
+		try {
+			if(m_countMode == CountMode.EXACT) {
+				sel.count(pk.getName());
+				Object[] res = dc.queryOne(sel);
+				m_truncated = false;
+				return res == null || res[0] == null ? 0 : ((Number) res[0]).intValue();
+			}
+
+			int max = m_maxRowCount > 0 ? m_maxRowCount : ITableModel.DEFAULT_MAX_SIZE;
+			sel.selectProperty(pk.getName());
+			sel.limit(max + 1);
+			int count = dc.query(sel).size();
+			m_truncated = count > max;
+			return m_truncated ? max : count;
+		} finally {
+			try {
+				dc.close();
+			} catch(Exception x) {}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	SortableTableModel implementation.					*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Sort on the property, replacing the criteria's order. This restarts paging at the first page.
+	 */
+	@Override
+	public void sortOn(String key, boolean descending) throws Exception {
+		if(DomUtil.isEqual(key, m_sort) && descending == m_desc)
+			return;
+		m_sort = key;
+		m_desc = descending;
+		m_page = null;
+		m_anchorMap.clear();
+		m_keyOrder = null;
+		fireModelChanged();
+	}
+
+	@Override
+	@Nullable
+	public String getSortKey() {
+		return m_sort;
+	}
+
+	@Override
+	public boolean isSortDescending() {
+		return m_desc;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	IShelveListener implementation.						*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Discard the page when shelved, so that it is queried again when shown.
+	 */
+	@Override
+	public void onShelve() throws Exception {
+		clear();
+	}
+
+	@Override
+	public void onUnshelve() throws Exception {}
+}
@@ -0,0 +1,455 @@
+package to.etc.domui.component.tbl;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import org.slf4j.*;
+
+import to.etc.domui.state.*;
+
+/**
+ * Wraps a table model and reads the rows after the ones last asked for in the background, so that the next
+ * page flip in a {@link DataPager} or the next batch in a {@link ScrollableDataTable} usually does not have to
+ * wait for the query. After every getItems(start, end) the range [end, end + size) is loaded, where size is the
+ * prefetch size or, when that is not set, end - start. When the next request asks for exactly that range it
+ * gets the prefetched rows; when the prefetch is still running it waits for it.
+ *
+ * <p>The wrapped model is only used by one thread at a time, but it is used by a background thread, so it must
+ * not use the page's shared data context: create it with a {@link to.etc.webapp.query.QDataContextFactory} so
+ * that every query gets its own context, like {@link KeysetSearchModel} and {@link SimpleSearchModel} do
+ * when created with one.</p>
+ *
+ * <p>Prefetched rows are discarded when the wrapped model reports a change, when it is sorted or refreshed, and
+ * when the conversation it is bound to is destroyed. The hit, wait and miss counts tell how well the prefetch
+ * predicts what is asked for.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+public class PrefetchingTableModel<T> extends TableModelBase<T> implements ITruncateableDataModel, ISortableTableModel, ITableModelListener<T>, IConversationStateListener {
+	static private final Logger LOG = LoggerFactory.getLogger(PrefetchingTableModel.class);
+
+	@Nonnull
+	final private ITableModel<T> m_model;
+
+	@Nonnull
+	final private Executor m_executor;
+
+	/** Taken while the wrapped model is used. Never acquire it while holding the lock on this. */
+	final private Object m_modelLock = new Object();
+
+	/** Incremented whenever the wrapped model's content changes; prefetched rows from an older generation are not used. */
+	private int m_generation;
+
+	/** The prefetch that is running or done, or null. */
+	@Nullable
+	private Prefetch<T> m_prefetch;
+
+	/** The range last returned, so that asking for it again does not count as a miss. */
+	@Nullable
+	private Prefetch<T> m_current;
+
+	private int m_prefetchSize;
+
+	private boolean m_closed;
+
+	/** The conversation this is bound to, and the name of the attribute that holds it there. */
+	@Nullable
+	private ConversationContext m_conversation;
+
+	@Nullable
+	private String m_attributeName;
+
+	private int m_hitCount;
+
+	private int m_waitCount;
+
+	private int m_missCount;
+
+	private int m_prefetchCount;
+
+	private int m_discardCount;
+
+	static private final class Prefetch<T> {
+		final int m_start;
+
+		final int m_end;
+
+		final int m_generation;
+
+		boolean m_done;
+
+		@Nullable
+		List<T> m_list;
+
+		Prefetch(int start, int end, int generation) {
+			m_start = start;
+			m_end = end;
+			m_generation = generation;
+		}
+
+		boolean isFor(int start, int end, int generation) {
+			return m_start == start && m_end == end && m_generation == generation;
+		}
+	}
+
+	/**
+	 * Wrap the model and prefetch on the application's activity scheduler. The prefetched rows are bound to the
+	 * conversation: they are discarded and prefetching stops when it is destroyed. The conversation holds
+	 * the wrapper until then or until {@link #close()} is called, so call that when the table gets another
+	 * model, or use {@link #PrefetchingTableModel(ITableModel, ConversationContext, String)}.
+	 */
+	public PrefetchingTableModel(@Nonnull ITableModel<T> model, @Nonnull ConversationContext cc) {
+		this(model, cc, "@" + Integer.toHexString(System.identityHashCode(model)));
+	}
+
+	/**
+	 * Wrap the model and prefetch on the application's activity scheduler, bound to the conversation under
+	 * the key, which should identify the table that shows the model. A wrapper created later for the same
+	 * key replaces this one, and closes it, so that a table that gets new models does not collect wrappers
+	 * in the conversation.
+	 */
+	public PrefetchingTableModel(@Nonnull ITableModel<T> model, @Nonnull ConversationContext cc, @Nonnull String key) {
+		this(model, r -> cc.getWindowSession().getApplication().getActivityScheduler().schedule(cc.getWindowSession().getAppSession(), r));
+		String name = PrefetchingTableModel.class.getName() + "/" + key;
+		Object old = cc.getAttribute(name);
+		if(old instanceof PrefetchingTableModel)
+			((PrefetchingTableModel< ? >) old).close();
+		m_conversation = cc;
+		m_attributeName = name;
+		cc.setAttribute(name, this);
+	}
+
+	/**
+	 * Wrap the model and prefetch using the executor.
+	 */
+	public PrefetchingTableModel(@Nonnull ITableModel<T> model, @Nonnull Executor executor) {
+		m_model = model;
+		m_executor = executor;
+		model.addChangeListener(this);
+	}
+
+	@Nonnull
+	public ITableModel<T> getModel() {
+		return m_model;
+	}
+
+	/**
+	 * The #of rows to prefetch. When &lt;= 0 (the default) as many rows are prefetched as were asked for the last time.
+	 */
+	public synchronized int getPrefetchSize() {
+		return m_prefetchSize;
+	}
+
+	public synchronized void setPrefetchSize(int prefetchSize) {
+		m_prefetchSize = prefetchSize;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	ITableModel implementation.							*/
+	/*--------------------------------------------------------------*/
+	@Override
+	public int getRows() throws Exception {
+		synchronized(m_modelLock) {
+			return m_model.getRows();
+		}
+	}
+
+	@Override
+	protected T getItem(int ix) throws Exception {
+		List<T> res = getItems(ix, ix + 1);
+		if(res.size() == 0)
+			throw new IndexOutOfBoundsException("Row " + ix + " is not present");
+		return res.get(0);
+	}
+
+	@Nonnull
+	@Override
+	public List<T> getItems(int start, int end) throws Exception {
+		List<T> res = findPrefetched(start, end);
+		int generation;
+		if(null == res) {
+			synchronized(m_modelLock) {
+				synchronized(this) {
+					generation = m_generation;
+				}
+				res = m_model.getItems(start, end);
+			}
+		} else {
+			synchronized(this) {
+				generation = m_generation;
+			}
+		}
+		int size;
+		synchronized(this) {
+			if(generation == m_generation) {
+				Prefetch<T> p = new Prefetch<T>(start, end, generation);
+				p.m_done = true;
+				p.m_list = res;
+				m_current = p;
+			}
+			size = m_prefetchSize > 0 ? m_prefetchSize : end - start;
+		}
+		schedulePrefetch(end, end + size);
+		return res;
+	}
+
+	/**
+	 * Return the rows for the range if they were last returned or prefetched, waiting for a running prefetch
+	 * of that range. Returns null when they are not there.
+	 */
+	@Nullable
+	private synchronized List<T> findPrefetched(int start, int end) throws InterruptedException {
+		Prefetch<T> p = m_current;
+		if(null != p && p.isFor(start, end, m_generation))
+			return p.m_list;
+
+		p = m_prefetch;
+		if(null == p || !p.isFor(start, end, m_generation)) {
+			m_missCount++;
+			return null;
+		}
+		boolean waited = false;
+		while(!p.m_done && p == m_prefetch) {
+			waited = true;
+			wait();
+		}
+		List<T> list = p.m_list;
+		if(p != m_prefetch || null == list) {			// Discarded or failed while waiting
+			m_missCount++;
+			return null;
+		}
+		m_prefetch = null;
+		if(waited)
+			m_waitCount++;
+		else
+			m_hitCount++;
+		return list;
+	}
+
+	private void schedulePrefetch(int start, int end) throws Exception {
+		if(start >= getRows() || end <= start)
+			return;
+
+		Prefetch<T> p;
+		synchronized(this) {
+			if(m_closed)
+				return;
+			Prefetch<T> old = m_prefetch;
+			if(null != old) {
+				if(old.isFor(start, end, m_generation))
+					return;
+				m_discardCount++;
+			}
+			p = m_prefetch = new Prefetch<T>(start, end, m_generation);
+			m_prefetchCount++;
+		}
+
+		try {
+			m_executor.execute(() -> runPrefetch(p));
+		} catch(RuntimeException x) {
+			LOG.debug("Prefetch not scheduled: " + x);
+			synchronized(this) {
+				if(m_prefetch == p)
+					m_prefetch = null;
+				notifyAll();
+			}
+		}
+	}
+
+	private void runPrefetch(@Nonnull Prefetch<T> p) {
+		List<T> list = null;
+		try {
+			synchronized(m_modelLock) {
+				synchronized(this) {
+					if(m_prefetch != p || p.m_generation != m_generation)
+						return;
+				}
+				list = m_model.getItems(p.m_start, p.m_end);
+			}
+		} catch(Exception x) {
+			LOG.info("Prefetch of rows " + p.m_start + ".." + p.m_end + " failed: " + x);
+		} finally {
+			synchronized(this) {
+				p.m_list = list;
+				p.m_done = true;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Discard the prefetched rows.
+	 */
+	private synchronized void discard() {
+		m_generation++;
+		if(null != m_prefetch) {
+			m_discardCount++;
+			m_prefetch = null;
+		}
+		m_current = null;
+		notifyAll();
+	}
+
+	/**
+	 * Stop prefetching and discard the prefetched rows. The model can still be used, but without prefetching.
+	 */
+	public void close() {
+		stopPrefetching();
+
+		//-- Release this from the conversation, unless another wrapper took its place.
+		ConversationContext cc = m_conversation;
+		String name = m_attributeName;
+		if(null != cc && null != name && cc.getAttribute(name) == this)
+			cc.setAttribute(name, null);
+	}
+
+	private void stopPrefetching() {
+		synchronized(this) {
+			m_closed = true;
+		}
+		discard();
+		m_model.removeChangeListener(this);
+	}
+
+	@Override
+	public void refresh() {
+		discard();
+		synchronized(m_modelLock) {
+			m_model.refresh();
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Delegated model interfaces.							*/
+	/*--------------------------------------------------------------*/
+	@Override
+	public boolean isTruncated() {
+		synchronized(m_modelLock) {
+			return m_model instanceof ITruncateableDataModel && ((ITruncateableDataModel) m_model).isTruncated();
+		}
+	}
+
+	@Override
+	public void sortOn(String key, boolean descending) throws Exception {
+		if(!(m_model instanceof ISortableTableModel))
+			throw new IllegalStateException("The wrapped model " + m_model + " cannot be sorted");
+		discard();
+		synchronized(m_modelLock) {
+			((ISortableTableModel) m_model).sortOn(key, descending);
+		}
+	}
+
+	@Override
+	@Nullable
+	@Deprecated
+	public String getSortKey() {
+		return m_model instanceof ISortableTableModel ? ((ISortableTableModel) m_model).getSortKey() : null;
+	}
+
+	@Override
+	@Deprecated
+	public boolean isSortDescending() {
+		return m_model instanceof ISortableTableModel && ((ISortableTableModel) m_model).isSortDescending();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	ITableModelListener: changes in the wrapped model.	*/
+	/*--------------------------------------------------------------*/
+	@Override
+	public void rowAdded(@Nonnull ITableModel<T> model, int index, @Nonnull T value) throws Exception {
+		discard();
+		for(ITableModelListener<T> l : getListeners())
+			l.rowAdded(this, index, value);
+	}
+
+	@Override
+	public void rowDeleted(@Nonnull ITableModel<T> model, int index, @Nonnull T value) throws Exception {
+		discard();
+		for(ITableModelListener<T> l : getListeners())
+			l.rowDeleted(this, index, value);
+	}
+
+	@Override
+	public void rowModified(@Nonnull ITableModel<T> model, int index, @Nonnull T value) throws Exception {
+		discard();
+		for(ITableModelListener<T> l : getListeners())
+			l.rowModified(this, index, value);
+	}
+
+	@Override
+	public void modelChanged(@Nullable ITableModel<T> model) throws Exception {
+		discard();
+		fireModelChanged();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	IConversationStateListener.							*/
+	/*--------------------------------------------------------------*/
+	@Override
+	public void conversationNew(@Nonnull ConversationContext cc) throws Exception {}
+
+	@Override
+	public void conversationAttached(@Nonnull ConversationContext cc) throws Exception {}
+
+	@Override
+	public void conversationDetached(@Nonnull ConversationContext cc) throws Exception {}
+
+	@Override
+	public void conversationDestroyed(@Nonnull ConversationContext cc) throws Exception {
+		stopPrefetching();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Statistics.											*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * The #of requests that were served by a finished prefetch.
+	 */
+	public synchronized int getHitCount() {
+		return m_hitCount;
+	}
+
+	/**
+	 * The #of requests that were served by a prefetch that was still running, and had to wait for it.
+	 */
+	public synchronized int getWaitCount() {
+		return m_waitCount;
+	}
+
+	/**
+	 * The #of requests that were not prefetched and were read from the wrapped model.
+	 */
+	public synchronized int getMissCount() {
+		return m_missCount;
+	}
+
+	/**
+	 * The #of prefetches started.
+	 */
+	public synchronized int getPrefetchCount() {
+		return m_prefetchCount;
+	}
+
+	/**
+	 * The #of prefetches that were not used, because another range was asked for or the model changed.
+	 */
+	public synchronized int getDiscardCount() {
+		return m_discardCount;
+	}
+
+	/**
+	 * The percentage of requests served by a prefetch, including the ones that had to wait.
+	 */
+	public synchronized double getHitRate() {
+		int total = m_hitCount + m_waitCount + m_missCount;
+		return total == 0 ? 0.0 : (m_hitCount + m_waitCount) * 100.0 / total;
+	}
+
+	@Nonnull
+	public synchronized String getStatistics() {
+		return "Prefetch: " + m_prefetchCount + " started, " + m_hitCount + " hits, " + m_waitCount + " waited, " + m_missCount + " misses, " + m_discardCount + " discarded, hit rate "
+			+ String.format("%.1f", Double.valueOf(getHitRate())) + "%";
+	}
+}
@@ -0,0 +1,54 @@
+package to.etc.domui.dom;
+
+import javax.annotation.*;
+import java.io.*;
+
+/**
+ * The wire format used to send page deltas to the browser. The format is selected
+ * by {@link to.etc.domui.server.DomApplication#getDeltaFormat()}.
+ *
+ * Created on Oct 18, 2026
+ */
+public enum DeltaFormat {
+	/** Indented XML, readable for humans. This is the default in development mode. */
+	PRETTY_XML("text/xml; charset=UTF-8"),
+
+	/** Unindented XML, the default in production. */
+	XML("text/xml; charset=UTF-8"),
+
+	/**
+	 * A compact JSON encoding of the delta document, see {@link JsonDeltaOutputWriter}. This
+	 * is only used for normal AJAX responses; responses that are handled by an iframe (like uploads)
+	 * always use XML.
+	 */
+	JSON("application/json; charset=UTF-8");
+
+	@Nonnull
+	final private String m_contentType;
+
+	DeltaFormat(@Nonnull String contentType) {
+		m_contentType = contentType;
+	}
+
+	@Nonnull
+	public String getContentType() {
+		return m_contentType;
+	}
+
+	/**
+	 * Create the output encoder for this format, writing to the specified writer.
+	 */
+	@Nonnull
+	public IBrowserOutput createOutput(@Nonnull Writer w) {
+		switch(this) {
+			default:
+				throw new IllegalStateException(this + ": unhandled format");
+			case PRETTY_XML:
+				return new PrettyXmlOutputWriter(w);
+			case XML:
+				return new FastXmlOutputWriter(w);
+			case JSON:
+				return new JsonDeltaOutputWriter(w);
+		}
+	}
+}
@@ -406,7 +406,7 @@ public class HtmlFullRenderer extends NodeVisitorBase {
 		 */
 		int pollinterval = application.calculatePollInterval(page.getConversation().isPollCallbackRequired());
 		if(pollinterval > 0) {
-			o().writeRaw("WebUI.startPolling(" + pollinterval + ");");
+			o().writeRaw("WebUI.startPolling(" + pollinterval + "," + application.calculatePushWait(page.getConversation(), pollinterval) + ");");
 		}
 		int autorefresh = application.getAutoRefreshPollInterval();
 		if(autorefresh > 0) {
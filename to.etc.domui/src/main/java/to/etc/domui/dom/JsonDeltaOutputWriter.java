@@ -0,0 +1,228 @@
+package to.etc.domui.dom;
+
+import javax.annotation.*;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Renders the XML delta document as compact JSON. Every element is encoded as an array
+ * holding the tag name, an optional object with the attributes, and then the content
+ * of the element. Tag and attribute names are sent only once: the first occurrence of a name
+ * is written in full and gets the next index in a name table, every later occurrence is
+ * written as that index (a number for a tag, a numeric key for an attribute):
+ * <pre>
+ *	["delta",["remove",{"select":"#_C"}],[1,{"2":"#_D"}],["eval","WebUI.cancelPolling();"]]
+ * </pre>
+ * Text content is encoded as a JSON string; raw (already escaped) XML fragments are
+ * encoded as an object <code>{"x":"fragment"}</code> which the browser parses as XML. This
+ * means that the browser rebuilds exactly the same document as it would get from the
+ * XML encoding, without the need for entity escaping, whitespace or closing tags. Anything
+ * written outside the root element (like the XML declaration) is ignored.
+ *
+ * Created on Oct 18, 2026
+ */
+public class JsonDeltaOutputWriter implements IBrowserOutput {
+	@Nonnull
+	final private Writer m_w;
+
+	/** The #of elements currently open. */
+	private int m_depth;
+
+	/** T while a tag has been started but its attributes are not yet closed. */
+	private boolean m_intag;
+
+	/** T when the attribute object for the current tag has been opened. */
+	private boolean m_attrOpen;
+
+	/** T when the next content item in the current element must be preceded by a comma. */
+	private boolean m_needComma;
+
+	/** Maps every tag or attribute name written sofar to its index in the name table. */
+	@Nonnull
+	final private Map<String, Integer> m_nameMap = new HashMap<>();
+
+	public JsonDeltaOutputWriter(@Nonnull Writer w) {
+		m_w = w;
+	}
+
+	private void closePrevious() throws IOException {
+		if(!m_intag)
+			return;
+		if(m_attrOpen)
+			m_w.write('}');
+		m_intag = false;
+		m_attrOpen = false;
+	}
+
+	private void separator() throws IOException {
+		if(m_needComma)
+			m_w.write(',');
+		m_needComma = true;
+	}
+
+	@Override
+	public void tag(String tagname) throws IOException {
+		closePrevious();
+		separator();
+		m_w.write('[');
+		Integer ix = m_nameMap.get(tagname);
+		if(null == ix) {
+			m_nameMap.put(tagname, Integer.valueOf(m_nameMap.size()));
+			writeString(tagname);
+		} else
+			m_w.write(ix.toString());
+		m_depth++;
+		m_intag = true;
+		m_attrOpen = false;
+	}
+
+	@Override
+	public void endtag() throws IOException {
+		if(!m_intag)
+			throw new IllegalStateException("Ending tag but not in a tag?");
+		closePrevious();
+	}
+
+	@Override
+	public void endAndCloseXmltag() throws IOException {
+		if(!m_intag)
+			throw new IllegalStateException("Ending tag but not in a tag?");
+		closePrevious();
+		closeElement();
+	}
+
+	@Override
+	public void closetag(String name) throws IOException {
+		closePrevious();
+		closeElement();
+	}
+
+	private void closeElement() throws IOException {
+		if(m_depth <= 0)
+			throw new IllegalStateException("Closing an element but none is open");
+		m_w.write(']');
+		m_depth--;
+		m_needComma = true;
+	}
+
+	@Override
+	public void attr(String name, String value) throws IOException {
+		if(!m_intag)
+			throw new IllegalStateException("No tag is currently 'active'");
+		m_w.write(',');
+		if(!m_attrOpen) {
+			m_w.write('{');
+			m_attrOpen = true;
+		}
+		Integer ix = m_nameMap.get(name);
+		if(null == ix) {
+			m_nameMap.put(name, Integer.valueOf(m_nameMap.size()));
+			writeString(name);
+		} else
+			writeString(ix.toString());
+		m_w.write(':');
+		writeString(value);
+	}
+
+	/**
+	 * Raw attributes are written as normal attributes: the JSON encoding needs no XML quoting.
+	 */
+	@Override
+	public void rawAttr(String name, String value) throws IOException {
+		attr(name, value);
+	}
+
+	@Override
+	public void attr(String name, long value) throws IOException {
+		attr(name, Long.toString(value));
+	}
+
+	@Override
+	public void attr(String name, int value) throws IOException {
+		attr(name, Integer.toString(value));
+	}
+
+	@Override
+	public void attr(String name, boolean value) throws IOException {
+		attr(name, Boolean.toString(value));
+	}
+
+	@Override
+	public void text(String s) throws IOException {
+		if(s == null)
+			throw new IllegalStateException("Attempt to write null cdata.");
+		closePrevious();
+		if(s.length() == 0 || m_depth == 0)
+			return;
+		separator();
+		writeString(s);
+	}
+
+	@Override
+	public void writeRaw(CharSequence s) throws IOException {
+		if(m_depth == 0 || s.length() == 0)						// Ignore xml declarations and the like
+			return;
+		closePrevious();
+		separator();
+		m_w.write("{\"x\":");
+		writeString(s);
+		m_w.write('}');
+	}
+
+	@Override
+	public void nl() throws IOException {
+	}
+
+	@Override
+	public void inc() {
+	}
+
+	@Override
+	public void dec() {
+	}
+
+	@Override
+	public void setIndentEnabled(boolean ind) {
+	}
+
+	@Override
+	public boolean isIndentEnabled() {
+		return false;
+	}
+
+	/**
+	 * Write a JSON string literal, escaping only what JSON requires.
+	 */
+	private void writeString(@Nonnull CharSequence s) throws IOException {
+		Writer w = m_w;
+		w.write('"');
+		int len = s.length();
+		int runstart = 0;
+		for(int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+			String rep;
+			if(c == '"')
+				rep = "\\\"";
+			else if(c == '\\')
+				rep = "\\\\";
+			else if(c == '\n')
+				rep = "\\n";
+			else if(c == '\r')
+				rep = "\\r";
+			else if(c == '\t')
+				rep = "\\t";
+			else if(c < 0x20 || c == 0x2028 || c == 0x2029) {
+				rep = "\\u" + Integer.toHexString(0x10000 + c).substring(1);
+			} else
+				continue;
+
+			if(i > runstart)
+				w.append(s, runstart, i);
+			w.write(rep);
+			runstart = i + 1;
+		}
+		if(len > runstart)
+			w.append(s, runstart, len);
+		w.write('"');
+	}
+}
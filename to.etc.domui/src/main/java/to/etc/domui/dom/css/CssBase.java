@@ -26,6 +26,9 @@ package to.etc.domui.dom.css;
 
 import to.etc.domui.util.*;
 
+import javax.annotation.*;
+import java.util.*;
+
 /**
  * Base class for all remote DOM nodes containing only CSS properties && change management for those.
  *
@@ -33,124 +36,191 @@ import to.etc.domui.util.*;
  * Created on Aug 17, 2007
  */
 public class CssBase {
-	private String m_cachedStyle;
-
-	/*-- CSS Background properties --*/
-	private BackgroundAttachment m_backgroundAttachment;
-
-	private String m_backgroundColor;
-
-	private String m_backgroundImage;
-
-	private String m_backgroundPosition;
-
-	private String m_backgroundRepeat;
-
-	/*-- CSS Border properties --*/
-	private int m_borderLeftWidth = -1;
-
-	private int m_borderRightWidth = -1;
-
-	private int m_borderTopWidth = -1;
-
-	private int m_borderBottomWidth = -1;
-
-	private String m_borderTopColor;
+	/**
+	 * The first sparse property ordinal available for subclasses; the ordinals below are used for the
+	 * CSS properties. Ordinals must be less than {@link #MAX_SPARSE_ORDINAL}.
+	 */
+	static protected final int SPARSE_NODE_BASE = 64;
 
-	private String m_borderBottomColor;
+	static protected final int MAX_SPARSE_ORDINAL = 127;
 
-	private String m_borderLeftColor;
+	private String m_cachedStyle;
 
-	private String m_borderRightColor;
+	/**
+	 * The keys of the set sparse properties, as ordinal + 1. The used entries are always at the start,
+	 * and the first 0 ends the list.
+	 */
+	@Nullable
+	private byte[] m_sparseKeys;
 
-	private String m_borderTopStyle;
+	/** The values for the keys in m_sparseKeys, at the same index. */
+	@Nullable
+	private Object[] m_sparseValues;
 
-	private String m_borderBottomStyle;
+	/*
+	 * Almost all CSS properties are null for almost all nodes, so instead of a field per property the
+	 * properties are kept in the sparse store, keyed by the ordinals below. A property that is null (or
+	 * has its default value, for ints) takes no space.
+	 */
 
-	private String m_borderLeftStyle;
+	/*-- CSS Background properties --*/
+	static private final int P_BACKGROUND_ATTACHMENT = 0;
+	static private final int P_BACKGROUND_COLOR = 1;
+	static private final int P_BACKGROUND_IMAGE = 2;
+	static private final int P_BACKGROUND_POSITION = 3;
+	static private final int P_BACKGROUND_REPEAT = 4;
 
-	private String m_borderRightStyle;
+	/*-- CSS Border properties --*/
+	static private final int P_BORDER_LEFT_WIDTH = 5;
+	static private final int P_BORDER_RIGHT_WIDTH = 6;
+	static private final int P_BORDER_TOP_WIDTH = 7;
+	static private final int P_BORDER_BOTTOM_WIDTH = 8;
+	static private final int P_BORDER_TOP_COLOR = 9;
+	static private final int P_BORDER_BOTTOM_COLOR = 10;
+	static private final int P_BORDER_LEFT_COLOR = 11;
+	static private final int P_BORDER_RIGHT_COLOR = 12;
+	static private final int P_BORDER_TOP_STYLE = 13;
+	static private final int P_BORDER_BOTTOM_STYLE = 14;
+	static private final int P_BORDER_LEFT_STYLE = 15;
+	static private final int P_BORDER_RIGHT_STYLE = 16;
 
 	/*-- CSS Classification. --*/
-	private ClearType m_clear;
+	static private final int P_CLEAR = 17;
 
 //	private String m_cursor;
 
-	private DisplayType m_display;
-
-	private FloatType m_float;
-
-	private PositionType m_position;
-
-	private VisibilityType m_visibility;
+	static private final int P_DISPLAY = 18;
+	static private final int P_FLOAT = 19;
+	static private final int P_POSITION = 20;
+	static private final int P_VISIBILITY = 21;
 
 	/*-- CSS Dimension properties --*/
-	private String m_height;
-
-	private String m_lineHeight;
-
-	private String m_maxHeight;
-
-	private String m_maxWidth;
-
-	private String m_minHeight;
-
-	private String m_minWidth;
-
-	private String m_width;
+	static private final int P_HEIGHT = 22;
+	static private final int P_LINE_HEIGHT = 23;
+	static private final int P_MAX_HEIGHT = 24;
+	static private final int P_MAX_WIDTH = 25;
+	static private final int P_MIN_HEIGHT = 26;
+	static private final int P_MIN_WIDTH = 27;
+	static private final int P_WIDTH = 28;
 
 	/*-- CSS Font properties. --*/
-	private String m_fontFamily;
-
-	private String m_fontSize;
-
-	private String m_fontSizeAdjust;
-
-	private FontStyle m_fontStyle;
-
-	private FontVariant m_fontVariant;
-
-	private String m_fontWeight;
-
-	private String m_color;
+	static private final int P_FONT_FAMILY = 29;
+	static private final int P_FONT_SIZE = 30;
+	static private final int P_FONT_SIZE_ADJUST = 31;
+	static private final int P_FONT_STYLE = 32;
+	static private final int P_FONT_VARIANT = 33;
+	static private final int P_FONT_WEIGHT = 34;
+	static private final int P_COLOR = 35;
 
 	/*-- Positioning --*/
-	private Overflow m_overflow;
-
-	private int m_zIndex = Integer.MIN_VALUE;
-
-	private String m_top;
-
-	private String m_bottom;
-
-	private String m_left;
-
-	private String m_right;
+	static private final int P_OVERFLOW = 36;
+	static private final int P_Z_INDEX = 37;
+	static private final int P_TOP = 38;
+	static private final int P_BOTTOM = 39;
+	static private final int P_LEFT = 40;
+	static private final int P_RIGHT = 41;
 
 	/*--- TEXT properties -----*/
-	private TextAlign m_textAlign;
-
-	private VerticalAlignType m_verticalAlign;
+	static private final int P_TEXT_ALIGN = 42;
+	static private final int P_VERTICAL_ALIGN = 43;
 
 	/*-- CSS Margin properties --*/
-	private String m_marginLeft;
-
-	private String m_marginRight;
-
-	private String m_marginTop;
-
-	private String m_marginBottom;
+	static private final int P_MARGIN_LEFT = 44;
+	static private final int P_MARGIN_RIGHT = 45;
+	static private final int P_MARGIN_TOP = 46;
+	static private final int P_MARGIN_BOTTOM = 47;
 
 	/*-- CSS Padding properties --*/
-	private String m_paddingLeft;
+	static private final int P_PADDING_LEFT = 48;
+	static private final int P_PADDING_RIGHT = 49;
+	static private final int P_PADDING_TOP = 50;
+	static private final int P_PADDING_BOTTOM = 51;
+	
+	static private final int P_TRANSFORM = 52;
 
-	private String m_paddingRight;
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Sparse property store.								*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Get the value of a sparse property, or null if it is not set.
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	final protected <T> T internalGetSparse(int ordinal) {
+		byte[] keys = m_sparseKeys;
+		Object[] values = m_sparseValues;
+		if(null == keys || null == values)
+			return null;
+		byte key = (byte) (ordinal + 1);
+		for(int i = 0; i < keys.length; i++) {
+			byte k = keys[i];
+			if(k == key)
+				return (T) values[i];
+			if(k == 0)
+				break;
+		}
+		return null;
+	}
 
-	private String m_paddingTop;
+	/**
+	 * Set or, when the value is null, remove a sparse property. Returns the previous value.
+	 */
+	@Nullable
+	final protected Object internalSetSparse(int ordinal, @Nullable Object value) {
+		if(ordinal < 0 || ordinal >= MAX_SPARSE_ORDINAL)
+			throw new IllegalArgumentException("Sparse property ordinal out of range: " + ordinal);
+		byte key = (byte) (ordinal + 1);
+		byte[] keys = m_sparseKeys;
+		Object[] values = m_sparseValues;
+		int count = 0;
+		if(null != keys && null != values) {
+			while(count < keys.length && keys[count] != 0) {
+				if(keys[count] == key) {
+					Object old = values[count];
+					if(null != value) {
+						values[count] = value;
+						return old;
+					}
+
+					//-- Remove by moving the last entry into this slot
+					int last = count;
+					while(last + 1 < keys.length && keys[last + 1] != 0)
+						last++;
+					keys[count] = keys[last];
+					values[count] = values[last];
+					keys[last] = 0;
+					values[last] = null;
+					return old;
+				}
+				count++;
+			}
+		}
+		if(null == value)
+			return null;
+
+		if(null == keys || null == values) {
+			keys = m_sparseKeys = new byte[2];
+			values = m_sparseValues = new Object[2];
+		} else if(count == keys.length) {
+			keys = m_sparseKeys = Arrays.copyOf(keys, count * 2);
+			values = m_sparseValues = Arrays.copyOf(values, count * 2);
+		}
+		keys[count] = key;
+		values[count] = value;
+		return null;
+	}
 
-	private String m_paddingBottom;
-	
-	private TextTransformType m_transform;
+	final protected int internalGetSparseInt(int ordinal, int dflt) {
+		Integer v = internalGetSparse(ordinal);
+		return v == null ? dflt : v.intValue();
+	}
+
+	/**
+	 * Set an int sparse property; setting it to its default value removes it.
+	 */
+	final protected void internalSetSparseInt(int ordinal, int value, int dflt) {
+		internalSetSparse(ordinal, value == dflt ? null : Integer.valueOf(value));
+	}
 
 	public String getCachedStyle() {
 		return m_cachedStyle;
@@ -169,173 +239,173 @@ public class CssBase {
 	}
 
 	public BackgroundAttachment getBackgroundAttachment() {
-		return m_backgroundAttachment;
+		return internalGetSparse(P_BACKGROUND_ATTACHMENT);
 	}
 
 	public void setBackgroundAttachment(final BackgroundAttachment backgroundAttachment) {
-		if(!DomUtil.isEqual(backgroundAttachment, m_backgroundAttachment))
+		if(!DomUtil.isEqual(backgroundAttachment, internalGetSparse(P_BACKGROUND_ATTACHMENT)))
 			changed();
-		m_backgroundAttachment = backgroundAttachment;
+		internalSetSparse(P_BACKGROUND_ATTACHMENT, backgroundAttachment);
 	}
 
 	public String getBackgroundColor() {
-		return m_backgroundColor;
+		return internalGetSparse(P_BACKGROUND_COLOR);
 	}
 
 	public void setBackgroundColor(final String backgroundColor) {
-		if(!DomUtil.isEqual(backgroundColor, m_backgroundColor))
+		if(!DomUtil.isEqual(backgroundColor, internalGetSparse(P_BACKGROUND_COLOR)))
 			changed();
-		m_backgroundColor = backgroundColor;
+		internalSetSparse(P_BACKGROUND_COLOR, backgroundColor);
 	}
 
 	public String getBackgroundImage() {
-		return m_backgroundImage;
+		return internalGetSparse(P_BACKGROUND_IMAGE);
 	}
 
 	public void setBackgroundImage(final String backgroundImage) {
-		if(!DomUtil.isEqual(backgroundImage, m_backgroundImage))
+		if(!DomUtil.isEqual(backgroundImage, internalGetSparse(P_BACKGROUND_IMAGE)))
 			changed();
-		m_backgroundImage = backgroundImage;
+		internalSetSparse(P_BACKGROUND_IMAGE, backgroundImage);
 	}
 
 	public String getBackgroundPosition() {
-		return m_backgroundPosition;
+		return internalGetSparse(P_BACKGROUND_POSITION);
 	}
 
 	public void setBackgroundPosition(final String backgroundPosition) {
-		if(!DomUtil.isEqual(backgroundPosition, m_backgroundPosition))
+		if(!DomUtil.isEqual(backgroundPosition, internalGetSparse(P_BACKGROUND_POSITION)))
 			changed();
-		m_backgroundPosition = backgroundPosition;
+		internalSetSparse(P_BACKGROUND_POSITION, backgroundPosition);
 	}
 
 	public String getBackgroundRepeat() {
-		return m_backgroundRepeat;
+		return internalGetSparse(P_BACKGROUND_REPEAT);
 	}
 
 	public void setBackgroundRepeat(final String backgroundRepeat) {
-		if(!DomUtil.isEqual(backgroundRepeat, m_backgroundRepeat))
+		if(!DomUtil.isEqual(backgroundRepeat, internalGetSparse(P_BACKGROUND_REPEAT)))
 			changed();
-		m_backgroundRepeat = backgroundRepeat;
+		internalSetSparse(P_BACKGROUND_REPEAT, backgroundRepeat);
 	}
 
 	public int getBorderLeftWidth() {
-		return m_borderLeftWidth;
+		return internalGetSparseInt(P_BORDER_LEFT_WIDTH, -1);
 	}
 
 	public void setBorderLeftWidth(final int borderLeftWidth) {
-		if(borderLeftWidth != m_borderLeftWidth)
+		if(borderLeftWidth != internalGetSparseInt(P_BORDER_LEFT_WIDTH, -1))
 			changed();
-		m_borderLeftWidth = borderLeftWidth;
+		internalSetSparseInt(P_BORDER_LEFT_WIDTH, borderLeftWidth, -1);
 	}
 
 	public int getBorderRightWidth() {
-		return m_borderRightWidth;
+		return internalGetSparseInt(P_BORDER_RIGHT_WIDTH, -1);
 	}
 
 	public void setBorderRightWidth(final int borderRightWidth) {
-		if(m_borderRightWidth != borderRightWidth)
+		if(internalGetSparseInt(P_BORDER_RIGHT_WIDTH, -1) != borderRightWidth)
 			changed();
-		m_borderRightWidth = borderRightWidth;
+		internalSetSparseInt(P_BORDER_RIGHT_WIDTH, borderRightWidth, -1);
 	}
 
 	public int getBorderTopWidth() {
-		return m_borderTopWidth;
+		return internalGetSparseInt(P_BORDER_TOP_WIDTH, -1);
 	}
 
 	public void setBorderTopWidth(final int borderTopWidth) {
-		if(m_borderTopWidth != borderTopWidth)
+		if(internalGetSparseInt(P_BORDER_TOP_WIDTH, -1) != borderTopWidth)
 			changed();
-		m_borderTopWidth = borderTopWidth;
+		internalSetSparseInt(P_BORDER_TOP_WIDTH, borderTopWidth, -1);
 	}
 
 	public int getBorderBottomWidth() {
-		return m_borderBottomWidth;
+		return internalGetSparseInt(P_BORDER_BOTTOM_WIDTH, -1);
 	}
 
 	public void setBorderBottomWidth(final int borderBottomWidth) {
-		if(m_borderBottomWidth != borderBottomWidth)
+		if(internalGetSparseInt(P_BORDER_BOTTOM_WIDTH, -1) != borderBottomWidth)
 			changed();
-		m_borderBottomWidth = borderBottomWidth;
+		internalSetSparseInt(P_BORDER_BOTTOM_WIDTH, borderBottomWidth, -1);
 	}
 
 	public String getBorderTopColor() {
-		return m_borderTopColor;
+		return internalGetSparse(P_BORDER_TOP_COLOR);
 	}
 
 	public void setBorderTopColor(final String borderTopColor) {
-		if(!DomUtil.isEqual(borderTopColor, m_borderTopColor))
+		if(!DomUtil.isEqual(borderTopColor, internalGetSparse(P_BORDER_TOP_COLOR)))
 			changed();
-		m_borderTopColor = borderTopColor;
+		internalSetSparse(P_BORDER_TOP_COLOR, borderTopColor);
 	}
 
 	public String getBorderBottomColor() {
-		return m_borderBottomColor;
+		return internalGetSparse(P_BORDER_BOTTOM_COLOR);
 	}
 
 	public void setBorderBottomColor(final String borderBottomColor) {
-		if(!DomUtil.isEqual(borderBottomColor, m_borderBottomColor))
+		if(!DomUtil.isEqual(borderBottomColor, internalGetSparse(P_BORDER_BOTTOM_COLOR)))
 			changed();
-		m_borderBottomColor = borderBottomColor;
+		internalSetSparse(P_BORDER_BOTTOM_COLOR, borderBottomColor);
 	}
 
 	public String getBorderLeftColor() {
-		return m_borderLeftColor;
+		return internalGetSparse(P_BORDER_LEFT_COLOR);
 	}
 
 	public void setBorderLeftColor(final String borderLeftColor) {
-		if(!DomUtil.isEqual(borderLeftColor, m_borderLeftColor))
+		if(!DomUtil.isEqual(borderLeftColor, internalGetSparse(P_BORDER_LEFT_COLOR)))
 			changed();
-		m_borderLeftColor = borderLeftColor;
+		internalSetSparse(P_BORDER_LEFT_COLOR, borderLeftColor);
 	}
 
 	public String getBorderRightColor() {
-		return m_borderRightColor;
+		return internalGetSparse(P_BORDER_RIGHT_COLOR);
 	}
 
 	public void setBorderRightColor(final String borderRightColor) {
-		if(!DomUtil.isEqual(borderRightColor, m_borderRightColor))
+		if(!DomUtil.isEqual(borderRightColor, internalGetSparse(P_BORDER_RIGHT_COLOR)))
 			changed();
-		m_borderRightColor = borderRightColor;
+		internalSetSparse(P_BORDER_RIGHT_COLOR, borderRightColor);
 	}
 
 	public String getBorderTopStyle() {
-		return m_borderTopStyle;
+		return internalGetSparse(P_BORDER_TOP_STYLE);
 	}
 
 	public void setBorderTopStyle(final String borderTopStyle) {
-		if(!DomUtil.isEqual(borderTopStyle, m_borderTopStyle))
+		if(!DomUtil.isEqual(borderTopStyle, internalGetSparse(P_BORDER_TOP_STYLE)))
 			changed();
-		m_borderTopStyle = borderTopStyle;
+		internalSetSparse(P_BORDER_TOP_STYLE, borderTopStyle);
 	}
 
 	public String getBorderBottomStyle() {
-		return m_borderBottomStyle;
+		return internalGetSparse(P_BORDER_BOTTOM_STYLE);
 	}
 
 	public void setBorderBottomStyle(final String borderBottomStyle) {
-		if(!DomUtil.isEqual(borderBottomStyle, m_borderBottomStyle))
+		if(!DomUtil.isEqual(borderBottomStyle, internalGetSparse(P_BORDER_BOTTOM_STYLE)))
 			changed();
-		m_borderBottomStyle = borderBottomStyle;
+		internalSetSparse(P_BORDER_BOTTOM_STYLE, borderBottomStyle);
 	}
 
 	public String getBorderLeftStyle() {
-		return m_borderLeftStyle;
+		return internalGetSparse(P_BORDER_LEFT_STYLE);
 	}
 
 	public void setBorderLeftStyle(final String borderLeftStyle) {
-		if(!DomUtil.isEqual(borderLeftStyle, m_borderLeftStyle))
+		if(!DomUtil.isEqual(borderLeftStyle, internalGetSparse(P_BORDER_LEFT_STYLE)))
 			changed();
-		m_borderLeftStyle = borderLeftStyle;
+		internalSetSparse(P_BORDER_LEFT_STYLE, borderLeftStyle);
 	}
 
 	public String getBorderRightStyle() {
-		return m_borderRightStyle;
+		return internalGetSparse(P_BORDER_RIGHT_STYLE);
 	}
 
 	public void setBorderRightStyle(final String borderRightStyle) {
-		if(!DomUtil.isEqual(borderRightStyle, m_borderRightStyle))
+		if(!DomUtil.isEqual(borderRightStyle, internalGetSparse(P_BORDER_RIGHT_STYLE)))
 			changed();
-		m_borderRightStyle = borderRightStyle;
+		internalSetSparse(P_BORDER_RIGHT_STYLE, borderRightStyle);
 	}
 
 	/*-- Border shortcut calls. --*/
@@ -372,13 +442,13 @@ public class CssBase {
 	}
 
 	public ClearType getClear() {
-		return m_clear;
+		return internalGetSparse(P_CLEAR);
 	}
 
 	public void setClear(final ClearType clear) {
-		if(!DomUtil.isEqual(clear, m_clear))
+		if(!DomUtil.isEqual(clear, internalGetSparse(P_CLEAR)))
 			changed();
-		m_clear = clear;
+		internalSetSparse(P_CLEAR, clear);
 	}
 
 //	public String getCursor() {
@@ -392,13 +462,13 @@ public class CssBase {
 //	}
 
 	public DisplayType getDisplay() {
-		return m_display;
+		return internalGetSparse(P_DISPLAY);
 	}
 
 	public void setDisplay(final DisplayType display) {
-		if(!DomUtil.isEqual(display, m_display))
+		if(!DomUtil.isEqual(display, internalGetSparse(P_DISPLAY)))
 			changed();
-		m_display = display;
+		internalSetSparse(P_DISPLAY, display);
 	}
 
 	/**
@@ -407,218 +477,218 @@ public class CssBase {
 	 * @return
 	 */
 	public boolean internalSetDisplay(final DisplayType dt) {
-		if(m_display == dt)
+		if(internalGetSparse(P_DISPLAY) == dt)
 			return false;
-		m_display = dt;
+		internalSetSparse(P_DISPLAY, dt);
 		setCachedStyle(null);
 		return true;
 	}
 
 	public Overflow getOverflow() {
-		return m_overflow;
+		return internalGetSparse(P_OVERFLOW);
 	}
 
 	public void setOverflow(final Overflow overflow) {
-		if(m_overflow != overflow)
+		if(internalGetSparse(P_OVERFLOW) != overflow)
 			changed();
-		m_overflow = overflow;
+		internalSetSparse(P_OVERFLOW, overflow);
 	}
 
 	public FloatType getFloat() {
-		return m_float;
+		return internalGetSparse(P_FLOAT);
 	}
 
 	public void setFloat(final FloatType f) {
-		if(m_float == f)
+		if(internalGetSparse(P_FLOAT) == f)
 			return;
 		changed();
-		m_float = f;
+		internalSetSparse(P_FLOAT, f);
 	}
 
 	public PositionType getPosition() {
-		return m_position;
+		return internalGetSparse(P_POSITION);
 	}
 
 	public void setPosition(final PositionType position) {
-		if(m_position == position)
+		if(internalGetSparse(P_POSITION) == position)
 			return;
 		changed();
-		m_position = position;
+		internalSetSparse(P_POSITION, position);
 	}
 
 	public VisibilityType getVisibility() {
-		return m_visibility;
+		return internalGetSparse(P_VISIBILITY);
 	}
 
 	public void setVisibility(final VisibilityType visibility) {
-		if(m_visibility == visibility)
+		if(internalGetSparse(P_VISIBILITY) == visibility)
 			return;
 		changed();
-		m_visibility = visibility;
+		internalSetSparse(P_VISIBILITY, visibility);
 	}
 
 	public String getHeight() {
-		return m_height;
+		return internalGetSparse(P_HEIGHT);
 	}
 
 	public void setHeight(final String height) {
-		if(DomUtil.isEqual(height, m_height))
+		if(DomUtil.isEqual(height, internalGetSparse(P_HEIGHT)))
 			return;
 		changed();
-		m_height = height;
+		internalSetSparse(P_HEIGHT, height);
 	}
 
 	public String getLineHeight() {
-		return m_lineHeight;
+		return internalGetSparse(P_LINE_HEIGHT);
 	}
 
 	public void setLineHeight(final String lineHeight) {
-		if(DomUtil.isEqual(m_lineHeight, lineHeight))
+		if(DomUtil.isEqual(internalGetSparse(P_LINE_HEIGHT), lineHeight))
 			return;
 		changed();
-		m_lineHeight = lineHeight;
+		internalSetSparse(P_LINE_HEIGHT, lineHeight);
 	}
 
 	public String getMaxHeight() {
-		return m_maxHeight;
+		return internalGetSparse(P_MAX_HEIGHT);
 	}
 
 	public void setMaxHeight(final String maxHeight) {
-		if(DomUtil.isEqual(m_maxHeight, maxHeight))
+		if(DomUtil.isEqual(internalGetSparse(P_MAX_HEIGHT), maxHeight))
 			return;
 		changed();
-		m_maxHeight = maxHeight;
+		internalSetSparse(P_MAX_HEIGHT, maxHeight);
 	}
 
 	public String getMaxWidth() {
-		return m_maxWidth;
+		return internalGetSparse(P_MAX_WIDTH);
 	}
 
 	public void setMaxWidth(final String maxWidth) {
-		if(DomUtil.isEqual(m_maxWidth, maxWidth))
+		if(DomUtil.isEqual(internalGetSparse(P_MAX_WIDTH), maxWidth))
 			return;
 		changed();
-		m_maxWidth = maxWidth;
+		internalSetSparse(P_MAX_WIDTH, maxWidth);
 	}
 
 	public String getMinHeight() {
-		return m_minHeight;
+		return internalGetSparse(P_MIN_HEIGHT);
 	}
 
 	public void setMinHeight(final String minHeight) {
-		if(DomUtil.isEqual(m_minHeight, minHeight))
+		if(DomUtil.isEqual(internalGetSparse(P_MIN_HEIGHT), minHeight))
 			return;
 		changed();
-		m_minHeight = minHeight;
+		internalSetSparse(P_MIN_HEIGHT, minHeight);
 	}
 
 	public String getMinWidth() {
-		return m_minWidth;
+		return internalGetSparse(P_MIN_WIDTH);
 	}
 
 	public void setMinWidth(final String minWidth) {
-		if(DomUtil.isEqual(m_minWidth, minWidth))
+		if(DomUtil.isEqual(internalGetSparse(P_MIN_WIDTH), minWidth))
 			return;
 		changed();
-		m_minWidth = minWidth;
+		internalSetSparse(P_MIN_WIDTH, minWidth);
 	}
 
 	public String getWidth() {
-		return m_width;
+		return internalGetSparse(P_WIDTH);
 	}
 
 	public void setWidth(final String width) {
-		if(DomUtil.isEqual(m_width, width))
+		if(DomUtil.isEqual(internalGetSparse(P_WIDTH), width))
 			return;
 		changed();
-		m_width = width;
+		internalSetSparse(P_WIDTH, width);
 	}
 
 	public String getFontFamily() {
-		return m_fontFamily;
+		return internalGetSparse(P_FONT_FAMILY);
 	}
 
 	public void setFontFamily(final String fontFamily) {
-		if(DomUtil.isEqual(m_fontFamily, fontFamily))
+		if(DomUtil.isEqual(internalGetSparse(P_FONT_FAMILY), fontFamily))
 			return;
 		changed();
-		m_fontFamily = fontFamily;
+		internalSetSparse(P_FONT_FAMILY, fontFamily);
 	}
 
 	public String getFontSize() {
-		return m_fontSize;
+		return internalGetSparse(P_FONT_SIZE);
 	}
 
 	public void setFontSize(final String fontSize) {
-		if(DomUtil.isEqual(m_fontSize, fontSize))
+		if(DomUtil.isEqual(internalGetSparse(P_FONT_SIZE), fontSize))
 			return;
 		changed();
-		m_fontSize = fontSize;
+		internalSetSparse(P_FONT_SIZE, fontSize);
 	}
 
 	public String getFontSizeAdjust() {
-		return m_fontSizeAdjust;
+		return internalGetSparse(P_FONT_SIZE_ADJUST);
 	}
 
 	public void setFontSizeAdjust(final String fontSizeAdjust) {
-		if(DomUtil.isEqual(m_fontSizeAdjust, fontSizeAdjust))
+		if(DomUtil.isEqual(internalGetSparse(P_FONT_SIZE_ADJUST), fontSizeAdjust))
 			return;
 		changed();
-		m_fontSizeAdjust = fontSizeAdjust;
+		internalSetSparse(P_FONT_SIZE_ADJUST, fontSizeAdjust);
 	}
 
 	public FontStyle getFontStyle() {
-		return m_fontStyle;
+		return internalGetSparse(P_FONT_STYLE);
 	}
 
 	public void setFontStyle(final FontStyle fontStyle) {
-		if(DomUtil.isEqual(m_fontStyle, fontStyle))
+		if(DomUtil.isEqual(internalGetSparse(P_FONT_STYLE), fontStyle))
 			return;
 		changed();
-		m_fontStyle = fontStyle;
+		internalSetSparse(P_FONT_STYLE, fontStyle);
 	}
 
 	public FontVariant getFontVariant() {
-		return m_fontVariant;
+		return internalGetSparse(P_FONT_VARIANT);
 	}
 
 	public void setFontVariant(final FontVariant fontVariant) {
-		if(DomUtil.isEqual(m_fontVariant, fontVariant))
+		if(DomUtil.isEqual(internalGetSparse(P_FONT_VARIANT), fontVariant))
 			return;
 		changed();
-		m_fontVariant = fontVariant;
+		internalSetSparse(P_FONT_VARIANT, fontVariant);
 	}
 
 	public String getFontWeight() {
-		return m_fontWeight;
+		return internalGetSparse(P_FONT_WEIGHT);
 	}
 
 	public void setFontWeight(final String fontWeight) {
-		if(DomUtil.isEqual(m_fontWeight, fontWeight))
+		if(DomUtil.isEqual(internalGetSparse(P_FONT_WEIGHT), fontWeight))
 			return;
 		changed();
-		m_fontWeight = fontWeight;
+		internalSetSparse(P_FONT_WEIGHT, fontWeight);
 	}
 
 	public int getZIndex() {
-		return m_zIndex;
+		return internalGetSparseInt(P_Z_INDEX, Integer.MIN_VALUE);
 	}
 
 	public void setZIndex(final int index) {
-		if(m_zIndex != index)
+		if(internalGetSparseInt(P_Z_INDEX, Integer.MIN_VALUE) != index)
 			changed();
-		m_zIndex = index;
+		internalSetSparseInt(P_Z_INDEX, index, Integer.MIN_VALUE);
 	}
 
 	public String getTop() {
-		return m_top;
+		return internalGetSparse(P_TOP);
 	}
 
 	public void setTop(final String top) {
-		if(DomUtil.isEqual(top, m_top))
+		if(DomUtil.isEqual(top, internalGetSparse(P_TOP)))
 			return;
 		changed();
-		m_top = top;
+		internalSetSparse(P_TOP, top);
 	}
 
 	public void setTop(int px) {
@@ -627,14 +697,14 @@ public class CssBase {
 	}
 
 	public String getBottom() {
-		return m_bottom;
+		return internalGetSparse(P_BOTTOM);
 	}
 
 	public void setBottom(final String bottom) {
-		if(DomUtil.isEqual(bottom, m_bottom))
+		if(DomUtil.isEqual(bottom, internalGetSparse(P_BOTTOM)))
 			return;
 		changed();
-		m_bottom = bottom;
+		internalSetSparse(P_BOTTOM, bottom);
 	}
 
 	public void setBottom(int px) {
@@ -643,14 +713,14 @@ public class CssBase {
 	}
 
 	public String getLeft() {
-		return m_left;
+		return internalGetSparse(P_LEFT);
 	}
 
 	public void setLeft(final String left) {
-		if(DomUtil.isEqual(left, m_left))
+		if(DomUtil.isEqual(left, internalGetSparse(P_LEFT)))
 			return;
 		changed();
-		m_left = left;
+		internalSetSparse(P_LEFT, left);
 	}
 
 	public void setLeft(final int px) {
@@ -659,14 +729,14 @@ public class CssBase {
 	}
 
 	public String getRight() {
-		return m_right;
+		return internalGetSparse(P_RIGHT);
 	}
 
 	public void setRight(final String right) {
-		if(DomUtil.isEqual(right, m_right))
+		if(DomUtil.isEqual(right, internalGetSparse(P_RIGHT)))
 			return;
 		changed();
-		m_right = right;
+		internalSetSparse(P_RIGHT, right);
 	}
 
 	public void setRight(final int px) {
@@ -675,80 +745,80 @@ public class CssBase {
 	}
 
 	public String getColor() {
-		return m_color;
+		return internalGetSparse(P_COLOR);
 	}
 
 	public void setColor(final String color) {
-		if(DomUtil.isEqual(color, m_color))
+		if(DomUtil.isEqual(color, internalGetSparse(P_COLOR)))
 			return;
 		changed();
-		m_color = color;
+		internalSetSparse(P_COLOR, color);
 	}
 
 	public TextAlign getTextAlign() {
-		return m_textAlign;
+		return internalGetSparse(P_TEXT_ALIGN);
 	}
 
 	public void setTextAlign(final TextAlign textAlign) {
-		if(m_textAlign == textAlign)
+		if(internalGetSparse(P_TEXT_ALIGN) == textAlign)
 			return;
 		changed();
-		m_textAlign = textAlign;
+		internalSetSparse(P_TEXT_ALIGN, textAlign);
 	}
 
 	public VerticalAlignType getVerticalAlign() {
-		return m_verticalAlign;
+		return internalGetSparse(P_VERTICAL_ALIGN);
 	}
 
 	public void setVerticalAlign(final VerticalAlignType verticalAlign) {
-		if(m_verticalAlign == verticalAlign)
+		if(internalGetSparse(P_VERTICAL_ALIGN) == verticalAlign)
 			return;
 		changed();
-		m_verticalAlign = verticalAlign;
+		internalSetSparse(P_VERTICAL_ALIGN, verticalAlign);
 	}
 
 	public String getMarginLeft() {
-		return m_marginLeft;
+		return internalGetSparse(P_MARGIN_LEFT);
 	}
 
 	public void setMarginLeft(String marginLeft) {
-		if(DomUtil.isEqual(m_marginLeft, marginLeft))
+		if(DomUtil.isEqual(internalGetSparse(P_MARGIN_LEFT), marginLeft))
 			return;
 		changed();
-		m_marginLeft = marginLeft;
+		internalSetSparse(P_MARGIN_LEFT, marginLeft);
 	}
 
 	public String getMarginRight() {
-		return m_marginRight;
+		return internalGetSparse(P_MARGIN_RIGHT);
 	}
 
 	public void setMarginRight(String marginRight) {
-		if(DomUtil.isEqual(m_marginRight, marginRight))
+		if(DomUtil.isEqual(internalGetSparse(P_MARGIN_RIGHT), marginRight))
 			return;
 		changed();
-		m_marginRight = marginRight;
+		internalSetSparse(P_MARGIN_RIGHT, marginRight);
 	}
 
 	public String getMarginTop() {
-		return m_marginTop;
+		return internalGetSparse(P_MARGIN_TOP);
 	}
 
 	public void setMarginTop(String marginTop) {
-		if(DomUtil.isEqual(m_marginTop, marginTop))
+		if(DomUtil.isEqual(internalGetSparse(P_MARGIN_TOP), marginTop))
 			return;
 		changed();
-		m_marginTop = marginTop;
+		internalSetSparse(P_MARGIN_TOP, marginTop);
 	}
 
 	public String getMarginBottom() {
-		return m_marginBottom;
+		return internalGetSparse(P_MARGIN_BOTTOM);
 	}
 
 	public void setMarginBottom(String marginBottom) {
-		if(DomUtil.isEqual(m_marginBottom, marginBottom))
+		if(DomUtil.isEqual(internalGetSparse(P_MARGIN_BOTTOM), marginBottom))
 			return;
 		changed();
-		m_marginBottom = marginBottom;
+		internalSetSparse(P_MARGIN_BOTTOM, marginBottom);
 	}
 
 	public void setMargin(String... margin) {
@@ -783,47 +853,47 @@ public class CssBase {
 	}
 
 	public String getPaddingLeft() {
-		return m_paddingLeft;
+		return internalGetSparse(P_PADDING_LEFT);
 	}
 
 	public void setPaddingLeft(String paddingLeft) {
-		if(DomUtil.isEqual(m_paddingLeft, paddingLeft))
+		if(DomUtil.isEqual(internalGetSparse(P_PADDING_LEFT), paddingLeft))
 			return;
 		changed();
-		m_paddingLeft = paddingLeft;
+		internalSetSparse(P_PADDING_LEFT, paddingLeft);
 	}
 
 	public String getPaddingRight() {
-		return m_paddingRight;
+		return internalGetSparse(P_PADDING_RIGHT);
 	}
 
 	public void setPaddingRight(String paddingRight) {
-		if(DomUtil.isEqual(m_paddingRight, paddingRight))
+		if(DomUtil.isEqual(internalGetSparse(P_PADDING_RIGHT), paddingRight))
 			return;
 		changed();
-		m_paddingRight = paddingRight;
+		internalSetSparse(P_PADDING_RIGHT, paddingRight);
 	}
 
 	public String getPaddingTop() {
-		return m_paddingTop;
+		return internalGetSparse(P_PADDING_TOP);
 	}
 
 	public void setPaddingTop(String paddingTop) {
-		if(DomUtil.isEqual(m_paddingTop, paddingTop))
+		if(DomUtil.isEqual(internalGetSparse(P_PADDING_TOP), paddingTop))
 			return;
 		changed();
-		m_paddingTop = paddingTop;
+		internalSetSparse(P_PADDING_TOP, paddingTop);
 	}
 
 	public String getPaddingBottom() {
-		return m_paddingBottom;
+		return internalGetSparse(P_PADDING_BOTTOM);
 	}
 
 	public void setPaddingBottom(String paddingBottom) {
-		if(DomUtil.isEqual(m_paddingBottom, paddingBottom))
+		if(DomUtil.isEqual(internalGetSparse(P_PADDING_BOTTOM), paddingBottom))
 			return;
 		changed();
-		m_paddingBottom = paddingBottom;
+		internalSetSparse(P_PADDING_BOTTOM, paddingBottom);
 	}
 
 	public void setPadding(String... padding) {
@@ -858,13 +928,13 @@ public class CssBase {
 	}
 	
 	public TextTransformType getTransform() {
-		return m_transform;
+		return internalGetSparse(P_TRANSFORM);
 	}
 
 	public void setTransform(TextTransformType transform) {
-		if(!DomUtil.isEqual(m_transform, transform))
+		if(!DomUtil.isEqual(internalGetSparse(P_TRANSFORM), transform))
 			changed();
-		m_transform = transform;
+		internalSetSparse(P_TRANSFORM, transform);
 	}
 
 }
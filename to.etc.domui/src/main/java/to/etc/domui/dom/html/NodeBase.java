@@ -126,7 +126,8 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	@Nullable
 	private String m_actualID;
 
-	private String m_testID;
+	/** Rarely used properties are kept in the sparse store of {@link CssBase}, keyed by these P_xxx ordinals. */
+	static private final int P_TEST_ID = SPARSE_NODE_BASE + 0;
 
 	@Nullable
 	private NodeContainer m_parent;
@@ -149,8 +150,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 
 	int m_origNewIndex;
 
-	@Nullable
-	private Object m_userObject;
+	static private final int P_USER_OBJECT = SPARSE_NODE_BASE + 1;
 
 	@Nullable
 	private String m_title;
@@ -158,17 +158,14 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	@Nullable
 	private String m_onClickJS;
 
-	@Nullable
-	private String m_onMouseDownJS;
+	static private final int P_ON_MOUSE_DOWN_JS = SPARSE_NODE_BASE + 2;
 
 	@Nullable
 	private StringBuilder m_appendJS;
 
-	@Nullable
-	private StringBuilder m_createJS;
+	static private final int P_CREATE_JS = SPARSE_NODE_BASE + 3;
 
-	@Nullable
-	private List<String> m_specialAttributes;
+	static private final int P_SPECIAL_ATTRIBUTES = SPARSE_NODE_BASE + 4;
 
 	static private final byte F_FOCUSREQUESTED = 0x01;
 
@@ -176,35 +173,33 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 
 	static private final byte F_BUNDLEUSED = 0x04;
 
+	/** This node is registered in its parent's list of changed children, see {@link NodeContainer#childChanged(NodeBase)}. */
+	static private final byte F_CHANGELISTED = 0x08;
+
 	private byte m_flags;
 
-	private StackTraceElement[] m_allocationTracepoint;
+	static private final int P_ALLOCATION_TRACEPOINT = SPARSE_NODE_BASE + 5;
 
 	/**
 	 * If marked as stretched, element gets attribute stretched. It would be used on client side to adjust its height to all available space in parent element (what is left when other siblings take their pieces)
 	 */
 	private boolean m_stretchHeight;
 
-	private String m_calculatedTestIdBase;
+	static private final int P_CALCULATED_TEST_ID_BASE = SPARSE_NODE_BASE + 6;
 
-	private String m_testFullRepeatID;
+	static private final int P_TEST_FULL_REPEAT_ID = SPARSE_NODE_BASE + 7;
 
-	private String m_testRepeatId;
+	static private final int P_TEST_REPEAT_ID = SPARSE_NODE_BASE + 8;
 
-	@Nullable
-	private List<IBinding> m_bindingList;
+	static private final int P_BINDING_LIST = SPARSE_NODE_BASE + 9;
 
-	@Nullable
-	private String m_overrideTitle;
+	static private final int P_OVERRIDE_TITLE = SPARSE_NODE_BASE + 10;
 
-	@Nullable
-	private INotify<NodeBase> m_onSizeAndPositionChange;
+	static private final int P_ON_SIZE_AND_POSITION_CHANGE = SPARSE_NODE_BASE + 11;
 
-	@Nullable
-	private Rect m_clientBounds;
+	static private final int P_CLIENT_BOUNDS = SPARSE_NODE_BASE + 12;
 
-	@Nullable
-	private Dimension m_browserWindowSize;
+	static private final int P_BROWSER_WINDOW_SIZE = SPARSE_NODE_BASE + 13;
 
 	/**
 	 * This must visit the appropriate method in the node visitor. It should NOT recurse it's children.
@@ -216,7 +211,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	protected NodeBase(@Nonnull final String tag) {
 		m_tag = tag;
 		if(m_logAllocations) {
-			m_allocationTracepoint = DomUtil.getTracepoint();
+			internalSetSparse(P_ALLOCATION_TRACEPOINT, DomUtil.getTracepoint());
 		}
 	}
 
@@ -229,7 +224,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	}
 
 	public StackTraceElement[] getAllocationTracepoint() {
-		return m_allocationTracepoint;
+		return internalGetSparse(P_ALLOCATION_TRACEPOINT);
 	}
 
 	/*--------------------------------------------------------------*/
@@ -291,7 +286,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 		internalSetHasChangedAttributes();
 		NodeContainer p = m_parent;
 		if(p != null)
-			p.childChanged(); 									// Indicate child has changed
+			p.childChanged(this); 								// Indicate child has changed
 		super.changed();
 	}
 
@@ -437,7 +432,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 
 	void internalOnAddedToPage(final Page p) {
 		onAddedToPage(p);
-		List<NotificationListener<?>> list = m_notificationListenerList;
+		List<NotificationListener<?>> list = internalGetSparse(P_NOTIFICATION_LISTENER_LIST);
 		if(null != list) {
 			list.forEach(a -> p.addNotificationListener(a));
 		}
@@ -552,6 +547,21 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 		if(m_oldParent == null) // jal 20090115 Was !=, seems very wrong and the cause of the "Hell Freezeth over" exception..
 			m_oldParent = m_parent;
 		m_parent = parent;
+		m_flags &= ~F_CHANGELISTED;						// Not registered as changed in the new parent
+	}
+
+	/**
+	 * Internal: T if this node is registered as a changed child in its current parent.
+	 */
+	final boolean internalIsChangeListed() {
+		return (m_flags & F_CHANGELISTED) != 0;
+	}
+
+	final void internalSetChangeListed(boolean on) {
+		if(on)
+			m_flags |= F_CHANGELISTED;
+		else
+			m_flags &= ~F_CHANGELISTED;
 	}
 
 	/**
@@ -746,6 +756,9 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 		m_built = false;
 		if(m_page != null)
 			m_page.internalAddPendingBuild(this);
+		NodeContainer p = m_parent;
+		if(p != null)
+			p.childChanged(this);							// Make sure the delta build visits me
 	}
 
 	/**
@@ -790,13 +803,14 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 */
 	@Nullable
 	public String getTitle() {
-		return m_overrideTitle == null ? m_title : m_overrideTitle;
+		String overrideTitle = internalGetSparse(P_OVERRIDE_TITLE);
+		return overrideTitle == null ? m_title : overrideTitle;
 	}
 
 	public void setOverrideTitle(@Nullable String overrideTitle) {
-		if(Objects.equals(overrideTitle, m_overrideTitle))
+		if(Objects.equals(overrideTitle, internalGetSparse(P_OVERRIDE_TITLE)))
 			return;
-		m_overrideTitle = overrideTitle;
+		internalSetSparse(P_OVERRIDE_TITLE, overrideTitle);
 		changed();
 	}
 
@@ -836,7 +850,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 */
 	@Nullable
 	public Object getUserObject() {
-		return m_userObject;
+		return internalGetSparse(P_USER_OBJECT);
 	}
 
 	/**
@@ -844,7 +858,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * @param userObject
 	 */
 	public void setUserObject(@Nullable final Object userObject) {
-		m_userObject = userObject;
+		internalSetSparse(P_USER_OBJECT, userObject);
 	}
 
 	/*----------- Test IDs -------------*/
@@ -853,7 +867,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * @return
 	 */
 	public String getTestID() {
-		return m_testID;
+		return internalGetSparse(P_TEST_ID);
 	}
 
 	/**
@@ -861,14 +875,14 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * @param testID
 	 */
 	public void setTestID(String testID) {
-		if(DomUtil.isEqual(testID, m_testID))
+		if(DomUtil.isEqual(testID, internalGetSparse(P_TEST_ID)))
 			return;
-		m_testID = testID;
+		internalSetSparse(P_TEST_ID, testID);
 		changed();
 	}
 
 	public void setCalculcatedId(@Nonnull String calcid) {
-		m_calculatedTestIdBase = DomUtil.convertToID(calcid);
+		internalSetSparse(P_CALCULATED_TEST_ID_BASE, DomUtil.convertToID(calcid));
 	}
 
 	public void setCalculcatedId(@Nonnull String calcid, @Nullable String parentId) {
@@ -899,7 +913,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 */
 	@Nullable
 	protected String getCalculatedTestID() {
-		return m_calculatedTestIdBase;
+		return internalGetSparse(P_CALCULATED_TEST_ID_BASE);
 	}
 
 	@Nullable
@@ -914,7 +928,9 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 		if(null == baseName)
 			return null;
 		String repeatId = getTestRepeatId();
-		return m_testID = page.allocateTestID(repeatId + baseName);
+		String testID = page.allocateTestID(repeatId + baseName);
+		internalSetSparse(P_TEST_ID, testID);
+		return testID;
 	}
 
 	/**
@@ -924,23 +940,26 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 */
 	@Nonnull
 	public String getTestRepeatId() {
-		if(m_testFullRepeatID == null) {
+		String fullRepeatId = internalGetSparse(P_TEST_FULL_REPEAT_ID);
+		if(fullRepeatId == null) {
 			NodeContainer parent = m_parent;
 			if(parent == null) {
 				throw new IllegalStateException("?? " + getClass().getName() + " null parent");
 			}
 			String ptrid = parent.getTestRepeatId();
-			if(m_testRepeatId == null) {
-				m_testFullRepeatID = ptrid;
+			String repeatId = internalGetSparse(P_TEST_REPEAT_ID);
+			if(repeatId == null) {
+				fullRepeatId = ptrid;
 			} else {
-				m_testFullRepeatID = ptrid + "/" + m_testRepeatId + "/";
+				fullRepeatId = ptrid + "/" + repeatId + "/";
 			}
+			internalSetSparse(P_TEST_FULL_REPEAT_ID, fullRepeatId);
 		}
-		return m_testFullRepeatID;
+		return fullRepeatId;
 	}
 
 	public void setTestRepeatID(@Nonnull String trid) {
-		m_testRepeatId = trid;
+		internalSetSparse(P_TEST_REPEAT_ID, trid);
 	}
 
 
@@ -955,11 +974,11 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	}
 
 	public String getOnMouseDownJS() {
-		return m_onMouseDownJS;
+		return internalGetSparse(P_ON_MOUSE_DOWN_JS);
 	}
 
 	public void setOnMouseDownJS(final String onMouseDownJS) {
-		m_onMouseDownJS = onMouseDownJS;
+		internalSetSparse(P_ON_MOUSE_DOWN_JS, onMouseDownJS);
 	}
 
 
@@ -1039,35 +1058,36 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 
 	@Nonnull
 	private StringBuilder getCreateJavascriptBuffer() {
-		StringBuilder sb = m_createJS;
-		if(sb == null)
-			sb = m_createJS = new StringBuilder();
-		else {
-			JavascriptStmt st = m_createStmt;
+		StringBuilder sb = internalGetSparse(P_CREATE_JS);
+		if(sb == null) {
+			sb = new StringBuilder();
+			internalSetSparse(P_CREATE_JS, sb);
+		} else {
+			JavascriptStmt st = internalGetSparse(P_CREATE_STMT);
 			if(null != st)
 				st.next();
 		}
 		return sb;
 	}
 
-	@Nullable
-	private JavascriptStmt m_createStmt;
+	static private final int P_CREATE_STMT = SPARSE_NODE_BASE + 14;
 
 	@Nonnull
 	public JavascriptStmt createStatement() {
-		JavascriptStmt st = m_createStmt;
+		JavascriptStmt st = internalGetSparse(P_CREATE_STMT);
 		if(null == st) {
-			st = m_createStmt = new JavascriptStmt(getCreateJavascriptBuffer());
+			st = new JavascriptStmt(getCreateJavascriptBuffer());
+			internalSetSparse(P_CREATE_STMT, st);
 		}
 		return st;
 	}
 
 	@Nullable
 	public StringBuilder getCreateJS() {
-		JavascriptStmt st = m_createStmt;
+		JavascriptStmt st = internalGetSparse(P_CREATE_STMT);
 		if(null != st)
 			st.next();
-		return m_createJS;
+		return internalGetSparse(P_CREATE_JS);
 	}
 
 	/**
@@ -1122,9 +1142,10 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * @param value
 	 */
 	public void setSpecialAttribute(@Nonnull final String name, @Nullable final String value) {
-		List<String> sa = m_specialAttributes;
+		List<String> sa = internalGetSparse(P_SPECIAL_ATTRIBUTES);
 		if(sa == null) {
-			sa = m_specialAttributes = new ArrayList<String>(5);
+			sa = new ArrayList<String>(5);
+			internalSetSparse(P_SPECIAL_ATTRIBUTES, sa);
 		} else {
 			for(int i = 0; i < sa.size(); i += 2) {
 				if(sa.get(i).equals(name)) {
@@ -1154,7 +1175,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 */
 	@Nullable
 	public List<String> getSpecialAttributeList() {
-		return m_specialAttributes;
+		return internalGetSparse(P_SPECIAL_ATTRIBUTES);
 	}
 
 	/**
@@ -1164,7 +1185,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 */
 	@Nullable
 	public String getSpecialAttribute(@Nonnull final String name) {
-		List<String> attributes = m_specialAttributes;
+		List<String> attributes = internalGetSparse(P_SPECIAL_ATTRIBUTES);
 		if(attributes != null) {
 			for(int i = 0; i < attributes.size(); i += 2) {
 				if(attributes.get(i).equals(name))
@@ -1282,8 +1303,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * When set this contains a user-understandable tekst indicating which control has the error. It usually contains
 	 * the "label" associated with the control, and is set automatically by form builders if possible.
 	 */
-	@Nullable
-	private String m_errorLocation;
+	static private final int P_ERROR_LOCATION = SPARSE_NODE_BASE + 15;
 
 	/**
 	 * When set this contains a user-understandable tekst indicating which control has the error. It usually contains
@@ -1291,7 +1311,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * @param errorLocation
 	 */
 	public void setErrorLocation(@Nullable String errorLocation) {
-		m_errorLocation = errorLocation;
+		internalSetSparse(P_ERROR_LOCATION, errorLocation);
 	}
 
 	/**
@@ -1301,7 +1321,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 */
 	@Nullable
 	public String getErrorLocation() {
-		return m_errorLocation;
+		return internalGetSparse(P_ERROR_LOCATION);
 	}
 
 	public String	getComponentInfo() {
@@ -1364,7 +1384,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 
 			//-- Update any error location.
 			if(msg.getErrorLocation() == null)
-				msg.setErrorLocation(m_errorLocation);
+				msg.setErrorLocation(internalGetSparse(P_ERROR_LOCATION));
 			msg.setErrorNode(this);
 		}
 		m_message = msg;										// ORDERED: important!
@@ -1460,7 +1480,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * When known, this contains the bundle stack containing all message bundles for this class <b>and all it's
 	 * parents</b>. It is looked up only once, if the F_BUNDLEFOUND flag is not yet set.
 	 */
-	private IBundle m_componentBundle;
+	static private final int P_COMPONENT_BUNDLE = SPARSE_NODE_BASE + 16;
 
 	/**
 	 * Set a message bundle for this component. This overrides any and all auto-lookup mechanism, and can
@@ -1473,7 +1493,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	final public void setComponentBundle(@Nullable IBundle bundle) {
 		if(0 != (m_flags & F_BUNDLEUSED))
 			throw new IllegalStateException("The component bundle can only be set BEFORE it is used.");
-		m_componentBundle = bundle;
+		internalSetSparse(P_COMPONENT_BUNDLE, bundle);
 		m_flags |= F_BUNDLEFOUND; // Set the 'found' flag to prevent the bundle from being looked up.
 	}
 
@@ -1487,11 +1507,11 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	@Nullable
 	final public IBundle findComponentBundle() {
 		if((m_flags & F_BUNDLEFOUND) == 0) { // Not looked up yet?
-			m_componentBundle = BundleStack.createStack(getClass()); // Create the bundle stack for this component.
+			internalSetSparse(P_COMPONENT_BUNDLE, BundleStack.createStack(getClass())); // Create the bundle stack for this component.
 			m_flags |= F_BUNDLEFOUND;
 		}
 		m_flags |= F_BUNDLEUSED;
-		return m_componentBundle;
+		return internalGetSparse(P_COMPONENT_BUNDLE);
 	}
 
 	/**
@@ -1729,7 +1749,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * Reset the "request focus" flag.
 	 */
 	final public void clearFocusRequested() {
-		m_flags &= F_FOCUSREQUESTED;
+		m_flags &= ~F_FOCUSREQUESTED;
 	}
 
 	public final void refresh() throws Exception {
@@ -1853,16 +1873,16 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 		if(isAttached())
 			getPage().addNotificationListener(nl);
 		else {
-			List<NotificationListener<?>> list = m_notificationListenerList;
+			List<NotificationListener<?>> list = internalGetSparse(P_NOTIFICATION_LISTENER_LIST);
 			if(null == list) {
-				list = m_notificationListenerList = new ArrayList<>(4);
+				list = new ArrayList<>(4);
+				internalSetSparse(P_NOTIFICATION_LISTENER_LIST, list);
 			}
 			list.add(nl);
 		}
 	}
 
-	@Nullable
-	private List<NotificationListener<?>> m_notificationListenerList;
+	static private final int P_NOTIFICATION_LISTENER_LIST = SPARSE_NODE_BASE + 17;
 
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Soft binding support.								*/
@@ -1888,7 +1908,7 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 */
 	@Nullable
 	final public List<IBinding> getBindingList() {
-		return m_bindingList;
+		return internalGetSparse(P_BINDING_LIST);
 	}
 
 	/**
@@ -1896,14 +1916,16 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	 * @param binding
 	 */
 	final public void addBinding(@Nonnull IBinding binding) {
-		List<IBinding> list = m_bindingList;
-		if(list == null)
-			list = m_bindingList = new ArrayList<>(1);
+		List<IBinding> list = internalGetSparse(P_BINDING_LIST);
+		if(list == null) {
+			list = new ArrayList<>(1);
+			internalSetSparse(P_BINDING_LIST, list);
+		}
 		list.add(binding);
 	}
 
 	final public void removeBinding(@Nonnull IBinding binding) {
-		List<IBinding> list = m_bindingList;
+		List<IBinding> list = internalGetSparse(P_BINDING_LIST);
 		if(null != list)
 			list.remove(binding);
 	}
@@ -2105,29 +2127,29 @@ abstract public class NodeBase extends CssBase implements INodeErrorDelegate {
 	
 	@Nullable
 	protected Rect getClientBounds() {
-		return m_clientBounds;
+		return internalGetSparse(P_CLIENT_BOUNDS);
 	}
 
 	protected void setClientBounds(@Nonnull Rect clientBound) {
-		m_clientBounds = clientBound;
+		internalSetSparse(P_CLIENT_BOUNDS, clientBound);
 	}
 
 	@Nullable
 	protected Dimension getBrowserWindowSize() {
-		return m_browserWindowSize;
+		return internalGetSparse(P_BROWSER_WINDOW_SIZE);
 	}
 
 	protected void setBrowserWindowSize(@Nonnull Dimension browserWindowSize) {
-		m_browserWindowSize = browserWindowSize;
+		internalSetSparse(P_BROWSER_WINDOW_SIZE, browserWindowSize);
 	}
 
 	@Nullable
 	protected INotify<NodeBase> getOnSizeAndPositionChange() {
-		return m_onSizeAndPositionChange;
+		return internalGetSparse(P_ON_SIZE_AND_POSITION_CHANGE);
 	}
 
 	protected void setOnSizeAndPositionChange(@Nonnull INotify<NodeBase> onSizeAndPositionChange) {
-		m_onSizeAndPositionChange = onSizeAndPositionChange;
+		internalSetSparse(P_ON_SIZE_AND_POSITION_CHANGE, onSizeAndPositionChange);
 	}
 
 	private void handleClientPositionAndSizeChange(@Nonnull RequestContextImpl ctx) throws Exception {
@@ -31,6 +31,7 @@ import to.etc.domui.dom.errors.ErrorFenceHandler;
 import to.etc.domui.dom.errors.IErrorFence;
 import to.etc.domui.dom.errors.UIMessage;
 import to.etc.domui.util.DomUtil;
+import to.etc.util.DeveloperOptions;
 import to.etc.webapp.ProgrammerErrorException;
 
 import javax.annotation.Nonnull;
@@ -66,6 +67,25 @@ abstract public class NodeContainer extends NodeBase implements Iterable<NodeBas
 	 */
 	private boolean m_mustRenderChildrenFully;
 
+	/**
+	 * Set when this node's children list changed since the last delta render. Unlike m_oldChildren this stays
+	 * set until the delta is fully cleared, so that clearing can find all children that have delta state.
+	 */
+	private boolean m_treeChanged;
+
+	/**
+	 * The children that registered a change since the last delta render, as a List&lt;NodeBase&gt;. The list is
+	 * unordered and can contain nodes that have been removed since; a node that is on the list of its current
+	 * parent has {@link NodeBase#internalIsChangeListed()} set.
+	 */
+	static private final int P_CHANGED_CHILDREN = SPARSE_NODE_BASE + 32;
+
+	/**
+	 * When set the delta builders walk all children of a changed container instead of only the registered
+	 * changed ones. This is the original behaviour, and is used to verify the result of the optimized walk.
+	 */
+	static private boolean m_fullDeltaWalk = DeveloperOptions.getBool("domui.fulldeltawalk", false);
+
 	private NodeBase[] m_oldChildren;
 
 	private IErrorFence m_errorFence;
@@ -104,17 +124,78 @@ abstract public class NodeContainer extends NodeBase implements Iterable<NodeBas
 	}
 
 	final void childChanged() {
+		childChanged(null);
+	}
+
+	/**
+	 * Mark this container as having a changed child, and register that child so that the delta
+	 * builders can skip the unchanged ones. This propagates upwards: every container on the path
+	 * to the root is marked and registered in its parent, until a container is found that was
+	 * already marked.
+	 */
+	final void childChanged(@Nullable NodeBase child) {
 		NodeContainer c = this;
 		for(;;) {
+			if(null != child)
+				c.registerChangedChild(child);
 			if(c.m_childHasUpdates)
 				return;
 			c.m_childHasUpdates = true;
 			if(!c.hasParent())
 				break;
+			child = c;
 			c = c.getParent();
 		}
 	}
 
+	private void registerChangedChild(@Nonnull NodeBase child) {
+		if(child.internalIsChangeListed())
+			return;
+		List<NodeBase> list = internalGetSparse(P_CHANGED_CHILDREN);
+		if(null == list) {
+			list = new ArrayList<NodeBase>(2);
+			internalSetSparse(P_CHANGED_CHILDREN, list);
+		}
+		list.add(child);
+		child.internalSetChangeListed(true);
+	}
+
+	/**
+	 * Internal, used by the delta builders: return the children that need to be visited because
+	 * something changed in them, in document order. If the changes are unknown all children are returned.
+	 */
+	@Nonnull
+	final List<NodeBase> internalGetChangedChildren() {
+		List<NodeBase> list = internalGetSparse(P_CHANGED_CHILDREN);
+		if(null == list || list.size() == 0 || m_fullDeltaWalk)
+			return m_children;
+		if(list.size() == 1) {
+			NodeBase b = list.get(0);
+			if(b.internalIsChangeListed() && b.internalGetParent() == this)
+				return list;
+			return m_children;
+		}
+
+		//-- More than one: collect them in document order
+		List<NodeBase> res = new ArrayList<NodeBase>(list.size());
+		for(NodeBase b : m_children) {
+			if(b.internalIsChangeListed())
+				res.add(b);
+		}
+		return res;
+	}
+
+	/**
+	 * Only to be used to verify the delta builders: when set all children of changed containers are walked.
+	 */
+	static public void internalSetFullDeltaWalk(boolean on) {
+		m_fullDeltaWalk = on;
+	}
+
+	static public boolean isFullDeltaWalk() {
+		return m_fullDeltaWalk;
+	}
+
 	final boolean childHasUpdates() {
 		return m_childHasUpdates;
 	}
@@ -172,8 +253,52 @@ abstract public class NodeContainer extends NodeBase implements Iterable<NodeBas
 	@Override
 	final public void internalClearDeltaFully() {
 		internalClearDelta();
-		for(int i = m_children.size(); --i >= 0;)
-			m_children.get(i).internalClearDeltaFully();
+		m_treeChanged = false;
+		internalSetSparse(P_CHANGED_CHILDREN, null);
+		for(int i = m_children.size(); --i >= 0;) {
+			NodeBase b = m_children.get(i);
+			b.internalSetChangeListed(false);
+			b.internalClearDeltaFully();
+		}
+	}
+
+	/**
+	 * DO NOT USE.
+	 * Internal: clear the delta of this node and of all children that registered a change, recursively. After
+	 * a delta render this leaves the tree in the same state as {@link #internalClearDeltaFully()} but only
+	 * visits the changed paths.
+	 */
+	final public void internalClearDeltaChanged() {
+		if(m_fullDeltaWalk) {
+			internalClearDeltaFully();
+			return;
+		}
+		boolean treeChanged = m_treeChanged || m_oldChildren != null;
+		List<NodeBase> list = internalGetSparse(P_CHANGED_CHILDREN);
+		internalClearDelta();
+		m_treeChanged = false;
+		if(null != list)
+			internalSetSparse(P_CHANGED_CHILDREN, null);
+
+		if(treeChanged) {
+			//-- All of my children can have delta state (old parent) so visit all of them
+			for(int i = m_children.size(); --i >= 0;)
+				clearChildDelta(m_children.get(i));
+		} else if(null != list) {
+			for(int i = list.size(); --i >= 0;) {
+				NodeBase b = list.get(i);
+				if(b.internalGetParent() == this && b.internalIsChangeListed())
+					clearChildDelta(b);
+			}
+		}
+	}
+
+	static private void clearChildDelta(@Nonnull NodeBase b) {
+		b.internalSetChangeListed(false);
+		if(b instanceof NodeContainer)
+			((NodeContainer) b).internalClearDeltaChanged();
+		else
+			b.internalClearDelta();
 	}
 
 	/**
@@ -271,10 +396,11 @@ abstract public class NodeContainer extends NodeBase implements Iterable<NodeBas
 	 * Most of the logic to properly indicate that this node's children have changed.
 	 */
 	final void treeChanging() {
+		m_treeChanged = true;
 		if(m_oldChildren != null) // Already have a copy?
 			return;
 		if(hasParent())
-			getParent().childChanged();
+			getParent().childChanged(this);
 
 		//-- Copy all of my children and save me as their current parent
 		if(isAttached())
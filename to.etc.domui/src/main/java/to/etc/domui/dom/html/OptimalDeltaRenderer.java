@@ -240,9 +240,10 @@ public class OptimalDeltaRenderer {
 		}
 
 		//-- Handle delayed stuff...
-		int pollinterval = DomApplication.get().calculatePollInterval(m_page.getConversation().isPollCallbackRequired());
+		DomApplication app = DomApplication.get();
+		int pollinterval = app.calculatePollInterval(m_page.getConversation().isPollCallbackRequired());
 		if(pollinterval > 0) {
-			o().writeRaw("WebUI.startPolling(" + pollinterval + ");");
+			o().writeRaw("WebUI.startPolling(" + pollinterval + "," + app.calculatePushWait(m_page.getConversation(), pollinterval) + ");");
 		} else {
 			o().writeRaw("WebUI.cancelPolling();");
 		}
@@ -295,7 +296,7 @@ public class OptimalDeltaRenderer {
 		//-- At this point we have a CHANGE tree which we can render immediately
 		renderDeletes(root);
 		renderRest(root);
-		page.internalClearDeltaFully();
+		page.internalClearDeltaChanged();
 	}
 
 	private void renderDeletes(NodeInfo ni) throws IOException {
@@ -519,7 +520,7 @@ public class OptimalDeltaRenderer {
 	 * @param nc
 	 */
 	private void doContainerChildren(NodeInfo nodeInfo, NodeContainer nc) throws Exception {
-		List<NodeBase> chl = nc.internalGetChildren();
+		List<NodeBase> chl = nc.internalGetChangedChildren();	// Only the children that registered a change
 		for(int i = 0, len = chl.size(); i < len; i++) {
 			NodeBase n = chl.get(i);
 			if(n instanceof NodeContainer) {
@@ -449,6 +449,21 @@ final public class Page implements IQContextContainer {
 		m_sb = null;
 	}
 
+	/**
+	 * Clear all delta state after a delta render. This only visits the nodes that registered
+	 * a change, see {@link NodeContainer#internalClearDeltaChanged()}.
+	 */
+	public void internalClearDeltaChanged() {
+		for(NodeBase nb : m_removeAfterRenderList) {
+			nb.remove();
+		}
+		m_removeAfterRenderList.clear();
+
+		getBody().internalClearDeltaChanged();
+		m_beforeMap = null;
+		m_sb = null;
+	}
+
 
 	public void addRemoveAfterRenderNode(@Nonnull NodeBase node) {
 		if(m_removeAfterRenderList == Collections.EMPTY_LIST) {
@@ -732,12 +747,18 @@ final public class Page implements IQContextContainer {
 		if(nc.childHasUpdates() && nc.internalGetOldChildren() == null) {
 			nc.build();
 
-			List<NodeBase> ichl = nc.internalGetChildren();
+			List<NodeBase> ichl = nc.internalGetChangedChildren();		// Only descend into children that changed
 			for(int i = 0, len = ichl.size(); i < len; i++) {
 				buildChangedTree(ichl.get(i));
 			}
 		}
-		if(nc.internalGetOldChildren() != null || nc.childHasUpdates() || nc.mustRenderChildrenFully()) {
+
+		/*
+		 * Nodes that are not built are either new (so their parent has a tree change) or were forced
+		 * to rebuild (and registered themselves as changed in their parent), so only the changed tree
+		 * needs a full build.
+		 */
+		if(nc.internalGetOldChildren() != null || nc.mustRenderChildrenFully() || !nc.isBuilt() || (nc.childHasUpdates() && NodeContainer.isFullDeltaWalk())) {
 			buildSubTree(nc);
 		}
 	}
@@ -64,7 +64,7 @@ public class TextNode extends NodeBase {
 			changed();
 		m_text = text;
 		if(hasParent()) {
-			getParent().childChanged();
+			getParent().childChanged(this);
 			getParent().treeChanging();
 			getParent().setMustRenderChildrenFully();
 		}
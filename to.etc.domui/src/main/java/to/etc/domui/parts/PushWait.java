@@ -0,0 +1,61 @@
+package to.etc.domui.parts;
+
+import java.io.*;
+
+import javax.annotation.*;
+
+import to.etc.domui.server.*;
+import to.etc.domui.server.parts.*;
+import to.etc.domui.state.*;
+import to.etc.domui.util.*;
+import to.etc.util.*;
+
+/**
+ * Long poll for server push. A page with running asynchronous activities calls this instead of polling
+ * at a fixed interval; the request waits until something changes in the page's window (see
+ * {@link WindowSession#internalSignalPush()}) or until the wait time passes, and then tells the browser
+ * what to do next:
+ * <ul>
+ *	<li>update: something changed; poll for the changes now.</li>
+ *	<li>timeout: nothing changed; poll anyway, so that polled nodes, keepalive and the like still work.</li>
+ *	<li>superseded: a newer wait for the window was started; do nothing.</li>
+ *	<li>busy: too many waits are open, or push is disabled; poll at the normal poll interval.</li>
+ *	<li>expired: the window is gone; poll so that the normal page expiry handling runs.</li>
+ * </ul>
+ * The wait does not lock the session, so it does not block any other request for the session.
+ *
+ * Created on Oct 18, 2026
+ */
+@edu.umd.cs.findbugs.annotations.SuppressWarnings(value = "OS_OPEN_STREAM", justification = "Stream is closed by servlet code")
+public class PushWait implements IUnbufferedPartFactory {
+	@Override
+	public void generate(@Nonnull DomApplication app, @Nonnull String rurl, @Nonnull RequestContextImpl param) throws Exception {
+		String result = waitForPush(app, param);
+		Writer w = param.getRequestResponse().getOutputWriter("text/plain; charset=UTF-8", "utf-8");
+		w.write(result);
+	}
+
+	@Nonnull
+	private String waitForPush(@Nonnull DomApplication app, @Nonnull RequestContextImpl param) throws Exception {
+		String cid = param.getParameter(Constants.PARAM_CONVERSATION_ID);
+		if(null == cid)
+			return "expired";
+		WindowSession ws = param.internalGetUnlockedSession().internalFindWindowSession(CidPair.decode(cid).getWindowId());
+		if(null == ws)
+			return "expired";
+
+		int timeout = app.getPushTimeout();
+		int wait = StringTool.strToInt(param.getParameter("wait"), timeout);
+		if(wait > timeout)
+			wait = timeout;
+		if(!app.isPushEnabled() || wait <= 0 || !app.internalEnterPushWait())
+			return "busy";
+		try {
+			return ws.internalWaitForPush(wait).name().toLowerCase();
+		} catch(InterruptedException x) {
+			return "timeout";
+		} finally {
+			app.internalExitPushWait();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package to.etc.domui.parts;
+
+import java.io.*;
+import java.util.*;
+
+import javax.annotation.*;
+
+import to.etc.dbpool.info.*;
+import to.etc.domui.server.*;
+import to.etc.domui.server.parts.*;
+import to.etc.domui.trouble.*;
+import to.etc.util.*;
+
+/**
+ * Shows the request timings collected by the application's {@link RequestMetricsCollector}: for every page
+ * and action the request count, the p50, p95 and p99 of the whole request and of each {@link RequestPhase},
+ * and the average #of bytes allocated. Open it as to.etc.domui.parts.RequestMetricsPart.part; pass
+ * clear=true to clear the collected data. It is only available when a RequestMetricsCollector is set
+ * as the application's metrics sink, and it is not protected, so install the collector only where
+ * everyone that can reach the application may see this.
+ *
+ * Created on Oct 18, 2026
+ */
+@edu.umd.cs.findbugs.annotations.SuppressWarnings(value = "OS_OPEN_STREAM", justification = "Stream is closed by servlet code")
+public class RequestMetricsPart implements IUnbufferedPartFactory {
+	@Override
+	public void generate(@Nonnull DomApplication app, @Nonnull String rurl, @Nonnull RequestContextImpl param) throws Exception {
+		IRequestMetricsSink sink = app.getRequestMetricsSink();
+		if(!(sink instanceof RequestMetricsCollector))
+			throw new ThingyNotFoundException("Request metrics are not being collected");
+		RequestMetricsCollector collector = (RequestMetricsCollector) sink;
+		if("true".equals(param.getParameter("clear")))
+			collector.clear();
+
+		Writer w = param.getRequestResponse().getOutputWriter("text/html; charset=UTF-8", "utf-8");
+		w.write("<!DOCTYPE html>\n<html><head><title>DomUI request metrics</title>\n");
+		w.write("<style>body{font-family:sans-serif;font-size:12px} table{border-collapse:collapse} td,th{border:1px solid #ccc;padding:2px 4px;text-align:right} td.k{text-align:left}</style>\n");
+		w.write("</head><body>\n<h1>DomUI request metrics</h1>\n");
+		w.write("<p>Times are p50 / p95 / p99 per request. Allocation is the average #of bytes allocated by the request thread");
+		if(!RequestTimer.isAllocationMeasured())
+			w.write(", which cannot be measured on this JVM");
+		w.write(". At most " + collector.getMaxEntries() + " page/action combinations are kept. <a href=\"?clear=true\">Clear</a></p>\n");
+
+		w.write("<table>\n<tr><th>Page</th><th>Action</th><th>Count</th><th>Total</th>");
+		for(RequestPhase phase : RequestPhase.values())
+			w.write("<th>" + phase.name().toLowerCase() + "</th>");
+		w.write("<th>Allocated</th><th>Max allocated</th></tr>\n");
+
+		List<RequestMetricsCollector.Entry> list = collector.getEntries();
+		for(RequestMetricsCollector.Entry e : list) {
+			w.write("<tr><td class=\"k\">" + StringTool.htmlStringize(e.getPageName()) + "</td><td class=\"k\">" + StringTool.htmlStringize(e.getAction()) + "</td>");
+			w.write("<td>" + e.getTotal().getCount() + "</td>");
+			writePercentiles(w, e.getTotal());
+			for(RequestPhase phase : RequestPhase.values())
+				writePercentiles(w, e.getPhase(phase));
+			w.write("<td>" + StringTool.strSize(e.getAverageAllocated()) + "</td><td>" + StringTool.strSize(e.getMaxAllocated()) + "</td></tr>\n");
+		}
+		w.write("</table>\n</body></html>\n");
+	}
+
+	static private void writePercentiles(@Nonnull Writer w, @Nonnull LatencyHistogram h) throws IOException {
+		w.write("<td>" + StringTool.strNanoTime(h.getPercentile(50)) + " / " + StringTool.strNanoTime(h.getPercentile(95)) + " / " + StringTool.strNanoTime(h.getPercentile(99)) + "</td>");
+	}
+}
@@ -136,6 +136,7 @@ abstract public class AbstractContextMaker implements IContextMaker {
 
 			boolean handled = ctx.getApplication().callRequestHandler(ctx);
 			if(handled) {
+				ctx.getRequestTimer().enter(RequestPhase.FLUSH);
 				ctx.flush();
 			} else {
 				//-- Non-DomUI request.
@@ -157,6 +158,7 @@ abstract public class AbstractContextMaker implements IContextMaker {
 			} catch(Exception x) {
 				x.printStackTrace();
 			}
+			ctx.internalFinishRequestTimer();
 			UIContext.internalClear();
 		}
 	}
@@ -90,6 +90,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		ctx.getRequestResponse().addHeader("X-UA-Compatible", "IE=edge");	// 20110329 jal Force to highest supported mode for DomUI code.
 		ctx.getRequestResponse().addHeader("X-XSS-Protection", "0");		// 20130124 jal Disable IE XSS filter, to prevent the idiot thing from seeing the CID as a piece of script 8-(
 
+		ctx.internalStartRequestTimer();
 		handleMain(ctx);
 		ctx.getSession().dump();
 		return true;
@@ -132,16 +133,23 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 	}
 
 	private void tryRenderOopsFrame(@Nonnull final RequestContextImpl ctx, @Nonnull Throwable x) throws Exception {
+		//-- When part of the page was already streamed to the client the error page cannot replace it.
+		if(ctx.isOutputCommitted())
+			rethrow(x);
 		try {
 			renderOopsFrame(ctx, x);
 		} catch(Exception oopx) {
 			System.out.println("Exception while rendering exception page!!?? " + oopx);
 			oopx.printStackTrace();
-			if(x instanceof Error) {
-				throw (Error) x;
-			} else {
-				throw (Exception) x;
-			}
+			rethrow(x);
+		}
+	}
+
+	static private void rethrow(@Nonnull Throwable x) throws Exception {
+		if(x instanceof Error) {
+			throw (Error) x;
+		} else {
+			throw (Exception) x;
 		}
 	}
 
@@ -202,6 +210,8 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		 */
 		String action = ctx.getParameter(Constants.PARAM_UIACTION); 			// AJAX action request?
 		String cid = ctx.getParameter(Constants.PARAM_CONVERSATION_ID);
+		RequestTimer timer = ctx.getRequestTimer();
+		timer.setRequest(clz.getName(), action == null ? "(full)" : action);
 		CidPair cida = cid == null ? null : CidPair.decode(cid);
 
 		if(DomUtil.USERLOG.isDebugEnabled()) {
@@ -421,6 +431,8 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		/*
 		 * Handle all out-of-bound actions: those that do not manipulate UI state.
 		 */
+		if(action != null && (action.startsWith("#") || Constants.ACMD_PAGEDATA.equals(action) || Constants.ACMD_PAGEJSON.equals(action)))
+			timer.enter(RequestPhase.ACTION);
 		if(action != null && action.startsWith("#")) {
 			runComponentAction(ctx, page, action.substring(1));
 			return;
@@ -437,7 +449,9 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		List<NodeBase> pendingChangeList = Collections.EMPTY_LIST;
 		if(!Constants.ACMD_ASYPOLL.equals(action)) {
 			long ts = System.nanoTime();
+			timer.enter(RequestPhase.INPUT);
 			pendingChangeList = handleComponentInput(ctx, page); // Move all request parameters to their input field(s)
+			timer.enter(RequestPhase.SETUP);
 			if(LOG.isDebugEnabled()) {
 				ts = System.nanoTime() - ts;
 				LOG.debug("rq: input handling took " + StringTool.strNanoTime(ts));
@@ -456,6 +470,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		try {
 			if(DomUtil.USERLOG.isDebugEnabled())
 				DomUtil.USERLOG.debug(cid + ": Full render of page " + page);
+			timer.enter(RequestPhase.BUILD);
 
 			if(page.getBody() instanceof IRebuildOnRefresh) {                // Must fully refresh?
 				page.getBody().forceRebuild();                                // Cleanout state
@@ -537,9 +552,10 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 			} else {
 				w = ctx.getOutputWriter("text/html; charset=UTF-8", "utf-8");
 			}
-			IBrowserOutput out = new PrettyXmlOutputWriter(w);
+			IBrowserOutput out = m_application.createPageOutput(w);
 
 			HtmlFullRenderer hr = m_application.findRendererFor(ctx.getBrowserVersion(), out);
+			timer.enter(RequestPhase.RENDER);
 			hr.render(ctx, page);
 
 			//-- 20100408 jal If an UIGoto was done in createContent handle that
@@ -578,6 +594,10 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 			}
 			page.getBody().forceRebuild();
 
+			//-- If part of the page has already been streamed to the client we cannot replace it with another response.
+			if(ctx.isOutputCommitted())
+				throw x;
+
 			if(x instanceof NotLoggedInException) { // Better than repeating code in separate exception handlers.
 				String url = m_application.handleNotLoggedInException(ctx, page, (NotLoggedInException) x);
 				if(url != null) {
@@ -1072,6 +1092,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 	private void runAction(final RequestContextImpl ctx, final Page page, final String action, List<NodeBase> pendingChangeList) throws Exception {
 		//		System.out.println("# action="+action);
 		long ts = System.nanoTime();
+		ctx.getRequestTimer().enter(RequestPhase.ACTION);
 
 		m_application.internalCallPageAction(ctx, page);
 		page.callRequestStarted();
@@ -1198,11 +1219,12 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 			return;
 
 		//-- Call the 'new page added' listeners for this page, if it is now unbuilt due to some action calling forceRebuild() on it. Fixes bug# 605
+		ctx.getRequestTimer().enter(RequestPhase.BUILD);
 		callNewPageBuiltListeners(page);
 
 		//-- We stay on the same page. Render tree delta as response
 		try {
-			renderOptimalDelta(ctx, page, inhibitlog);
+			renderOptimalDelta(ctx, page, inhibitlog, m_application.getDeltaFormat());
 		} catch(NotLoggedInException x) { 						// FIXME Fugly. Generalize this kind of exception handling somewhere.
 			String url = m_application.handleNotLoggedInException(ctx, page, x);
 			if(url != null) {
@@ -1247,22 +1269,31 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		page.getBody().add(0, ipt);
 	}
 
+	/**
+	 * Render a delta for a page outside of the normal action flow. This always uses an XML
+	 * format, because these deltas can also be handled by an iframe (uploads).
+	 */
 	static public void renderOptimalDelta(final RequestContextImpl ctx, final Page page) throws Exception {
-		renderOptimalDelta(ctx, page, false);
+		DeltaFormat format = ctx.getApplication().getDeltaFormat();
+		if(format == DeltaFormat.JSON)
+			format = DeltaFormat.XML;
+		renderOptimalDelta(ctx, page, false, format);
 	}
 
-	static private void renderOptimalDelta(final RequestContextImpl ctx, final Page page, boolean inhibitlog) throws Exception {
+	static private void renderOptimalDelta(final RequestContextImpl ctx, final Page page, boolean inhibitlog, @Nonnull DeltaFormat format) throws Exception {
 		// ORDERED
 		//-- 20100519 jal Force full rebuild before rendering, always. See bug 688.
+		ctx.getRequestTimer().enter(RequestPhase.BUILD);
 		page.getBody().internalOnBeforeRender();
 		page.internalDeltaBuild();
 		ctx.getApplication().internalCallPageComplete(ctx, page);
 		page.internalDeltaBuild();
 		// /ORDERED
 
-		IBrowserOutput out = new PrettyXmlOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
+		IBrowserOutput out = format.createOutput(ctx.getOutputWriter(format.getContentType(), "utf-8"));
 
 		long ts = System.nanoTime();
+		ctx.getRequestTimer().enter(RequestPhase.RENDER);
 		//		String	usag = ctx.getUserAgent();
 		HtmlFullRenderer fullr = ctx.getApplication().findRendererFor(ctx.getBrowserVersion(), out);
 		OptimalDeltaRenderer dr = new OptimalDeltaRenderer(fullr, ctx, page);
@@ -1329,6 +1360,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 	 */
 	private void renderOopsFrame(@Nonnull RequestContextImpl ctx, @Nonnull Throwable x) throws Exception {
 		x.printStackTrace();
+		ctx.discard();											// Drop whatever partial output was buffered
 		if(ctx.getRequestResponse() instanceof HttpServerRequestResponse) {
 			HttpServerRequestResponse srr = (HttpServerRequestResponse) ctx.getRequestResponse();
 			HttpServletResponse resp = srr.getResponse();
@@ -62,6 +62,7 @@ import javax.servlet.http.*;
 import java.io.*;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 /**
  *
@@ -120,6 +121,16 @@ public abstract class DomApplication {
 
 	private final boolean m_logOutput = DeveloperOptions.getBool("domui.log", false);
 
+	/** The format for deltas sent to the browser; when null this depends on development mode. */
+	@Nullable
+	private DeltaFormat m_deltaFormat;
+
+	/** When &gt; 0, the #of bytes of page or delta output after which the output is streamed to the client. */
+	private int m_outputSpillThreshold = DeveloperOptions.getInt("domui.outputspill", 0);
+
+	/** When &gt; 0, the minimal #of bytes of page or delta output for it to be sent compressed. */
+	private int m_compressionThreshold = DeveloperOptions.getInt("domui.compress", 2048);
+
 	@Nonnull
 	private List<IRequestInterceptor> m_interceptorList = new ArrayList<IRequestInterceptor>();
 
@@ -135,6 +146,43 @@ public abstract class DomApplication {
 	/** Timeout for a window session, in minutes. */
 	private int m_windowSessionTimeout = 15;
 
+	/** When &gt; 0, the #of minutes after which an unused shelved page is passivated. */
+	private volatile int m_shelvePassivationTime = DeveloperOptions.getInt("domui.passivation.time", 0);
+
+	/** When &gt; 0, the max #of shelved pages per window that keep their page tree in memory. */
+	private volatile int m_maxResidentShelvedPages = DeveloperOptions.getInt("domui.passivation.resident", 0);
+
+	/** When &gt; 0, the heap usage percentage above which all shelved pages are passivated. */
+	private volatile int m_shelvePassivationMemoryThreshold = DeveloperOptions.getInt("domui.passivation.memory", 0);
+
+	/** When T, pages with asynchronous activities wait for a server push instead of polling at a fixed interval. */
+	private volatile boolean m_pushEnabled = DeveloperOptions.getBool("domui.push", false);
+
+	/** The max #of milliseconds that the server holds a browser's push wait open. */
+	private volatile int m_pushTimeout = DeveloperOptions.getInt("domui.push.timeout", 25000);
+
+	/** The max #of push waits that are held open at the same time. */
+	private volatile int m_maxPushWaiters = DeveloperOptions.getInt("domui.push.waiters", 100);
+
+	/** The #of push waits currently held open. */
+	final private AtomicInteger m_pushWaiterCount = new AtomicInteger();
+
+	/** The max #of asynchronous activities that run at the same time, over all sessions. */
+	private int m_maxActivityThreads = DeveloperOptions.getInt("domui.async.threads", 16);
+
+	/** The max #of asynchronous activities that run at the same time for a single session. */
+	private int m_maxSessionActivities = DeveloperOptions.getInt("domui.async.session", 2);
+
+	/** When T, asynchronous activities run on virtual threads if the JVM has them. */
+	private boolean m_activityVirtualThreads = DeveloperOptions.getBool("domui.async.virtual", false);
+
+	@Nullable
+	private DelayedActivityScheduler m_activityScheduler;
+
+	/** When set, this receives the per-phase timings of all page requests. */
+	@Nullable
+	private volatile IRequestMetricsSink m_requestMetricsSink = DeveloperOptions.getBool("domui.requestmetrics", false) ? new RequestMetricsCollector() : null;
+
 	/** The default expiry time for resources, in seconds. */
 	private int m_defaultExpiryTime = 1 * 24 * 60 * 60;
 
@@ -450,6 +498,13 @@ public abstract class DomApplication {
 		} catch(Throwable x) {
 			AppFilter.LOG.error("Exception when destroying Application", x);
 		}
+		DelayedActivityScheduler scheduler;
+		synchronized(this) {
+			scheduler = m_activityScheduler;
+			m_activityScheduler = null;
+		}
+		if(null != scheduler)
+			scheduler.shutdown();
 	}
 
 	/**
@@ -714,6 +769,213 @@ public abstract class DomApplication {
 		m_windowSessionTimeout = windowSessionTimeout;
 	}
 
+	/**
+	 * The #of minutes after which a shelved page that has not been the current page is passivated: its
+	 * page tree is discarded, and it is rebuilt from its class and parameters when the user returns to it.
+	 * 0 (the default) disables this.
+	 * @return
+	 */
+	public int getShelvePassivationTime() {
+		return m_shelvePassivationTime;
+	}
+
+	public void setShelvePassivationTime(int minutes) {
+		m_shelvePassivationTime = minutes;
+	}
+
+	/**
+	 * The maximal #of shelved pages per window (not counting the current page) that keep their page tree
+	 * in memory; when more are present the lowest ones on the shelve stack are passivated. 0 (the default)
+	 * means no limit.
+	 * @return
+	 */
+	public int getMaxResidentShelvedPages() {
+		return m_maxResidentShelvedPages;
+	}
+
+	public void setMaxResidentShelvedPages(int count) {
+		m_maxResidentShelvedPages = count;
+	}
+
+	/**
+	 * The percentage of the heap that, when still in use after garbage collection, causes all shelved pages
+	 * to be passivated at the end of the next request in their window. 0 (the default) disables this.
+	 * @return
+	 */
+	public int getShelvePassivationMemoryThreshold() {
+		return m_shelvePassivationMemoryThreshold;
+	}
+
+	public void setShelvePassivationMemoryThreshold(int percentage) {
+		m_shelvePassivationMemoryThreshold = percentage;
+	}
+
+	/**
+	 * When T, a page that has asynchronous activities running does not poll the server at a fixed interval,
+	 * but waits for the server to signal that something has changed (long polling, see
+	 * {@link to.etc.domui.parts.PushWait}). Every waiting browser holds a request thread, so this is off
+	 * by default; enable it with domui.push=true when the container has the threads to spare. When F, or
+	 * when the push wait fails, pages poll at the default poll interval.
+	 * @return
+	 */
+	public boolean isPushEnabled() {
+		return m_pushEnabled;
+	}
+
+	public void setPushEnabled(boolean pushEnabled) {
+		m_pushEnabled = pushEnabled;
+	}
+
+	/**
+	 * The max #of milliseconds that the server keeps a browser's push wait open when nothing changes; the
+	 * browser polls once after it, and then waits again. Each open wait uses a request thread, and it must
+	 * stay below the idle timeout of any proxy between browser and server. Defaults to 25 seconds.
+	 * @return
+	 */
+	public int getPushTimeout() {
+		return m_pushTimeout;
+	}
+
+	public void setPushTimeout(int pushTimeout) {
+		m_pushTimeout = pushTimeout;
+	}
+
+	/**
+	 * The max #of push waits that are kept open at the same time, so that waiting browsers cannot use up all
+	 * request threads. Browsers whose wait does not fit poll at the default poll interval. Defaults to 100.
+	 * @return
+	 */
+	public int getMaxPushWaiters() {
+		return m_maxPushWaiters;
+	}
+
+	public void setMaxPushWaiters(int maxPushWaiters) {
+		m_maxPushWaiters = maxPushWaiters;
+	}
+
+	/**
+	 * The #of push waits that are currently open.
+	 */
+	public int getPushWaiterCount() {
+		return m_pushWaiterCount.get();
+	}
+
+	/**
+	 * Claims a place for a push wait. Returns F if the max #of waiters is reached; when T is returned the
+	 * caller must call {@link #internalExitPushWait()} when its wait ends.
+	 */
+	public boolean internalEnterPushWait() {
+		for(;;) {
+			int count = m_pushWaiterCount.get();
+			if(count >= m_maxPushWaiters)
+				return false;
+			if(m_pushWaiterCount.compareAndSet(count, count + 1))
+				return true;
+		}
+	}
+
+	public void internalExitPushWait() {
+		m_pushWaiterCount.decrementAndGet();
+	}
+
+	/**
+	 * The scheduler that runs the asynchronous activities of all conversations, see {@link DelayedActivitiesManager}.
+	 * It is created on first use, with the settings below.
+	 * @return
+	 */
+	@Nonnull
+	public synchronized DelayedActivityScheduler getActivityScheduler() {
+		DelayedActivityScheduler scheduler = m_activityScheduler;
+		if(null == scheduler)
+			m_activityScheduler = scheduler = new DelayedActivityScheduler(m_maxActivityThreads, m_maxSessionActivities, m_activityVirtualThreads);
+		return scheduler;
+	}
+
+	/**
+	 * The max #of asynchronous activities that run at the same time, over all sessions; more activities
+	 * wait in the scheduler's queue. Defaults to 16.
+	 * @return
+	 */
+	public synchronized int getMaxActivityThreads() {
+		return m_maxActivityThreads;
+	}
+
+	public void setMaxActivityThreads(int count) {
+		DelayedActivityScheduler scheduler;
+		synchronized(this) {
+			m_maxActivityThreads = count;
+			scheduler = m_activityScheduler;
+		}
+		if(null != scheduler)
+			scheduler.setMaxThreads(count);
+	}
+
+	/**
+	 * The max #of asynchronous activities that run at the same time for a single session. Defaults to 2.
+	 * @return
+	 */
+	public synchronized int getMaxSessionActivities() {
+		return m_maxSessionActivities;
+	}
+
+	public void setMaxSessionActivities(int count) {
+		DelayedActivityScheduler scheduler;
+		synchronized(this) {
+			m_maxSessionActivities = count;
+			scheduler = m_activityScheduler;
+		}
+		if(null != scheduler)
+			scheduler.setMaxPerSession(count);
+	}
+
+	/**
+	 * When T, asynchronous activities run on virtual threads when the JVM supports them (Java 21 and later).
+	 * This must be set before the first activity is scheduled. Defaults to F.
+	 * @return
+	 */
+	public synchronized boolean isActivityVirtualThreads() {
+		return m_activityVirtualThreads;
+	}
+
+	public synchronized void setActivityVirtualThreads(boolean virtual) {
+		if(m_activityScheduler != null)
+			throw new IllegalStateException("The activity scheduler is already running");
+		m_activityVirtualThreads = virtual;
+	}
+
+	/**
+	 * When set, every page request is timed per {@link RequestPhase}, and the timings are passed to this sink.
+	 * Use a {@link RequestMetricsCollector} to collect them in histograms that can be viewed with
+	 * {@link to.etc.domui.parts.RequestMetricsPart}. Defaults to null (no timing), unless the developer
+	 * option domui.requestmetrics is true, in which case a RequestMetricsCollector is used.
+	 * @return
+	 */
+	@Nullable
+	public IRequestMetricsSink getRequestMetricsSink() {
+		return m_requestMetricsSink;
+	}
+
+	public void setRequestMetricsSink(@Nullable IRequestMetricsSink sink) {
+		m_requestMetricsSink = sink;
+	}
+
+	/**
+	 * Calculates the #of milliseconds that the browser can wait for a server push before it polls anyway,
+	 * for a page in the specified conversation that would poll at the specified interval. Returns 0 when
+	 * the page should just poll at the interval.
+	 */
+	public int calculatePushWait(@Nonnull ConversationContext cc, int pollinterval) {
+		int wait = m_pushTimeout;
+		if(!m_pushEnabled || wait <= 0 || pollinterval <= 0 || !cc.isPollCallbackRequired())
+			return 0;
+		if(cc.hasPollers())										// Polled nodes must still be called every interval
+			return pollinterval;
+		int other = calculatePollInterval(false);				// Keepalive and auto refresh polls are still needed.
+		if(other > 0 && other < wait)
+			wait = other;
+		return wait;
+	}
+
 	/**
 	 * Returns the default browser cache resource expiry time in seconds. When
 	 * running in production mode all "static" resources are sent to the browser
@@ -733,6 +995,77 @@ public abstract class DomApplication {
 		m_defaultExpiryTime = defaultExpiryTime;
 	}
 
+	/**
+	 * Returns the wire format for page deltas. Unless set explicitly this is indented XML
+	 * in development mode, and unindented XML in production.
+	 * @return
+	 */
+	@Nonnull
+	public synchronized DeltaFormat getDeltaFormat() {
+		DeltaFormat format = m_deltaFormat;
+		if(null != format)
+			return format;
+		return m_developmentMode ? DeltaFormat.PRETTY_XML : DeltaFormat.XML;
+	}
+
+	/**
+	 * Set the wire format for page deltas; null resets to the default for the mode.
+	 * @param deltaFormat
+	 */
+	public synchronized void setDeltaFormat(@Nullable DeltaFormat deltaFormat) {
+		m_deltaFormat = deltaFormat;
+	}
+
+	/**
+	 * Create the output encoder for a full page render. This uses indented output only when
+	 * deltas are indented too, so that the whitespace between nodes stays the same
+	 * in the page and its deltas.
+	 */
+	@Nonnull
+	public IBrowserOutput createPageOutput(@Nonnull Writer w) {
+		return getDeltaFormat() == DeltaFormat.PRETTY_XML ? new PrettyXmlOutputWriter(w) : new FastXmlOutputWriter(w);
+	}
+
+	/**
+	 * Returns the #of bytes of page or delta output that is buffered before the output is streamed
+	 * to the client. Output that is still buffered can be discarded when rendering fails, so that
+	 * an error response can be sent instead; once streaming has started that is no longer possible.
+	 * A value of 0 (the default) means that all output is buffered until the request completes.
+	 * @return
+	 */
+	public synchronized int getOutputSpillThreshold() {
+		return m_outputSpillThreshold;
+	}
+
+	/**
+	 * Set the output size in bytes after which page and delta output is streamed to the client, or 0 to
+	 * always buffer all output. See {@link #getOutputSpillThreshold()}.
+	 * @param outputSpillThreshold
+	 */
+	public synchronized void setOutputSpillThreshold(int outputSpillThreshold) {
+		m_outputSpillThreshold = outputSpillThreshold;
+	}
+
+	/**
+	 * Returns the minimal size, in bytes, of page or delta output for it to be sent gzip or deflate compressed
+	 * to browsers that accept that. Small responses are sent as-is because compressing them gains little
+	 * and costs CPU time. A value of 0 disables compression of page output. Buffered parts are not controlled
+	 * by this: they are compressed once when they are cached.
+	 * @return
+	 */
+	public synchronized int getCompressionThreshold() {
+		return m_compressionThreshold;
+	}
+
+	/**
+	 * Set the output size in bytes above which page and delta output is compressed, or 0 to never
+	 * compress. See {@link #getCompressionThreshold()}.
+	 * @param compressionThreshold
+	 */
+	public synchronized void setCompressionThreshold(int compressionThreshold) {
+		m_compressionThreshold = compressionThreshold;
+	}
+
 	/**
 	 * This returns the locale to use for the request passed. It defaults to the locale
 	 * in the request itself, as returned by {@link HttpServletRequest#getLocale()}. You
@@ -7,6 +7,7 @@ import to.etc.webapp.core.*;
 import javax.annotation.*;
 import javax.servlet.http.*;
 import java.io.*;
+import java.util.zip.*;
 
 public class HttpServerRequestResponse implements IRequestResponse {
 	@Nonnull
@@ -107,6 +108,21 @@ public class HttpServerRequestResponse implements IRequestResponse {
 		return m_request.getHeader("user-agent");
 	}
 
+	@Override
+	@Nullable
+	public String getRequestHeader(@Nonnull String name) {
+		return m_request.getHeader(name);
+	}
+
+	@Override
+	public long getRequestDateHeader(@Nonnull String name) {
+		try {
+			return m_request.getDateHeader(name);
+		} catch(IllegalArgumentException x) {
+			return -1;
+		}
+	}
+
 	@Override
 	@Nonnull
 	public String getApplicationURL() {
@@ -202,6 +218,64 @@ public class HttpServerRequestResponse implements IRequestResponse {
 		return getResponse().getOutputStream();
 	}
 
+	/**
+	 * Checks the Accept-Encoding header for the encoding. An encoding is accepted when it is listed
+	 * (or when "*" is listed) without a quality value of 0.
+	 */
+	@Override
+	public boolean acceptsContentEncoding(@Nonnull String contentEncoding) {
+		String hdr = getRequest().getHeader("Accept-Encoding");
+		if(null == hdr)
+			return false;
+		boolean wildcard = false;
+		for(String item : hdr.split(",")) {
+			String name = item;
+			boolean accepted = true;
+			int pos = item.indexOf(';');
+			if(pos >= 0) {
+				name = item.substring(0, pos);
+				String q = item.substring(pos + 1).trim();
+				if(q.startsWith("q=")) {
+					try {
+						accepted = Double.parseDouble(q.substring(2).trim()) > 0.0;
+					} catch(NumberFormatException x) {
+						accepted = false;
+					}
+				}
+			}
+			name = name.trim();
+			if(name.equalsIgnoreCase(contentEncoding))
+				return accepted;
+			if(name.equals("*"))
+				wildcard = accepted;
+		}
+		return wildcard;
+	}
+
+	@Override
+	@Nonnull
+	public OutputStream getCompressedOutputStream(@Nonnull String contentType, @Nullable String encoding) throws Exception {
+		String contentEncoding = acceptsContentEncoding("gzip") ? "gzip" : acceptsContentEncoding("deflate") ? "deflate" : null;
+		getResponse().addHeader("Vary", "Accept-Encoding");
+		if(null == contentEncoding)
+			return getOutputStream(contentType, encoding, -1);
+
+		getResponse().setHeader("Content-Encoding", contentEncoding);
+		OutputStream os = getOutputStream(contentType, encoding, -1);
+		if("gzip".equals(contentEncoding))
+			return new GZIPOutputStream(os, 8192);
+		return new DeflaterOutputStream(os, new Deflater(Deflater.DEFAULT_COMPRESSION), 8192) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					def.end();								// We own the Deflater, so DeflaterOutputStream does not end it
+				}
+			}
+		};
+	}
+
 	/**
 	 * Send a redirect response to the client.
 	 * @param newUrl
@@ -221,6 +295,16 @@ public class HttpServerRequestResponse implements IRequestResponse {
 		getResponse().addHeader(name, value);
 	}
 
+	@Override
+	public void addDateHeader(@Nonnull String name, long time) {
+		getResponse().addDateHeader(name, time);
+	}
+
+	@Override
+	public void setStatus(int httpStatus) {
+		getResponse().setStatus(httpStatus);
+	}
+
 
 	@Override
 	public void addCookie(@Nonnull Cookie cookie) {
@@ -0,0 +1,15 @@
+package to.etc.domui.server;
+
+import javax.annotation.*;
+
+/**
+ * Receives the per-phase timings of every DomUI page request, when set with
+ * {@link DomApplication#setRequestMetricsSink(IRequestMetricsSink)}. This is called on the
+ * request thread after the response has been sent, so it must be fast and threadsafe.
+ * See {@link RequestMetricsCollector} for the built-in implementation.
+ *
+ * Created on Oct 18, 2026
+ */
+public interface IRequestMetricsSink {
+	void requestCompleted(@Nonnull RequestTimer timer) throws Exception;
+}
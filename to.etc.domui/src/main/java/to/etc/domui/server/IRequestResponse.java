@@ -33,6 +33,22 @@ public interface IRequestResponse {
 	@Nonnull
 	public String getUserAgent();
 
+	/**
+	 * Return the value of a request header, or null if the request does not have it.
+	 * @param name
+	 * @return
+	 */
+	@Nullable
+	public String getRequestHeader(@Nonnull String name);
+
+	/**
+	 * Return the value of a date request header (like If-Modified-Since) as a timestamp, or -1 if the
+	 * header is not present or invalid.
+	 * @param name
+	 * @return
+	 */
+	public long getRequestDateHeader(@Nonnull String name);
+
 	/**
 	 * The "remote" user ID from a server request, if present. This does <b>not</b> need to represent the
 	 * real logged-in user; it will however be filled if JSDK declarative security is used. This field is
@@ -84,12 +100,37 @@ public interface IRequestResponse {
 
 	public void addHeader(@Nonnull String name, @Nonnull String value);
 
+	public void addDateHeader(@Nonnull String name, long time);
+
+	/**
+	 * Set the HTTP status code for a response without content, like 304 Not Modified.
+	 * @param httpStatus
+	 */
+	public void setStatus(int httpStatus);
+
 	@Nonnull
 	public Writer getOutputWriter(@Nonnull String contentType, @Nullable String encoding) throws Exception;
 
 	@Nonnull
 	public OutputStream getOutputStream(@Nonnull String contentType, @Nullable String encoding, int contentLength) throws Exception;
 
+	/**
+	 * T if the client accepts responses with the specified content encoding ("gzip" or "deflate"), as
+	 * indicated by the Accept-Encoding header of the request.
+	 * @param contentEncoding
+	 * @return
+	 */
+	public boolean acceptsContentEncoding(@Nonnull String contentEncoding);
+
+	/**
+	 * Return an output stream that compresses everything written to it, using the best content encoding
+	 * accepted by the client; the Content-Encoding header is set accordingly. If the client accepts
+	 * no compression this returns the normal output stream. When the result is a {@link java.util.zip.DeflaterOutputStream}
+	 * it must be closed to complete the response and to free its native Deflater.
+	 */
+	@Nonnull
+	public OutputStream getCompressedOutputStream(@Nonnull String contentType, @Nullable String encoding) throws Exception;
+
 	/**
 	 * Returns the webapp context as either an empty string for the ROOT context or a string starting without a slash and always ending
 	 * in one, like "viewpoint/".
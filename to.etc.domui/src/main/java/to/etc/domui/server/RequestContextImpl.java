@@ -48,6 +48,10 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 
 	private StringWriter m_sw;
 
+	/** When not null, the pooled UTF-8 buffer that all output for this request is written to. */
+	@Nullable
+	private SpillingOutputWriter m_spillWriter;
+
 	private Writer m_outWriter;
 
 	private BrowserVersion m_browserVersion;
@@ -104,6 +108,9 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 
 	private Exception m_outputAllocated;
 
+	@Nonnull
+	private RequestTimer m_requestTimer = RequestTimer.DISABLED;
+
 	/**
 	 * Get the session for this context.
 	 * @see to.etc.domui.server.IRequestContext#getSession()
@@ -117,6 +124,15 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 		return m_session;
 	}
 
+	/**
+	 * Get the session for this context without locking it. This is only for requests that must neither
+	 * wait for nor block the requests that use the session; they may only use its thread-safe parts.
+	 */
+	@Nonnull
+	public AppSession internalGetUnlockedSession() {
+		return m_session;
+	}
+
 	@Override
 	@Nonnull
 	public IRequestResponse getRequestResponse() {
@@ -187,6 +203,30 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 		internalUnlockSession(); // Unlock any session access.
 	}
 
+	/**
+	 * Start measuring the phases of this request when the application has an {@link IRequestMetricsSink}.
+	 */
+	public void internalStartRequestTimer() {
+		IRequestMetricsSink sink = m_application.getRequestMetricsSink();
+		if(null != sink && !m_requestTimer.isEnabled())
+			m_requestTimer = new RequestTimer(sink);
+	}
+
+	/**
+	 * The timer for the phases of this request; {@link RequestTimer#DISABLED} if the request is not measured.
+	 */
+	@Nonnull
+	public RequestTimer getRequestTimer() {
+		return m_requestTimer;
+	}
+
+	/**
+	 * Called when the request is done, to report the request's timings to the sink.
+	 */
+	public void internalFinishRequestTimer() {
+		m_requestTimer.finish();
+	}
+
 
 	/**
 	 * @see to.etc.domui.server.IRequestContext#getExtension()
@@ -223,6 +263,13 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	}
 
 	public void flush() throws Exception {
+		SpillingOutputWriter spw = m_spillWriter;
+		if(null != spw) {
+			m_spillWriter = null;
+			spw.commit();
+			return;
+		}
+
 		if(m_sw != null) {
 			if(getApplication().logOutput()) {
 				String res = m_sw.getBuffer().toString();
@@ -244,15 +291,25 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 		}
 	}
 
-
+	/**
+	 * Called at the end of every request: this releases the pooled output buffers if the
+	 * output was not flushed, for instance because the request failed.
+	 */
 	public void discard() throws IOException {
-	//		if(m_sw != null) {
-	//			String res = m_sw.getBuffer().toString();
-	//			System.out.println("---- rendered output:");
-	//			System.out.println(res);
-	//			System.out.println("---- end");
-	//			getResponse().getWriter().append(res);
-	//		}
+		SpillingOutputWriter spw = m_spillWriter;
+		if(null != spw) {
+			m_spillWriter = null;
+			spw.discard();
+		}
+	}
+
+	/**
+	 * T if part of the output has already been sent to the client, so that it can no longer be
+	 * replaced by another response.
+	 */
+	public boolean isOutputCommitted() {
+		SpillingOutputWriter spw = m_spillWriter;
+		return spw != null && spw.isCommitted();
 	}
 
 	/**
@@ -275,13 +332,33 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	//}
 	//
 	/**
-	 * This returns a fully buffered output writer. Calling it twice is explicitly
+	 * This returns a buffered output writer. Calling it twice is explicitly
 	 * allowed, but clears the data written before as it's assumed that another route
 	 * to output will be chosen.
+	 * <p>For utf-8 output the data is encoded into pooled byte buffers, and if the application
+	 * has a spill threshold (see {@link DomApplication#getOutputSpillThreshold()}) the output
+	 * is streamed to the client as soon as it grows past that threshold. Once that has happened
+	 * the output can no longer be discarded, and calling this again throws an exception.</p>
 	 */
 	@Override
 	@Nonnull
 	public Writer getOutputWriter(@Nonnull String contentType, @Nullable String encoding) throws IOException {
+		SpillingOutputWriter spw = m_spillWriter;
+		if(null != spw) {
+			if(spw.size() > PAGE_HEADER_BUFFER_LENGTH) {
+				System.out.println("domui warning: outputwriter reallocated after writing " + spw.size() + " bytes of data already");
+			}
+			spw.reset(contentType, encoding);
+			m_outputContentType = contentType;
+			m_outputEncoding = encoding;
+			if("utf-8".equalsIgnoreCase(encoding)) {
+				m_outWriter = spw;
+				return spw;
+			}
+			spw.discard();
+			m_spillWriter = null;
+		}
+
 		StringWriter sw = m_sw;
 		if(null != sw) {
 			if(sw.getBuffer().length() > PAGE_HEADER_BUFFER_LENGTH) {
@@ -291,6 +368,16 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 
 		m_outputContentType = contentType;
 		m_outputEncoding = encoding;
+
+		//-- Use the pooled utf-8 buffer unless we need to log the output.
+		if("utf-8".equalsIgnoreCase(encoding) && !getApplication().logOutput()) {
+			m_sw = null;
+			spw = m_spillWriter = new SpillingOutputWriter(m_requestResponse, getApplication().getOutputSpillThreshold(), getApplication().getCompressionThreshold());
+			spw.reset(contentType, encoding);
+			m_outWriter = spw;
+			return spw;
+		}
+
 		m_sw = new StringWriter(8192);
 		m_outWriter = m_sw;
 		return m_outWriter;
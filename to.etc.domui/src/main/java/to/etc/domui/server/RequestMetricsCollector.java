@@ -0,0 +1,185 @@
+package to.etc.domui.server;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import to.etc.dbpool.info.*;
+
+/**
+ * The built-in {@link IRequestMetricsSink}: it keeps a latency histogram per {@link RequestPhase}, plus one
+ * for the whole request, and the allocated bytes per phase, for every page class and action. The
+ * #of page/action combinations is limited; requests for new combinations past the limit are counted
+ * under "(other)". The collected data can be seen with {@link to.etc.domui.parts.RequestMetricsPart}.
+ *
+ * Created on Oct 18, 2026
+ */
+final public class RequestMetricsCollector implements IRequestMetricsSink {
+	static public final String OTHER = "(other)";
+
+	static private final RequestPhase[] PHASES = RequestPhase.values();
+
+	/**
+	 * The statistics for one page and action. All access is synchronized on the entry itself.
+	 */
+	static public final class Entry {
+		@Nonnull
+		final private String m_pageName;
+
+		@Nonnull
+		final private String m_action;
+
+		final private LatencyHistogram m_total = new LatencyHistogram();
+
+		final private LatencyHistogram[] m_phases = new LatencyHistogram[PHASES.length];
+
+		final private long[] m_allocated = new long[PHASES.length];
+
+		private long m_maxAllocated;
+
+		Entry(@Nonnull String pageName, @Nonnull String action) {
+			m_pageName = pageName;
+			m_action = action;
+			for(int i = 0; i < m_phases.length; i++)
+				m_phases[i] = new LatencyHistogram();
+		}
+
+		Entry(@Nonnull Entry o) {
+			m_pageName = o.m_pageName;
+			m_action = o.m_action;
+			m_total.merge(o.m_total);
+			for(int i = 0; i < m_phases.length; i++)
+				m_phases[i] = new LatencyHistogram(o.m_phases[i]);
+			System.arraycopy(o.m_allocated, 0, m_allocated, 0, m_allocated.length);
+			m_maxAllocated = o.m_maxAllocated;
+		}
+
+		synchronized void add(@Nonnull RequestTimer t) {
+			m_total.record(t.getTotalDuration());
+			for(int i = 0; i < PHASES.length; i++) {
+				RequestPhase phase = PHASES[i];
+				m_phases[i].record(t.getDuration(phase));
+				long bytes = t.getAllocatedBytes(phase);
+				if(bytes > 0)
+					m_allocated[i] += bytes;
+			}
+			long bytes = t.getTotalAllocatedBytes();
+			if(bytes > m_maxAllocated)
+				m_maxAllocated = bytes;
+		}
+
+		@Nonnull
+		public String getPageName() {
+			return m_pageName;
+		}
+
+		@Nonnull
+		public String getAction() {
+			return m_action;
+		}
+
+		@Nonnull
+		public LatencyHistogram getTotal() {
+			return m_total;
+		}
+
+		@Nonnull
+		public LatencyHistogram getPhase(@Nonnull RequestPhase phase) {
+			return m_phases[phase.ordinal()];
+		}
+
+		/**
+		 * The average #of bytes allocated per request in the phase.
+		 */
+		public long getAverageAllocated(@Nonnull RequestPhase phase) {
+			long count = m_total.getCount();
+			return count == 0 ? 0 : m_allocated[phase.ordinal()] / count;
+		}
+
+		public long getAverageAllocated() {
+			long count = m_total.getCount();
+			if(count == 0)
+				return 0;
+			long total = 0;
+			for(long l : m_allocated)
+				total += l;
+			return total / count;
+		}
+
+		public long getMaxAllocated() {
+			return m_maxAllocated;
+		}
+	}
+
+	final private int m_maxEntries;
+
+	final private ConcurrentHashMap<String, Entry> m_map = new ConcurrentHashMap<String, Entry>();
+
+	@Nonnull
+	private volatile Entry m_other = new Entry(OTHER, OTHER);
+
+	public RequestMetricsCollector() {
+		this(250);
+	}
+
+	/**
+	 * Create a collector that keeps at most maxEntries page/action combinations. Each of them uses
+	 * about {@link LatencyHistogram#BUCKETS} * 8 bytes per phase.
+	 */
+	public RequestMetricsCollector(int maxEntries) {
+		m_maxEntries = maxEntries;
+	}
+
+	@Override
+	public void requestCompleted(@Nonnull RequestTimer timer) throws Exception {
+		String key = timer.getPageName() + "\t" + timer.getAction();
+		Entry e = m_map.get(key);
+		if(null == e) {
+			if(m_map.size() >= m_maxEntries) {
+				e = m_other;
+			} else {
+				Entry ne = new Entry(timer.getPageName(), timer.getAction());
+				e = m_map.putIfAbsent(key, ne);
+				if(null == e)
+					e = ne;
+			}
+		}
+		e.add(timer);
+	}
+
+	/**
+	 * Return a copy of all entries, ordered by page name and action, with the "(other)" entry last if it has data.
+	 */
+	@Nonnull
+	public List<Entry> getEntries() {
+		List<Entry> res = new ArrayList<Entry>();
+		for(Entry e : m_map.values()) {
+			synchronized(e) {
+				res.add(new Entry(e));
+			}
+		}
+		Collections.sort(res, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b) {
+				int cmp = a.getPageName().compareTo(b.getPageName());
+				return cmp != 0 ? cmp : a.getAction().compareTo(b.getAction());
+			}
+		});
+		Entry other = m_other;
+		synchronized(other) {
+			if(other.getTotal().getCount() > 0)
+				res.add(new Entry(other));
+		}
+		return res;
+	}
+
+	public void clear() {
+		m_map.clear();
+		m_other = new Entry(OTHER, OTHER);
+	}
+
+	public int getMaxEntries() {
+		return m_maxEntries;
+	}
+}
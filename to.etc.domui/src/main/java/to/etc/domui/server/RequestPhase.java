@@ -0,0 +1,26 @@
+package to.etc.domui.server;
+
+/**
+ * The phases of a DomUI page request that are timed by {@link RequestTimer}.
+ *
+ * Created on Oct 18, 2026
+ */
+public enum RequestPhase {
+	/** Everything not in another phase: decoding the request, finding the window, conversation and page, rights checks. */
+	SETUP,
+
+	/** Moving request parameters into the page's input components. */
+	INPUT,
+
+	/** Calling the value changed handlers and the action handler for the clicked or changed node. */
+	ACTION,
+
+	/** Building the page: createContent, page listeners and the delta build before rendering. */
+	BUILD,
+
+	/** Rendering the full page or the delta. */
+	RENDER,
+
+	/** Sending the rendered output to the client. */
+	FLUSH
+}
@@ -0,0 +1,206 @@
+package to.etc.domui.server;
+
+import java.lang.management.*;
+import java.lang.reflect.*;
+
+import javax.annotation.*;
+
+import org.slf4j.*;
+
+/**
+ * Measures the time and the #of bytes allocated by the request thread in each {@link RequestPhase}
+ * of a single DomUI page request. The request handler switches phases with {@link #enter(RequestPhase)};
+ * when the request is done the timer is passed to the application's {@link IRequestMetricsSink}.
+ *
+ * <p>When no sink is set the request uses {@link #DISABLED}, whose methods return immediately, so the
+ * instrumentation costs nothing but a call. Allocated bytes are only measured on JVMs that support
+ * per-thread allocation counting (HotSpot); otherwise they are reported as -1.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class RequestTimer {
+	static private final Logger LOG = LoggerFactory.getLogger(RequestTimer.class);
+
+	static private final RequestPhase[] PHASES = RequestPhase.values();
+
+	/** The timer for requests that are not measured. */
+	static public final RequestTimer DISABLED = new RequestTimer(null);
+
+	@Nullable
+	static private final ThreadMXBean m_threadBean = findThreadBean();
+
+	/** com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes(), only on Java 14 and later. */
+	@Nullable
+	static private final Method m_currentAllocatedBytes = findMethod("getCurrentThreadAllocatedBytes");
+
+	/** com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long). */
+	@Nullable
+	static private final Method m_allocatedBytes = m_currentAllocatedBytes != null ? null : findMethod("getThreadAllocatedBytes", long.class);
+
+	@Nullable
+	final private IRequestMetricsSink m_sink;
+
+	final private long[] m_duration = new long[PHASES.length];
+
+	final private long[] m_allocated = new long[PHASES.length];
+
+	@Nonnull
+	private RequestPhase m_phase = RequestPhase.SETUP;
+
+	private long m_phaseStart;
+
+	private long m_phaseStartBytes;
+
+	@Nonnull
+	private String m_pageName = "(unknown)";
+
+	@Nonnull
+	private String m_action = "(none)";
+
+	private boolean m_finished;
+
+	RequestTimer(@Nullable IRequestMetricsSink sink) {
+		m_sink = sink;
+		if(null != sink) {
+			m_phaseStart = System.nanoTime();
+			m_phaseStartBytes = getAllocatedBytes();
+		}
+	}
+
+	/**
+	 * Returns the thread bean if it is a com.sun.management.ThreadMXBean that can count allocations.
+	 */
+	@Nullable
+	static private ThreadMXBean findThreadBean() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			Class< ? > clz = Class.forName("com.sun.management.ThreadMXBean");
+			if(!clz.isInstance(bean))
+				return null;
+			if(!((Boolean) clz.getMethod("isThreadAllocatedMemorySupported").invoke(bean)).booleanValue())
+				return null;
+			if(!((Boolean) clz.getMethod("isThreadAllocatedMemoryEnabled").invoke(bean)).booleanValue())
+				return null;
+			return bean;
+		} catch(Throwable x) {
+			return null;
+		}
+	}
+
+	@Nullable
+	static private Method findMethod(@Nonnull String name, Class< ? >... parameters) {
+		if(null == m_threadBean)
+			return null;
+		try {
+			return Class.forName("com.sun.management.ThreadMXBean").getMethod(name, parameters);
+		} catch(Throwable x) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the #of bytes allocated by the current thread so far, or -1 if that cannot be measured.
+	 */
+	static public long getAllocatedBytes() {
+		try {
+			Method m = m_currentAllocatedBytes;
+			if(null != m)
+				return ((Long) m.invoke(m_threadBean)).longValue();
+			m = m_allocatedBytes;
+			if(null != m)
+				return ((Long) m.invoke(m_threadBean, Long.valueOf(Thread.currentThread().getId()))).longValue();
+		} catch(Exception x) {
+			//-- Cannot measure
+		}
+		return -1;
+	}
+
+	public boolean isEnabled() {
+		return m_sink != null;
+	}
+
+	/**
+	 * End the current phase and start the specified one. Time spent in the same phase more than once is added.
+	 */
+	public void enter(@Nonnull RequestPhase phase) {
+		if(m_sink == null || m_finished)
+			return;
+		long now = System.nanoTime();
+		long bytes = getAllocatedBytes();
+		int ix = m_phase.ordinal();
+		m_duration[ix] += now - m_phaseStart;
+		if(bytes >= 0 && m_phaseStartBytes >= 0)
+			m_allocated[ix] += bytes - m_phaseStartBytes;
+		m_phase = phase;
+		m_phaseStart = now;
+		m_phaseStartBytes = bytes;
+	}
+
+	/**
+	 * Tag the request with the page it is for, and the action it executes (or "(full)" for a full render).
+	 */
+	public void setRequest(@Nonnull String pageName, @Nonnull String action) {
+		m_pageName = pageName;
+		m_action = action;
+	}
+
+	/**
+	 * End the last phase and pass the timings to the sink.
+	 */
+	void finish() {
+		IRequestMetricsSink sink = m_sink;
+		if(null == sink || m_finished)
+			return;
+		enter(m_phase);
+		m_finished = true;
+		try {
+			sink.requestCompleted(this);
+		} catch(Exception x) {
+			LOG.error("Request metrics sink failed: " + x, x);
+		}
+	}
+
+	@Nonnull
+	public String getPageName() {
+		return m_pageName;
+	}
+
+	@Nonnull
+	public String getAction() {
+		return m_action;
+	}
+
+	/**
+	 * The time spent in the phase, in nanoseconds.
+	 */
+	public long getDuration(@Nonnull RequestPhase phase) {
+		return m_duration[phase.ordinal()];
+	}
+
+	/**
+	 * The #of bytes allocated by the request thread in the phase, or -1 if that cannot be measured.
+	 */
+	public long getAllocatedBytes(@Nonnull RequestPhase phase) {
+		return isAllocationMeasured() ? m_allocated[phase.ordinal()] : -1;
+	}
+
+	public long getTotalDuration() {
+		long total = 0;
+		for(long d : m_duration)
+			total += d;
+		return total;
+	}
+
+	public long getTotalAllocatedBytes() {
+		if(!isAllocationMeasured())
+			return -1;
+		long total = 0;
+		for(long d : m_allocated)
+			total += d;
+		return total;
+	}
+
+	static public boolean isAllocationMeasured() {
+		return m_currentAllocatedBytes != null || m_allocatedBytes != null;
+	}
+}
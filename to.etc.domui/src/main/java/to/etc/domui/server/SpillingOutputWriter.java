@@ -0,0 +1,344 @@
+package to.etc.domui.server;
+
+import javax.annotation.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+/**
+ * Buffered response writer used for all DomUI page and delta output. Characters are encoded
+ * to UTF-8 immediately and stored in a chain of pooled byte chunks, so a response exists only
+ * once in memory and in its most compact form. As long as the output stays below the spill
+ * threshold it can be discarded completely, so that a render that fails halfway can be replaced
+ * by an error response. Once the output grows past the threshold the buffered data is written
+ * to the response's output stream and all further output is streamed in chunks; from that moment
+ * on the output can no longer be discarded.
+ *
+ * <p>A threshold of 0 disables spilling: all output is buffered until {@link #commit()}.</p>
+ *
+ * <p>When the output reaches the compression threshold by the time it is sent it is compressed,
+ * if the client accepts that (see {@link IRequestResponse#getCompressedOutputStream(String, String)}).</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class SpillingOutputWriter extends Writer {
+	/** The size of a single buffer chunk. */
+	static public final int CHUNK_SIZE = 8192;
+
+	/** The max #of free chunks kept in the global pool. */
+	static private final int MAX_POOLED = 512;
+
+	static private final ConcurrentLinkedQueue<byte[]> m_freeList = new ConcurrentLinkedQueue<>();
+
+	static private final AtomicInteger m_freeCount = new AtomicInteger();
+
+	@Nonnull
+	final private IRequestResponse m_requestResponse;
+
+	final private int m_spillThreshold;
+
+	final private int m_compressThreshold;
+
+	@Nonnull
+	final private List<byte[]> m_chunkList = new ArrayList<>();
+
+	@Nullable
+	private byte[] m_current;
+
+	/** The write index inside m_current. */
+	private int m_ix;
+
+	/** The #of bytes in all full chunks before m_current. */
+	private int m_fullSize;
+
+	/** A pending high surrogate, waiting for its low counterpart. */
+	private char m_highSurrogate;
+
+	@Nullable
+	private String m_contentType;
+
+	@Nullable
+	private String m_encoding;
+
+	/** When not null the response has been committed and all output is written here. */
+	@Nullable
+	private OutputStream m_os;
+
+	private boolean m_released;
+
+	public SpillingOutputWriter(@Nonnull IRequestResponse rr, int spillThreshold, int compressThreshold) {
+		m_requestResponse = rr;
+		m_spillThreshold = spillThreshold;
+		m_compressThreshold = compressThreshold;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Chunk pool.											*/
+	/*--------------------------------------------------------------*/
+
+	@Nonnull
+	static private byte[] allocateChunk() {
+		byte[] data = m_freeList.poll();
+		if(null == data)
+			return new byte[CHUNK_SIZE];
+		m_freeCount.decrementAndGet();
+		return data;
+	}
+
+	static private void releaseChunk(@Nonnull byte[] data) {
+		if(m_freeCount.incrementAndGet() > MAX_POOLED) {
+			m_freeCount.decrementAndGet();
+			return;
+		}
+		m_freeList.add(data);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Output control.										*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Start a new output, discarding anything written before. This fails if output has already
+	 * been sent to the client.
+	 */
+	public void reset(@Nonnull String contentType, @Nullable String encoding) {
+		if(m_os != null)
+			throw new IllegalStateException("Cannot discard output: " + size() + " bytes have already been sent to the client");
+		releaseBuffers();
+		m_released = false;
+		m_contentType = contentType;
+		m_encoding = encoding;
+		m_highSurrogate = 0;
+	}
+
+	/**
+	 * T if output has already been sent to the client, so that it can no longer be discarded.
+	 */
+	public boolean isCommitted() {
+		return m_os != null;
+	}
+
+	/**
+	 * The total #of bytes written sofar.
+	 */
+	public int size() {
+		return m_fullSize + m_ix;
+	}
+
+	/**
+	 * Send all remaining buffered data to the client, and release all buffers. If nothing
+	 * was spilled yet and the output is not compressed the exact content length is sent too.
+	 */
+	public void commit() throws Exception {
+		if(m_released)
+			return;
+		try {
+			if(m_highSurrogate != 0) {
+				m_highSurrogate = 0;
+				putByte('?');
+			}
+			OutputStream os = m_os;
+			if(null == os) {
+				os = m_os = openStream(size());
+				writeChunks(os);
+			} else {
+				byte[] current = m_current;
+				if(null != current && m_ix > 0)
+					os.write(current, 0, m_ix);
+			}
+			if(os instanceof DeflaterOutputStream)
+				os.close();									// Finishes the compressed data and frees the native Deflater
+			else
+				os.flush();
+		} finally {
+			releaseBuffers();
+		}
+	}
+
+	/**
+	 * Release all buffers without sending anything; used when a request has finished (or failed). A
+	 * compressing stream that was opened is closed, so that its native Deflater is freed.
+	 */
+	public void discard() {
+		releaseBuffers();
+		OutputStream os = m_os;
+		if(os instanceof DeflaterOutputStream) {
+			try {
+				os.close();
+			} catch(Exception x) {}
+		}
+	}
+
+	/**
+	 * Return the buffered content as a string. Only valid as long as nothing has been sent.
+	 */
+	@Nonnull
+	public String getBufferedContent() throws Exception {
+		if(m_os != null)
+			throw new IllegalStateException("Output has already been sent to the client");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(size());
+		writeChunks(bos);
+		return new String(bos.toByteArray(), "utf-8");
+	}
+
+	@Nonnull
+	private OutputStream openStream(int contentLength) throws Exception {
+		String contentType = m_contentType;
+		if(null == contentType)
+			throw new IllegalStateException("The content type for buffered output is not set.");
+		if(m_compressThreshold > 0 && size() >= m_compressThreshold)
+			return m_requestResponse.getCompressedOutputStream(contentType, m_encoding);
+		return m_requestResponse.getOutputStream(contentType, m_encoding, contentLength);
+	}
+
+	private void writeChunks(@Nonnull OutputStream os) throws IOException {
+		for(byte[] data : m_chunkList)
+			os.write(data, 0, CHUNK_SIZE);
+		byte[] current = m_current;
+		if(null != current && m_ix > 0)
+			os.write(current, 0, m_ix);
+	}
+
+	private void releaseBuffers() {
+		for(byte[] data : m_chunkList)
+			releaseChunk(data);
+		m_chunkList.clear();
+		byte[] current = m_current;
+		if(null != current)
+			releaseChunk(current);
+		m_current = null;
+		m_ix = 0;
+		m_fullSize = 0;
+		m_released = true;
+	}
+
+	/**
+	 * Called when the current chunk is full. When the data is not yet sent the chunk is
+	 * added to the chunk list, and if the spill threshold is reached everything sofar is sent.
+	 * Once spilled, each full chunk is written to the client immediately and reused.
+	 */
+	private void chunkFull() throws IOException {
+		byte[] current = m_current;
+		if(null == current)
+			throw new IllegalStateException("No current chunk");
+		OutputStream os = m_os;
+		if(null != os) {
+			os.write(current, 0, m_ix);
+			m_fullSize += m_ix;
+			m_ix = 0;
+			return;
+		}
+
+		m_chunkList.add(current);
+		m_fullSize += m_ix;
+		m_ix = 0;
+		m_current = allocateChunk();
+
+		if(m_spillThreshold > 0 && m_fullSize >= m_spillThreshold) {
+			try {
+				os = m_os = openStream(-1);
+			} catch(IOException x) {
+				throw x;
+			} catch(Exception x) {
+				throw new IOException(x.toString(), x);
+			}
+			for(byte[] data : m_chunkList) {
+				os.write(data, 0, CHUNK_SIZE);
+				releaseChunk(data);
+			}
+			m_chunkList.clear();
+		}
+	}
+
+	private void putByte(int b) throws IOException {
+		byte[] current = m_current;
+		if(null == current) {
+			m_released = false;
+			current = m_current = allocateChunk();
+		}
+		current[m_ix++] = (byte) b;
+		if(m_ix >= CHUNK_SIZE)
+			chunkFull();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Writer implementation.								*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void write(int c) throws IOException {
+		putChar((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		int end = off + len;
+		while(off < end)
+			putChar(cbuf[off++]);
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		int end = off + len;
+		while(off < end)
+			putChar(str.charAt(off++));
+	}
+
+	private void putChar(char c) throws IOException {
+		//-- Fast path for ASCII, which is most of the output.
+		if(c < 0x80 && m_highSurrogate == 0) {
+			byte[] current = m_current;
+			if(null != current && m_ix < CHUNK_SIZE - 1) {
+				current[m_ix++] = (byte) c;
+				return;
+			}
+			putByte(c);
+			return;
+		}
+
+		if(m_highSurrogate != 0) {
+			char high = m_highSurrogate;
+			m_highSurrogate = 0;
+			if(Character.isLowSurrogate(c)) {
+				int cp = Character.toCodePoint(high, c);
+				putByte(0xf0 | (cp >> 18));
+				putByte(0x80 | ((cp >> 12) & 0x3f));
+				putByte(0x80 | ((cp >> 6) & 0x3f));
+				putByte(0x80 | (cp & 0x3f));
+				return;
+			}
+			putByte('?');								// Unpaired surrogate
+		}
+
+		if(c < 0x80) {
+			putByte(c);
+		} else if(c < 0x800) {
+			putByte(0xc0 | (c >> 6));
+			putByte(0x80 | (c & 0x3f));
+		} else if(Character.isHighSurrogate(c)) {
+			m_highSurrogate = c;
+		} else if(Character.isLowSurrogate(c)) {
+			putByte('?');								// Unpaired surrogate
+		} else {
+			putByte(0xe0 | (c >> 12));
+			putByte(0x80 | ((c >> 6) & 0x3f));
+			putByte(0x80 | (c & 0x3f));
+		}
+	}
+
+	/**
+	 * Does nothing: data is only sent when the spill threshold is reached or at commit time.
+	 */
+	@Override
+	public void flush() throws IOException {
+	}
+
+	/**
+	 * Does nothing: the writer is committed by the request context.
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+}
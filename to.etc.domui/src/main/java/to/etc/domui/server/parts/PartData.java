@@ -27,6 +27,8 @@ package to.etc.domui.server.parts;
 import to.etc.domui.util.resources.*;
 import to.etc.util.*;
 
+import javax.annotation.*;
+
 /**
  * Contains a cached instance of some part rendering as created by
  * a buffered part.
@@ -48,16 +50,35 @@ final public class PartData {
 
 	final private Object m_extra;
 
-	/** The content hash, or null if as yet uncalculated. */
-	private byte[] m_hash;
+	/** The gzip compressed content, or null if the content is not worth compressing. */
+	@Nullable
+	final private byte[] m_compressedData;
+
+	/** The MD5 hash of the content, calculated when the part is created. */
+	final private byte[] m_hash;
+
+	/** The strong entity tag for the content, derived from the hash. */
+	@Nonnull
+	final private String m_eTag;
+
+	/** The last modification time of the resources this was generated from, or -1 if unknown. */
+	final private long m_lastModified;
 
 	public PartData(byte[][] data, int size, int cacheTime, String contentType, ResourceDependencies dependencies, Object extra) {
+		this(data, size, cacheTime, contentType, dependencies, extra, null);
+	}
+
+	public PartData(byte[][] data, int size, int cacheTime, String contentType, ResourceDependencies dependencies, Object extra, @Nullable byte[] compressedData) {
 		m_data = data;
+		m_compressedData = compressedData;
 		m_size = size;
 		m_cacheTime = cacheTime;
 		m_contentType = contentType;
 		m_dependencies = dependencies;
 		m_extra = extra;
+		m_hash = SecurityUtils.md5Hash(data);
+		m_eTag = "\"" + StringTool.toHex(m_hash) + "\"";
+		m_lastModified = dependencies == null ? -1 : dependencies.getLastModified();
 	}
 
 	public byte[][] getData() {
@@ -68,6 +89,25 @@ final public class PartData {
 		return m_size;
 	}
 
+	/**
+	 * Return the gzip compressed variant of the data, to send to clients that accept gzip encoding. This
+	 * is null when the content type cannot be compressed or when compression does not make it smaller.
+	 * @return
+	 */
+	@Nullable
+	public byte[] getCompressedData() {
+		return m_compressedData;
+	}
+
+	/**
+	 * The memory used by this part's data, including the compressed variant.
+	 * @return
+	 */
+	public int getMemorySize() {
+		byte[] compressedData = m_compressedData;
+		return m_size + (compressedData == null ? 0 : compressedData.length);
+	}
+
 	public ResourceDependencies getDependencies() {
 		return m_dependencies;
 	}
@@ -89,10 +129,33 @@ final public class PartData {
 	 * @return
 	 */
 	public byte[] getHash() {
-		byte[] hash = m_hash;
-		if(null == hash) {
-			hash = m_hash = SecurityUtils.md5Hash(m_data);
-		}
-		return hash;
+		return m_hash;
+	}
+
+	/**
+	 * Return the strong ETag value (including the quotes) for the content.
+	 * @return
+	 */
+	@Nonnull
+	public String getETag() {
+		return m_eTag;
+	}
+
+	/**
+	 * Return the strong ETag value (including the quotes) for the gzip compressed variant. A different
+	 * representation needs a different strong validator, so this is the content's tag with a -gz suffix.
+	 */
+	@Nonnull
+	public String getCompressedETag() {
+		return m_eTag.substring(0, m_eTag.length() - 1) + "-gz\"";
+	}
+
+	/**
+	 * Return the last modification time of the resources this part was generated from, or -1 if
+	 * that is not known.
+	 * @return
+	 */
+	public long getLastModified() {
+		return m_lastModified;
 	}
 }
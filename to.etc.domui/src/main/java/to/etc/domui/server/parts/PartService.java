@@ -11,6 +11,7 @@ import to.etc.util.*;
 import javax.annotation.*;
 import java.io.*;
 import java.util.*;
+import java.util.zip.*;
 
 /**
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
@@ -21,6 +22,9 @@ public class PartService {
 
 	public static final String PART_SUFFIX = ".part";
 
+	/** Parts smaller than this are never compressed. */
+	static private final int MIN_COMPRESS_SIZE = 512;
+
 	private final DomApplication m_application;
 
 	private final boolean m_allowExpires;
@@ -74,7 +78,7 @@ public class PartService {
 	public PartService(DomApplication application) {
 		m_application = application;
 
-		m_cache = new LRUHashMap<>(item -> item == null ? 4 : item.getSize() + 32, 16 * 1024 * 1024); 			// Accept 16MB of resources FIXME Must be parameterized
+		m_cache = new LRUHashMap<>(item -> item == null ? 4 : item.getMemorySize() + 32, 16 * 1024 * 1024); 			// Accept 16MB of resources FIXME Must be parameterized
 		m_allowExpires = DeveloperOptions.getBool("domui.expires", true);
 	}
 
@@ -242,16 +246,38 @@ public class PartService {
 	 */
 	private <K> void generate(IBufferedPartFactory<K> pf, RequestContextImpl ctx, IExtendedParameterInfo parameters) throws Exception {
 		PartData cp = getCachedInstance2(pf, parameters);
+		IRequestResponse rr = ctx.getRequestResponse();
 
-		//-- Generate the part
-		OutputStream os = null;
+		//-- Validation headers, then check whether the browser's copy is still valid.
 		if(cp.getCacheTime() > 0 && m_allowExpires) {
-			ctx.getRequestResponse().setExpiry(cp.getCacheTime());
+			rr.setExpiry(cp.getCacheTime());
+		}
+		byte[] compressed = cp.getCompressedData();
+		if(null != compressed) {
+			rr.addHeader("Vary", "Accept-Encoding");
+			if(!rr.acceptsContentEncoding("gzip"))
+				compressed = null;							// Send the identity variant
 		}
+		rr.addHeader("ETag", null == compressed ? cp.getETag() : cp.getCompressedETag());
+		if(cp.getLastModified() > 0)
+			rr.addDateHeader("Last-Modified", cp.getLastModified());
+		if(isNotModified(rr, cp)) {
+			rr.setStatus(304);
+			return;
+		}
+
+		//-- Generate the part
+		OutputStream os = null;
 		try {
-			os = ctx.getRequestResponse().getOutputStream(cp.getContentType(), null, cp.getSize());
-			for(byte[] data : cp.getData())
-				os.write(data);
+			if(null == compressed) {
+				os = rr.getOutputStream(cp.getContentType(), null, cp.getSize());
+				for(byte[] data : cp.getData())
+					os.write(data);
+			} else {
+				rr.addHeader("Content-Encoding", "gzip");
+				os = rr.getOutputStream(cp.getContentType(), null, compressed.length);
+				os.write(compressed);
+			}
 		} finally {
 			try {
 				if(os != null)
@@ -260,6 +286,31 @@ public class PartService {
 		}
 	}
 
+	/**
+	 * Checks the conditional request headers. If-None-Match takes precedence over If-Modified-Since. Entity
+	 * tags are compared weakly, as required for GET requests. The tags of both the identity and the gzip
+	 * variant match, as both have the same content.
+	 */
+	static private boolean isNotModified(IRequestResponse rr, PartData cp) {
+		String inm = rr.getRequestHeader("If-None-Match");
+		if(null != inm) {
+			for(String tag : inm.split(",")) {
+				tag = tag.trim();
+				if(tag.startsWith("W/"))
+					tag = tag.substring(2);
+				if(tag.equals("*") || tag.equals(cp.getETag()) || (cp.getCompressedData() != null && tag.equals(cp.getCompressedETag())))
+					return true;
+			}
+			return false;
+		}
+
+		long lastModified = cp.getLastModified();
+		if(lastModified <= 0)
+			return false;
+		long ims = rr.getRequestDateHeader("If-Modified-Since");
+		return ims > 0 && lastModified / 1000 <= ims / 1000;		// HTTP dates have a resolution of seconds
+	}
+
 	private <K> PartData getCachedInstance2(final IBufferedPartFactory<K> pf, final IExtendedParameterInfo parameters) throws Exception {
 		//-- Convert the data to a key object, then lookup;
 		K key = pf.decodeKey(parameters);
@@ -307,13 +358,50 @@ public class PartService {
 		if(mime == null)
 			throw new IllegalStateException("The part " + pf + " did not set a MIME type, key=" + key);
 		os.close();
-		cp = new PartData(os.getBuffers(), os.getSize(), pr.getCacheTime(), mime, rdl.createDependencies(), pr.getExtra());
+		byte[][] buffers = os.getBuffers();
+		byte[] compressed = isCompressible(mime) ? compress(buffers, os.getSize()) : null;
+		cp = new PartData(buffers, os.getSize(), pr.getCacheTime(), mime, rdl.createDependencies(), pr.getExtra(), compressed);
 		synchronized(m_cache) {
 			m_cache.put(key, cp); 								// Store (may be done multiple times due to race condition)
 		}
 		return cp;
 	}
 
+	/**
+	 * T for text-like content that compresses well. Images, fonts and the like are already compressed.
+	 */
+	static private boolean isCompressible(String mime) {
+		mime = mime.toLowerCase();
+		return mime.startsWith("text/")
+			|| mime.contains("javascript")
+			|| mime.contains("json")
+			|| mime.contains("xml")
+			|| mime.startsWith("image/svg");
+	}
+
+	/**
+	 * Gzip the part's data. Returns null when the data is too small, or when compression saves less than
+	 * 10% of the size.
+	 */
+	@Nullable
+	static private byte[] compress(byte[][] buffers, int size) throws IOException {
+		if(size < MIN_COMPRESS_SIZE)
+			return null;
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(size / 3 + 64);
+		try(GZIPOutputStream gos = new GZIPOutputStream(bos, 8192)) {
+			int todo = size;
+			for(byte[] data : buffers) {
+				int len = Math.min(todo, data.length);
+				gos.write(data, 0, len);
+				todo -= len;
+				if(todo <= 0)
+					break;
+			}
+		}
+		if(bos.size() > size - size / 10)
+			return null;
+		return bos.toByteArray();
+	}
 
 	private DomApplication getApplication() {
 		return m_application;
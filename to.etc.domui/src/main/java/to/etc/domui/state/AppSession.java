@@ -266,6 +266,15 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 		return cm;
 	}
 
+	/**
+	 * Find a WindowSession without marking it as used, and without cancelling its obituary. This does
+	 * not need the session lock, so it can be used by requests that only wait for a window.
+	 */
+	@Nullable
+	final public synchronized WindowSession internalFindWindowSession(@Nonnull final String wid) {
+		return m_windowMap.get(wid);
+	}
+
 	/**
 	 * Marks the WindowSession as recently used, and cancels any obituary processing on it.
 	 * @param cm
@@ -360,6 +369,28 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 		m_application.internalCallWindowSessionDestroyed(cm);
 	}
 
+	/**
+	 * The #of shelved pages in all windows of this session that have their page tree in memory.
+	 * @see WindowSession#getResidentPageCount()
+	 */
+	public synchronized int getResidentPageCount() {
+		int count = 0;
+		for(WindowSession cm : m_windowMap.values())
+			count += cm.getResidentPageCount();
+		return count;
+	}
+
+	/**
+	 * The #of passivated shelved pages in all windows of this session.
+	 * @see WindowSession#getPassivatedPageCount()
+	 */
+	public synchronized int getPassivatedPageCount() {
+		int count = 0;
+		for(WindowSession cm : m_windowMap.values())
+			count += cm.getPassivatedPageCount();
+		return count;
+	}
+
 	/**
 	 * Helper utility to dump the session's conversational state.
 	 */
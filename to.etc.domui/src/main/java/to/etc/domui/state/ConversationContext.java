@@ -438,6 +438,9 @@ public class ConversationContext implements IQContextContainer {
 	}
 
 	public void processDelayedResults(final Page pg) throws Exception {
+		WindowSession ws = m_manager;
+		if(null != ws)
+			ws.internalClearPush();
 		DelayedActivitiesManager delayManager = m_delayManager;
 		if(delayManager == null)
 			return;
@@ -468,6 +471,26 @@ public class ConversationContext implements IQContextContainer {
 		getDelayedActivitiesManager().unregisterPoller(nc);
 	}
 
+	/**
+	 * Returns T if this conversation has nodes that must be polled regularly, see {@link #registerPoller(NodeContainer)}.
+	 */
+	public boolean hasPollers() {
+		DelayedActivitiesManager delayManager = m_delayManager;
+		return delayManager == null ? false : delayManager.hasPollers();
+	}
+
+	/**
+	 * Tells the browser that something changed in this conversation, so that it polls for changes now
+	 * instead of at the next poll interval. This is called when asynchronous activities progress or
+	 * complete; polled nodes ({@link IPolledForUpdate}) can call it when they know their data has changed.
+	 * This can be called from any thread.
+	 */
+	public void signalUpdate() {
+		WindowSession ws = m_manager;
+		if(null != ws)
+			ws.internalSignalPush();
+	}
+
 	//	/**
 	//	 * Forces the activity manager to enable continuous polling by the client system, at least every interval millis.
 	//	 */
@@ -34,8 +34,8 @@ import java.util.*;
 
 /**
  * This helper class does all of the handling for delayed activities for
- * a conversation. It contains all activity queues plus all handling of
- * the executor thread.
+ * a conversation. It contains all activity queues, and runs the activities
+ * one by one on the application's {@link DelayedActivityScheduler}.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Oct 7, 2008
@@ -43,9 +43,17 @@ import java.util.*;
 public class DelayedActivitiesManager implements Runnable {
 	private static final Logger LOG = LoggerFactory.getLogger(DelayedActivitiesManager.class);
 
-	//	private ConversationContext			m_conversation;
+	@Nonnull
+	final private ConversationContext m_conversation;
+
+	/** The worker thread that is running this manager's current activity, if any. */
 	private Thread m_executorThread;
 
+	/** T while this manager is queued in, or running on, the application's scheduler. */
+	private boolean m_scheduled;
+
+	private DelayedActivityScheduler m_scheduler;
+
 	private List<DelayedActivityInfo> m_pendingQueue = new ArrayList<DelayedActivityInfo>();
 
 	private List<DelayedActivityInfo> m_completionQueue = new ArrayList<DelayedActivityInfo>();
@@ -63,8 +71,8 @@ public class DelayedActivitiesManager implements Runnable {
 	 */
 	private Set<NodeContainer> m_pollSet = new HashSet<NodeContainer>();
 
-	protected DelayedActivitiesManager(ConversationContext conversation) {
-	//		m_conversation = conversation;
+	protected DelayedActivitiesManager(@Nonnull ConversationContext conversation) {
+		m_conversation = conversation;
 	}
 
 	/**
@@ -126,21 +134,28 @@ public class DelayedActivitiesManager implements Runnable {
 			if(m_runningActivity != dai)
 				return false;
 
-			//-- The activity is currently running. Try to abort the task && thread.
+			//-- The activity is currently running. Try to abort the task && thread; the worker is only ours while the activity runs.
 			tr = m_executorThread;
 			m_runningActivity.getMonitor().cancel(); // Force cancel indication.
+			if(tr != null)
+				tr.interrupt();
 		}
-		tr.interrupt();
 		return true;
 	}
 
-	private void wakeupListeners(int lingertime) {}
+	/**
+	 * Tell the browser that there is something to render, through the window's push wait.
+	 */
+	private void wakeupListeners(int lingertime) {
+		m_conversation.signalUpdate();
+	}
 
 	void completionStateChanged(DelayedActivityInfo dai, int pct, String statusMsg) {
 		synchronized(this) {
 			dai.setPercentageComplete(pct);
 			dai.setStatusMessage(statusMsg);
 		}
+		wakeupListeners(1000);
 	}
 
 
@@ -184,26 +199,38 @@ public class DelayedActivitiesManager implements Runnable {
 	 * when data is present in the completion queue.
 	 */
 	public boolean start() {
-		Thread t;
+		DelayedActivityScheduler scheduler;
 		synchronized(this) {
-			if(m_executorThread != null) // Active thread?
-				return true; // Begone.
+			if(m_scheduled) 				// Already queued or running?
+				return true; 				// Begone.
 
 			//-- Must a thread be started?
 			if(m_pendingQueue.size() == 0) // Pending requests?
 				return false; // Nope -> begone
 
-			//-- Prepare to start the executor.
-			m_executorThread = new Thread(this);
-			m_executorThread.setName("xc");
-			m_executorThread.setDaemon(true);
-			m_executorThread.setPriority(Thread.MIN_PRIORITY);
-			t = m_executorThread; // Prevent naked access to m_ variable even though it is untouched by other code.
+			scheduler = m_scheduler;
+			if(null == scheduler)
+				m_scheduler = scheduler = m_conversation.getWindowSession().getApplication().getActivityScheduler();
+			m_scheduled = true;
 		}
-		t.start();
+		schedule(scheduler);
 		return true;
 	}
 
+	/**
+	 * Queue this manager on the scheduler, to run the next pending activity.
+	 */
+	private void schedule(@Nonnull DelayedActivityScheduler scheduler) {
+		try {
+			scheduler.schedule(m_conversation.getWindowSession().getAppSession(), this);
+		} catch(RuntimeException x) {
+			synchronized(this) {
+				m_scheduled = false;
+			}
+			throw x;
+		}
+	}
+
 	//	/**
 	//	 * Returns whether the client needs to use it's polltimer again and poll for changes. It returns 0 if there is no need to poll.
 	//	 * @return
@@ -255,69 +282,72 @@ public class DelayedActivitiesManager implements Runnable {
 			if(m_terminated)
 				return;
 			m_terminated = true;
-			if(m_executorThread != null) {
-				killme = m_executorThread;
-				m_executorThread = null;
-			}
+			killme = m_executorThread;
 			pendingcorpse = m_runningActivity;
 			m_runningActivity = null;
 
 			m_completionQueue.clear();
 			m_pendingQueue.clear();
 			wakeupListeners(100); // Wakeup anything that's listening quickly
-		}
 
-		//-- Do our utmost to kill the task, not gently.
-		try {
-			if(pendingcorpse != null)
-				pendingcorpse.getMonitor().cancel(); // Forcefully cancel;
-		} catch(Exception x) {
-			x.printStackTrace();
-		}
+			//-- Do our utmost to kill the task, not gently. The worker thread is shared, so it must be signalled while it still runs our task.
+			try {
+				if(pendingcorpse != null)
+					pendingcorpse.getMonitor().cancel(); // Forcefully cancel;
+			} catch(Exception x) {
+				x.printStackTrace();
+			}
 
-		//-- Signal the thread
-		try {
-			if(killme != null) {
-				killme.interrupt();
+			//-- Signal the thread
+			try {
+				if(killme != null) {
+					killme.interrupt();
+				}
+			} catch(Exception x) {
+				x.printStackTrace();
 			}
-		} catch(Exception x) {
-			x.printStackTrace();
 		}
+
+		//-- If we're still waiting for a worker we can just leave the queue.
+		DelayedActivityScheduler scheduler = m_scheduler;
+		if(null != scheduler)
+			scheduler.cancel(this);
 	}
 
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Executor thread.									*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Main action runnert. This is the thread's executor function. While the manager is
-	 * active this will execute activities in the PENDING queue one by one until the queue
-	 * is empty. If that happens it will commit suicide. This suicidal act will not invalidate
-	 * the manager; at any time can new actions be posted and a new thread be started.
+	 * Main action runner, called by a worker of the scheduler. This executes the first activity
+	 * in the PENDING queue. If more activities are pending after that the manager queues itself
+	 * again, at the end of the scheduler's queue, so that the activities of other conversations
+	 * get their turn.
 	 *
 	 * @see java.lang.Runnable#run()
 	 */
 	@Override
 	public void run() {
+		boolean more = false;
 		try {
-			for(;;) {
-				//-- Are we attempting to die?
-				DelayedActivityInfo dai;
-				synchronized(this) {
-					if(m_terminated) 				// Manager is deadish?
-						return; 					// Just quit immediately (nothing is currently running)
-
-					//-- Anything to do?
-					if(m_pendingQueue.size() == 0) {	// Something queued still?
-						//-- Nope. We can stop properly.
-						return;
-					}
-
-					//-- Schedule for a new execute.
-					dai = m_pendingQueue.remove(0); 	// Get and remove from pending queue
-					m_runningActivity = dai; 			// Make this the running dude
+			//-- Are we attempting to die?
+			DelayedActivityInfo dai;
+			synchronized(this) {
+				if(m_terminated) 				// Manager is deadish?
+					return; 					// Just quit immediately (nothing is currently running)
+
+				//-- Anything to do?
+				if(m_pendingQueue.size() == 0) {	// Something queued still?
+					//-- Nope. We can stop properly.
+					return;
 				}
-				execute(dai);
+
+				//-- Schedule for a new execute.
+				dai = m_pendingQueue.remove(0); 	// Get and remove from pending queue
+				dai.setMonitor(new DelayedProgressMonitor(this, dai));
+				m_runningActivity = dai; 			// Make this the running dude
+				m_executorThread = Thread.currentThread();
 			}
+			execute(dai);
 		} catch(Exception x) {
 			//-- Do not report trouble if the manager is in the process of dying
 			if(!isTerminated()) {
@@ -330,8 +360,13 @@ public class DelayedActivitiesManager implements Runnable {
 			 */
 			synchronized(this) {
 				m_executorThread = null; // I'm gone...
+				more = !m_terminated && m_pendingQueue.size() > 0;
+				m_scheduled = more;
 			}
 		}
+		DelayedActivityScheduler scheduler = m_scheduler;
+		if(more && null != scheduler)
+			schedule(scheduler);
 	}
 
 	/**
@@ -339,8 +374,7 @@ public class DelayedActivitiesManager implements Runnable {
 	 * @param dai
 	 */
 	private void execute(DelayedActivityInfo dai) {
-		DelayedProgressMonitor mon = new DelayedProgressMonitor(this, dai);
-		dai.setMonitor(mon);
+		DelayedProgressMonitor mon = dai.getMonitor();
 
 		Exception errorx = null;
 		try {
@@ -348,7 +382,7 @@ public class DelayedActivitiesManager implements Runnable {
 			dai.callBeforeListeners();
 			dai.getActivity().run(mon);
 		} catch(Exception x) {
-			if(!(x instanceof InterruptedException)) {
+			if(!(x instanceof InterruptedException) && !mon.isCancelled()) {		// Cancelled activities report as cancelled, not as failed
 				errorx = x;
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Exception in async activity", x);
@@ -397,7 +431,11 @@ public class DelayedActivitiesManager implements Runnable {
 			applyToTree(das);
 
 		//-- Handle PollThingy callbacks.
-		for(NodeContainer nc : new HashSet<>(m_pollSet)) {
+		List<NodeContainer> pollers;
+		synchronized(this) {
+			pollers = new ArrayList<>(m_pollSet);
+		}
+		for(NodeContainer nc : pollers) {
 			if(nc.isAttached()) {
 				((IPolledForUpdate) nc).checkForChanges();
 			}
@@ -417,7 +455,9 @@ public class DelayedActivitiesManager implements Runnable {
 	 * @param nc
 	 */
 	public <T extends NodeContainer & IPolledForUpdate> void registerPoller(T nc) {
-		m_pollSet.add(nc);
+		synchronized(this) {
+			m_pollSet.add(nc);
+		}
 	}
 
 	/**
@@ -426,7 +466,18 @@ public class DelayedActivitiesManager implements Runnable {
 	 * @param nc
 	 */
 	public <T extends NodeBase & IPolledForUpdate> void unregisterPoller(T nc) {
-		m_pollSet.remove(nc);
+		synchronized(this) {
+			m_pollSet.remove(nc);
+		}
+	}
+
+	/**
+	 * Returns T if nodes are registered that must be polled regularly.
+	 */
+	public boolean hasPollers() {
+		synchronized(this) {
+			return m_pollSet.size() > 0;
+		}
 	}
 
 	//	/**
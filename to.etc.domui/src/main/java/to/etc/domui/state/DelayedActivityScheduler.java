@@ -0,0 +1,306 @@
+package to.etc.domui.state;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+
+import org.slf4j.*;
+
+/**
+ * Runs the asynchronous activities of all conversations on a bounded set of worker threads, shared
+ * by the whole application (see {@link to.etc.domui.server.DomApplication#getActivityScheduler()}).
+ * Work is queued in order of arrival, and started as soon as a worker is free, except that a
+ * session never has more than {@link #getMaxPerSession()} tasks running at the same time: tasks
+ * from sessions that are at their limit are skipped, so that one user starting many reports cannot
+ * starve all others.
+ *
+ * <p>The workers are normal daemon threads with minimal priority, or virtual threads when so
+ * configured and the JVM supports them (Java 21 and later). The limits can be changed at any time;
+ * new limits are used when the next task is started.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class DelayedActivityScheduler {
+	static private final Logger LOG = LoggerFactory.getLogger(DelayedActivityScheduler.class);
+
+	@Nonnull
+	final private ExecutorService m_executor;
+
+	final private boolean m_virtual;
+
+	private int m_maxThreads;
+
+	private int m_maxPerSession;
+
+	/** The tasks waiting for a worker, in order of arrival. */
+	@Nonnull
+	final private List<Entry> m_queue = new LinkedList<>();
+
+	/** The #of running tasks per session. */
+	@Nonnull
+	final private Map<Object, Integer> m_runningMap = new HashMap<>();
+
+	private int m_runningCount;
+
+	private int m_maxQueueDepth;
+
+	private long m_submitCount;
+
+	private long m_startCount;
+
+	private long m_totalWaitNanos;
+
+	private long m_maxWaitNanos;
+
+	private boolean m_shutdown;
+
+	static private final class Entry {
+		@Nonnull
+		final Object m_session;
+
+		@Nonnull
+		final Runnable m_task;
+
+		final long m_queuedAt = System.nanoTime();
+
+		Entry(@Nonnull Object session, @Nonnull Runnable task) {
+			m_session = session;
+			m_task = task;
+		}
+	}
+
+	/**
+	 * Create a scheduler.
+	 * @param maxThreads		The max #of tasks running at the same time, over all sessions.
+	 * @param maxPerSession		The max #of tasks running at the same time for a single session.
+	 * @param virtual			When T, use virtual threads if the JVM has them.
+	 */
+	public DelayedActivityScheduler(int maxThreads, int maxPerSession, boolean virtual) {
+		m_maxThreads = Math.max(1, maxThreads);
+		m_maxPerSession = Math.max(1, maxPerSession);
+		ExecutorService es = virtual ? createVirtualExecutor() : null;
+		m_virtual = es != null;
+		if(null == es) {
+			AtomicInteger count = new AtomicInteger();
+			ThreadPoolExecutor tpe = new ThreadPoolExecutor(m_maxThreads, m_maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+				Thread t = new Thread(r, "xc-" + count.incrementAndGet());
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			});
+			tpe.allowCoreThreadTimeOut(true);
+			es = tpe;
+		}
+		m_executor = es;
+	}
+
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor(), if this JVM has it.
+	 */
+	@Nullable
+	static private ExecutorService createVirtualExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch(Exception x) {
+			LOG.info("Virtual threads are not available, using platform threads for asynchronous activities");
+			return null;
+		}
+	}
+
+	/**
+	 * Queue a task for execution, for the specified session. The session object is only used to count
+	 * the tasks running for it.
+	 */
+	public void schedule(@Nonnull Object session, @Nonnull Runnable task) {
+		synchronized(this) {
+			if(m_shutdown)
+				throw new IllegalStateException("The activity scheduler has been shut down");
+			m_queue.add(new Entry(session, task));
+			m_submitCount++;
+			if(m_queue.size() > m_maxQueueDepth)
+				m_maxQueueDepth = m_queue.size();
+		}
+		dispatch();
+	}
+
+	/**
+	 * Remove a task that has not yet started from the queue. Returns T if it was removed, F if it was not
+	 * queued (anymore).
+	 */
+	public synchronized boolean cancel(@Nonnull Runnable task) {
+		for(Iterator<Entry> it = m_queue.iterator(); it.hasNext();) {
+			if(it.next().m_task == task) {
+				it.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Start as many queued tasks as the limits allow.
+	 */
+	private void dispatch() {
+		List<Entry> startList = null;
+		synchronized(this) {
+			for(Iterator<Entry> it = m_queue.iterator(); it.hasNext() && m_runningCount < m_maxThreads;) {
+				Entry e = it.next();
+				Integer running = m_runningMap.get(e.m_session);
+				int count = running == null ? 0 : running.intValue();
+				if(count >= m_maxPerSession)
+					continue;
+				it.remove();
+				m_runningMap.put(e.m_session, Integer.valueOf(count + 1));
+				m_runningCount++;
+
+				long wait = System.nanoTime() - e.m_queuedAt;
+				m_startCount++;
+				m_totalWaitNanos += wait;
+				if(wait > m_maxWaitNanos)
+					m_maxWaitNanos = wait;
+				if(startList == null)
+					startList = new ArrayList<>();
+				startList.add(e);
+			}
+		}
+		if(null == startList)
+			return;
+		for(Entry e : startList) {
+			try {
+				m_executor.execute(() -> run(e));
+			} catch(RejectedExecutionException x) {
+				LOG.error("Asynchronous activity rejected by the executor", x);
+				finished(e);
+			}
+		}
+	}
+
+	private void run(@Nonnull Entry e) {
+		try {
+			e.m_task.run();
+		} catch(Throwable x) {
+			LOG.error("Uncaught exception in asynchronous activity", x);
+		} finally {
+			Thread.interrupted();							// Clear any cancel, so that it does not hit the next task
+			finished(e);
+		}
+	}
+
+	private void finished(@Nonnull Entry e) {
+		synchronized(this) {
+			m_runningCount--;
+			Integer running = m_runningMap.get(e.m_session);
+			if(running == null || running.intValue() <= 1)
+				m_runningMap.remove(e.m_session);
+			else
+				m_runningMap.put(e.m_session, Integer.valueOf(running.intValue() - 1));
+		}
+		dispatch();
+	}
+
+	/**
+	 * Stop accepting tasks, drop all queued ones and interrupt the running ones.
+	 */
+	public void shutdown() {
+		synchronized(this) {
+			m_shutdown = true;
+			m_queue.clear();
+		}
+		m_executor.shutdownNow();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Settings and metrics.								*/
+	/*--------------------------------------------------------------*/
+
+	public boolean isVirtual() {
+		return m_virtual;
+	}
+
+	public synchronized int getMaxThreads() {
+		return m_maxThreads;
+	}
+
+	/**
+	 * Change the max #of tasks that run at the same time. For platform threads this also sizes the pool.
+	 */
+	public void setMaxThreads(int maxThreads) {
+		maxThreads = Math.max(1, maxThreads);
+		synchronized(this) {
+			m_maxThreads = maxThreads;
+		}
+		if(m_executor instanceof ThreadPoolExecutor) {
+			ThreadPoolExecutor tpe = (ThreadPoolExecutor) m_executor;
+			if(maxThreads > tpe.getMaximumPoolSize()) {
+				tpe.setMaximumPoolSize(maxThreads);
+				tpe.setCorePoolSize(maxThreads);
+			} else {
+				tpe.setCorePoolSize(maxThreads);
+				tpe.setMaximumPoolSize(maxThreads);
+			}
+		}
+		dispatch();
+	}
+
+	public synchronized int getMaxPerSession() {
+		return m_maxPerSession;
+	}
+
+	public void setMaxPerSession(int maxPerSession) {
+		synchronized(this) {
+			m_maxPerSession = Math.max(1, maxPerSession);
+		}
+		dispatch();
+	}
+
+	/**
+	 * The #of tasks waiting for a worker.
+	 */
+	public synchronized int getQueueDepth() {
+		return m_queue.size();
+	}
+
+	/**
+	 * The largest #of tasks that waited for a worker at the same time.
+	 */
+	public synchronized int getMaxQueueDepth() {
+		return m_maxQueueDepth;
+	}
+
+	/**
+	 * The #of tasks currently running.
+	 */
+	public synchronized int getRunningCount() {
+		return m_runningCount;
+	}
+
+	/**
+	 * The total #of tasks that were scheduled.
+	 */
+	public synchronized long getSubmitCount() {
+		return m_submitCount;
+	}
+
+	/**
+	 * The total #of tasks that were started.
+	 */
+	public synchronized long getStartCount() {
+		return m_startCount;
+	}
+
+	/**
+	 * The average time that started tasks waited in the queue, in milliseconds.
+	 */
+	public synchronized double getAverageWaitTime() {
+		return m_startCount == 0 ? 0.0 : m_totalWaitNanos / 1000000.0 / m_startCount;
+	}
+
+	/**
+	 * The longest time a started task waited in the queue, in milliseconds.
+	 */
+	public synchronized long getMaxWaitTime() {
+		return m_maxWaitNanos / 1000000;
+	}
+}
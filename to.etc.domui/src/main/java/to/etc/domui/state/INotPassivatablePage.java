@@ -0,0 +1,13 @@
+package to.etc.domui.state;
+
+/**
+ * Marker interface for pages that must stay resident while they are on the shelve stack. Shelved pages
+ * can be passivated: their component tree is discarded and rebuilt from their class and page parameters
+ * when the user returns to them. Pages that hold state that cannot be rebuilt that way (data entered but
+ * not saved, a selection, a page that was built by code instead of through its URL) must implement this
+ * to prevent that.
+ *
+ * Created on Oct 18, 2026
+ */
+public interface INotPassivatablePage {
+}
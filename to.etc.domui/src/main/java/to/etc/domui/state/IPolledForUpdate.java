@@ -24,6 +24,12 @@
  */
 package to.etc.domui.state;
 
+/**
+ * A node that is asked to update itself every time the browser polls for changes, see
+ * {@link ConversationContext#registerPoller(to.etc.domui.dom.html.NodeContainer)}. The browser polls
+ * at the application's poll interval; when the node knows that its data has changed it can call
+ * {@link ConversationContext#signalUpdate()}, from any thread, to have the browser poll right away.
+ */
 public interface IPolledForUpdate {
 	void checkForChanges() throws Exception;
 }
@@ -0,0 +1,17 @@
+package to.etc.domui.state;
+
+/**
+ * The result of waiting for a server push on a window, see {@link WindowSession#internalWaitForPush(long)}.
+ *
+ * Created on Oct 18, 2026
+ */
+public enum PushWaitResult {
+	/** Something changed: the browser should poll for it now. */
+	UPDATE,
+
+	/** Nothing changed within the wait time. */
+	TIMEOUT,
+
+	/** A newer wait for the same window was started, so this one is no longer needed. */
+	SUPERSEDED
+}
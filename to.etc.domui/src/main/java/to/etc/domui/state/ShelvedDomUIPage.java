@@ -8,21 +8,49 @@ import to.etc.domui.server.*;
 import to.etc.domui.util.*;
 import to.etc.util.*;
 
+/**
+ * A DomUI page on the shelve stack. When the page is passivated its component tree is discarded, and
+ * only its class name and page parameters are kept; the page is rebuilt in its original conversation
+ * the first time it is needed again, see {@link #getPage()}.
+ */
 final public class ShelvedDomUIPage implements IShelvedEntry {
 	@Nonnull
 	private final WindowSession m_session;
 
 	@Nonnull
-	private final Page m_page;
+	private final ConversationContext m_conversation;
+
+	/** The page, or null if it is passivated. */
+	@Nullable
+	private Page m_page;
+
+	/** When passivated: the data to rebuild the page. */
+	@Nullable
+	private SavedPage m_savedPage;
+
+	/** When passivated: the breadcrumb name and title at the time the page was passivated. */
+	@Nullable
+	private String m_savedName;
+
+	@Nullable
+	private String m_savedTitle;
+
+	/** The last time this page was the current page of its window. */
+	private long m_lastUsed;
 
 	public ShelvedDomUIPage(@Nonnull WindowSession ws, @Nonnull Page page) {
 		m_page = page;
 		m_session = ws;
+		m_conversation = page.getConversation();
+		m_lastUsed = System.currentTimeMillis();
 	}
 
 	@Nonnull
 	@Override
 	public String getName() {
+		String savedName = m_savedName;
+		if(null != savedName)
+			return savedName;
 		UrlPage body = getPage().getBody();
 		if(body instanceof IBreadCrumbTitler) {
 			return ((IBreadCrumbTitler) body).getBreadcrumbName();
@@ -40,6 +68,8 @@ final public class ShelvedDomUIPage implements IShelvedEntry {
 	@Override
 	@Nullable
 	public String getTitle() {
+		if(null != m_savedPage)
+			return m_savedTitle;
 		if(getPage().getBody() instanceof IBreadCrumbTitler) {
 			IBreadCrumbTitler body = (IBreadCrumbTitler) getPage().getBody();
 			return body.getBreadcrumbTitle();
@@ -47,11 +77,106 @@ final public class ShelvedDomUIPage implements IShelvedEntry {
 		return null;
 	}
 
+	/**
+	 * Return the page, rebuilding it if it was passivated.
+	 */
 	@Nonnull
 	public Page getPage() {
+		Page page = m_page;
+		if(null == page) {
+			try {
+				page = m_session.internalRestorePage(this);
+			} catch(Exception x) {
+				throw WrappedException.wrap(x);
+			}
+			m_page = page;
+			m_savedPage = null;
+			m_savedName = null;
+			m_savedTitle = null;
+		}
+		return page;
+	}
+
+	/**
+	 * Return the page if it is resident, null if it is passivated.
+	 */
+	@Nullable
+	public Page getResidentPage() {
 		return m_page;
 	}
 
+	@Nonnull
+	public ConversationContext getConversation() {
+		return m_conversation;
+	}
+
+	/**
+	 * The name of the page's class; does not rebuild a passivated page.
+	 */
+	@Nonnull
+	public String getPageClassName() {
+		Page page = m_page;
+		if(null != page)
+			return page.getBody().getClass().getName();
+		return getSavedPage().getClassName();
+	}
+
+	/**
+	 * The page's class; does not rebuild a passivated page.
+	 */
+	@Nonnull
+	public Class< ? extends UrlPage> getPageClass() {
+		Page page = m_page;
+		if(null != page)
+			return page.getBody().getClass();
+		return m_session.getApplication().loadPageClass(getSavedPage().getClassName());
+	}
+
+	/**
+	 * The page's parameters; does not rebuild a passivated page.
+	 */
+	@Nonnull
+	public IPageParameters getPageParameters() {
+		Page page = m_page;
+		if(null != page)
+			return page.getPageParameters();
+		return getSavedPage().getParameters();
+	}
+
+	@Nonnull
+	private SavedPage getSavedPage() {
+		SavedPage sp = m_savedPage;
+		if(null == sp)
+			throw new IllegalStateException("Page is not passivated");
+		return sp;
+	}
+
+	public boolean isPassivated() {
+		return m_page == null;
+	}
+
+	long getLastUsed() {
+		return m_lastUsed;
+	}
+
+	void touch() {
+		m_lastUsed = System.currentTimeMillis();
+	}
+
+	/**
+	 * Discard the page's component tree, and keep only what is needed to rebuild it.
+	 */
+	void passivate() {
+		Page page = m_page;
+		if(null == page)
+			return;
+		m_savedName = getName();
+		m_savedTitle = getTitle();
+		m_savedPage = new SavedPage(page.getBody().getClass().getName(), page.getPageParameters());
+		m_page = null;
+		m_conversation.destroyPage(page);
+	}
+
 	@Override
 	public void activate(@Nonnull RequestContextImpl ctx, boolean ajax) throws Exception {
 		/*
@@ -66,18 +191,21 @@ final public class ShelvedDomUIPage implements IShelvedEntry {
 
 	@Override
 	public void discard() {
-		m_session.discardPage(getPage());
+		m_session.discardPage(this);
 	}
 
 	@Override
 	public String getURL() {
-		return DomUtil.createPageURL(getPage().getBody().getClass(), getPage().getPageParameters());
+		return DomUtil.createPageURL(getPageClass(), getPageParameters());
 	}
 
 	@Override
 	public String toString() {
-		ConversationContext cc = getPage().internalGetConversation();
-		return getPage() + " in " + cc + ": " + (cc == null ? "(null conv)" : cc.getState());
+		Page page = m_page;
+		if(null == page)
+			return "passivated " + m_savedPage + " in " + m_conversation + ": " + m_conversation.getState();
+		ConversationContext cc = page.internalGetConversation();
+		return page + " in " + cc + ": " + (cc == null ? "(null conv)" : cc.getState());
 	}
 
 	@Override
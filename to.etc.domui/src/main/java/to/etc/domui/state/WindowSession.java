@@ -25,6 +25,7 @@
 package to.etc.domui.state;
 
 import java.io.*;
+import java.lang.management.*;
 import java.lang.reflect.*;
 import java.util.*;
 
@@ -111,6 +112,31 @@ final public class WindowSession {
 	/** The map of all attribute objects added to this window session. */
 	private Map<String, Object> m_map = Collections.EMPTY_MAP;
 
+	/** The #of shelved pages with a resident page tree, at the end of the last request. */
+	private volatile int m_residentPageCount;
+
+	/** The #of passivated shelved pages, at the end of the last request. */
+	private volatile int m_passivatedPageCount;
+
+	/** The total #of times a shelved page was passivated in this window. */
+	private volatile int m_passivationCount;
+
+	/** The total #of times a passivated page was rebuilt in this window. */
+	private volatile int m_restoreCount;
+
+	/** Lock for the push state below. This is not the session lock, so that waiting for a push does not block requests. */
+	final private Object m_pushLock = new Object();
+
+	/** T when something changed in one of this window's conversations that the browser has not yet polled for. */
+	private boolean m_pushSignalled;
+
+	/** Incremented for every push wait, so that an older wait for this window ends when a new one starts. */
+	private int m_pushWaitGeneration;
+
+	/** The heap memory pools that can report their usage after GC, used to detect memory pressure. */
+	@Nullable
+	static private List<MemoryPoolMXBean> m_heapPools;
+
 	public WindowSession(@Nonnull final AppSession session) {
 		m_appSession = session;
 		m_windowID = DomUtil.generateGUID();
@@ -127,6 +153,11 @@ final public class WindowSession {
 		return m_appSession.getApplication();
 	}
 
+	@Nonnull
+	final public AppSession getAppSession() {
+		return m_appSession;
+	}
+
 	@Nonnull
 	final public String getWindowID() {
 		return m_windowID;
@@ -204,6 +235,7 @@ final public class WindowSession {
 		//		System.out.println("detachConversations called with state="+m_attached);
 		if(!m_attached)
 			return;
+		passivateShelvedPages();
 		m_attached = false;
 		for(ConversationContext cc : m_conversationMap.values()) {
 			try {
@@ -222,7 +254,7 @@ final public class WindowSession {
 		for(ConversationContext cc : m_conversationMap.values()) {
 			cc.dump();
 		}
-		System.out.println("  Page shelve");
+		System.out.println("  Page shelve: " + m_residentPageCount + " resident, " + m_passivatedPageCount + " passivated, " + m_passivationCount + " passivations, " + m_restoreCount + " restores");
 		for(int i = 0; i < m_shelvedPageStack.size(); i++) {
 			IShelvedEntry se = m_shelvedPageStack.get(i);
 			System.out.println("  " + i + ": " + se);
@@ -237,6 +269,7 @@ final public class WindowSession {
 	void destroyWindow(boolean sessionDestroyed) {
 		destroyConversations(sessionDestroyed);
 		destroyDevelopmentStateFile();
+		internalSignalPush();									// Let a waiting browser find out that we're gone
 	}
 
 
@@ -265,7 +298,7 @@ final public class WindowSession {
 			IShelvedEntry she = m_shelvedPageStack.get(i);
 			if(she instanceof ShelvedDomUIPage) {
 				ShelvedDomUIPage sdp = (ShelvedDomUIPage) she;
-				if(sdp.getPage().getConversation() == cc) {
+				if(sdp.getConversation() == cc) {
 					m_shelvedPageStack.remove(i);
 				}
 			}
@@ -705,16 +738,16 @@ final public class WindowSession {
 	/**
 	 * Discards this page from the page shelf. It discards it's conversation if that is no
 	 * longer present on the shelf.
-	 * @param pg
+	 * @param entry
 	 */
-	void discardPage(@Nonnull final Page pg) {
+	void discardPage(@Nonnull final ShelvedDomUIPage entry) {
 		boolean destroyc = true;
-		ConversationContext conversation = pg.internalGetConversation();
+		ConversationContext conversation = entry.getConversation();
 		for(int i = m_shelvedPageStack.size(); --i >= 0;) {
 			IShelvedEntry se = m_shelvedPageStack.get(i);
 			if(se instanceof ShelvedDomUIPage) {
 				ShelvedDomUIPage sdp = (ShelvedDomUIPage) se;
-				if(sdp.getPage().internalGetConversation() == conversation) {
+				if(sdp.getConversation() == conversation) {
 					destroyc = false;
 					break;
 				}
@@ -722,11 +755,12 @@ final public class WindowSession {
 		}
 
 		if(destroyc) {
-			if(null != conversation)
-				destroyConversation(conversation); // Forcefully destroy this conversation,
+			destroyConversation(conversation); // Forcefully destroy this conversation,
 		} else {
-			//-- Remove this page from the conversation.
-			pg.getConversation().destroyPage(pg);
+			//-- Remove this page from the conversation, if it was not passivated already.
+			Page pg = entry.getResidentPage();
+			if(null != pg)
+				conversation.destroyPage(pg);
 		}
 	}
 
@@ -855,15 +889,15 @@ final public class WindowSession {
 			if(se instanceof ShelvedDomUIPage) {
 				ShelvedDomUIPage sdp = (ShelvedDomUIPage) se;
 
-				if(!sdp.getPage().getBody().getClass().getName().equals(clz.getName()))	// Of the appropriate type?
+				if(!sdp.getPageClassName().equals(clz.getName()))	// Of the appropriate type?
 					continue; 									// No -> not acceptable
-				if(cc != null && cc != sdp.getPage().getConversation()) 				// Is in the conversation supplied?
+				if(cc != null && cc != sdp.getConversation()) 	// Is in the conversation supplied?
 					continue;									// No -> not acceptable
 
 				//-- Page AND context are acceptable; check parameters;
 				if(papa == null)								// AJAX request -> page acceptable
 					return ix;
-				if(papa.equals(sdp.getPage().getPageParameters()))	// New page request -> acceptable if same parameters.
+				if(papa.equals(sdp.getPageParameters()))		// New page request -> acceptable if same parameters.
 					return ix;
 			}
 		}
@@ -875,11 +909,11 @@ final public class WindowSession {
 			IShelvedEntry se = m_shelvedPageStack.get(ix);
 			if(se instanceof ShelvedDomUIPage) {
 				ShelvedDomUIPage sdp = (ShelvedDomUIPage) se;
-				if(!sdp.getPage().getBody().getClass().getName().equals(clz.getName())) // Of the appropriate type?
+				if(!sdp.getPageClassName().equals(clz.getName())) // Of the appropriate type?
 					continue; 									// No -> not acceptable
 
 				//-- Page AND context are acceptable; check parameters;
-				if(sdp.getPage().getPageParameters().equals(papa)) // Got a page; must make sure the parameters, if present, are equal.
+				if(sdp.getPageParameters().equals(papa)) 		// Got a page; must make sure the parameters, if present, are equal.
 					return true;
 			}
 		}
@@ -1037,6 +1071,256 @@ final public class WindowSession {
 	}
 
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Passivation of shelved pages.						*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Called at the end of a request while the conversations are still attached: discards the page trees of
+	 * shelved pages according to the application's passivation settings. The current page (the top of the
+	 * stack) is never passivated. A page is passivated when:
+	 * <ul>
+	 *	<li>it has not been the current page for {@link DomApplication#getShelvePassivationTime()} minutes, or</li>
+	 *	<li>more than {@link DomApplication#getMaxResidentShelvedPages()} shelved pages are resident; the pages lowest on
+	 *		the stack go first, or</li>
+	 *	<li>the heap is fuller than {@link DomApplication#getShelvePassivationMemoryThreshold()} percent after the last GC.</li>
+	 * </ul>
+	 * Pages marked with {@link INotPassivatablePage} or {@link INotReloadablePage}, and pages whose conversation has
+	 * asynchronous activities or pollers, are kept.
+	 */
+	private void passivateShelvedPages() {
+		int top = m_shelvedPageStack.size() - 1;
+		if(top >= 0) {
+			IShelvedEntry se = m_shelvedPageStack.get(top);
+			if(se instanceof ShelvedDomUIPage)
+				((ShelvedDomUIPage) se).touch();
+		}
+
+		DomApplication app = getApplication();
+		int idleMinutes = app.getShelvePassivationTime();
+		int maxResident = app.getMaxResidentShelvedPages();
+		int memoryThreshold = app.getShelvePassivationMemoryThreshold();
+		if(top > 0 && (idleMinutes > 0 || maxResident > 0 || memoryThreshold > 0)) {
+			boolean lowMemory = memoryThreshold > 0 && getHeapUsageAfterGC() >= memoryThreshold;
+			long idleTs = System.currentTimeMillis() - idleMinutes * 60L * 1000L;
+			int resident = 0;
+			for(int i = 0; i < top; i++) {
+				IShelvedEntry se = m_shelvedPageStack.get(i);
+				if(se instanceof ShelvedDomUIPage && !((ShelvedDomUIPage) se).isPassivated())
+					resident++;
+			}
+
+			for(int i = 0; i < top; i++) {
+				IShelvedEntry se = m_shelvedPageStack.get(i);
+				if(!(se instanceof ShelvedDomUIPage))
+					continue;
+				ShelvedDomUIPage sdp = (ShelvedDomUIPage) se;
+				if(sdp.isPassivated())
+					continue;
+				boolean passivate = lowMemory || (idleMinutes > 0 && sdp.getLastUsed() < idleTs) || (maxResident > 0 && resident > maxResident);
+				if(!passivate || !isPassivatable(sdp))
+					continue;
+				try {
+					sdp.passivate();
+					resident--;
+					m_passivationCount++;
+					if(LOG.isDebugEnabled())
+						LOG.debug(this + ": passivated " + sdp);
+				} catch(Exception x) {
+					LOG.error("Failed to passivate shelved page " + sdp, x);
+				}
+			}
+		}
+		updatePageCounts();
+	}
+
+	private boolean isPassivatable(@Nonnull ShelvedDomUIPage sdp) {
+		Page pg = sdp.getResidentPage();
+		if(null == pg)
+			return false;
+		UrlPage body = pg.getBody();
+		if(body instanceof INotPassivatablePage || body instanceof INotReloadablePage)
+			return false;
+		ConversationContext cc = sdp.getConversation();
+		if(m_conversationMap.get(cc.getId()) != cc || cc.getState() != ConversationState.ATTACHED)
+			return false;
+		if(cc.findPage(body.getClass()) != pg)				// The conversation holds another instance of the page class
+			return false;
+		if(cc.isPollCallbackRequired())						// Asynchronous work may still need the page
+			return false;
+		return null != findRestoreConstructor(body.getClass(), cc);	// Must be possible to recreate it in its conversation
+	}
+
+	/**
+	 * Find the constructor to recreate a page in the specified conversation: the one the page would be
+	 * created with normally if that accepts the conversation, else one that explicitly accepts it.
+	 */
+	@Nullable
+	static private Constructor< ? extends UrlPage> findRestoreConstructor(@Nonnull Class< ? extends UrlPage> clz, @Nonnull ConversationContext cc) {
+		try {
+			Constructor< ? extends UrlPage> bestpc = PageMaker.getBestPageConstructor(clz, true);
+			if(PageMaker.getConversationType(bestpc).isAssignableFrom(cc.getClass()))
+				return bestpc;
+			return PageMaker.getPageConstructor(clz, cc.getClass(), true);
+		} catch(Exception x) {
+			return null;
+		}
+	}
+
+	/**
+	 * Rebuild a passivated page in its conversation. The page is created, injected and built like a page
+	 * inserted with {@link #insertShelveEntry(int, Class, IPageParameters)}, and it is left shelved: the caller
+	 * unshelves it when it becomes the current page.
+	 */
+	@Nonnull
+	Page internalRestorePage(@Nonnull ShelvedDomUIPage entry) throws Exception {
+		ConversationContext cc = entry.getConversation();
+		if(m_conversationMap.get(cc.getId()) != cc)
+			throw new IllegalStateException("The conversation of passivated page " + entry + " has been destroyed");
+		internalAttachConversations();
+		if(cc.getState() == ConversationState.DETACHED)			// Be very sure we're attached.
+			cc.internalAttach();
+
+		Class< ? extends UrlPage> clz = entry.getPageClass();
+		IPageParameters pp = entry.getPageParameters();
+		Constructor< ? extends UrlPage> bestpc = findRestoreConstructor(clz, cc);
+		if(null == bestpc)
+			throw new IllegalStateException("Cannot find a constructor to recreate passivated page " + entry);
+		Page prevpage = UIContext.internalGetPage();
+		try {
+			Page pg = PageMaker.createPageWithContent(bestpc, cc, pp);
+			getApplication().getInjector().injectPageValues(pg.getBody(), pp);
+			pg.setInjected(true);
+			UIContext.internalSet(pg);
+			pg.internalFullBuild();
+			callNewPageCreatedListeners(pg);
+			pg.internalShelve();
+			m_restoreCount++;
+			if(LOG.isDebugEnabled())
+				LOG.debug(this + ": restored passivated page " + pg);
+			return pg;
+		} finally {
+			UIContext.internalSet(prevpage);
+		}
+	}
+
+	private void updatePageCounts() {
+		int resident = 0;
+		int passivated = 0;
+		for(IShelvedEntry se : m_shelvedPageStack) {
+			if(se instanceof ShelvedDomUIPage) {
+				if(((ShelvedDomUIPage) se).isPassivated())
+					passivated++;
+				else
+					resident++;
+			}
+		}
+		m_residentPageCount = resident;
+		m_passivatedPageCount = passivated;
+	}
+
+	/**
+	 * Returns the highest usage of the heap memory pools after their last collection, as a percentage
+	 * of their maximum size. This ignores garbage that has not been collected yet.
+	 */
+	static private int getHeapUsageAfterGC() {
+		List<MemoryPoolMXBean> pools = m_heapPools;
+		if(null == pools) {
+			pools = new ArrayList<>();
+			for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if(pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported())
+					pools.add(pool);
+			}
+			m_heapPools = pools;
+		}
+
+		int pct = 0;
+		for(MemoryPoolMXBean pool : pools) {
+			MemoryUsage mu = pool.getCollectionUsage();
+			if(null != mu && mu.getMax() > 0)
+				pct = Math.max(pct, (int) (mu.getUsed() * 100 / mu.getMax()));
+		}
+		return pct;
+	}
+
+	/**
+	 * The #of DomUI pages on the shelve stack that have their page tree in memory, as of the end of the
+	 * last request. This includes the current page.
+	 */
+	public int getResidentPageCount() {
+		return m_residentPageCount;
+	}
+
+	/**
+	 * The #of DomUI pages on the shelve stack that have been passivated, as of the end of the last request.
+	 */
+	public int getPassivatedPageCount() {
+		return m_passivatedPageCount;
+	}
+
+	/**
+	 * The total #of times a shelved page has been passivated in this window.
+	 */
+	public int getPassivationCount() {
+		return m_passivationCount;
+	}
+
+	/**
+	 * The total #of times a passivated page has been rebuilt in this window.
+	 */
+	public int getRestoreCount() {
+		return m_restoreCount;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Server push.										*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Signals that something changed in one of this window's conversations that the browser should poll for,
+	 * like a completed or progressing asynchronous activity. This wakes up the browser's push wait, if present.
+	 * This can be called from any thread.
+	 */
+	public void internalSignalPush() {
+		synchronized(m_pushLock) {
+			m_pushSignalled = true;
+			m_pushLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Called when the browser polls for changes, before they are collected: anything signalled after this
+	 * is for the next poll.
+	 */
+	void internalClearPush() {
+		synchronized(m_pushLock) {
+			m_pushSignalled = false;
+		}
+	}
+
+	/**
+	 * Wait for a change to be signalled through {@link #internalSignalPush()}, for at most the specified #of
+	 * milliseconds. This returns immediately when a change was signalled after the last poll. A wait that is
+	 * still pending when a new wait for this window starts ends with {@link PushWaitResult#SUPERSEDED}.
+	 * This must be called without holding the session lock.
+	 */
+	@Nonnull
+	public PushWaitResult internalWaitForPush(long timeout) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeout;
+		synchronized(m_pushLock) {
+			int generation = ++m_pushWaitGeneration;
+			m_pushLock.notifyAll();								// Release any older wait
+			for(;;) {
+				if(m_pushSignalled)
+					return PushWaitResult.UPDATE;
+				if(generation != m_pushWaitGeneration)
+					return PushWaitResult.SUPERSEDED;
+				long left = end - System.currentTimeMillis();
+				if(left <= 0)
+					return PushWaitResult.TIMEOUT;
+				m_pushLock.wait(left);
+			}
+		}
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Developer mode save/restore state during reloads.	*/
 	/*--------------------------------------------------------------*/
@@ -1050,7 +1334,7 @@ final public class WindowSession {
 		for(IShelvedEntry se : m_shelvedPageStack) {
 			if(se instanceof ShelvedDomUIPage) {
 				ShelvedDomUIPage dp = (ShelvedDomUIPage) se;
-				res.add(new SavedPage(dp.getPage().getBody().getClass().getName(), dp.getPage().getPageParameters()));
+				res.add(new SavedPage(dp.getPageClassName(), dp.getPageParameters()));
 			}
 		}
 		return res;
@@ -25,6 +25,8 @@
 package to.etc.domui.util.janitor;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.slf4j.*;
 
@@ -34,7 +36,7 @@ import org.slf4j.*;
  *  applications. The janitor is started as a separate thread (by the
  *  ResourceBroker). It maintains a list of things-to-do, where each thing will
  *  be scheduled at a specified interval.
- *  Each janitor task will be scheduled in a separate thread. The max. number
+ *  Each janitor task runs on a thread from a small worker pool. The max. number
  *  of threads (janitor jobs) can be specified.
  *  As soon a job finishes it is rescheduled (if required) at the interval
  *  specified. Since rescheduling will only take place after the task has
@@ -42,12 +44,16 @@ import org.slf4j.*;
  *
  *
  *  Internals:
- *  The janitor has a #of job slots. Each slot can contain a single thread. All
- *  Janitor threads derive from JanitorThread, a local class. The janitor's task
- *  list contains task entries, containing an interval and a reference to some
- *  class and method.
+ *  The janitor has a #of job slots. Each slot runs a single task at a time, on a
+ *  pooled worker thread. All jobs are JanitorThread's, one per slot, which are
+ *  reused. The janitor's task map contains all task entries, containing an interval
+ *  and a reference to some class and method.
  *
- * 	The scheduler keeps all things to-do ordered by time-of-next-execution.
+ * 	Waiting tasks are kept on a hashed timing wheel with a tick of one millisecond:
+ * 	each task is linked into the bucket for its deadline tick, so scheduling and
+ * 	cancelling are O(1). The scheduler thread sleeps until the earliest deadline
+ * 	or until a task with an earlier deadline is added, then moves all expired tasks
+ * 	to the ready queue and starts them in free slots.
  */
 public class Janitor implements Runnable {
 	static private final Logger LOG = LoggerFactory.getLogger(Janitor.class);
@@ -61,6 +67,11 @@ public class Janitor implements Runnable {
 	/// Start phase: running.
 	static private final int jspRUN = 2;
 
+	/// The #of buckets in the timing wheel, a power of 2; at one tick per millisecond one revolution takes about a second.
+	static private final int WHEEL_SIZE = 1024;
+
+	static private final int WHEEL_MASK = WHEEL_SIZE - 1;
+
 	/// T if the janitor itself has started.
 	private int m_start_phase;
 
@@ -73,20 +84,48 @@ public class Janitor implements Runnable {
 	/// T if someone requested janitor termination.
 	private boolean m_termination_requested = false;
 
-	/// The CURRENTLY RUNNING job queue
+	/// The job slots; a slot is free when it is null or idle.
 	private JanitorThread[] m_job_ar;
 
 	/// The current #of RUNNING jobs
 	private int m_n_running;
 
-	/// Last time the SCHEDULER has run (jobs are running too long) in SECONDS
+	/// Last time the SCHEDULER has run, in millis
 	private long m_t_last_sched_run;
 
-	/// The last time that a thread slot was free IN SECONDS
-	private long m_t_freeslot;
+	/// All scheduled, ready or running tasks by their key.
+	private final Map<Integer, JanitorTask> m_task_map = new HashMap<Integer, JanitorTask>();
+
+	/// The timing wheel: each bucket is the head of a linked list of the tasks whose deadline tick maps to it. Only tasks due within a revolution after m_tick are on it, so a bucket holds the tasks of a single tick.
+	private final JanitorTask[] m_wheel = new JanitorTask[WHEEL_SIZE];
+
+	/// The tasks due more than a revolution after m_tick, by deadline. They move onto the wheel when they come within a revolution.
+	private final TreeSet<JanitorTask> m_overflow = new TreeSet<JanitorTask>(new Comparator<JanitorTask>() {
+		@Override
+		public int compare(JanitorTask a, JanitorTask b) {
+			if(a.m_t_deadline != b.m_t_deadline)
+				return a.m_t_deadline < b.m_t_deadline ? -1 : 1;
+			return Integer.compare(a.m_key, b.m_key);
+		}
+	});
+
+	/// The #of tasks on the wheel.
+	private int m_wheel_count;
+
+	/// The last tick that was handled by the scheduler.
+	private long m_tick;
+
+	/// The tick the scheduler thread sleeps until, or Long.MAX_VALUE when it waits for a task to be added.
+	private long m_t_wakeup = Long.MAX_VALUE;
+
+	/// The nanoTime of tick 0.
+	private final long m_t_base = System.nanoTime();
+
+	/// Tasks that are due, waiting for a free slot.
+	private final ArrayDeque<JanitorTask> m_ready_q = new ArrayDeque<JanitorTask>();
 
-	/// The list of assigned tasks, ordered on next-execution time.
-	private ArrayList<JanitorTask> m_task_v = new ArrayList<JanitorTask>();
+	/// The worker threads that run the jobs.
+	private final ThreadPoolExecutor m_pool;
 
 	/// Set by the janitor thread as soon as it starts running.
 	private boolean m_thread_isrunning = false;
@@ -94,6 +133,16 @@ public class Janitor implements Runnable {
 	public Janitor(int maxjobs) {
 		m_n_maxjobs = maxjobs;
 		m_job_ar = new JanitorThread[maxjobs];
+		final AtomicInteger count = new AtomicInteger();
+		m_pool = new ThreadPoolExecutor(maxjobs, maxjobs, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Jt" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		m_pool.allowCoreThreadTimeOut(true);
 	}
 
 
@@ -123,6 +172,18 @@ public class Janitor implements Runnable {
 		LOG.debug("Janitor: thread seems to run, life's good ;-) " + ct + ", " + m_thread_isrunning);
 	}
 
+	/**
+	 *	Stops the janitor thread and the job threads once they are idle. Running jobs complete, but no new
+	 *	jobs are started.
+	 */
+	public void stop() {
+		synchronized(this) {
+			m_termination_requested = true;
+			notifyAll();
+		}
+		m_pool.shutdown();
+	}
+
 
 	/**
 	 *	Returns the current time, in milliseconds, as returned from System.currentTimeMillis()
@@ -133,12 +194,11 @@ public class Janitor implements Runnable {
 		//		return (new Date()).getTime() / 1000;
 	}
 
-
 	/**
-	 *	Returns the current scheduler run's time.
+	 *	Returns the current scheduler tick, the #of millis since this janitor was created.
 	 */
-	private long getSchedTime() {
-		return m_t_last_sched_run;
+	private long currentTick() {
+		return (System.nanoTime() - m_t_base) / 1000000;
 	}
 
 
@@ -193,18 +253,18 @@ public class Janitor implements Runnable {
 	}
 
 	private synchronized void insertOrderedTask(JanitorTask jt) throws JanitorException {
-		if(m_task_v.contains(jt)) // Already in tables?
+		if(m_task_map.get(Integer.valueOf(jt.m_key)) == jt) // Already in tables?
 			throw new JanitorException(jt, "This task was ALREADY scheduled!!");
 		jt.m_key = m_tasknr++; // Assign an unique task number
-		insertOrdered(jt); // Insert into vector, ordered by execution time,
+		m_task_map.put(Integer.valueOf(jt.m_key), jt);
+		insertOrdered(jt); // Put on the wheel, at its execution time
 	}
 
 	/**
 	 *	Adds a task to the janitor's table. The task is to start at a given
-	 *  date/time(!) and runs only once. The date/time passed is only as
-	 *  accurate as the janitor's main loop allows!
+	 *  date/time(!) and runs only once.
 	 *  If the time that the task has to start is expired then the task IS
-	 *  posted and will execute the next time the janitor's main loop sees it.
+	 *  posted and will execute as soon as a job slot is free.
 	 */
 	public int addTaskAt(Date attime, String name, JanitorTask jt) throws Exception {
 		jt.m_j = this; // Set janitor,
@@ -222,37 +282,70 @@ public class Janitor implements Runnable {
 
 	public boolean cancelJob(int id) {
 		synchronized(this) {
-			for(JanitorTask task : m_task_v) {
-				if(task.m_key == id && !task.m_deleted) {
-					task.m_deleted = true;
-					m_task_v.remove(task);
-					return true;
-				}
-			}
+			JanitorTask task = m_task_map.remove(Integer.valueOf(id));
+			if(task == null || task.m_deleted)
+				return false;
+			task.m_deleted = true;
+			if(task.m_on_wheel || task.m_overflow)
+				unlink(task);
+			else if(task.m_ready)
+				m_ready_q.remove(task);
+			return true; // A running task is just not rescheduled.
 		}
-		return false;
 	}
 
 	/**
-	 *	Inserts the specified task into the to-do vector, at a position which
-	 *  represents its run time, so that vector(0) represents the FIRST task
-	 *  to become eigible to run etc.
-	 *  @todo inplement binary search/insert
+	 *	Puts the specified task on the timing wheel, in the bucket for its start
+	 *	time (m_t_next), or in the overflow set when it is due more than a revolution
+	 *	ahead. Wakes up the scheduler if the task is due before the time it sleeps until.
 	 */
 	private synchronized void insertOrdered(JanitorTask jt) {
-		//-- Locate an appropriate index (lazy - should use binary search)
-		for(int i = 0; i < m_task_v.size(); i++) // Eval all elements,
-		{
-			JanitorTask tjt = m_task_v.get(i);
-			if(jt.m_t_next < tjt.m_t_next) {
-				//-- New one has to execure before current: insert!!
-				m_task_v.add(i, jt); // Insert before CURRENT
-				return;
-			}
-		}
+		long delay = jt.m_t_next - getTime();
+		long deadline = currentTick() + (delay < 0 ? 0 : delay);
+		if(deadline <= m_tick)
+			deadline = m_tick + 1; // Bucket for m_tick has been handled already
+		jt.m_t_deadline = deadline;
+		if(deadline - m_tick > WHEEL_SIZE) {
+			jt.m_overflow = true;
+			m_overflow.add(jt);
+		} else
+			addToWheel(jt);
+
+		if(deadline < m_t_wakeup)
+			notifyAll();
+	}
 
-		//-- Insert as the last'un
-		m_task_v.add(jt); // Append at end
+	private void addToWheel(JanitorTask jt) {
+		int ix = (int) (jt.m_t_deadline & WHEEL_MASK);
+		JanitorTask head = m_wheel[ix];
+		jt.m_wheel_prev = null;
+		jt.m_wheel_next = head;
+		if(head != null)
+			head.m_wheel_prev = jt;
+		m_wheel[ix] = jt;
+		jt.m_on_wheel = true;
+		m_wheel_count++;
+	}
+
+	/**
+	 *	Removes a task from its timing wheel bucket, or from the overflow set.
+	 */
+	private void unlink(JanitorTask jt) {
+		if(jt.m_overflow) {
+			m_overflow.remove(jt);
+			jt.m_overflow = false;
+			return;
+		}
+		if(jt.m_wheel_prev != null)
+			jt.m_wheel_prev.m_wheel_next = jt.m_wheel_next;
+		else
+			m_wheel[(int) (jt.m_t_deadline & WHEEL_MASK)] = jt.m_wheel_next;
+		if(jt.m_wheel_next != null)
+			jt.m_wheel_next.m_wheel_prev = jt.m_wheel_prev;
+		jt.m_wheel_next = null;
+		jt.m_wheel_prev = null;
+		jt.m_on_wheel = false;
+		m_wheel_count--;
 	}
 
 
@@ -271,27 +364,30 @@ public class Janitor implements Runnable {
 	}
 
 	/**
-	 *	The main Janitor thread loop. It sleeps for a minute, then it runs
-	 *  the scheduler.
+	 *	The main Janitor thread loop. It runs the scheduler, then sleeps until
+	 *  the next task is due or until an earlier task is added.
 	 */
 	@Override
 	public void run() {
-		m_t_last_sched_run = getTime(); // Make sure time's correct
-		m_t_freeslot = m_t_last_sched_run;
-
 		synchronized(this) {
+			m_t_last_sched_run = getTime(); // Make sure time's correct
+			m_tick = currentTick();
 			m_start_phase = jspRUN;
 			m_thread_isrunning = true;
-			notify();
+			notifyAll();
 		}
 		LOG.debug("Janitor thread started - initializing");
 
 		try {
 			initialize();
 
-			while(!mustTerminate()) {
-				runSinglePass(); // Run a single time.
-				Thread.sleep(10000); // Sleep for a minute,
+			synchronized(this) {
+				while(!m_termination_requested) {
+					runSinglePass(); // Run a single time.
+					long wait = m_t_wakeup == Long.MAX_VALUE ? 0 : m_t_wakeup - currentTick();
+					if(m_t_wakeup == Long.MAX_VALUE || wait > 0)
+						wait(wait); // Sleep till the next task is due
+				}
 			}
 			terminialize();
 		} catch(Throwable t) {
@@ -305,51 +401,86 @@ public class Janitor implements Runnable {
 
 
 	/**
-	 *	Runs a single pass.
+	 *	Runs a single pass: moves all expired tasks to the ready queue, starts
+	 *  what can be started and calculates when to wake up next.
 	 */
-	private void runSinglePass() {
+	private synchronized void runSinglePass() {
 		try {
 			m_t_last_sched_run = getTime(); // Get scheduler run time,
-
-			if(!handleJobQueue()) // Check all finished stuff in the job queue.
-			{
-				//-- No slots... How long ago did the scheduler run?
-				if(m_t_freeslot - getSchedTime() > 10 * 60 * 1000) {
-					System.out.println("Janitor: No jobs have completed in 10 minutes; cannot schedule!!");
-					LOG.info("WARNING: NO JANITOR JOBS COMPLETED IN 10 MINUTES!!");
-				}
-			} else
-				m_t_freeslot = getSchedTime();
+			long now = currentTick();
+			expireTasks(now);
+			startReadyTasks();
+			m_t_wakeup = findNextDeadline(now);
 		} catch(Throwable x) {
 			LOG.warn("ERROR! Janitor exception catched: " + x.toString());
+			m_t_wakeup = currentTick() + 1000;
 		}
 	}
 
-
-	/*--------------------------------------------------------------*/
-	/*	CODING:	Job management										*/
-	/*--------------------------------------------------------------*/
 	/**
-	 *	Checks all running jobs for completion. All completed jobs are removed
-	 *  from the job table and -if required- are rescheduled. The routine returns
-	 *  T if there are job slots free.
+	 *	Handles all wheel buckets for the ticks after the last handled one up to now,
+	 *  and moves their expired tasks to the ready queue. When more than a
+	 *  revolution has passed every bucket is handled once. Then the overflow
+	 *  tasks that came within a revolution are moved onto the wheel.
 	 */
-	private boolean handleJobQueue() {
-		boolean hascompleted = false;
+	private void expireTasks(long now) {
+		long from = m_tick + 1;
+		if(now - m_tick > WHEEL_SIZE)
+			from = now - WHEEL_SIZE + 1;
+		for(long t = from; t <= now && m_wheel_count > 0; t++) {
+			JanitorTask jt = m_wheel[(int) (t & WHEEL_MASK)];
+			while(jt != null) {
+				JanitorTask next = jt.m_wheel_next;
+				if(jt.m_t_deadline <= now) {
+					unlink(jt);
+					jt.m_ready = true;
+					m_ready_q.add(jt);
+				}
+				jt = next;
+			}
+		}
+		if(now > m_tick)
+			m_tick = now;
+
+		while(!m_overflow.isEmpty()) {
+			JanitorTask jt = m_overflow.first();
+			if(jt.m_t_deadline - m_tick > WHEEL_SIZE)
+				break;
+			m_overflow.pollFirst();
+			jt.m_overflow = false;
+			if(jt.m_t_deadline <= now) {
+				jt.m_ready = true;
+				m_ready_q.add(jt);
+			} else
+				addToWheel(jt);
+		}
+	}
 
-		for(int i = 0; i < m_n_maxjobs; i++) {
-			if(handleJobSlot(i))
-				hascompleted = true;
+	/**
+	 *	Returns the earliest deadline of the scheduled tasks, or Long.MAX_VALUE
+	 *  if there are none. All tasks on the wheel are due within a revolution after
+	 *  now, so the first bucket that is not empty holds the earliest tasks, and no
+	 *  task needs to be looked at. The overflow tasks are all due later.
+	 */
+	private long findNextDeadline(long now) {
+		if(m_wheel_count > 0) {
+			for(int k = 1; k <= WHEEL_SIZE; k++) {
+				if(m_wheel[(int) ((now + k) & WHEEL_MASK)] != null)
+					return now + k;
+			}
 		}
-		return hascompleted;
+		return m_overflow.isEmpty() ? Long.MAX_VALUE : m_overflow.first().m_t_deadline;
 	}
 
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Job management										*/
+	/*--------------------------------------------------------------*/
 	/**
-	 *	Marks a job as complete, frees the job slot, and reschedules the task if
-	 *  appropriate.
+	 *	Marks a job as complete, frees the job slot, reschedules the task if
+	 *  appropriate and starts the next ready task in the slot.
 	 */
-	private void jobCompleted(JanitorThread jtd) {
+	void jobCompleted(JanitorThread jtd) {
 		synchronized(this) {
 			m_n_running--;
 			jtd.setState(JanitorThread.jtfIDLE); // Slot is free
@@ -359,46 +490,32 @@ public class Janitor implements Runnable {
 			jtd.m_jt = null; // Slot is FREE!
 			jt.m_run_slot = -1; // Not running in slot!
 
-			m_task_v.remove(jt); // Remove task from queue,
 			if(!jt.m_deleted && jt.m_t_interval != -1) // Not removed and not single-pass?
 			{
 				jt.calcNextStartTime(); // Calculate next time-to-start,
-				insertOrdered(jt); // Insert into vector, ordered by execution time,
-			}
+				insertOrdered(jt); // Put on the wheel at its execution time,
+			} else
+				m_task_map.remove(Integer.valueOf(jt.m_key));
+			startReadyTasks();
 		}
 	}
 
 
 	/**
-	 *	Checks to see if the given slot's job has completed, or is empty. This
-	 *  reschedules completed tasks, and schedules a new task for empty slots.
-	 *  The routine returns T if this slot was empty or complete.
+	 *	Starts ready tasks in free job slots, until all slots are used.
 	 */
-	private boolean handleJobSlot(int sn) {
-		//		System.out.println("SCHED: Handling job slot "+sn);
-
-		JanitorThread jtd = m_job_ar[sn];
-		if(jtd != null) // Is the slot occupied?
-		{
-			if(jtd.hasState(JanitorThread.jtfRUNNING))// Entry has completed?
-				return false; // No - slot not available!
-
-			//-- Ok: do we need to clean up?
-			if(jtd.hasState(JanitorThread.jtfTERM)) // Has just terminated?
-			{
-				//-- This has completed. Make the slot available.
-				jobCompleted(jtd); // Complete this
-			}
-		}
-
-		//-- When here the current job slot is FREE- can a task be found to fill it?
-		JanitorTask jt;
-		synchronized(this) {
-			jt = getRunnableTask(); // Find an available task
-			if(jt == null)
-				return true; // No task - exit with slot available
-
-			//-- Schedule this task to run in this slot,
+	private void startReadyTasks() {
+		while(m_n_running < m_n_maxjobs && !m_ready_q.isEmpty() && !m_termination_requested) {
+			JanitorTask jt = m_ready_q.poll();
+			jt.m_ready = false;
+			if(jt.m_deleted || jt.m_unrunnable)
+				continue;
+
+			//-- Find a free slot
+			int sn = 0;
+			while(m_job_ar[sn] != null && !m_job_ar[sn].hasState(JanitorThread.jtfIDLE))
+				sn++;
+			JanitorThread jtd = m_job_ar[sn];
 			if(jtd == null) // Get a job structure,
 			{
 				jtd = new JanitorThread(this, sn);
@@ -407,48 +524,15 @@ public class Janitor implements Runnable {
 
 			//-- Assign.
 			jtd.assignTask(jt); // Assign this to the thread,
-			//			System.out.println("SCHEDULING: "+jt.m_taskname+" in slot "+sn);
-
 			m_n_running++;
+			m_pool.execute(jtd);
 		}
-
-		//-- When here we have to start a thread for the thing.
-		Thread t = new Thread(jtd, "Jt:" + jt.m_taskname);
-		t.start();
-		return true;
-	}
-
-
-	/*--------------------------------------------------------------*/
-	/*	CODING:	Scheduler.											*/
-	/*--------------------------------------------------------------*/
-	/**
-	 *	Scans the task table to find the 1st job to run. If no job is runnable
-	 *  it returns null.
-	 */
-	private JanitorTask getRunnableTask() {
-		long ct = getSchedTime(); // Get current scheduler runtime,
-
-		synchronized(this) // While traversing task table
-		{
-			for(JanitorTask jt : m_task_v) {
-				if(ct < jt.m_t_next) // This task must start LATER -> end!!!
-					return null; // Nothing to start YET
-
-				//-- This MAY run as far as time is concerned..
-				if(!jt.m_deleted && !jt.m_unrunnable && jt.m_run_slot == -1) {
-					//-- This is a runnable job AND it doesn't run already ;-)
-					return jt;
-				}
-			}
-		}
-		return null;
 	}
 
 	/**
-	 *	Returns the last scheduler's run timestamp. This is a VERY fast way of
-	 *  obtaining time - without incurring the cost of a system call! This
-	 *  time gets updated once a minute.
+	 *	Returns the last scheduler's run timestamp. The scheduler runs whenever
+	 *  a task is due, so when nothing is due this can be old; use getTime()
+	 *  for the current time.
 	 */
 	public long getTimeStamp() {
 		if(!m_thread_isrunning)
@@ -59,6 +59,23 @@ abstract public class JanitorTask {
 	/** T if this task is unrunnable (too many exceptions) */
 	protected boolean m_unrunnable = false;
 
+	/** The janitor's scheduler tick at which this task is due, while it is on the timing wheel. */
+	long m_t_deadline;
+
+	/** The next and previous task in the same timing wheel bucket. */
+	JanitorTask m_wheel_next;
+
+	JanitorTask m_wheel_prev;
+
+	/** T while this task is on the timing wheel. */
+	boolean m_on_wheel;
+
+	/** T while this task is due more than a wheel revolution ahead, in the janitor's overflow set. */
+	boolean m_overflow;
+
+	/** T while this task is due, waiting for a free job slot. */
+	boolean m_ready;
+
 	public JanitorTask() {}
 
 	/** The function-to-override. */
@@ -27,7 +27,8 @@ package to.etc.domui.util.janitor;
 import java.util.*;
 
 /**
- *	Encapsulates a single job spawned by the janitor.
+ *	Encapsulates a single job slot of the janitor. It runs the task assigned
+ *  to it on one of the janitor's pooled worker threads.
  */
 public class JanitorThread implements Runnable {
 	/** Idle and available for a job */
@@ -98,6 +99,9 @@ public class JanitorThread implements Runnable {
 		m_j.logTask(this, "Task started..");
 		setState(jtfRUNNING);
 
+		Thread t = Thread.currentThread();
+		String name = t.getName();
+		t.setName("Jt:" + m_jt.m_taskname);
 		try {
 			Date d = new Date();
 			m_jt.run(); // Run the task,
@@ -109,10 +113,12 @@ public class JanitorThread implements Runnable {
 		} finally {
 			//-- Discard any connections used by this thread
 			//			PoolManager.getInstance().closeThreadConnections();
-		}
+			t.setName(name);
 
-		//-- Task terminated.
-		setState(jtfTERM);
+			//-- Task terminated; free the job slot even when the task threw an Error.
+			setState(jtfTERM);
+			m_j.jobCompleted(this);
+		}
 	}
 
 
@@ -56,4 +56,23 @@ final public class ResourceDependencies implements IIsModified {
 		}
 		return false;
 	}
+
+	/**
+	 * Return the most recent modification time of all dependencies, or -1 if that is unknown because
+	 * there are no dependencies or because some of them are not timestamped resources.
+	 * @return
+	 */
+	public long getLastModified() {
+		long res = -1;
+		for(IIsModified m : m_deplist) {
+			if(!(m instanceof ResourceTimestamp))
+				return -1;
+			long ts = ((ResourceTimestamp) m).getTimestamp();
+			if(ts <= 0)
+				return -1;
+			if(ts > res)
+				res = ts;
+		}
+		return res;
+	}
 }
@@ -55,6 +55,14 @@ final public class ResourceTimestamp implements IIsModified {
 		return m_ref;
 	}
 
+	/**
+	 * The last-modified time of the resource at the time it was used.
+	 * @return
+	 */
+	public long getTimestamp() {
+		return m_ts;
+	}
+
 	@Override
 	public String toString() {
 		return m_ref.toString();
@@ -136,6 +136,88 @@ $(window).bind('beforeunload', function() {
 	}
 	;
 
+	/*
+	 * Convert a JSON encoded delta (see JsonDeltaOutputWriter) to an object that behaves like the
+	 * XML document for the delta. Elements are arrays [tagname, {attributes}?, content...], text is
+	 * a string and raw xml fragments are an object {x: fragment}. Tag and attribute names are sent
+	 * once; every later use is the index of the name in order of appearance.
+	 */
+	function convertJson(json) {
+		return { documentElement: jsonElement(json, []) };
+	}
+
+	function jsonName(n, names) {
+		if (typeof n == 'number' || /^\d+$/.test(n))
+			return names[+n];
+		names.push(n);
+		return n;
+	}
+
+	function jsonElement(json, names) {
+		var tagName = jsonName(json[0], names);
+		var attrs = [], attrMap = {}, children = [];
+		var ix = 1;
+		if (json.length > 1 && json[1] !== null && typeof json[1] == 'object' && !$.isArray(json[1]) && json[1].x === undefined) {
+			var am = json[1];
+			for (var key in am) {
+				if (am.hasOwnProperty(key)) {
+					var name = jsonName(key, names);
+					attrs.push({name: name, value: am[key]});
+					attrMap[name] = am[key];
+				}
+			}
+			ix = 2;
+		}
+		for (; ix < json.length; ix++) {
+			var c = json[ix];
+			if (typeof c == 'string')
+				children.push(jsonText(c));
+			else if ($.isArray(c))
+				children.push(jsonElement(c, names));
+			else
+				jsonRaw(c.x, children);
+		}
+		var node = {
+			nodeType: 1,
+			tagName: tagName,
+			attributes: attrs,
+			childNodes: children,
+			firstChild: children.length > 0 ? children[0] : null,
+			getAttribute: function(n) {
+				var v = attrMap[n];
+				return v === undefined ? null : v;
+			}
+		};
+		var textFn = function() {
+			var res = "";
+			for (var i = 0; i < children.length; i++) {
+				var ch = children[i];
+				res += (ch.nodeType == 1 ? ch.textContent : ch.nodeValue);
+			}
+			return res;
+		};
+		Object.defineProperty(node, 'textContent', {get: textFn});
+		Object.defineProperty(node, 'text', {get: textFn});
+		return node;
+	}
+
+	function jsonText(s) {
+		return {nodeType: 3, nodeValue: s, textContent: s, text: s};
+	}
+
+	function jsonRaw(s, children) {
+		if (s.indexOf('<') < 0 && s.indexOf('&') < 0) {
+			children.push(jsonText(s));
+			return;
+		}
+		var doc = convert('<r>' + s + '</r>');
+		if (!doc)
+			return;
+		var nl = doc.documentElement.childNodes;
+		for (var i = 0; i < nl.length; i++)
+			children.push(nl[i]);
+	}
+
 	function go(xml) {
 		if(xml === "") {
 			window.location.href = window.location.href;
@@ -146,7 +228,11 @@ $(window).bind('beforeunload', function() {
 			wrap :1
 		};
 
-		if (typeof xml == 'string')
+		if (typeof xml == 'string' && xml.charAt(0) == '[')
+			xml = JSON.parse(xml);
+		if ($.isArray(xml))
+			xml = convertJson(xml);
+		else if (typeof xml == 'string')
 			xml = convert(xml);
 		if (!xml || !xml.documentElement) {
 			log('Invalid document');
@@ -701,6 +787,22 @@ $.extend(WebUI, {
 	 */
 	_pollInterval: 2500,
 
+	/**
+	 * Set by startPolling: when > 0 the page waits for a server push for at most this #of millis instead of polling every _pollInterval.
+	 */
+	_pushWait: 0,
+
+	/** The pending push wait request, if any. */
+	_pushRequest: null,
+
+	/** Set when a push wait failed; the page then falls back to polling at _pollInterval. */
+	_pushFailed: false,
+
+	/** The time of the last poll, used to keep pushed updates at least _pushMinInterval apart. */
+	_lastPoll: 0,
+
+	_pushMinInterval: 500,
+
 	/**
 	 * When this is > 0, this keeps any page "alive" by sending an async
 	 */
@@ -2027,26 +2129,81 @@ $.extend(WebUI, {
 	},
 
 	/** *************** Polling code ************* */
-	startPolling : function(interval) {
+	startPolling : function(interval, pushWait) {
 		if(interval < 100 || interval == undefined || interval == null) {
 			alert("Bad interval: "+interval);
 			return;
 		}
 		WebUI._pollInterval = interval;
+		WebUI._pushWait = pushWait || 0;
 		if (WebUI._pollActive)
 			return;
 		WebUI._pollActive = true;
-		WebUI._pollTimer = setTimeout("WebUI.poll()", WebUI._pollInterval);
+		if(WebUI._pushWait > 0 && !WebUI._pushFailed)
+			WebUI.waitForPush();
+		else
+			WebUI._pollTimer = setTimeout("WebUI.poll()", WebUI._pollInterval);
 	},
 	cancelPolling : function() {
 		if (!WebUI._pollActive)
 			return;
 		clearTimeout(WebUI._pollTimer);
 		WebUI._pollActive = false;
+		if(WebUI._pushRequest) {
+			var rq = WebUI._pushRequest;
+			WebUI._pushRequest = null;
+			rq.abort();
+		}
+	},
+
+	/**
+	 * Wait for the server to tell us that something changed, then poll for the changes. If the wait fails
+	 * we fall back to polling at the poll interval.
+	 */
+	waitForPush : function() {
+		var fields = new Object();
+		fields["$pt"] = DomUIpageTag;
+		fields["$cid"] = DomUICID;
+		fields.wait = WebUI._pushWait;
+		var rq = $.ajax( {
+			url: DomUIappURL + "to.etc.domui.parts.PushWait.part",
+			dataType: "text",
+			data: fields,
+			cache: false,
+			global: false,
+			timeout: WebUI._pushWait + 30000,
+			success: function(data) {
+				if(WebUI._pushRequest !== rq)
+					return;
+				WebUI._pushRequest = null;
+				if(data == "superseded")
+					return;
+				if(data == "busy") {
+					WebUI._pollTimer = setTimeout("WebUI.poll()", WebUI._pollInterval);
+					return;
+				}
+
+				//-- Do not poll more often than _pushMinInterval, even if the server has updates all the time.
+				var delay = WebUI._lastPoll + WebUI._pushMinInterval - new Date().getTime();
+				if(delay > 0)
+					WebUI._pollTimer = setTimeout("WebUI.poll()", delay);
+				else
+					WebUI.poll();
+			},
+			error: function() {
+				if(WebUI._pushRequest !== rq)
+					return;
+				WebUI._pushRequest = null;
+				WebUI._pushFailed = true;
+				WebUI._pollTimer = setTimeout("WebUI.poll()", WebUI._pollInterval);
+			}
+		});
+		WebUI._pushRequest = rq;
 	},
 
 	poll : function() {
 		WebUI.cancelPolling();
+		WebUI._lastPoll = new Date().getTime();
 
 		/*
 		 * Issue a pollasy request using ajax, then handle the result.
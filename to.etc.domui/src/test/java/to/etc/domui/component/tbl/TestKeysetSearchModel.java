@@ -0,0 +1,307 @@
+package to.etc.domui.component.tbl;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+import to.etc.domui.component.meta.*;
+import to.etc.webapp.qsql.*;
+import to.etc.webapp.query.*;
+import to.etc.webapp.testsupport.*;
+
+/**
+ * Pages through a list with {@link KeysetSearchModel} and checks that the pages are the same as the slices
+ * of the full, ordered result, and that pages are found through keyset restrictions and not through offsets.
+ * The queries are executed in memory by a stub data context.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestKeysetSearchModel {
+	static private final int ROWS = 95;
+
+	@QJdbcTable(table = "keyset_rows")
+	static public class KeysetRow {
+		private Long m_id;
+
+		private String m_name;
+
+		private Integer m_grp;
+
+		private String m_remark;
+
+		private Integer m_code;
+
+		public KeysetRow() {}
+
+		public KeysetRow(long id, String name, int grp, String remark, Integer code) {
+			m_id = Long.valueOf(id);
+			m_name = name;
+			m_grp = Integer.valueOf(grp);
+			m_remark = remark;
+			m_code = code;
+		}
+
+		@QJdbcId
+		@QJdbcColumn(name = "id", nullable = false)
+		public Long getId() {
+			return m_id;
+		}
+
+		public void setId(Long id) {
+			m_id = id;
+		}
+
+		@MetaProperty(required = YesNoType.YES)
+		@QJdbcColumn(name = "name", length = 40, nullable = false)
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			m_name = name;
+		}
+
+		@MetaProperty(required = YesNoType.YES)
+		@QJdbcColumn(name = "grp", nullable = false)
+		public Integer getGrp() {
+			return m_grp;
+		}
+
+		public void setGrp(Integer grp) {
+			m_grp = grp;
+		}
+
+		@QJdbcColumn(name = "remark", length = 40)
+		public String getRemark() {
+			return m_remark;
+		}
+
+		public void setRemark(String remark) {
+			m_remark = remark;
+		}
+
+		/**
+		 * Declared as required, but holding nulls like a column that was made mandatory after the fact.
+		 */
+		@MetaProperty(required = YesNoType.YES)
+		@QJdbcColumn(name = "code", nullable = false)
+		public Integer getCode() {
+			return m_code;
+		}
+
+		public void setCode(Integer code) {
+			m_code = code;
+		}
+	}
+
+	/**
+	 * Executes criteria and selections on the row list, and counts what was asked. Nulls sort after all
+	 * values, like they do in Oracle, PostgreSQL and Derby.
+	 */
+	static private class MemoryContext extends TestDataContextStub {
+		static private final List<KeysetRow> m_rows = new ArrayList<KeysetRow>();
+
+		static {
+			for(int i = 0; i < ROWS; i++)
+				m_rows.add(new KeysetRow(i, "name " + (1000 + (i * 37) % ROWS), i % 7, i % 5 == 0 ? null : "remark " + (i * 13) % 20, i % 4 == 0 ? null : Integer.valueOf((i * 7) % 30)));
+		}
+
+		static int m_offsetCount;
+
+		static int m_entityCount;
+
+		@Nonnull
+		static private List<KeysetRow> select(@Nonnull QCriteriaQueryBase<KeysetRow> q) throws Exception {
+			QCriteria<KeysetRow> qc = QCriteria.create(KeysetRow.class);
+			qc.mergeCriteria(q);
+			List<KeysetRow> res = MetaManager.filter(m_rows, qc);
+			final ClassMetaModel cmm = MetaManager.findClassMeta(KeysetRow.class);
+			final List<QOrder> order = q.getOrder();
+			Collections.sort(res, new Comparator<KeysetRow>() {
+				@Override
+				public int compare(KeysetRow a, KeysetRow b) {
+					try {
+						for(QOrder o : order) {
+							PropertyMetaModel< ? > pmm = cmm.getProperty(o.getProperty());
+							Comparable<Object> va = (Comparable<Object>) pmm.getValue(a);
+							Object vb = pmm.getValue(b);
+							int rc;
+							if(va == null)
+								rc = vb == null ? 0 : 1;
+							else if(vb == null)
+								rc = -1;
+							else
+								rc = va.compareTo(vb);
+							if(rc != 0)
+								return o.getDirection() == QSortOrderDirection.DESC ? -rc : rc;
+						}
+						return 0;
+					} catch(Exception x) {
+						throw new RuntimeException(x);
+					}
+				}
+			});
+			if(q.getStart() > 0) {
+				m_offsetCount++;
+				res = res.subList(Math.min(q.getStart(), res.size()), res.size());
+			}
+			if(q.getLimit() > 0 && res.size() > q.getLimit())
+				res = res.subList(0, q.getLimit());
+			return res;
+		}
+
+		@Override
+		@Nonnull
+		public <T> List<T> query(@Nonnull QCriteria<T> q) throws Exception {
+			List<KeysetRow> res = select((QCriteria<KeysetRow>) q);
+			m_entityCount += res.size();
+			return (List<T>) res;
+		}
+
+		@Override
+		@Nonnull
+		public List<Object[]> query(@Nonnull QSelection< ? > sel) throws Exception {
+			List<KeysetRow> rows = select((QSelection<KeysetRow>) sel);
+			ClassMetaModel cmm = MetaManager.findClassMeta(KeysetRow.class);
+			List<Object[]> res = new ArrayList<Object[]>();
+			List<QSelectionColumn> cols = sel.getColumnList();
+			if(cols.size() == 1 && cols.get(0).getItem().getFunction() == QSelectionFunction.COUNT) {
+				res.add(new Object[]{Long.valueOf(rows.size())});
+				return res;
+			}
+			for(KeysetRow r : rows) {
+				Object[] row = new Object[cols.size()];
+				for(int i = 0; i < row.length; i++)
+					row[i] = cmm.getProperty(((QPropertySelection) cols.get(i).getItem()).getProperty()).getValue(r);
+				res.add(row);
+			}
+			return res;
+		}
+
+		@Override
+		public Object[] queryOne(@Nonnull QSelection< ? > sel) throws Exception {
+			List<Object[]> res = query(sel);
+			return res.size() == 0 ? null : res.get(0);
+		}
+	}
+
+	@Before
+	public void resetCounts() {
+		MemoryContext.m_offsetCount = 0;
+		MemoryContext.m_entityCount = 0;
+	}
+
+	@Nonnull
+	static private KeysetSearchModel<KeysetRow> createModel(@Nonnull QCriteria<KeysetRow> q) {
+		return new KeysetSearchModel<KeysetRow>(new IQDataContextSource() {
+			@Override
+			@Nonnull
+			public QDataContext getDataContext() throws Exception {
+				return new MemoryContext();
+			}
+		}, q);
+	}
+
+	@Nonnull
+	static private List<Long> queryIds(@Nonnull QCriteria<KeysetRow> q) throws Exception {
+		return ids(MemoryContext.select(q));
+	}
+
+	@Nonnull
+	static private List<Long> ids(@Nonnull List<KeysetRow> list) {
+		List<Long> res = new ArrayList<Long>();
+		for(KeysetRow r : list)
+			res.add(r.getId());
+		return res;
+	}
+
+	@Test
+	public void testSequentialPages() throws Exception {
+		List<Long> expected = queryIds(QCriteria.create(KeysetRow.class).descending("grp").ascending("id"));
+		KeysetSearchModel<KeysetRow> model = createModel(QCriteria.create(KeysetRow.class).descending("grp"));
+		model.setCountMode(KeysetSearchModel.CountMode.EXACT);
+		Assert.assertEquals(ROWS, model.getRows());
+		Assert.assertFalse(model.isTruncated());
+
+		List<Long> all = new ArrayList<Long>();
+		for(int start = 0; start < model.getRows(); start += 10)
+			all.addAll(ids(model.getItems(start, start + 10)));
+		Assert.assertEquals(expected, all);
+
+		//-- Going back uses the remembered page ends.
+		Assert.assertEquals(expected.subList(20, 30), ids(model.getItems(20, 30)));
+		Assert.assertEquals(0, MemoryContext.m_offsetCount);
+		Assert.assertEquals(ROWS + 10, MemoryContext.m_entityCount);
+	}
+
+	@Test
+	public void testJumpToPage() throws Exception {
+		List<Long> expected = queryIds(QCriteria.create(KeysetRow.class).ascending("name").ascending("id").gt("grp", 1L));
+		KeysetSearchModel<KeysetRow> model = createModel(QCriteria.create(KeysetRow.class).ascending("name").gt("grp", 1L));
+		model.setCountMode(KeysetSearchModel.CountMode.EXACT);
+		Assert.assertEquals(expected.size(), model.getRows());
+		Assert.assertEquals(expected.subList(50, 60), ids(model.getItems(50, 60)));
+		Assert.assertEquals(expected.subList(30, 40), ids(model.getItems(30, 40)));
+		Assert.assertEquals(expected.subList(60, expected.size()), ids(model.getItems(60, 70)));
+		Assert.assertEquals(0, MemoryContext.m_offsetCount);
+		Assert.assertEquals(20 + expected.size() - 60, MemoryContext.m_entityCount);
+	}
+
+	@Test
+	public void testLimitedCount() throws Exception {
+		KeysetSearchModel<KeysetRow> model = createModel(QCriteria.create(KeysetRow.class));
+		model.setMaxRowCount(40);
+		Assert.assertEquals(40, model.getRows());
+		Assert.assertTrue(model.isTruncated());
+		Assert.assertEquals(0, model.getItems(40, 50).size());
+
+		model.setMaxRowCount(200);
+		Assert.assertEquals(ROWS, model.getRows());
+		Assert.assertFalse(model.isTruncated());
+	}
+
+	/**
+	 * Rows with a null in a property that is not required would be skipped by keyset restrictions, so these are paged with offsets.
+	 */
+	@Test
+	public void testNullableSortUsesOffsets() throws Exception {
+		List<Long> expected = queryIds(QCriteria.create(KeysetRow.class).ascending("remark").ascending("id"));
+		KeysetSearchModel<KeysetRow> model = createModel(QCriteria.create(KeysetRow.class).ascending("remark"));
+		model.setCountMode(KeysetSearchModel.CountMode.EXACT);
+		Assert.assertEquals(ROWS, model.getRows());
+
+		List<Long> all = new ArrayList<Long>();
+		for(int start = 0; start < model.getRows(); start += 10)
+			all.addAll(ids(model.getItems(start, start + 10)));
+		Assert.assertEquals(expected, all);
+		Assert.assertEquals(expected.subList(70, 80), ids(model.getItems(70, 80)));
+		Assert.assertTrue(MemoryContext.m_offsetCount > 0);
+	}
+
+	/**
+	 * When an anchor has a null anyway the rows after it are skipped with an offset, but still with the restrictions and the order.
+	 */
+	@Test
+	public void testNullAnchorSkipsInOrder() throws Exception {
+		List<Long> expected = queryIds(QCriteria.create(KeysetRow.class).descending("code").ascending("id").gt("grp", 0L));
+		KeysetSearchModel<KeysetRow> model = createModel(QCriteria.create(KeysetRow.class).descending("code").gt("grp", 0L));
+		model.setCountMode(KeysetSearchModel.CountMode.EXACT);
+		Assert.assertEquals(expected.size(), model.getRows());
+		Assert.assertEquals(expected.subList(0, 5), ids(model.getItems(0, 5)));		// Ends in the nulls, which sort first
+		Assert.assertEquals(expected.subList(40, 50), ids(model.getItems(40, 50)));
+		Assert.assertEquals(expected.subList(50, 60), ids(model.getItems(50, 60)));
+	}
+
+	@Test
+	public void testSortOn() throws Exception {
+		KeysetSearchModel<KeysetRow> model = createModel(QCriteria.create(KeysetRow.class).ascending("id"));
+		Assert.assertEquals(queryIds(QCriteria.create(KeysetRow.class).ascending("id")).subList(10, 20), ids(model.getItems(10, 20)));
+
+		model.sortOn("name", true);
+		List<Long> expected = queryIds(QCriteria.create(KeysetRow.class).descending("name").ascending("id"));
+		Assert.assertEquals(expected.subList(0, 10), ids(model.getItems(0, 10)));
+		Assert.assertEquals(expected.subList(10, 20), ids(model.getItems(10, 20)));
+	}
+}
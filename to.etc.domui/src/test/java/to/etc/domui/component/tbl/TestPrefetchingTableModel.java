@@ -0,0 +1,171 @@
+package to.etc.domui.component.tbl;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+import to.etc.domui.state.*;
+
+/**
+ * Checks that {@link PrefetchingTableModel} serves the next page from the prefetch, waits for a running
+ * prefetch, and discards prefetched rows when the wrapped model changes.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPrefetchingTableModel {
+	/**
+	 * A model of the numbers 0..rows-1 that counts the getItems calls, and can block them.
+	 */
+	static private class CountingModel extends TableModelBase<Integer> {
+		final private int m_rows;
+
+		int m_queryCount;
+
+		@Nullable
+		CountDownLatch m_block;
+
+		CountingModel(int rows) {
+			m_rows = rows;
+		}
+
+		@Override
+		protected Integer getItem(int ix) throws Exception {
+			return Integer.valueOf(ix);
+		}
+
+		@Nonnull
+		@Override
+		public List<Integer> getItems(int start, int end) throws Exception {
+			CountDownLatch block = m_block;
+			if(null != block)
+				block.await();
+			m_queryCount++;
+			List<Integer> res = new ArrayList<Integer>();
+			for(int i = start; i < end && i < m_rows; i++)
+				res.add(Integer.valueOf(i));
+			return res;
+		}
+
+		@Override
+		public int getRows() throws Exception {
+			return m_rows;
+		}
+	}
+
+	static private void assertRange(int start, int end, @Nonnull List<Integer> list) {
+		Assert.assertEquals(end - start, list.size());
+		for(int i = 0; i < list.size(); i++)
+			Assert.assertEquals(start + i, list.get(i).intValue());
+	}
+
+	@Test
+	public void testNextPageIsPrefetched() throws Exception {
+		CountingModel cm = new CountingModel(45);
+		PrefetchingTableModel<Integer> pm = new PrefetchingTableModel<Integer>(cm, Runnable::run);
+		for(int start = 0; start < 45; start += 10)
+			assertRange(start, Math.min(start + 10, 45), pm.getItems(start, start + 10));
+		assertRange(40, 45, pm.getItems(40, 50));				// Asking for the current page again is not a miss
+
+		Assert.assertEquals(5, cm.m_queryCount);
+		Assert.assertEquals(1, pm.getMissCount());
+		Assert.assertEquals(4, pm.getHitCount());
+		Assert.assertEquals(4, pm.getPrefetchCount());
+		Assert.assertEquals(0, pm.getDiscardCount());
+		Assert.assertEquals(80.0, pm.getHitRate(), 0.001);
+
+		//-- Jumping somewhere else is a miss, and discards the prefetch of the page after 0..10 that was not needed.
+		assertRange(0, 10, pm.getItems(0, 10));
+		assertRange(20, 30, pm.getItems(20, 30));
+		Assert.assertEquals(3, pm.getMissCount());
+		Assert.assertEquals(1, pm.getDiscardCount());
+	}
+
+	@Test
+	public void testModelChangeDiscards() throws Exception {
+		CountingModel cm = new CountingModel(100);
+		PrefetchingTableModel<Integer> pm = new PrefetchingTableModel<Integer>(cm, Runnable::run);
+		pm.setPrefetchSize(20);
+		final int[] changes = new int[1];
+		pm.addChangeListener(new ITableModelListener<Integer>() {
+			@Override
+			public void rowAdded(@Nonnull ITableModel<Integer> model, int index, @Nonnull Integer value) throws Exception {}
+
+			@Override
+			public void rowDeleted(@Nonnull ITableModel<Integer> model, int index, @Nonnull Integer value) throws Exception {}
+
+			@Override
+			public void rowModified(@Nonnull ITableModel<Integer> model, int index, @Nonnull Integer value) throws Exception {}
+
+			@Override
+			public void modelChanged(@Nullable ITableModel<Integer> model) throws Exception {
+				changes[0]++;
+			}
+		});
+
+		pm.getItems(0, 10);
+		cm.fireModelChanged();
+		Assert.assertEquals(1, changes[0]);
+		assertRange(10, 30, pm.getItems(10, 30));
+		Assert.assertEquals(2, pm.getMissCount());
+		Assert.assertEquals(0, pm.getHitCount());
+		Assert.assertEquals(1, pm.getDiscardCount());
+		assertRange(30, 50, pm.getItems(30, 50));
+		Assert.assertEquals(1, pm.getHitCount());
+	}
+
+	@Test
+	public void testWaitForRunningPrefetch() throws Exception {
+		CountingModel cm = new CountingModel(100);
+		BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<Runnable>();
+		PrefetchingTableModel<Integer> pm = new PrefetchingTableModel<Integer>(cm, tasks::add);
+		assertRange(0, 10, pm.getItems(0, 10));
+		Assert.assertEquals(1, tasks.size());
+
+		//-- Run the prefetch of 10..20 on another thread, blocked in the query until the request for it is waiting.
+		CountDownLatch block = cm.m_block = new CountDownLatch(1);
+		Thread runner = new Thread(tasks.take());
+		runner.start();
+		FutureTask<List<Integer>> request = new FutureTask<List<Integer>>(() -> pm.getItems(10, 20));
+		Thread requester = new Thread(request);
+		requester.start();
+		while(requester.getState() != Thread.State.WAITING) {		// The only wait is the one for the running prefetch
+			Assert.assertTrue("The request did not wait for the prefetch", requester.isAlive());
+			Thread.yield();
+		}
+		cm.m_block = null;
+		block.countDown();
+		assertRange(10, 20, request.get(10, TimeUnit.SECONDS));
+		runner.join();
+		Assert.assertEquals(1, pm.getWaitCount());
+		Assert.assertEquals(0, pm.getHitCount());
+		Assert.assertEquals(2, cm.m_queryCount);
+
+		//-- A prefetch that is discarded before it runs does not query.
+		Assert.assertEquals(1, tasks.size());
+		cm.fireModelChanged();
+		tasks.take().run();
+		Assert.assertEquals(2, cm.m_queryCount);
+	}
+
+	/**
+	 * A wrapper for the same table replaces the previous one in the conversation, and a closed wrapper is released.
+	 */
+	@Test
+	public void testConversationBinding() throws Exception {
+		ConversationContext cc = new ConversationContext();
+		String name = PrefetchingTableModel.class.getName() + "/table";
+		PrefetchingTableModel<Integer> first = new PrefetchingTableModel<Integer>(new CountingModel(10), cc, "table");
+		Assert.assertSame(first, cc.getAttribute(name));
+
+		PrefetchingTableModel<Integer> second = new PrefetchingTableModel<Integer>(new CountingModel(10), cc, "table");
+		Assert.assertSame(second, cc.getAttribute(name));
+		first.close();												// Already replaced: must not release the second one
+		Assert.assertSame(second, cc.getAttribute(name));
+
+		second.close();
+		Assert.assertNull(cc.getAttribute(name));
+	}
+}
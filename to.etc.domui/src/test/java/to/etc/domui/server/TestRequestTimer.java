@@ -0,0 +1,166 @@
+package to.etc.domui.server;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+/**
+ * Checks the per-phase accounting of {@link RequestTimer}, the disabled timer, and how {@link RequestMetricsCollector}
+ * limits and orders its entries.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestRequestTimer {
+	static private final long MS = 1000L * 1000L;
+
+	static private class RecordingSink implements IRequestMetricsSink {
+		final List<RequestTimer> m_list = new ArrayList<RequestTimer>();
+
+		@Override
+		public void requestCompleted(@Nonnull RequestTimer timer) throws Exception {
+			m_list.add(timer);
+		}
+	}
+
+	@Nonnull
+	static private RequestTimer request(@Nonnull IRequestMetricsSink sink, @Nonnull String page, @Nonnull String action) {
+		RequestTimer t = new RequestTimer(sink);
+		t.setRequest(page, action);
+		t.finish();
+		return t;
+	}
+
+	@Test
+	public void testPhaseAccounting() throws Exception {
+		RecordingSink sink = new RecordingSink();
+		RequestTimer t = new RequestTimer(sink);
+		Assert.assertTrue(t.isEnabled());
+		t.enter(RequestPhase.INPUT);
+		Thread.sleep(5);
+		t.enter(RequestPhase.ACTION);
+		Thread.sleep(5);
+		t.enter(RequestPhase.RENDER);
+		t.finish();
+
+		Assert.assertEquals(1, sink.m_list.size());
+		Assert.assertSame(t, sink.m_list.get(0));
+		Assert.assertTrue(t.getDuration(RequestPhase.INPUT) >= 5 * MS);
+		Assert.assertTrue(t.getDuration(RequestPhase.ACTION) >= 5 * MS);
+		Assert.assertEquals(0, t.getDuration(RequestPhase.BUILD));
+		Assert.assertEquals(0, t.getDuration(RequestPhase.FLUSH));
+		long total = 0;
+		for(RequestPhase phase : RequestPhase.values())
+			total += t.getDuration(phase);
+		Assert.assertEquals(total, t.getTotalDuration());
+
+		//-- A finished timer does not change and is not reported again.
+		t.enter(RequestPhase.FLUSH);
+		Thread.sleep(2);
+		t.finish();
+		Assert.assertEquals(1, sink.m_list.size());
+		Assert.assertEquals(total, t.getTotalDuration());
+		Assert.assertEquals(0, t.getDuration(RequestPhase.FLUSH));
+	}
+
+	/**
+	 * A phase entered from within another one, like a build during rendering, adds to the time of that phase
+	 * and the outer phase continues when it is entered again.
+	 */
+	@Test
+	public void testNestedPhases() throws Exception {
+		RequestTimer t = new RequestTimer(new RecordingSink());
+		t.enter(RequestPhase.BUILD);
+		Thread.sleep(5);
+		t.enter(RequestPhase.RENDER);
+		t.enter(RequestPhase.BUILD);
+		Thread.sleep(5);
+		t.enter(RequestPhase.RENDER);
+		Thread.sleep(5);
+		t.finish();
+		Assert.assertTrue(t.getDuration(RequestPhase.BUILD) >= 10 * MS);
+		Assert.assertTrue(t.getDuration(RequestPhase.RENDER) >= 5 * MS);
+	}
+
+	@Test
+	public void testAllocatedBytes() throws Exception {
+		RequestTimer t = new RequestTimer(new RecordingSink());
+		t.enter(RequestPhase.ACTION);
+		byte[] data = new byte[1024 * 1024];
+		t.enter(RequestPhase.RENDER);
+		t.finish();
+		Assert.assertEquals(1024 * 1024, data.length);
+		if(RequestTimer.isAllocationMeasured()) {
+			Assert.assertTrue(t.getAllocatedBytes(RequestPhase.ACTION) >= 1024 * 1024);
+			Assert.assertTrue(t.getTotalAllocatedBytes() >= t.getAllocatedBytes(RequestPhase.ACTION));
+		} else {
+			Assert.assertEquals(-1, t.getAllocatedBytes(RequestPhase.ACTION));
+			Assert.assertEquals(-1, t.getTotalAllocatedBytes());
+		}
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		RequestTimer t = RequestTimer.DISABLED;
+		Assert.assertFalse(t.isEnabled());
+		t.enter(RequestPhase.ACTION);
+		Thread.sleep(2);
+		t.enter(RequestPhase.RENDER);
+		t.finish();
+		Assert.assertEquals(0, t.getTotalDuration());
+		for(RequestPhase phase : RequestPhase.values())
+			Assert.assertEquals(0, t.getDuration(phase));
+	}
+
+	@Test
+	public void testFailingSink() throws Exception {
+		RequestTimer t = new RequestTimer(new IRequestMetricsSink() {
+			@Override
+			public void requestCompleted(@Nonnull RequestTimer timer) throws Exception {
+				throw new IllegalStateException("sink failure");
+			}
+		});
+		t.finish();
+		Assert.assertTrue(t.getTotalDuration() >= 0);
+	}
+
+	@Test
+	public void testCollectorOrder() throws Exception {
+		RequestMetricsCollector c = new RequestMetricsCollector();
+		request(c, "b.Page", "(full)");
+		request(c, "a.Page", "clicked");
+		request(c, "a.Page", "(full)");
+		request(c, "a.Page", "(full)");
+
+		List<RequestMetricsCollector.Entry> list = c.getEntries();
+		Assert.assertEquals(3, list.size());
+		Assert.assertEquals("a.Page", list.get(0).getPageName());
+		Assert.assertEquals("(full)", list.get(0).getAction());
+		Assert.assertEquals(2, list.get(0).getTotal().getCount());
+		Assert.assertEquals(2, list.get(0).getPhase(RequestPhase.SETUP).getCount());
+		Assert.assertEquals("clicked", list.get(1).getAction());
+		Assert.assertEquals("b.Page", list.get(2).getPageName());
+
+		c.clear();
+		Assert.assertEquals(0, c.getEntries().size());
+	}
+
+	@Test
+	public void testCollectorLimit() throws Exception {
+		RequestMetricsCollector c = new RequestMetricsCollector();
+		Assert.assertEquals(250, c.getMaxEntries());
+		for(int i = 0; i < 300; i++)
+			request(c, "Page" + (1000 + i), "(full)");
+		request(c, "Page1000", "(full)");							// Known entries still count after the limit was reached
+
+		List<RequestMetricsCollector.Entry> list = c.getEntries();
+		Assert.assertEquals(251, list.size());
+		Assert.assertEquals("Page1000", list.get(0).getPageName());
+		Assert.assertEquals(2, list.get(0).getTotal().getCount());
+		Assert.assertEquals("Page1249", list.get(249).getPageName());
+		RequestMetricsCollector.Entry other = list.get(250);
+		Assert.assertEquals(RequestMetricsCollector.OTHER, other.getPageName());
+		Assert.assertEquals(50, other.getTotal().getCount());
+	}
+}
@@ -0,0 +1,287 @@
+package to.etc.domui.test.delta;
+
+import org.junit.*;
+import to.etc.domui.dom.html.*;
+import to.etc.domui.test.*;
+import to.etc.domui.testsupport.*;
+
+import javax.annotation.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the delta build and render that only visit the changed paths of the tree produce exactly
+ * the same output as the full walk. Two identical pages get the same random changes; one is
+ * rendered with the full walk and the other with the changed-path walk.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestChangedPathDelta {
+	static private final int ROUNDS = 300;
+
+	/** The #of rows of 50 cells in the large page. */
+	static private final int ROWS = 200;
+
+	private final TestDelta m_util = new TestDelta();
+
+	/**
+	 * A component that creates its content in createContent, so that it can be forced to rebuild.
+	 */
+	static private class Comp extends Div {
+		private int m_builds;
+
+		@Override
+		public void createContent() throws Exception {
+			m_builds++;
+			for(int i = 0; i < 3; i++)
+				add(new Span("build " + m_builds + "/" + i));
+		}
+	}
+
+	/**
+	 * Applies the same random changes to a page.
+	 */
+	static private class Mutator {
+		@Nonnull
+		private final Page m_page;
+
+		@Nonnull
+		private final Random m_r;
+
+		private int m_seq;
+
+		Mutator(@Nonnull Page page, long seed) {
+			m_page = page;
+			m_r = new Random(seed);
+		}
+
+		void createContent() throws Exception {
+			for(int i = 0; i < 8; i++)
+				m_page.getBody().add(createSubtree(3));
+		}
+
+		@Nonnull
+		private NodeBase createSubtree(int depth) {
+			int kind = m_r.nextInt(depth <= 0 ? 2 : 4);
+			switch(kind) {
+				default:
+					return new Span("leaf " + m_seq++);
+				case 1:
+					return new Comp();
+				case 2:
+				case 3:
+					Div d = new Div();
+					d.setCssClass("d" + m_seq++);
+					int count = m_r.nextInt(5);
+					for(int i = 0; i < count; i++)
+						d.add(createSubtree(depth - 1));
+					return d;
+			}
+		}
+
+		private void collect(@Nonnull List<NodeBase> res, @Nonnull NodeBase nb) {
+			res.add(nb);
+			if(nb instanceof NodeContainer) {
+				for(NodeBase ch : (NodeContainer) nb)
+					collect(res, ch);
+			}
+		}
+
+		@Nullable
+		private <T extends NodeBase> T pick(@Nonnull Class<T> clz, boolean allowBody) {
+			return pick(clz, allowBody, null);
+		}
+
+		@Nullable
+		private <T extends NodeBase> T pick(@Nonnull Class<T> clz, boolean allowBody, @Nullable Class<?> exclude) {
+			List<NodeBase> all = new ArrayList<>();
+			collect(all, m_page.getBody());
+			List<T> res = new ArrayList<>();
+			for(NodeBase nb : all) {
+				if(clz.isInstance(nb) && (allowBody || nb != m_page.getBody()) && (exclude == null || !exclude.isInstance(nb)))
+					res.add(clz.cast(nb));
+			}
+			if(res.size() == 0)
+				return null;
+			return res.get(m_r.nextInt(res.size()));
+		}
+
+		@Nullable
+		private Div pickDiv(boolean allowBody) {
+			return pick(Div.class, allowBody, Comp.class);
+		}
+
+		static private boolean isInside(@Nonnull NodeBase nb, @Nonnull NodeBase root) {
+			for(NodeBase c = nb; c != null; c = c.internalGetParent()) {
+				if(c == root)
+					return true;
+			}
+			return false;
+		}
+
+		void mutate() throws Exception {
+			switch(m_r.nextInt(9)) {
+				default: {
+					NodeContainer nc = pick(NodeContainer.class, false);
+					if(null != nc)
+						nc.setCssClass("c" + m_seq++);
+					break;
+				}
+				case 1: {
+					NodeContainer nc = pick(NodeContainer.class, false);
+					if(null != nc)
+						nc.setTitle("title " + m_seq++);
+					break;
+				}
+				case 2: {
+					Div d = pickDiv(false);
+					if(null != d)
+						d.setText("text " + m_seq++);
+					break;
+				}
+				case 3: {
+					Div d = pickDiv(true);
+					if(null != d)
+						d.add(m_r.nextInt(d.getChildCount() + 1), createSubtree(2));
+					break;
+				}
+				case 4: {
+					NodeBase nb = pick(NodeBase.class, false);
+					if(null != nb)
+						nb.remove();
+					break;
+				}
+				case 5: {
+					NodeBase nb = pick(NodeBase.class, false);
+					Div target = pickDiv(true);
+					if(null != nb && null != target && !isInside(target, nb))
+						target.add(nb);
+					break;
+				}
+				case 6: {
+					Comp c = pick(Comp.class, false);
+					if(null != c)
+						c.forceRebuild();
+					break;
+				}
+				case 7: {
+					Div d = pickDiv(false);
+					if(null != d)
+						d.removeAllChildren();
+					break;
+				}
+				case 8: {
+					TextNode t = pick(TextNode.class, false);
+					if(null != t)
+						t.setText("changed " + m_seq++);
+					break;
+				}
+			}
+		}
+	}
+
+	@Nonnull
+	private String renderDelta(@Nonnull Page p, boolean fullWalk) throws Exception {
+		NodeContainer.internalSetFullDeltaWalk(fullWalk);
+		try {
+			return m_util.getDeltaRenderText(p);
+		} finally {
+			NodeContainer.internalSetFullDeltaWalk(false);
+		}
+	}
+
+	static private void checkBuilt(@Nonnull NodeBase nb) {
+		assertTrue("Node " + nb + " is not built", nb.isBuilt());
+		if(nb instanceof NodeContainer) {
+			for(NodeBase ch : (NodeContainer) nb)
+				checkBuilt(ch);
+		}
+	}
+
+	@Test
+	public void testRandomChangesRenderTheSame() throws Exception {
+		for(long seed = 1; seed <= 5; seed++) {
+			Page full = TUtilDomUI.createPage(UrlPage.class);
+			Page changed = TUtilDomUI.createPage(UrlPage.class);
+			Mutator fm = new Mutator(full, seed);
+			Mutator cm = new Mutator(changed, seed);
+			fm.createContent();
+			cm.createContent();
+			m_util.getFullRenderText(full);
+			m_util.getFullRenderText(changed);
+
+			for(int round = 0; round < ROUNDS; round++) {
+				Random r = new Random(seed * 1000 + round);
+				int count = 1 + r.nextInt(4);
+				for(int i = 0; i < count; i++) {
+					fm.mutate();
+					cm.mutate();
+				}
+				String expected = renderDelta(full, true);
+				String actual = renderDelta(changed, false);
+				assertEquals("seed " + seed + " round " + round, expected, actual);
+				checkBuilt(changed.getBody());
+				changed.getBody().visit(new DirtyNodeChecker());
+			}
+		}
+	}
+
+	/**
+	 * A row that counts how often it is visited: the delta build and render ask every container they walk whether it is built.
+	 */
+	static private class CountingRow extends Div {
+		static int m_visits;
+
+		@Override
+		public boolean isBuilt() {
+			m_visits++;
+			return super.isBuilt();
+		}
+	}
+
+	@Test
+	public void testSingleChangeInLargePage() throws Exception {
+		Page full = createRowPage();
+		Page changed = createRowPage();
+		for(int i = 0; i < 20; i++) {
+			changeCell(full, i);
+			changeCell(changed, i);
+			CountingRow.m_visits = 0;
+			String expected = renderDelta(full, true);
+			int fullVisits = CountingRow.m_visits;
+			CountingRow.m_visits = 0;
+			String actual = renderDelta(changed, false);
+			int changedVisits = CountingRow.m_visits;
+
+			assertEquals("change " + i, expected, actual);
+			assertTrue(actual.contains("changeTagAttributes"));
+			assertTrue("The full walk visited " + fullVisits + " rows", fullVisits >= ROWS);
+			assertTrue("The changed-path walk visited " + changedVisits + " rows", changedVisits > 0 && changedVisits <= 2);
+		}
+		full.getBody().visit(new DirtyNodeChecker());
+		changed.getBody().visit(new DirtyNodeChecker());
+	}
+
+	@Nonnull
+	private Page createRowPage() throws Exception {
+		Page p = TUtilDomUI.createPage(UrlPage.class);
+		for(int i = 0; i < ROWS; i++) {
+			Div row = new CountingRow();
+			p.getBody().add(row);
+			for(int j = 0; j < 50; j++)
+				row.add(new Span("cell " + i + "/" + j));
+		}
+		m_util.getFullRenderText(p);
+		return p;
+	}
+
+	/**
+	 * Change the css class of one cell, picked spread over the page.
+	 */
+	static private void changeCell(@Nonnull Page p, int change) throws Exception {
+		int cell = (change * 7919) % (ROWS * 50);
+		NodeContainer row = (NodeContainer) p.getBody().getChild(cell / 50);
+		row.getChild(cell % 50).setCssClass("x" + change);
+	}
+}
@@ -0,0 +1,130 @@
+package to.etc.domui.test.delta;
+
+import org.junit.*;
+import to.etc.domui.dom.*;
+import to.etc.domui.dom.html.*;
+import to.etc.domui.testsupport.*;
+
+import javax.annotation.*;
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Renders the same delta in all {@link DeltaFormat}s, checks the encodings and
+ * reports size and render time of each.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestDeltaEncoders {
+	static private final int ROWS = 200;
+
+	private final TestDelta m_util = new TestDelta();
+
+	@Nonnull
+	private Page createChangedPage() throws Exception {
+		Page p = TUtilDomUI.createPage(UrlPage.class);
+		Table t = new Table();
+		p.getBody().add(t);
+		TBody b = t.addBody();
+		for(int i = 0; i < ROWS; i++) {
+			TD td = b.addRowAndCell();
+			td.setText("Row " + i + " <&> \"quoted\"");
+			td.setCssClass("ui-row");
+		}
+		m_util.getFullRenderText(p);
+
+		//-- Change every 2nd row, and add a block of new content
+		for(int i = 0; i < ROWS; i += 2) {
+			TD td = (TD) b.getRow(i).getChild(0);
+			td.setText("Changed " + i + "€");
+			td.setTitle("Title\n" + i);
+		}
+		Div d = new Div();
+		p.getBody().add(d);
+		for(int i = 0; i < ROWS; i++)
+			d.add(new Span("New span " + i));
+		return p;
+	}
+
+	@Nonnull
+	private String render(@Nonnull DeltaFormat format) throws Exception {
+		Page p = createChangedPage();
+		StringWriter sw = new StringWriter();
+		IBrowserOutput o = format.createOutput(sw);
+		HtmlFullRenderer hr = m_util.getFullRenderer(o);
+		p.internalDeltaBuild();
+		new OptimalDeltaRenderer(hr, new TestRequestContext(), p).render();
+		return sw.toString();
+	}
+
+	@Test
+	public void testCompareFormats() throws Exception {
+		String pretty = render(DeltaFormat.PRETTY_XML);
+		String xml = render(DeltaFormat.XML);
+		String json = render(DeltaFormat.JSON);
+
+		assertTrue("Unindented xml must be smaller", xml.length() < pretty.length());
+		assertTrue("JSON must be at least 20% smaller than unindented xml", json.length() * 5 < xml.length() * 4);
+
+		assertTrue(json.startsWith("[\"delta\","));
+		assertTrue(json.endsWith("]"));
+		assertTrue(json.contains("\"Changed 0€\""));
+		assertTrue(json.contains("\"Title\\n0\""));
+		assertEquals("Tag names must be sent once", json.indexOf("\"changeTagAttributes\""), json.lastIndexOf("\"changeTagAttributes\""));
+		checkStructure(json);
+	}
+
+	@Test
+	public void testJsonEncoding() throws Exception {
+		StringWriter sw = new StringWriter();
+		JsonDeltaOutputWriter o = new JsonDeltaOutputWriter(sw);
+		o.writeRaw("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+		o.tag("delta");
+		o.endtag();
+		o.tag("remove");
+		o.attr("select", "#_C");
+		o.endAndCloseXmltag();
+		o.tag("remove");
+		o.attr("select", "#_D");
+		o.endAndCloseXmltag();
+		o.tag("eval");
+		o.endtag();
+		o.text("a\"b\\c\u2028");
+		o.closetag("eval");
+		o.tag("append");
+		o.endtag();
+		o.writeRaw("&nbsp;");
+		o.closetag("append");
+		o.closetag("delta");
+		assertEquals("[\"delta\",[\"remove\",{\"select\":\"#_C\"}],[1,{\"2\":\"#_D\"}],[\"eval\",\"a\\\"b\\\\c\\u2028\"],[\"append\",{\"x\":\"&nbsp;\"}]]", sw.toString());
+	}
+
+	/**
+	 * Checks that brackets and braces are balanced outside of strings.
+	 */
+	private void checkStructure(@Nonnull String json) {
+		int depth = 0;
+		boolean instring = false;
+		for(int i = 0; i < json.length(); i++) {
+			char c = json.charAt(i);
+			if(instring) {
+				if(c == '\\')
+					i++;
+				else if(c == '"')
+					instring = false;
+				else
+					assertTrue("Unescaped control character at " + i, c >= 0x20);
+			} else if(c == '"')
+				instring = true;
+			else if(c == '[' || c == '{')
+				depth++;
+			else if(c == ']' || c == '}') {
+				depth--;
+				assertTrue("Unbalanced at " + i, depth >= 0);
+			}
+		}
+		assertFalse(instring);
+		assertEquals(0, depth);
+	}
+}
@@ -0,0 +1,108 @@
+package to.etc.domui.test.heap;
+
+import org.junit.*;
+import to.etc.domui.component.tbl.*;
+import to.etc.domui.dom.html.*;
+import to.etc.domui.test.delta.*;
+import to.etc.domui.testsupport.*;
+
+import javax.annotation.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the heap used by the node tree of a page holding a 1000-row {@link DataTable}.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestNodeHeapSize {
+	static private final int ROWS = 1000;
+
+	static private final int PAGES = 5;
+
+	/** The max #of bytes per node, including the rendered state; the sparse CSS and attribute store keeps it near 370. */
+	static private final int MAX_BYTES_PER_NODE = 512;
+
+	public static class Row {
+		private final int m_id;
+
+		private final String m_name;
+
+		private final String m_description;
+
+		public Row(int id) {
+			m_id = id;
+			m_name = "Name " + id;
+			m_description = "Description of row " + id;
+		}
+
+		public int getId() {
+			return m_id;
+		}
+
+		public String getName() {
+			return m_name;
+		}
+
+		public String getDescription() {
+			return m_description;
+		}
+	}
+
+	@Nonnull
+	private Page createTablePage(@Nonnull List<Row> rows) throws Exception {
+		Page p = TUtilDomUI.createPage(UrlPage.class);
+		RowRenderer<Row> rr = new RowRenderer<>(Row.class);
+		rr.column("id");
+		rr.column("name");
+		rr.column("description");
+		DataTable<Row> dt = new DataTable<>(new SimpleListModel<>(rows), rr);
+		dt.setPageSize(ROWS);
+		p.getBody().add(dt);
+		new TestDelta().getFullRenderText(p);
+		return p;
+	}
+
+	static private long usedHeap() throws Exception {
+		Runtime rt = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for(int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(50);
+			used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+		}
+		return used;
+	}
+
+	@Test
+	public void testDataTablePageHeap() throws Exception {
+		List<Row> rows = new ArrayList<>();
+		for(int i = 0; i < ROWS; i++)
+			rows.add(new Row(i));
+
+		createTablePage(rows);						// Warm up all caches and metadata
+		long before = usedHeap();
+		List<Page> pages = new ArrayList<>();
+		for(int i = 0; i < PAGES; i++)
+			pages.add(createTablePage(rows));
+		long after = usedHeap();
+
+		int[] nodes = new int[1];
+		pages.get(0).getBody().visit(new NodeVisitorBase() {
+			@Override
+			public void visitNodeBase(NodeBase n) throws Exception {
+				nodes[0]++;
+			}
+
+			@Override
+			public void visitNodeContainer(NodeContainer n) throws Exception {
+				nodes[0]++;
+				visitChildren(n);
+			}
+		});
+		long perPage = (after - before) / PAGES;
+		assertTrue(nodes[0] > ROWS * 4);
+		assertTrue("A " + ROWS + "-row DataTable page uses " + perPage / nodes[0] + " bytes per node", perPage / nodes[0] <= MAX_BYTES_PER_NODE);
+	}
+}
@@ -0,0 +1,117 @@
+package to.etc.domui.test.janitor;
+
+import org.junit.*;
+import to.etc.domui.util.janitor.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the janitor's timing wheel: tasks run when due, can be cancelled before they run, and repeating
+ * tasks are rescheduled after they finish.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestJanitor {
+	private Janitor m_janitor;
+
+	@Before
+	public void setUp() {
+		m_janitor = new Janitor(4);
+		m_janitor.start();
+	}
+
+	@After
+	public void tearDown() {
+		m_janitor.stop();
+	}
+
+	@Test
+	public void testRunsAtTime() throws Exception {
+		CountDownLatch done = new CountDownLatch(1);
+		AtomicLong ranAt = new AtomicLong();
+		long ts = System.currentTimeMillis();
+		m_janitor.addTaskAt(new Date(ts + 150), "at", new JanitorTask() {
+			@Override
+			public void run() throws Exception {
+				ranAt.set(System.currentTimeMillis());
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		long dt = ranAt.get() - ts;
+		assertTrue("ran after " + dt + " ms", dt >= 145);
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(1);
+		int id = m_janitor.addTask(0, true, "cancelled", new JanitorTask() {
+			@Override
+			public void run() throws Exception {
+				count.incrementAndGet();
+			}
+		});
+		assertTrue(m_janitor.cancelJob(id));
+		assertFalse(m_janitor.cancelJob(id));
+		m_janitor.addTask(0, true, "marker", new JanitorTask() {
+			@Override
+			public void run() throws Exception {
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(0, count.get());
+	}
+
+	@Test
+	public void testRepeat() throws Exception {
+		CountDownLatch done = new CountDownLatch(2);
+		int id = m_janitor.addTask(0, 1, "repeat", new JanitorTask() {
+			@Override
+			public void run() throws Exception {
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(m_janitor.cancelJob(id));
+	}
+
+	/**
+	 * Scheduling and cancelling many waiting tasks, like the session expiry tasks that are added and cancelled
+	 * all the time, most of them more than a wheel revolution ahead.
+	 */
+	@Test
+	public void testManyTasks() throws Exception {
+		int count = 100_000;
+		int[] ids = new int[count];
+		JanitorTask[] tasks = new JanitorTask[count];
+		for(int i = 0; i < count; i++) {
+			tasks[i] = new JanitorTask() {
+				@Override
+				public void run() throws Exception {
+				}
+			};
+		}
+		for(int i = 0; i < count; i++)
+			ids[i] = m_janitor.addTask(60 + i % 600, true, "many", tasks[i]);
+
+		//-- A task due soon still runs while they wait.
+		CountDownLatch done = new CountDownLatch(1);
+		m_janitor.addTask(0, true, "marker", new JanitorTask() {
+			@Override
+			public void run() throws Exception {
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		for(int i = 0; i < count; i++)
+			assertTrue(m_janitor.cancelJob(ids[i]));
+		for(int i = 0; i < count; i++)
+			assertFalse(m_janitor.cancelJob(ids[i]));
+	}
+}
@@ -0,0 +1,112 @@
+package to.etc.domui.test.meta;
+
+import org.junit.*;
+import to.etc.domui.component.meta.*;
+import to.etc.domui.component.meta.impl.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the lock-free lookup of class metamodels and the property path cache.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestMetaManagerCache {
+	static public class Address {
+		private String m_city;
+
+		public String getCity() {
+			return m_city;
+		}
+
+		public void setCity(String city) {
+			m_city = city;
+		}
+	}
+
+	static public class Customer {
+		private String m_name;
+
+		private Address m_address;
+
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			m_name = name;
+		}
+
+		public Address getAddress() {
+			return m_address;
+		}
+
+		public void setAddress(Address address) {
+			m_address = address;
+		}
+	}
+
+	static public class Order {
+		private Customer m_customer;
+
+		public Customer getCustomer() {
+			return m_customer;
+		}
+
+		public void setCustomer(Customer customer) {
+			m_customer = customer;
+		}
+	}
+
+	/**
+	 * All threads that ask for a model at the same time must get the same, fully initialized model.
+	 */
+	@Test
+	public void testConcurrentLookup() throws Exception {
+		ExecutorService es = Executors.newFixedThreadPool(16);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<ClassMetaModel>> list = new ArrayList<>();
+			for(int i = 0; i < 16; i++) {
+				list.add(es.submit(() -> {
+					start.await();
+					ClassMetaModel cmm = MetaManager.findClassMeta(Order.class);
+					assertNotNull(cmm.findProperty("customer.address.city"));
+					return cmm;
+				}));
+			}
+			start.countDown();
+			ClassMetaModel first = list.get(0).get();
+			for(Future<ClassMetaModel> f : list)
+				assertSame(first, f.get());
+			assertSame(first, MetaManager.findClassMeta(Order.class));
+		} finally {
+			es.shutdown();
+		}
+	}
+
+	@Test
+	public void testPropertyPathCache() throws Exception {
+		ClassMetaModel cmm = MetaManager.findClassMeta(Order.class);
+		List<PropertyMetaModel< ? >> path = MetaManager.parsePropertyPath(cmm, "customer.address.city");
+		assertEquals(3, path.size());
+		assertEquals("city", path.get(2).getName());
+		assertSame(path, MetaManager.parsePropertyPath(cmm, "customer.address.city"));
+		assertSame(cmm.findProperty("customer.name"), cmm.findProperty("customer.name"));
+
+		try {
+			path.clear();
+			fail("A cached property path must be immutable");
+		} catch(UnsupportedOperationException x) {
+			//-- Expected
+		}
+	}
+
+	@Test(expected = MetaModelException.class)
+	public void testInvalidPath() throws Exception {
+		MetaManager.parsePropertyPath(MetaManager.findClassMeta(Order.class), "customer.nonexisting");
+	}
+}
@@ -0,0 +1,126 @@
+package to.etc.domui.test.state;
+
+import org.junit.*;
+import to.etc.domui.state.*;
+
+import javax.annotation.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the limits, queueing and metrics of the shared scheduler for asynchronous activities.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestDelayedActivityScheduler {
+	private DelayedActivityScheduler m_scheduler;
+
+	private final List<String> m_started = Collections.synchronizedList(new ArrayList<>());
+
+	private final CountDownLatch m_release = new CountDownLatch(1);
+
+	@After
+	public void tearDown() {
+		m_release.countDown();
+		if(null != m_scheduler)
+			m_scheduler.shutdown();
+	}
+
+	/**
+	 * A task that registers its start, then waits until the test releases it.
+	 */
+	@Nonnull
+	private Runnable task(@Nonnull String name, @Nonnull CountDownLatch done) {
+		return () -> {
+			m_started.add(name);
+			try {
+				m_release.await();
+			} catch(InterruptedException x) {
+				m_started.add(name + " interrupted");
+			}
+			done.countDown();
+		};
+	}
+
+	private void waitForRunning(int count) throws Exception {
+		long end = System.currentTimeMillis() + 5000;
+		while(m_scheduler.getRunningCount() != count || m_started.size() != count) {
+			if(System.currentTimeMillis() > end)
+				fail("Expected " + count + " running tasks, got " + m_scheduler.getRunningCount() + ", started " + m_started);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testLimits() throws Exception {
+		m_scheduler = new DelayedActivityScheduler(3, 2, false);
+		CountDownLatch done = new CountDownLatch(6);
+		for(int i = 0; i < 4; i++)
+			m_scheduler.schedule("a", task("a" + i, done));
+		m_scheduler.schedule("b", task("b0", done));
+		m_scheduler.schedule("b", task("b1", done));
+
+		//-- Session a may run 2, so the 3rd thread goes to b even though a's tasks were queued first
+		waitForRunning(3);
+		assertEquals(new HashSet<>(Arrays.asList("a0", "a1", "b0")), new HashSet<>(m_started));
+		assertEquals(3, m_scheduler.getQueueDepth());
+		assertEquals(3, m_scheduler.getMaxQueueDepth());
+
+		m_release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(6, m_scheduler.getStartCount());
+		assertEquals(6, m_scheduler.getSubmitCount());
+		assertEquals(0, m_scheduler.getQueueDepth());
+		assertTrue(m_scheduler.getMaxWaitTime() >= 0);
+	}
+
+	@Test
+	public void testCancelQueued() throws Exception {
+		m_scheduler = new DelayedActivityScheduler(1, 1, false);
+		CountDownLatch done = new CountDownLatch(2);
+		m_scheduler.schedule("a", task("a0", done));
+		Runnable cancelled = task("b0", done);
+		m_scheduler.schedule("b", cancelled);
+		waitForRunning(1);
+		Thread.sleep(50);
+		assertTrue(m_scheduler.cancel(cancelled));
+		assertFalse(m_scheduler.cancel(cancelled));
+		m_release.countDown();
+		assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+		assertEquals(Collections.singletonList("a0"), m_started);
+		assertTrue(m_scheduler.getAverageWaitTime() >= 0.0);
+	}
+
+	/**
+	 * Raising the limit must start waiting tasks right away.
+	 */
+	@Test
+	public void testChangeLimits() throws Exception {
+		m_scheduler = new DelayedActivityScheduler(1, 1, true);
+		CountDownLatch done = new CountDownLatch(3);
+		for(int i = 0; i < 3; i++)
+			m_scheduler.schedule("a", task("a" + i, done));
+		waitForRunning(1);
+		m_scheduler.setMaxPerSession(5);
+		m_scheduler.setMaxThreads(3);
+		waitForRunning(3);
+		m_release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Shutdown interrupts running tasks, and the interrupt must not leak into the next task on the same worker.
+	 */
+	@Test
+	public void testShutdownInterrupts() throws Exception {
+		m_scheduler = new DelayedActivityScheduler(1, 1, false);
+		CountDownLatch done = new CountDownLatch(1);
+		m_scheduler.schedule("a", task("a0", done));
+		waitForRunning(1);
+		m_scheduler.shutdown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(m_started.contains("a0 interrupted"));
+	}
+}
@@ -0,0 +1,71 @@
+package to.etc.domui.test.state;
+
+import org.junit.*;
+import to.etc.domui.state.*;
+import to.etc.domui.testsupport.*;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the push signal and wait of a WindowSession, which is used by the PushWait part to replace
+ * fixed-interval polling.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestServerPush {
+	private WindowSession m_window;
+
+	private ExecutorService m_executor;
+
+	@Before
+	public void setUp() throws Exception {
+		m_window = TUtilDomUI.getAppSession().createWindowSession();
+		m_executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		m_executor.shutdownNow();
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		long ts = System.currentTimeMillis();
+		assertEquals(PushWaitResult.TIMEOUT, m_window.internalWaitForPush(100));
+		assertTrue(System.currentTimeMillis() - ts >= 100);
+	}
+
+	/**
+	 * A signal that arrives before the browser waits must not be lost.
+	 */
+	@Test
+	public void testSignalBeforeWait() throws Exception {
+		m_window.internalSignalPush();
+		assertEquals(PushWaitResult.UPDATE, m_window.internalWaitForPush(10000));
+		assertEquals(PushWaitResult.UPDATE, m_window.internalWaitForPush(10000));
+	}
+
+	@Test
+	public void testSignalWakesWaiter() throws Exception {
+		Future<PushWaitResult> f = m_executor.submit(() -> m_window.internalWaitForPush(10000));
+		Thread.sleep(100);
+		assertFalse(f.isDone());
+		long ts = System.currentTimeMillis();
+		m_window.internalSignalPush();
+		assertEquals(PushWaitResult.UPDATE, f.get(5, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - ts < 5000);
+	}
+
+	@Test
+	public void testNewWaitSupersedesOld() throws Exception {
+		Future<PushWaitResult> old = m_executor.submit(() -> m_window.internalWaitForPush(10000));
+		Thread.sleep(100);
+		Future<PushWaitResult> current = m_executor.submit(() -> m_window.internalWaitForPush(10000));
+		assertEquals(PushWaitResult.SUPERSEDED, old.get(5, TimeUnit.SECONDS));
+		assertFalse(current.isDone());
+		m_window.internalSignalPush();
+		assertEquals(PushWaitResult.UPDATE, current.get(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,133 @@
+package to.etc.domui.test.state;
+
+import org.junit.*;
+import to.etc.domui.dom.html.*;
+import to.etc.domui.server.*;
+import to.etc.domui.state.*;
+import to.etc.domui.testsupport.*;
+
+import javax.annotation.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that shelved pages are passivated according to the application's settings, and that they are
+ * rebuilt from their class and parameters when they are needed again.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestShelvePassivation {
+	static private int m_builds;
+
+	static private int m_destroys;
+
+	static public class ListPage extends UrlPage {
+		@Override
+		public void createContent() throws Exception {
+			m_builds++;
+			add(new Span("list " + getPage().getPageParameters().getString("id")));
+		}
+
+		@Override
+		public void onDestroy() throws Exception {
+			m_destroys++;
+		}
+	}
+
+	static public class KeepPage extends UrlPage implements INotPassivatablePage {
+		@Override
+		public void createContent() throws Exception {
+			add(new Span("keep"));
+		}
+	}
+
+	private DomApplication m_application;
+
+	private WindowSession m_window;
+
+	@Before
+	public void setUp() throws Exception {
+		m_application = TUtilDomUI.getApplication();
+		m_window = TUtilDomUI.getAppSession().createWindowSession();
+		m_builds = 0;
+		m_destroys = 0;
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		m_application.setMaxResidentShelvedPages(0);
+		m_application.setShelvePassivationTime(0);
+	}
+
+	@Nonnull
+	static private PageParameters params(int id) {
+		return new PageParameters("id", Integer.valueOf(id));
+	}
+
+	@Nonnull
+	private ShelvedDomUIPage entry(int ix) {
+		return (ShelvedDomUIPage) m_window.getShelvedPageStack().get(ix);
+	}
+
+	@Test
+	public void testPassivateAndRestore() throws Exception {
+		for(int i = 0; i < 4; i++)
+			assertTrue(m_window.insertShelveEntry(0, ListPage.class, params(i)));
+		assertEquals(4, m_builds);
+
+		//-- Keep at most one shelved page resident: the two lowest ones must go, the top one always stays.
+		m_application.setMaxResidentShelvedPages(1);
+		m_window.internalDetachConversations();
+		assertEquals(2, m_window.getPassivatedPageCount());
+		assertEquals(2, m_window.getResidentPageCount());
+		assertEquals(2, m_window.getPassivationCount());
+		assertEquals(2, m_destroys);
+		assertTrue(entry(0).isPassivated());
+		assertTrue(entry(1).isPassivated());
+		assertFalse(entry(2).isPassivated());
+		assertFalse(entry(3).isPassivated());
+
+		//-- Looking at the stack must not rebuild anything
+		assertTrue(m_window.isPageOnStack(ListPage.class, params(0)));
+		assertEquals(ListPage.class.getName(), entry(1).getPageClassName());
+		assertEquals(params(1), entry(1).getPageParameters());
+		assertNotNull(entry(0).getName());
+		assertEquals(0, m_window.getRestoreCount());
+		assertEquals(4, m_builds);
+
+		//-- Getting the page rebuilds it in its own conversation, still shelved.
+		m_window.internalAttachConversations();
+		ShelvedDomUIPage sdp = entry(0);
+		Page page = sdp.getPage();
+		assertFalse(sdp.isPassivated());
+		assertTrue(page.getBody() instanceof ListPage);
+		assertEquals(params(0), page.getPageParameters());
+		assertSame(sdp.getConversation(), page.getConversation());
+		assertTrue(page.isShelved());
+		assertEquals(5, m_builds);
+		assertEquals(1, m_window.getRestoreCount());
+		page.internalUnshelve();
+		m_window.internalDetachConversations();
+	}
+
+	@Test
+	public void testOptOutAndIdleTime() throws Exception {
+		assertTrue(m_window.insertShelveEntry(0, KeepPage.class, new PageParameters()));
+		for(int i = 0; i < 3; i++)
+			assertTrue(m_window.insertShelveEntry(0, ListPage.class, params(i)));
+
+		//-- Nothing is idle long enough yet
+		m_application.setShelvePassivationTime(1);
+		m_window.internalDetachConversations();
+		assertEquals(0, m_window.getPassivatedPageCount());
+
+		//-- Too many resident pages: everything but the opt-out page and the current page goes
+		m_application.setMaxResidentShelvedPages(1);
+		m_window.internalAttachConversations();
+		m_window.internalDetachConversations();
+		assertFalse(entry(0).isPassivated());
+		assertTrue(entry(1).isPassivated());
+		assertTrue(entry(2).isPassivated());
+		assertFalse(entry(3).isPassivated());
+	}
+}
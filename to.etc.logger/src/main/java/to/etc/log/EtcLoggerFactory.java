@@ -363,10 +363,15 @@ public class EtcLoggerFactory implements ILoggerFactory {
 			ILogHandler handler = LogHandlerRegistry.getSingleton().createDefaultHandler(m_configDir, DEFAULT_LEVEL);
 			loadedHandlers.add(handler);
 		}
+		List<ILogHandler> oldHandlers;
 		synchronized(m_handlersLock){
+			oldHandlers = m_handlers;
 			m_handlers = loadedHandlers;
 		}
 		recalculateLoggers();
+		for(ILogHandler handler : oldHandlers) {
+			handler.close();
+		}
 	}
 
 	@Nonnull
@@ -392,6 +397,15 @@ public class EtcLoggerFactory implements ILoggerFactory {
 		return composeFullLogFileName(m_logDir.getAbsolutePath(), fileName);
 	}
 
+	/**
+	 * Wait until all output logged sofar has been written by all handlers, see {@link ILogHandler#flush()}.
+	 */
+	public void flush() {
+		for(ILogHandler handler : getHandlers()) {
+			handler.flush();
+		}
+	}
+
 	void notifyHandlers(@Nonnull EtcLogEvent event) {
 		for(ILogHandler handler : getHandlers()) {
 			handler.handle(event);
@@ -0,0 +1,395 @@
+package to.etc.log.handler;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import javax.annotation.*;
+
+import to.etc.log.*;
+
+/**
+ * Writes the log lines for one log file from a background thread, so that logging threads never touch
+ * the file system. Logging threads put their formatted line in a bounded lock-free ring buffer; the
+ * writer thread takes them out in batches and writes them to the file, which is kept open. The output
+ * is flushed when the buffer size is reached or when the oldest unflushed line is older than the flush
+ * interval. The file is reopened only when {@link EtcLoggerFactory#composeFullLogFileName(String, String)}
+ * returns a new name, i.e. when the log rolls over to a new day.
+ *
+ * <p>The ring buffer is a multiple-producer, single-consumer array queue: every slot has a sequence#
+ * which tells whether the slot is free for position p (sequence == p) or filled for position p (sequence == p + 1).
+ * A producer claims a position with a CAS on the tail; the consumer is the only one to move the head.</p>
+ *
+ * <p>Appenders are shared by all handlers that write to the same file with the same settings, and are
+ * reference counted. All appenders are flushed when the JVM shuts down.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final class AsyncFileAppender implements Runnable {
+	/** The longest time the writer sleeps when it has nothing to do, in ms. */
+	static private final long							MAX_IDLE		= 1000;
+
+	/** The time a blocked producer waits before retrying to put its line in a full queue, in ns. */
+	static private final long							BLOCK_WAIT		= 50_000;
+
+	@Nonnull
+	static private final Map<String, AsyncFileAppender>	m_appenderMap	= new HashMap<String, AsyncFileAppender>();
+
+	static private boolean								m_shutdownHookAdded;
+
+	@Nonnull
+	private final String								m_key;
+
+	@Nonnull
+	private final String								m_logRoot;
+
+	@Nonnull
+	private final String								m_out;
+
+	@Nonnull
+	private final AsyncLogSettings						m_settings;
+
+	@Nonnull
+	private final AtomicReferenceArray<String>			m_slots;
+
+	@Nonnull
+	private final AtomicLongArray						m_sequences;
+
+	private final int									m_capacity;
+
+	private final int									m_mask;
+
+	/** The next position to be claimed by a producer. */
+	@Nonnull
+	private final AtomicLong							m_tail			= new AtomicLong();
+
+	/** The next position to be taken by the writer. Only used by the writer thread. */
+	private long										m_head;
+
+	@Nonnull
+	private final AtomicLong							m_dropped		= new AtomicLong();
+
+	/** The position up to which all lines have been written and flushed. */
+	private volatile long								m_flushedPosition;
+
+	/** The #of dropped lines that have been reported in the file and flushed. */
+	private volatile long								m_flushedDropped;
+
+	private volatile boolean							m_flushRequested;
+
+	/** T while the writer is waiting for work; producers then need to wake it up. */
+	private volatile boolean							m_idle;
+
+	private volatile boolean							m_stopped;
+
+	@Nonnull
+	private final Thread								m_thread;
+
+	/** The #of handlers using this appender, guarded by the class lock. */
+	private int											m_refCount;
+
+	/*-- Writer state, only used by the writer thread --*/
+	@Nullable
+	private String										m_fileName;
+
+	@Nullable
+	private Writer										m_writer;
+
+	/** The #of characters written since the last flush. */
+	private int											m_unflushedSize;
+
+	/** The time the oldest unflushed line was written, or 0 if everything is flushed. */
+	private long										m_unflushedSince;
+
+	private long										m_reportedDropped;
+
+	private AsyncFileAppender(@Nonnull String key, @Nonnull String logRoot, @Nonnull String out, @Nonnull AsyncLogSettings settings) {
+		m_key = key;
+		m_logRoot = logRoot;
+		m_out = out;
+		m_settings = settings;
+		int capacity = Integer.highestOneBit(Math.max(2, settings.getQueueSize()) - 1) << 1;
+		m_capacity = capacity;
+		m_mask = capacity - 1;
+		m_slots = new AtomicReferenceArray<String>(capacity);
+		m_sequences = new AtomicLongArray(capacity);
+		for(int i = 0; i < capacity; i++) {
+			m_sequences.set(i, i);
+		}
+		m_thread = new Thread(this, "etc-log-writer " + out);
+		m_thread.setDaemon(true);
+	}
+
+	/**
+	 * Get the appender for the specified file and settings, creating and starting it if needed. Every
+	 * call must be paired with a call to {@link #release()}.
+	 */
+	@Nonnull
+	static synchronized AsyncFileAppender acquire(@Nonnull String logRoot, @Nonnull String out, @Nonnull AsyncLogSettings settings) {
+		String key = logRoot + File.pathSeparator + out + File.pathSeparator + settings.getKey();
+		AsyncFileAppender a = m_appenderMap.get(key);
+		if(null == a) {
+			a = new AsyncFileAppender(key, logRoot, out, settings);
+			m_appenderMap.put(key, a);
+			a.m_thread.start();
+			if(!m_shutdownHookAdded) {
+				m_shutdownHookAdded = true;
+				Runtime.getRuntime().addShutdownHook(new Thread("etc-log-writer shutdown") {
+					@Override
+					public void run() {
+						stopAll();
+					}
+				});
+			}
+		}
+		a.m_refCount++;
+		return a;
+	}
+
+	/**
+	 * Release this appender; when it is no longer used all queued lines are written and the file is closed.
+	 */
+	void release() {
+		synchronized(AsyncFileAppender.class) {
+			if(--m_refCount > 0)
+				return;
+			m_appenderMap.remove(m_key);
+		}
+		stop();
+	}
+
+	static private void stopAll() {
+		List<AsyncFileAppender> list;
+		synchronized(AsyncFileAppender.class) {
+			list = new ArrayList<AsyncFileAppender>(m_appenderMap.values());
+			m_appenderMap.clear();
+		}
+		for(AsyncFileAppender a : list) {
+			a.stop();
+		}
+	}
+
+	private void stop() {
+		m_stopped = true;
+		LockSupport.unpark(m_thread);
+		try {
+			m_thread.join(10_000);
+		} catch(InterruptedException x) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Producer side.										*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Queue a line for writing. When the queue is full this waits or drops the line, depending on the
+	 * overflow policy.
+	 */
+	void append(@Nonnull String line) {
+		long pos;
+		int ix;
+		for(;;) {
+			if(m_stopped) {
+				//-- Late event for a handler that has been replaced: write it directly.
+				FileLogHandler.writeLine(EtcLoggerFactory.getSingleton().composeFullLogFileName(m_logRoot, m_out), line);
+				return;
+			}
+			pos = m_tail.get();
+			ix = (int) pos & m_mask;
+			long dif = m_sequences.get(ix) - pos;
+			if(dif == 0) {
+				if(m_tail.compareAndSet(pos, pos + 1))
+					break;
+			} else if(dif < 0) {
+				//-- The queue is full.
+				if(m_settings.getOverflow() == LogOverflowPolicy.DROP) {
+					m_dropped.incrementAndGet();
+					return;
+				}
+				LockSupport.unpark(m_thread);
+				LockSupport.parkNanos(this, BLOCK_WAIT);
+			}
+			//-- dif > 0: another producer claimed this position; retry.
+		}
+		m_slots.set(ix, line);
+		m_sequences.set(ix, pos + 1);
+		if(m_idle)
+			LockSupport.unpark(m_thread);
+		if(m_stopped)
+			writeLate(ix, pos, line);
+	}
+
+	/**
+	 * The appender was stopped while the line was being queued, so the writer may have exited before it
+	 * saw the line. Wait for the writer to exit, and if the line is still in the queue take it back and write it
+	 * directly. The writer and this decide who writes the line with a CAS on the slot's sequence#.
+	 */
+	private void writeLate(int ix, long pos, @Nonnull String line) {
+		try {
+			m_thread.join(10_000);
+		} catch(InterruptedException x) {
+			Thread.currentThread().interrupt();
+		}
+		if(m_sequences.compareAndSet(ix, pos + 1, pos + m_capacity))
+			FileLogHandler.writeLine(EtcLoggerFactory.getSingleton().composeFullLogFileName(m_logRoot, m_out), line);
+	}
+
+	/**
+	 * Wait until all lines queued before this call have been written and flushed to the file.
+	 */
+	void flush() {
+		long target = m_tail.get();
+		long dropped = m_dropped.get();
+		while((m_flushedPosition < target || m_flushedDropped < dropped) && !m_stopped && m_thread.isAlive()) {
+			m_flushRequested = true;
+			LockSupport.unpark(m_thread);
+			LockSupport.parkNanos(this, 1_000_000);
+		}
+	}
+
+	long getDroppedCount() {
+		return m_dropped.get();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Writer thread.										*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void run() {
+		for(;;) {
+			boolean stopping = m_stopped;
+			int count = 0;
+			try {
+				count = drain();
+				if(m_unflushedSince != 0 && (stopping || m_flushRequested || m_unflushedSize >= m_settings.getBufferSize() || System.currentTimeMillis() - m_unflushedSince >= m_settings.getFlushInterval()))
+					flushFile();
+			} catch(Throwable x) {
+				writeFailed(x);
+			}
+			if(m_unflushedSince == 0) {
+				m_flushRequested = false;
+				m_flushedPosition = m_head;
+				m_flushedDropped = m_reportedDropped;
+			}
+			if(stopping && isEmpty() && m_head == m_tail.get()) {		// Also wait for lines claimed but not yet stored
+				closeFile();
+				return;
+			}
+
+			if(count == 0) {
+				m_idle = true;
+				if(isEmpty() && !m_stopped && !m_flushRequested) {
+					long wait = MAX_IDLE;
+					if(m_unflushedSince != 0)
+						wait = Math.max(1, m_unflushedSince + m_settings.getFlushInterval() - System.currentTimeMillis());
+					LockSupport.parkNanos(this, wait * 1_000_000L);
+				}
+				m_idle = false;
+			}
+		}
+	}
+
+	private boolean isEmpty() {
+		return m_sequences.get((int) m_head & m_mask) != m_head + 1;
+	}
+
+	/**
+	 * Write all queued lines, at most one queue full at a time.
+	 */
+	private int drain() throws IOException {
+		if(isEmpty() && m_dropped.get() == m_reportedDropped)
+			return 0;
+		Writer w = openFile();
+		int count = 0;
+		while(count < m_capacity) {
+			int ix = (int) m_head & m_mask;
+			if(m_sequences.get(ix) != m_head + 1)
+				break;
+			String line = m_slots.get(ix);
+			m_slots.set(ix, null);
+			boolean taken = m_sequences.compareAndSet(ix, m_head + 1, m_head + m_capacity);	// Release the slot for the next round, unless a late producer took its line back
+			m_head++;
+			count++;
+			if(taken && null != line)
+				writeLine(w, line);
+		}
+
+		long dropped = m_dropped.get();
+		if(dropped != m_reportedDropped) {
+			writeLine(w, "--- " + (dropped - m_reportedDropped) + " log line(s) dropped because the log queue was full ---");
+			m_reportedDropped = dropped;
+		}
+		return count;
+	}
+
+	private void writeLine(@Nonnull Writer w, @Nonnull String line) throws IOException {
+		w.write(line);
+		w.write(System.lineSeparator());
+		m_unflushedSize += line.length() + 1;
+		if(m_unflushedSince == 0)
+			m_unflushedSince = System.currentTimeMillis();
+	}
+
+	/**
+	 * Return the writer for the current log file, reopening the file when the log file name changed.
+	 */
+	@Nonnull
+	private Writer openFile() throws IOException {
+		String name = EtcLoggerFactory.getSingleton().composeFullLogFileName(m_logRoot, m_out);
+		Writer w = m_writer;
+		if(null != w && name.equals(m_fileName))
+			return w;
+		closeFile();
+		File f = new File(name);
+		f.getParentFile().mkdirs();
+		w = m_writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f, true)), m_settings.getBufferSize());
+		m_fileName = name;
+		return w;
+	}
+
+	private void flushFile() throws IOException {
+		Writer w = m_writer;
+		if(null != w)
+			w.flush();
+		m_unflushedSize = 0;
+		m_unflushedSince = 0;
+	}
+
+	private void closeFile() {
+		Writer w = m_writer;
+		m_writer = null;
+		m_fileName = null;
+		m_unflushedSize = 0;
+		m_unflushedSince = 0;
+		if(null != w) {
+			try {
+				w.close();
+			} catch(IOException x) {
+				x.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Writing failed: report it, and discard the file so that it gets reopened for the next batch.
+	 */
+	private void writeFailed(@Nonnull Throwable x) {
+		System.err.println("etc logger: failed to write log file " + m_fileName + ": " + x);
+		x.printStackTrace();
+		closeFile();
+		if(m_stopped) {
+			//-- Do not retry forever when stopping: discard what is left
+			while(!isEmpty()) {
+				int ix = (int) m_head & m_mask;
+				m_slots.set(ix, null);
+				m_sequences.set(ix, m_head + m_capacity);
+				m_head++;
+			}
+		} else {
+			LockSupport.parkNanos(this, MAX_IDLE * 1_000_000L);
+		}
+	}
+}
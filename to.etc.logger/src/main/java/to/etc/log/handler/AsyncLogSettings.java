@@ -0,0 +1,120 @@
+package to.etc.log.handler;
+
+import javax.annotation.*;
+
+import org.w3c.dom.*;
+
+import to.etc.log.EtcLoggerFactory.LoggerConfigException;
+
+/**
+ * Settings for a file handler that writes its output asynchronously, see {@link AsyncFileAppender}. These
+ * are defined by an async element inside the handler; all attributes are optional:
+ * <pre>
+ *	&lt;handler type="file" file="app"&gt;
+ *		&lt;async queueSize="8192" bufferSize="65536" flushInterval="500" overflow="block"/&gt;
+ *		&lt;log level="DEBUG" name="to.etc"/&gt;
+ *	&lt;/handler&gt;
+ * </pre>
+ * queueSize is the max #of log lines waiting to be written, bufferSize the #of characters buffered before
+ * they are written to the file, and flushInterval the max #of milliseconds a line stays buffered. The
+ * overflow policy (block or drop) defines what happens when the queue is full.
+ *
+ * Created on Oct 18, 2026
+ */
+public class AsyncLogSettings {
+	static public final int		DEFAULT_QUEUE_SIZE		= 8192;
+
+	static public final int		DEFAULT_BUFFER_SIZE		= 64 * 1024;
+
+	static public final int		DEFAULT_FLUSH_INTERVAL	= 500;
+
+	private int					m_queueSize				= DEFAULT_QUEUE_SIZE;
+
+	private int					m_bufferSize			= DEFAULT_BUFFER_SIZE;
+
+	private int					m_flushInterval			= DEFAULT_FLUSH_INTERVAL;
+
+	@Nonnull
+	private LogOverflowPolicy	m_overflow				= LogOverflowPolicy.BLOCK;
+
+	public int getQueueSize() {
+		return m_queueSize;
+	}
+
+	public void setQueueSize(int queueSize) {
+		m_queueSize = queueSize;
+	}
+
+	public int getBufferSize() {
+		return m_bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		m_bufferSize = bufferSize;
+	}
+
+	public int getFlushInterval() {
+		return m_flushInterval;
+	}
+
+	public void setFlushInterval(int flushInterval) {
+		m_flushInterval = flushInterval;
+	}
+
+	@Nonnull
+	public LogOverflowPolicy getOverflow() {
+		return m_overflow;
+	}
+
+	public void setOverflow(@Nonnull LogOverflowPolicy overflow) {
+		m_overflow = overflow;
+	}
+
+	/**
+	 * Handlers writing to the same file with the same settings share one appender.
+	 */
+	@Nonnull
+	String getKey() {
+		return m_queueSize + "/" + m_bufferSize + "/" + m_flushInterval + "/" + m_overflow;
+	}
+
+	@Nonnull
+	static AsyncLogSettings createFromXml(@Nonnull Node node) throws LoggerConfigException {
+		AsyncLogSettings s = new AsyncLogSettings();
+		s.setQueueSize(getInt(node, "queueSize", DEFAULT_QUEUE_SIZE, 2));
+		s.setBufferSize(getInt(node, "bufferSize", DEFAULT_BUFFER_SIZE, 1024));
+		s.setFlushInterval(getInt(node, "flushInterval", DEFAULT_FLUSH_INTERVAL, 1));
+		Node val = node.getAttributes().getNamedItem("overflow");
+		if(val != null) {
+			try {
+				s.setOverflow(LogOverflowPolicy.valueOf(val.getNodeValue().trim().toUpperCase()));
+			} catch(IllegalArgumentException x) {
+				throw new LoggerConfigException("Invalid overflow policy '" + val.getNodeValue() + "' in async element, use block or drop.");
+			}
+		}
+		return s;
+	}
+
+	static private int getInt(@Nonnull Node node, @Nonnull String name, int dflt, int min) throws LoggerConfigException {
+		Node val = node.getAttributes().getNamedItem(name);
+		if(val == null) {
+			return dflt;
+		}
+		try {
+			int res = Integer.parseInt(val.getNodeValue().trim());
+			if(res < min) {
+				throw new LoggerConfigException("The " + name + " attribute of the async element must be at least " + min);
+			}
+			return res;
+		} catch(NumberFormatException x) {
+			throw new LoggerConfigException("Invalid " + name + " '" + val.getNodeValue() + "' in async element.");
+		}
+	}
+
+	void saveToXml(@Nonnull Document doc, @Nonnull Element asyncNode) {
+		asyncNode.setAttribute("queueSize", Integer.toString(m_queueSize));
+		asyncNode.setAttribute("bufferSize", Integer.toString(m_bufferSize));
+		asyncNode.setAttribute("flushInterval", Integer.toString(m_flushInterval));
+		asyncNode.setAttribute("overflow", m_overflow.name().toLowerCase());
+	}
+}
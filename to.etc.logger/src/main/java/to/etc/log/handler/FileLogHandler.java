@@ -45,6 +45,15 @@ class FileLogHandler implements ILogHandler {
 	@Nullable
 	private EtcLogFormat					m_format	= null;
 
+	/** When set the output is written by an {@link AsyncFileAppender} using these settings. */
+	@Nullable
+	private AsyncLogSettings				m_async;
+
+	@Nullable
+	private volatile AsyncFileAppender		m_appender;
+
+	private boolean							m_closed;
+
 	public FileLogHandler(@Nonnull File logRoot, @Nullable String out) {
 		m_logRoot = logRoot;
 		m_out = out;
@@ -92,38 +101,95 @@ class FileLogHandler implements ILogHandler {
 	private void log(@Nonnull EtcLogEvent event) {
 		String line = EtcLogFormatter.format(event, m_format != null ? m_format.getFormat() : EtcLogFormat.DEFAULT, getLogPartFromFilters());
 
+		AsyncFileAppender appender = getAppender();
+		if(null != appender) {
+			appender.append(line);
+			return;
+		}
+
 		synchronized(m_writeLock) {
 			if(m_out == null) {
 				System.out.println(line);
 			} else {
-				BufferedWriter w = null;
-				String fileName = null;
-				fileName = EtcLoggerFactory.getSingleton().composeFullLogFileName(m_logRoot.getAbsolutePath(), m_out);
+				writeLine(EtcLoggerFactory.getSingleton().composeFullLogFileName(m_logRoot.getAbsolutePath(), m_out), line);
+			}
+		}
+	}
 
-				File outFile = new File(fileName);
-				outFile.getParentFile().mkdirs();
+	/**
+	 * Append a single line to a log file, opening and closing the file.
+	 */
+	static void writeLine(@Nonnull String fileName, @Nonnull String line) {
+		BufferedWriter w = null;
+		File outFile = new File(fileName);
+		outFile.getParentFile().mkdirs();
+		try {
+			outFile.createNewFile();
+			w = new BufferedWriter(new FileWriter(outFile, true));
+			w.write(line);
+			w.newLine();
+		} catch(IOException e) {
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			if(w != null) {
 				try {
-					outFile.createNewFile();
-					w = new BufferedWriter(new FileWriter(outFile, true));
-					w.write(line);
-					w.newLine();
+					w.close();
 				} catch(IOException e) {
 					e.printStackTrace();
 					throw new RuntimeException(e);
-				} finally {
-					if(w != null) {
-						try {
-							w.close();
-						} catch(IOException e) {
-							e.printStackTrace();
-							throw new RuntimeException(e);
-						}
-					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Return the async appender when this handler writes asynchronously, starting it on first use.
+	 */
+	@Nullable
+	private AsyncFileAppender getAppender() {
+		AsyncFileAppender appender = m_appender;
+		if(null != appender)
+			return appender;
+		AsyncLogSettings async = m_async;
+		String out = m_out;
+		if(null == async || null == out)
+			return null;
+		synchronized(m_writeLock) {
+			appender = m_appender;
+			if(null == appender && !m_closed) {
+				appender = m_appender = AsyncFileAppender.acquire(m_logRoot.getAbsolutePath(), out, async);
+			}
+			return appender;
+		}
+	}
+
+	/**
+	 * Wait until all output logged sofar has been written to the log file. Only needed for async handlers.
+	 */
+	@Override
+	public void flush() {
+		AsyncFileAppender appender = m_appender;
+		if(null != appender)
+			appender.flush();
+	}
+
+	/**
+	 * Called when the handler is replaced by a new configuration: release the async appender, which
+	 * writes what is still queued.
+	 */
+	@Override
+	public void close() {
+		AsyncFileAppender appender;
+		synchronized(m_writeLock) {
+			m_closed = true;
+			appender = m_appender;
+			m_appender = null;
+		}
+		if(null != appender)
+			appender.release();
+	}
+
 	@Nullable
 	private String getLogPartFromFilters() {
 		if(m_filters.isEmpty()) {
@@ -201,6 +267,8 @@ class FileLogHandler implements ILogHandler {
 				addFilter(LogFilter.createFromXml(node));
 			} else if("format".equals(node.getNodeName())) {
 				addFormat(EtcLogFormat.createFromXml(node));
+			} else if("async".equals(node.getNodeName())) {
+				setAsync(AsyncLogSettings.createFromXml(node));
 			}
 		}
 	}
@@ -213,6 +281,21 @@ class FileLogHandler implements ILogHandler {
 		}
 	}
 
+	private void setAsync(@Nonnull AsyncLogSettings async) throws LoggerConfigException {
+		if(m_out == null) {
+			throw new EtcLoggerFactory.LoggerConfigException("Asynchronous output is only supported for file handlers.");
+		} else if(m_async != null) {
+			throw new EtcLoggerFactory.LoggerConfigException("Multiple async definitions found in log handler.");
+		} else {
+			m_async = async;
+		}
+	}
+
+	@Nullable
+	public AsyncLogSettings getAsync() {
+		return m_async;
+	}
+
 	@Nonnull
 	public static FileLogHandler createFromStdoutTypeConfig(@Nonnull File logRoot, @Nonnull Node handlerNode) throws LoggerConfigException {
 		FileLogHandler res = new FileLogHandler(logRoot, null);
@@ -231,6 +314,11 @@ class FileLogHandler implements ILogHandler {
 			handlerNode.appendChild(formatNode);
 			m_format.saveToXml(doc, formatNode);
 		}
+		if(m_async != null) {
+			Element asyncNode = doc.createElement("async");
+			handlerNode.appendChild(asyncNode);
+			m_async.saveToXml(doc, asyncNode);
+		}
 		for(LogMatcher matcher : m_matchers) {
 			Element logNode = doc.createElement("log");
 			handlerNode.appendChild(logNode);
@@ -249,6 +337,9 @@ class FileLogHandler implements ILogHandler {
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("handler ").append(m_out != null ? "file: " + m_out : "stdout");
+		if(m_async != null) {
+			sb.append(" (async)");
+		}
 		if(!m_matchers.isEmpty()) {
 			sb.append("\nmatchers: ");
 			for(LogMatcher matcher : m_matchers) {
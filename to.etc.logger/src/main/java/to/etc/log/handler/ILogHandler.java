@@ -43,4 +43,17 @@ public interface ILogHandler {
 	 * @param event
 	 */
 	boolean isTemporary();
+
+	/**
+	 * Wait until all events handled sofar have been written. Only handlers that write asynchronously need to implement this.
+	 */
+	default void flush() {
+	}
+
+	/**
+	 * Called when the handler is no longer used because the configuration was replaced, to release
+	 * resources like open files.
+	 */
+	default void close() {
+	}
 }
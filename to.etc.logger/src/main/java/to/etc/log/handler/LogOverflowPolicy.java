@@ -0,0 +1,14 @@
+package to.etc.log.handler;
+
+/**
+ * Defines what an asynchronous file handler does with a log event when its queue is full.
+ *
+ * Created on Oct 18, 2026
+ */
+public enum LogOverflowPolicy {
+	/** The logging thread waits until the writer has made room in the queue. No events are lost. */
+	BLOCK,
+
+	/** The event is discarded; the #of discarded events is reported in the log file itself. */
+	DROP
+}
@@ -0,0 +1,110 @@
+package to.etc.log.test;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.junit.*;
+import org.slf4j.*;
+
+import to.etc.log.*;
+
+/**
+ * Logs from multiple threads through a file handler, synchronously and with the async appender, and
+ * checks that no line is lost or mangled.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestAsyncFileLogHandler {
+	static private final int	THREADS	= 8;
+
+	static private final int	LINES	= 5000;
+
+	private File				m_logDir;
+
+	@Before
+	public void setup() throws Exception {
+		m_logDir = Files.createTempDirectory("asynclog").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		EtcLoggerFactory.getSingleton().tryLoadConfigFromXml(m_logDir, "<config logLocation=\"" + m_logDir.getAbsolutePath() + "\"><handler type=\"stdout\"><log level=\"ERROR\" name=\"\"/></handler></config>");
+		for(File f : m_logDir.listFiles())
+			f.delete();
+		m_logDir.delete();
+	}
+
+	@Nonnull
+	private String getConfig(@Nonnull String file, @Nullable String async) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<config logLocation=\"").append(m_logDir.getAbsolutePath()).append("\">");
+		sb.append("<handler type=\"file\" file=\"").append(file).append("\">");
+		if(null != async)
+			sb.append(async);
+		sb.append("<log level=\"DEBUG\" name=\"to.etc.log.test\"/>");
+		sb.append("</handler>");
+		sb.append("</config>");
+		return sb.toString();
+	}
+
+	/**
+	 * Log from all threads, and return the lines in the log file.
+	 */
+	@Nonnull
+	private List<String> run(@Nonnull String file, @Nullable String async) throws Exception {
+		Assert.assertTrue(EtcLoggerFactory.getSingleton().tryLoadConfigFromXml(m_logDir, getConfig(file, async)));
+		Logger log = LoggerFactory.getLogger(TestAsyncFileLogHandler.class.getName());
+
+		List<Thread> list = new ArrayList<>();
+		for(int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			Thread th = new Thread(() -> {
+				for(int i = 0; i < LINES; i++)
+					log.debug("line " + thread + "/" + i);
+			});
+			list.add(th);
+			th.start();
+		}
+		for(Thread th : list)
+			th.join();
+		EtcLoggerFactory.getSingleton().flush();
+
+		String name = EtcLoggerFactory.getSingleton().composeFullLogFileName(m_logDir.getAbsolutePath(), file);
+		return Files.readAllLines(Paths.get(name));
+	}
+
+	private void checkAllLines(@Nonnull List<String> lines) {
+		Assert.assertEquals(THREADS * LINES, lines.size());
+		Set<String> seen = new HashSet<>();
+		for(String line : lines) {
+			int pos = line.lastIndexOf("line ");
+			Assert.assertTrue("Mangled line: " + line, pos > 0);
+			Assert.assertTrue("Duplicate line: " + line, seen.add(line.substring(pos)));
+		}
+	}
+
+	@Test
+	public void testSyncAndAsync() throws Exception {
+		checkAllLines(run("sync", null));
+		checkAllLines(run("async", "<async queueSize=\"64\" flushInterval=\"100\" overflow=\"block\"/>"));
+	}
+
+	@Test
+	public void testDropOverflow() throws Exception {
+		List<String> lines = run("drop", "<async queueSize=\"16\" overflow=\"drop\"/>");
+		int written = 0;
+		int dropped = 0;
+		for(String line : lines) {
+			if(line.startsWith("--- ")) {
+				dropped += Integer.parseInt(line.substring(4, line.indexOf(' ', 4)));
+			} else {
+				written++;
+			}
+		}
+		Assert.assertTrue("Nothing written", written > 0);
+		Assert.assertEquals(THREADS * LINES, written + dropped);
+	}
+}
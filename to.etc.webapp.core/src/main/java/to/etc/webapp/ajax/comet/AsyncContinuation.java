@@ -0,0 +1,188 @@
+package to.etc.webapp.ajax.comet;
+
+import java.util.*;
+
+import javax.servlet.http.*;
+
+import org.slf4j.*;
+
+/**
+ * Continuation for a comet request that is suspended with the Servlet 3 AsyncContext. No thread
+ * waits for it: when it is resumed, or when its timeout expires on the timer shared by all async
+ * comet requests, the response is rendered on a container thread and the request is completed.
+ * The timer's thread is stopped when the last servlet that uses it is destroyed, see {@link #releaseTimer()}.
+ *
+ * Created on Oct 18, 2026
+ */
+class AsyncContinuation implements Continuation, AsyncServletSupport.IAsyncEndListener {
+	static private final Logger LOG = LoggerFactory.getLogger(AsyncContinuation.class);
+
+	/** The timer for the timeouts of all async comet requests, created when first needed. */
+	static private Timer m_timer;
+
+	/** The #of servlets using the timer. */
+	static private int m_timerUsers;
+
+	private final HttpServletResponse m_response;
+
+	private final AsyncServletSupport m_support;
+
+	private CometContext m_context;
+
+	private Object m_asyncContext;
+
+	private long m_timeout = -1;
+
+	private TimerTask m_timeoutTask;
+
+	/** Set when the request has been suspended, after the context's begin() has completed. */
+	private boolean m_suspended;
+
+	/** Set as soon as the request is resumed or has timed out. */
+	private boolean m_finished;
+
+	private boolean m_finishedByTimeout;
+
+	AsyncContinuation(HttpServletResponse response, AsyncServletSupport support) {
+		m_response = response;
+		m_support = support;
+	}
+
+	/**
+	 * Called by a servlet that will suspend requests, when it is initialized.
+	 */
+	static synchronized void acquireTimer() {
+		m_timerUsers++;
+	}
+
+	/**
+	 * Called when a servlet that used the timer is destroyed. When it was the last one the timer is
+	 * cancelled, so that its thread does not keep the web application's classloader alive.
+	 */
+	static synchronized void releaseTimer() {
+		if(m_timerUsers > 0)
+			m_timerUsers--;
+		if(m_timerUsers == 0 && null != m_timer) {
+			m_timer.cancel();
+			m_timer = null;
+		}
+	}
+
+	static synchronized private Timer getTimer() {
+		if(null == m_timer)
+			m_timer = new Timer("comet-timeout", true);
+		return m_timer;
+	}
+
+	/**
+	 * Called after the context's begin() has completed. If the context was resumed during begin() this
+	 * responds immediately, else it suspends the request and starts its timeout.
+	 */
+	void suspend(CometContext context, HttpServletRequest req, long maxTimeout) throws Exception {
+		boolean finished;
+		boolean timeout;
+		synchronized(this) {
+			m_context = context;
+			finished = m_finished;
+			timeout = m_finishedByTimeout;
+		}
+		if(finished) {
+			context.respond(m_response, timeout);				// No need to go async at all
+			return;
+		}
+
+		Object ac = m_support.startAsync(req, this);
+		try {
+			synchronized(this) {
+				m_asyncContext = ac;
+				m_suspended = true;
+				if(!m_finished) {
+					long tmo = m_timeout;
+					if(tmo < 0 || tmo > maxTimeout)
+						tmo = maxTimeout;
+					m_timeoutTask = new TimerTask() {
+						@Override
+						public void run() {
+							finish(true);
+						}
+					};
+					getTimer().schedule(m_timeoutTask, tmo);
+					return;
+				}
+				timeout = m_finishedByTimeout;
+			}
+		} catch(RuntimeException x) {
+			//-- The container's timeout is off, so without our timeout the request would never end: end it now.
+			LOG.error("Cannot start the comet timeout", x);
+			finish(true);
+			return;
+		}
+		respond(timeout);										// Resumed while we were suspending
+	}
+
+	@Override
+	public void resume() {
+		finish(false);
+	}
+
+	@Override
+	public synchronized void setTimeout(long ms) {
+		m_timeout = ms;
+	}
+
+	@Override
+	public void asyncEnded() {
+		finish(true);
+	}
+
+	private void finish(boolean timeout) {
+		synchronized(this) {
+			if(m_finished)
+				return;
+			m_finished = true;
+			m_finishedByTimeout = timeout;
+			if(m_timeoutTask != null)
+				m_timeoutTask.cancel();
+			if(!m_suspended)									// suspend() will respond
+				return;
+		}
+		respond(timeout);
+	}
+
+	/**
+	 * Render the response on a container thread, then complete the request.
+	 */
+	private void respond(final boolean timeout) {
+		final Object ac;
+		final CometContext context;
+		synchronized(this) {
+			ac = m_asyncContext;
+			context = m_context;
+		}
+		try {
+			m_support.start(ac, new Runnable() {
+				@Override
+				public void run() {
+					try {
+						context.respond(m_response, timeout);
+					} catch(Exception x) {
+						LOG.error("Comet response failed", x);
+					} finally {
+						try {
+							m_support.complete(ac);
+						} catch(Exception x) {
+							LOG.error("Completing comet request failed", x);
+						}
+					}
+				}
+			});
+		} catch(Exception x) {
+			LOG.error("Cannot start comet response", x);
+			try {
+				m_support.complete(ac);
+			} catch(Exception cx) {
+				LOG.error("Completing comet request failed", cx);
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package to.etc.webapp.ajax.comet;
+
+import java.lang.reflect.*;
+
+import javax.servlet.http.*;
+
+/**
+ * Access to the Servlet 3 asynchronous request API through reflection, because this code is
+ * compiled against the Servlet 2.5 API. When the container does not have the API all calls
+ * report that async is not supported. The classes of the API are passed to the constructor,
+ * so that tests can use their own stand-ins for them.
+ *
+ * Created on Oct 18, 2026
+ */
+final class AsyncServletSupport {
+	/** The support for the container's Servlet API. */
+	static final AsyncServletSupport DEFAULT = create(HttpServletRequest.class.getClassLoader());
+
+	private final Class< ? > m_asyncContextClass;
+
+	private final Class< ? > m_asyncListenerClass;
+
+	private final Method m_isAsyncSupported;
+
+	private final Method m_startAsync;
+
+	private final Method m_setTimeout;
+
+	private final Method m_addListener;
+
+	private final Method m_start;
+
+	private final Method m_complete;
+
+	/**
+	 * Support without the async API.
+	 */
+	private AsyncServletSupport() {
+		m_asyncContextClass = null;
+		m_asyncListenerClass = null;
+		m_isAsyncSupported = null;
+		m_startAsync = null;
+		m_setTimeout = null;
+		m_addListener = null;
+		m_start = null;
+		m_complete = null;
+	}
+
+	/**
+	 * Support using the ServletRequest, AsyncContext and AsyncListener types passed.
+	 */
+	AsyncServletSupport(Class< ? > requestClass, Class< ? > asyncContextClass, Class< ? > asyncListenerClass) throws Exception {
+		m_asyncContextClass = asyncContextClass;
+		m_asyncListenerClass = asyncListenerClass;
+		m_isAsyncSupported = requestClass.getMethod("isAsyncSupported");
+		m_startAsync = requestClass.getMethod("startAsync");
+		m_setTimeout = asyncContextClass.getMethod("setTimeout", long.class);
+		m_addListener = asyncContextClass.getMethod("addListener", asyncListenerClass);
+		m_start = asyncContextClass.getMethod("start", Runnable.class);
+		m_complete = asyncContextClass.getMethod("complete");
+	}
+
+	static private AsyncServletSupport create(ClassLoader cl) {
+		try {
+			Class< ? > sr = Class.forName("javax.servlet.ServletRequest", false, cl);
+			Class< ? > acc = Class.forName("javax.servlet.AsyncContext", false, cl);
+			Class< ? > alc = Class.forName("javax.servlet.AsyncListener", false, cl);
+			return new AsyncServletSupport(sr, acc, alc);
+		} catch(Exception x) {
+			return new AsyncServletSupport();					// Servlet 2.5 or older: no async support
+		}
+	}
+
+	/**
+	 * Returns T if the container has the Servlet 3 API and allows async processing for this request
+	 * (the servlet and all filters before it must be marked async-supported).
+	 */
+	boolean isAsyncSupported(HttpServletRequest req) {
+		if(m_asyncContextClass == null)
+			return false;
+		try {
+			return ((Boolean) m_isAsyncSupported.invoke(req)).booleanValue();
+		} catch(Exception x) {
+			return false;
+		}
+	}
+
+	/**
+	 * Put the request in async mode, without a container timeout, and return the AsyncContext. The listener
+	 * is called with T when the container times out or fails the request.
+	 */
+	Object startAsync(HttpServletRequest req, final IAsyncEndListener listener) throws Exception {
+		Object ac = invoke(m_startAsync, req);
+		invoke(m_setTimeout, ac, Long.valueOf(0));				// We time out ourselves
+		Object al = Proxy.newProxyInstance(m_asyncListenerClass.getClassLoader(), new Class< ? >[]{m_asyncListenerClass}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if("onTimeout".equals(name) || "onError".equals(name))
+					listener.asyncEnded();
+				else if("equals".equals(name))
+					return Boolean.valueOf(proxy == args[0]);
+				else if("hashCode".equals(name))
+					return Integer.valueOf(System.identityHashCode(proxy));
+				else if("toString".equals(name))
+					return "AsyncListener[" + listener + "]";
+				return null;
+			}
+		});
+		invoke(m_addListener, ac, al);
+		return ac;
+	}
+
+	/**
+	 * Run the task on a container thread, for the specified AsyncContext.
+	 */
+	void start(Object asyncContext, Runnable task) throws Exception {
+		invoke(m_start, asyncContext, task);
+	}
+
+	void complete(Object asyncContext) throws Exception {
+		invoke(m_complete, asyncContext);
+	}
+
+	static private Object invoke(Method m, Object target, Object... args) throws Exception {
+		try {
+			return m.invoke(target, args);
+		} catch(InvocationTargetException x) {
+			Throwable c = x.getCause();
+			if(c instanceof Exception)
+				throw (Exception) c;
+			if(c instanceof Error)
+				throw (Error) c;
+			throw x;
+		}
+	}
+
+	interface IAsyncEndListener {
+		/** Called when the container times out or fails the async request. */
+		void asyncEnded();
+	}
+}
@@ -32,11 +32,17 @@ import javax.servlet.http.*;
 /**
  * This is a generic Ajax Comet pattern servlet. It implements the
  * Comet pattern (http://www.ajaxian.com/archives/comet-a-new-approach-to-ajax-applications)
- * using a standard Servlet container. This implementation is unusable
- * for large amounts of clients due to thread and connection exthaustion on
- * the web server. The base interface implemented by this servlet is however
- * well suited to be implemented by different servlet containers that do
- * have asynchronous servlet implementations like Tomcat 6, Bea and Jetty.
+ * using a standard Servlet container.
+ *
+ * <p>When the container supports Servlet 3 asynchronous requests, and this servlet (plus all
+ * filters in front of it) are marked with &lt;async-supported&gt;true&lt;/async-supported&gt; in
+ * web.xml, a waiting request is suspended and does not use a thread: it is resumed by the
+ * CometContext, or by a timeout on a shared timer. Setting the servlet parameter 'async' to
+ * false disables this.</p>
+ *
+ * <p>Otherwise each waiting request blocks a container thread until it is resumed or times
+ * out. That is unusable for large amounts of clients due to thread and connection exhaustion on
+ * the web server.</p>
  *
  * <h3>See also:</h3>
  * http://blogs.webtide.com/gregw/2006/07/25/1153845234453.html<br/>
@@ -49,6 +55,9 @@ public class GenericCometServlet extends HttpServlet {
 
 	private Class< ? extends CometContext> m_contextClass;
 
+	/** When T, requests are suspended asynchronously if the container allows it. */
+	private boolean m_async = true;
+
 	@Override
 	public void init() throws ServletException {
 		super.init();
@@ -73,6 +82,10 @@ public class GenericCometServlet extends HttpServlet {
 				throw new UnavailableException("The class '" + cn + "' does not allow me to create instances: " + x);
 			}
 			m_contextClass = (Class< ? extends CometContext>) cl;
+			String async = getServletConfig().getInitParameter("async");
+			if(async != null)
+				m_async = Boolean.parseBoolean(async);
+			AsyncContinuation.acquireTimer();
 			System.out.println("GenericCometServlet: init has completed");
 		} catch(ServletException x) {
 			x.printStackTrace();
@@ -94,6 +107,10 @@ public class GenericCometServlet extends HttpServlet {
 	}
 
 	private void handle(final HttpServletRequest req, final HttpServletResponse res) throws ServletException, IOException {
+		if(m_async && AsyncServletSupport.DEFAULT.isAsyncSupported(req)) {
+			handleAsync(req, res);
+			return;
+		}
 		ContinuationImpl ci = new ContinuationImpl();
 
 		//-- Step 1: 'begin' processing.
@@ -142,6 +159,21 @@ public class GenericCometServlet extends HttpServlet {
 		}
 	}
 
+	/**
+	 * Begin the request, then suspend it without blocking this thread. The response is sent when the
+	 * context resumes the continuation or when it times out.
+	 */
+	private void handleAsync(final HttpServletRequest req, final HttpServletResponse res) throws ServletException, IOException {
+		AsyncContinuation ac = new AsyncContinuation(res, AsyncServletSupport.DEFAULT);
+		try {
+			CometContext ctx = m_contextClass.newInstance();
+			ctx.begin(this, req, ac);
+			ac.suspend(ctx, req, WAIT_TIMEOUT);
+		} catch(Exception x) {
+			handleException(x);
+		}
+	}
+
 	//	/**
 	//	 * @param req
 	//	 * @param res
@@ -172,6 +204,7 @@ public class GenericCometServlet extends HttpServlet {
 	@Override
 	public void destroy() {
 		System.out.println("GenericCometServlet: destroy called");
+		AsyncContinuation.releaseTimer();
 		super.destroy();
 	}
 }
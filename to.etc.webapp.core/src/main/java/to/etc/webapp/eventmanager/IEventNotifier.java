@@ -0,0 +1,33 @@
+package to.etc.webapp.eventmanager;
+
+import java.sql.*;
+
+import javax.annotation.*;
+
+/**
+ * A transport that wakes up the event scanners of all servers when events are posted, so that they
+ * do not have to poll the event table. The event manager still scans the table to read the events; a
+ * notification only tells it that there is something to read. When the notifier fails the event manager
+ * falls back to polling.
+ *
+ * Created on Oct 18, 2026
+ */
+public interface IEventNotifier {
+	/**
+	 * Called on the posting connection after the events have been inserted, before the transaction is
+	 * committed. The notification must only be delivered when the transaction commits.
+	 */
+	void eventsPosted(@Nonnull Connection dbc) throws Exception;
+
+	/**
+	 * Wait until a notification arrives or the timeout expires.
+	 * @param timeout	the max time to wait, in milliseconds.
+	 * @return	true if a notification arrived.
+	 */
+	boolean waitForEvents(long timeout) throws Exception;
+
+	/**
+	 * Release all resources; called when the event manager stops.
+	 */
+	void close();
+}
@@ -0,0 +1,118 @@
+package to.etc.webapp.eventmanager;
+
+import java.lang.reflect.*;
+import java.sql.*;
+
+import javax.annotation.*;
+import javax.sql.*;
+
+import to.etc.util.*;
+
+/**
+ * Uses PostgreSQL's LISTEN/NOTIFY to wake up the event scanners. Posting executes a NOTIFY on the
+ * posting connection, which PostgreSQL delivers when that transaction commits. Each server keeps a
+ * separate connection that LISTENs on the channel. The driver is used through reflection, so that
+ * this works without the PostgreSQL driver on the compile classpath; it needs a driver that has
+ * PGConnection.getNotifications(int).
+ *
+ * Created on Oct 18, 2026
+ */
+final public class PostgresEventNotifier implements IEventNotifier {
+	@Nonnull
+	private final DataSource m_ds;
+
+	@Nonnull
+	private final String m_channel;
+
+	@Nonnull
+	private final Class< ? > m_pgConnectionClass;
+
+	@Nonnull
+	private final Method m_getNotifications;
+
+	/** The connection that listens for notifications, allocated on first use. */
+	@Nullable
+	private Connection m_dbc;
+
+	@Nullable
+	private Object m_pgConnection;
+
+	private PostgresEventNotifier(@Nonnull DataSource ds, @Nonnull String channel, @Nonnull Class< ? > pgConnectionClass, @Nonnull Method getNotifications) {
+		m_ds = ds;
+		m_channel = channel;
+		m_pgConnectionClass = pgConnectionClass;
+		m_getNotifications = getNotifications;
+	}
+
+	/**
+	 * Create a notifier for the specified channel, or return null if the PostgreSQL driver is not present
+	 * or too old.
+	 */
+	@Nullable
+	static public PostgresEventNotifier create(@Nonnull DataSource ds, @Nonnull String channel) {
+		try {
+			Class< ? > clz = Class.forName("org.postgresql.PGConnection");
+			Method m = clz.getMethod("getNotifications", int.class);
+			return new PostgresEventNotifier(ds, channel.toLowerCase(), clz, m);
+		} catch(Exception x) {
+			return null;
+		}
+	}
+
+	@Override
+	public void eventsPosted(@Nonnull Connection dbc) throws Exception {
+		Statement st = dbc.createStatement();
+		try {
+			st.execute("notify " + m_channel);
+		} finally {
+			FileTool.closeAll(st);
+		}
+	}
+
+	@Override
+	public synchronized boolean waitForEvents(long timeout) throws Exception {
+		Object pgc = m_pgConnection;
+		if(null == pgc)
+			pgc = listen();
+		try {
+			Object[] res = (Object[]) m_getNotifications.invoke(pgc, Integer.valueOf((int) Math.min(timeout, Integer.MAX_VALUE)));
+			return res != null && res.length > 0;
+		} catch(InvocationTargetException x) {
+			close();									// Get a new connection next time
+			Throwable c = x.getCause();
+			if(c instanceof Exception)
+				throw (Exception) c;
+			throw x;
+		}
+	}
+
+	@Nonnull
+	private Object listen() throws Exception {
+		Connection dbc = m_ds.getConnection();
+		try {
+			dbc.setAutoCommit(true);					// LISTEN only takes effect when committed
+			Statement st = dbc.createStatement();
+			try {
+				st.execute("listen " + m_channel);
+			} finally {
+				FileTool.closeAll(st);
+			}
+			Object pgc = dbc.unwrap(m_pgConnectionClass);
+			m_dbc = dbc;
+			m_pgConnection = pgc;
+			return pgc;
+		} catch(Exception x) {
+			FileTool.closeAll(dbc);
+			throw x;
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		Connection dbc = m_dbc;
+		m_dbc = null;
+		m_pgConnection = null;
+		if(null != dbc)
+			FileTool.closeAll(dbc);
+	}
+}
@@ -139,6 +139,13 @@ import to.etc.webapp.testsupport.*;
  * geziene event steeds te bewaren. Dit voorkomt tevens dat de event tabel steeds in het geheel
  * doorgelezen moet worden om nieuwe events te vinden.</p>
  *
+ * <p>Het poll interval past zich aan: zolang er geen events binnenkomen verdubbelt het, tot maximaal
+ * {@link #setPollInterval(long, long)}; zodra er weer events zijn gaat het terug naar het minimum. Met een
+ * {@link IEventNotifier} (op PostgreSQL standaard LISTEN/NOTIFY) wacht de scanner op een notificatie in
+ * plaats van te pollen. Events die samen gepost worden krijgen hun UPIDs in een enkele roundtrip en
+ * worden als batch ge-insert. Databases zonder ondersteunde sequence gebruiken een tabel
+ * &lt;tabel&gt;_SQ met een enkele teller.</p>
+ *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Sep 12, 2006
  */
@@ -147,7 +154,14 @@ public class VpEventManager implements Runnable {
 
 	static private final long DELETEINTERVAL = 10 * 60 * 1000;
 
-	static private final long POLLINTERVAL = 1 * 1000;
+	/** The default shortest time between scans, used while events arrive. */
+	static private final long POLLINTERVAL = 250;
+
+	/** The default longest time between scans when no events arrive; kept short so an idle server still sees events within a second. */
+	static private final long MAXPOLLINTERVAL = 1000;
+
+	/** The #of consecutive notifier failures after which the notifier is dropped and the scanner polls. */
+	static private final int MAXNOTIFIERFAILURES = 5;
 
 	static private class Item {
 		public Object m_obj;
@@ -202,18 +216,49 @@ public class VpEventManager implements Runnable {
 	private final Map<String, List<Item>> m_listenerList = new HashMap<String, List<Item>>();
 
 	enum DbType {
-		ORACLE, POSTGRES
+		ORACLE, POSTGRES, GENERIC
 	};
 
 	private DbType m_dbtype;
 
 	private long m_lastHandled;
 
+	private long m_minPollInterval = POLLINTERVAL;
+
+	private long m_maxPollInterval = MAXPOLLINTERVAL;
+
+	/** The current time between scans; doubles while nothing arrives. */
+	private long m_pollInterval = POLLINTERVAL;
+
+	/** Set when this server committed events, so that the scanner does not wait. */
+	private boolean m_scanRequested;
+
+	/** When set, the scanner waits for notifications from this instead of polling. */
+	@Nullable
+	private IEventNotifier m_notifier;
+
+	/** The #of consecutive times the notifier failed. */
+	private int m_notifierFailures;
+
+	private long m_postCount;
+
+	private long m_postBatchCount;
+
+	private long m_postNanos;
+
+	private long m_scanCount;
+
+	private long m_receivedCount;
+
+	private long m_latencyTotal;
+
+	private long m_maxLatency;
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Singleton init.                                  	*/
 	/*--------------------------------------------------------------*/
 
-	private VpEventManager(@Nonnull final DataSource ds, @Nonnull final String tableName, @Nonnull final IEventMarshaller eventMarshaller) {
+	VpEventManager(@Nonnull final DataSource ds, @Nonnull final String tableName, @Nonnull final IEventMarshaller eventMarshaller) {
 		m_ds = ds;
 		m_tableName = tableName;
 		m_eventMarshaller = eventMarshaller;
@@ -334,9 +379,10 @@ public class VpEventManager implements Runnable {
 			else if(name.contains("postgres"))
 				m_dbtype = DbType.POSTGRES;
 			else
-				throw new IllegalStateException("Unsupported database type: " + name);
+				m_dbtype = DbType.GENERIC;
 
 			String tbl, seq;
+			String seqinit = null;
 			switch(m_dbtype){
 				default:
 					throw new IllegalStateException("Unhandled DBTYPE: " + m_dbtype);
@@ -348,9 +394,16 @@ public class VpEventManager implements Runnable {
 
 				case POSTGRES:
 					tbl = "create table " + m_tableName
-						+ "( upid numeric(20,0) not null primary key, utime date not null, evname varchar(80) not null, server varchar(32) not null, obj varchar(4000))";
+						+ "( upid numeric(20,0) not null primary key, utime timestamp not null, evname varchar(80) not null, server varchar(32) not null, obj varchar(4000))";
 					seq = "create sequence " + m_tableName + "_SQ start with 1 increment by 1";
 					break;
+
+				case GENERIC:
+					tbl = "create table " + m_tableName
+						+ "( upid numeric(20,0) not null primary key, utime timestamp not null, evname varchar(80) not null, server varchar(32) not null, obj varchar(4000))";
+					seq = "create table " + m_tableName + "_SQ(val numeric(20,0) not null)";
+					seqinit = "insert into " + m_tableName + "_SQ(val) values(0)";
+					break;
 			}
 			ps = dbc.prepareStatement(tbl);
 			ps.executeUpdate();
@@ -359,6 +412,13 @@ public class VpEventManager implements Runnable {
 			//-- Create the sequence,
 			ps = dbc.prepareStatement(seq);
 			ps.executeUpdate();
+			ps.close();
+			if(null != seqinit) {
+				ps = dbc.prepareStatement(seqinit);
+				ps.executeUpdate();
+			}
+			if(!dbc.getAutoCommit())
+				dbc.commit();
 		} catch(Exception x) {
 			String msg = x.toString().toLowerCase();
 
@@ -386,7 +446,7 @@ public class VpEventManager implements Runnable {
 	 * @param tableName
 	 * @throws Exception
 	 */
-	private synchronized void init() throws Exception {
+	synchronized void init() throws Exception {
 		Connection dbc = null;
 		ResultSet rs = null;
 		PreparedStatement ps = null;
@@ -406,6 +466,9 @@ public class VpEventManager implements Runnable {
 		} finally {
 			FileTool.closeAll(rs, ps, dbc);
 		}
+
+		if(m_dbtype == DbType.POSTGRES && DeveloperOptions.getBool("domui.eventmanager.notify", true))
+			m_notifier = PostgresEventNotifier.create(m_ds, m_tableName);
 	}
 
 	/**
@@ -416,15 +479,48 @@ public class VpEventManager implements Runnable {
 			return;
 		if(inJUnitTestMode())
 			return;
+		startHandler();
+	}
+
+	synchronized void startHandler() {
+		if(m_handlerThread != null)
+			return;
+		m_handlerThread = new Thread(this);
+		m_handlerThread.setName("SystemEventManager");
+		m_handlerThread.setDaemon(true);
+		m_handlerThread.start();
+	}
 
-		synchronized(m_instance) {
-			if(m_handlerThread != null)
-				return;
-			m_handlerThread = new Thread(this);
-			m_handlerThread.setName("SystemEventManager");
-			m_handlerThread.setDaemon(true);
-			m_handlerThread.start();
-		}
+	/**
+	 * Sets the shortest and longest time between scans of the event table. The scanner uses the shortest
+	 * time while events arrive, and doubles it up to the longest time while none do. When a notifier is
+	 * used the longest time is the max. time to wait for a notification.
+	 */
+	public synchronized void setPollInterval(final long min, final long max) {
+		if(min <= 0 || max < min)
+			throw new IllegalArgumentException("Invalid poll interval " + min + ".." + max);
+		m_minPollInterval = min;
+		m_maxPollInterval = max;
+		m_pollInterval = min;
+		notifyAll();
+	}
+
+	/**
+	 * Sets the transport that wakes up the scanner when events are posted, replacing the default. Set
+	 * to null to always poll.
+	 */
+	public synchronized void setNotifier(@Nullable final IEventNotifier notifier) {
+		IEventNotifier old = m_notifier;
+		m_notifier = notifier;
+		m_notifierFailures = 0;
+		if(null != old && old != notifier)
+			old.close();
+		notifyAll();
+	}
+
+	@Nullable
+	public synchronized IEventNotifier getNotifier() {
+		return m_notifier;
 	}
 
 	/*--------------------------------------------------------------*/
@@ -564,6 +660,14 @@ public class VpEventManager implements Runnable {
 	private void handleEvents(final List<AppEventBase> list, final Set<Long> localeventset) {
 		for(int i = 0; i < list.size(); i++) {
 			AppEventBase ae = list.get(i);
+			if(null != ae.getTimestamp()) {
+				long latency = System.currentTimeMillis() - ae.getTimestamp().getTime();
+				synchronized(this) {
+					m_latencyTotal += latency;
+					if(latency > m_maxLatency)
+						m_maxLatency = latency;
+				}
+			}
 //			System.out.println("EV: Handle event " + ae.getUpid() + ", " + ae.getClass().getName());
 			callListeners(ae, false, localeventset.contains(Long.valueOf(ae.getUpid()))); // Call all handlers that need delayed notification
 			synchronized(this) {
@@ -575,21 +679,98 @@ public class VpEventManager implements Runnable {
 
 	/**
 	 * Janitor-called entry which scans for new events and passes them on.
+	 * @return the #of events found.
 	 */
-	private void scanOnce() {
+	private int scanOnce() {
 		try {
 			List<AppEventBase> list = new ArrayList<AppEventBase>();
 			Set<Long> localeventset = new HashSet<Long>();
 			scanNewEvents(list, localeventset);
+			synchronized(this) {
+				m_scanCount++;
+				m_receivedCount += list.size();
+			}
 			if(list.size() == 0)
-				return;
+				return 0;
 			log("Forwarding " + list.size() + " events.");
 			handleEvents(list, localeventset);
+			return list.size();
 		} catch(Exception x) {
 			x.printStackTrace();
+			return 0;
+		}
+	}
+
+	/**
+	 * Wait till it is time to scan again: until the poll interval expires, a notification arrives or this
+	 * server committed events.
+	 * @return false if the event manager must stop.
+	 */
+	private boolean waitForScan() throws InterruptedException {
+		IEventNotifier notifier;
+		long interval;
+		synchronized(this) {
+			if(m_stop)
+				return false;
+			notifier = m_notifier;
+			interval = m_pollInterval;
+			if(notifier != null)
+				interval = m_maxPollInterval;			// Just a safety net when we get notified.
+			if(!m_scanRequested && notifier == null)
+				wait(interval);
+			if(m_stop)
+				return false;
+			if(m_scanRequested)
+				notifier = null;
+		}
+
+		if(notifier != null) {
+			try {
+				notifier.waitForEvents(interval);
+				synchronized(this) {
+					m_notifierFailures = 0;
+				}
+			} catch(Exception x) {
+				notifierFailed(notifier, x);
+			}
+		}
+		synchronized(this) {
+			m_scanRequested = false;
+			return !m_stop;
 		}
 	}
 
+	/**
+	 * Poll while the notifier fails, backing off like an idle poll. The first failure is logged; when it keeps
+	 * failing, like when the connection is not a PostgreSQL one or a pooler does not pass on LISTEN, the
+	 * notifier is dropped so that it does not claim a connection on every scan.
+	 */
+	private void notifierFailed(@Nonnull IEventNotifier notifier, @Nonnull Exception x) throws InterruptedException {
+		synchronized(this) {
+			if(m_notifier != notifier)							// Replaced meanwhile
+				return;
+			int failures = ++m_notifierFailures;
+			if(failures == 1)
+				log("Notifier failed: " + x + ", polling instead");
+			if(failures < MAXNOTIFIERFAILURES) {
+				if(!m_stop && !m_scanRequested)
+					wait(m_pollInterval);
+				return;
+			}
+			m_notifier = null;
+		}
+		log("Notifier failed " + MAXNOTIFIERFAILURES + " times in a row, polling from now on");
+		notifier.close();
+	}
+
+	/**
+	 * Wake up the scanner.
+	 */
+	private synchronized void requestScan() {
+		m_scanRequested = true;
+		notifyAll();
+	}
+
 	/**
 	 * Thread entry.
 	 *
@@ -599,26 +780,31 @@ public class VpEventManager implements Runnable {
 	public void run() {
 		try {
 			for(;;) {
+				if(!waitForScan()) {
+					log("event manager terminates due to STOP request");
+					return;
+				}
+				int count = scanOnce();
 				synchronized(this) {
-					if(m_stop) {
-						log("event manager terminates due to STOP request");
-						return;
-					}
-					wait(POLLINTERVAL);
-					if(m_stop)
-						return;
+					if(count > 0)
+						m_pollInterval = m_minPollInterval;
+					else
+						m_pollInterval = Math.min(m_pollInterval * 2, m_maxPollInterval);
 				}
-				scanOnce();
 			}
 		} catch(Throwable t) {
 			t.printStackTrace();
 		} finally {
 			boolean warn = false;
+			IEventNotifier notifier;
 			synchronized(this) {
 				m_handlerThread = null;
 				if(!m_stop)
 					warn = true;
+				notifier = m_notifier;
 			}
+			if(null != notifier)
+				notifier.close();
 			if(warn)
 				log("Handler thread EXITED!?");
 		}
@@ -638,7 +824,18 @@ public class VpEventManager implements Runnable {
 	 * handler will be called immediately).
 	 */
 	public long sendEventMain(@Nonnull final Connection dbc, @Nonnull final AppEventBase ae, final boolean commit, final boolean isimmediate) throws Exception {
-		ResultSet rs = null;
+		sendEventsMain(dbc, Collections.singletonList(ae), commit, isimmediate);
+		return ae.getUpid();
+	}
+
+	/**
+	 * NOT FOR COMMON USE - Primitive event poster for a batch of events. This gets the upids for all events in
+	 * a single roundtrip, and inserts them as a single batch.
+	 */
+	public void sendEventsMain(@Nonnull final Connection dbc, @Nonnull final List< ? extends AppEventBase> list, final boolean commit, final boolean isimmediate) throws Exception {
+		if(list.size() == 0)
+			return;
+		long ts = System.nanoTime();
 		PreparedStatement ps = null;
 		boolean ac = dbc.getAutoCommit(); // Do not autocommit when storing a blub
 		boolean ok = false;
@@ -646,43 +843,48 @@ public class VpEventManager implements Runnable {
 			if(ac)
 				dbc.setAutoCommit(false);
 
-			//-- Get a new upid
-			ps = dbc.prepareStatement("select " + m_tableName + "_SQ.nextval from dual");
-			rs = ps.executeQuery();
-			if(!rs.next())
-				throw new SQLException("No result from select-from-sequence!?");
-			long id = rs.getLong(1);
-			rs.close();
-			ps.close();
-
-			//-- Update the event with it's info
-			ae.setUpid(id); // Update the UPID,
-			ae.setTimestamp(now());
-			ae.setServer(m_serverName);
+			//-- Get new upids, and update the events with their info
+			long[] ids = allocateIds(dbc, list.size());
+			Timestamp now = now();
+			for(int i = 0; i < list.size(); i++) {
+				AppEventBase ae = list.get(i);
+				ae.setUpid(ids[i]); // Update the UPID,
+				ae.setTimestamp(now);
+				ae.setServer(m_serverName);
+			}
 
 			if(isimmediate) { // Handlers will be called immediately after this?
 				synchronized(this) {
-					m_localEvents.add(Long.valueOf(id)); // Store this as a local event,
+					for(long id : ids)
+						m_localEvents.add(Long.valueOf(id)); // Store this as a local event,
 				}
 			}
 
-			//-- Store the record,
+			//-- Store the records,
 			ps = dbc.prepareStatement("insert into " + m_tableName + "(upid,evname,utime,server,obj) values(?,?,?,?,?)");
-			ps.setLong(1, id);
-			ps.setString(2, ae.getClass().getCanonicalName());
-			ps.setTimestamp(3, (Timestamp) ae.getTimestamp());
-			ps.setString(4, ae.getServer());
-			ps.setString(5, m_eventMarshaller.marshalEvent(ae));
-			ps.executeUpdate();
-			ps.close();
+			for(AppEventBase ae : list) {
+				ps.setLong(1, ae.getUpid());
+				ps.setString(2, ae.getClass().getCanonicalName());
+				ps.setTimestamp(3, (Timestamp) ae.getTimestamp());
+				ps.setString(4, ae.getServer());
+				ps.setString(5, m_eventMarshaller.marshalEvent(ae));
+				ps.addBatch();
+			}
+			ps.executeBatch();
 
-			rs.close();
-			ps.close();
+			IEventNotifier notifier = getNotifier();
+			if(null != notifier)
+				notifier.eventsPosted(dbc);
 			if(commit) {
 				dbc.commit();
+				requestScan();
 			}
 			ok = true;
-			return id;
+			synchronized(this) {
+				m_postCount += list.size();
+				m_postBatchCount++;
+				m_postNanos += System.nanoTime() - ts;
+			}
 		} finally {
 			try {
 				if(!ok)
@@ -692,6 +894,54 @@ public class VpEventManager implements Runnable {
 				if(ac && commit)
 					dbc.setAutoCommit(true);
 			} catch(Exception x) {}
+			FileTool.closeAll(ps);
+		}
+	}
+
+	/**
+	 * Get the specified #of new upids in a single roundtrip, in ascending order.
+	 */
+	@Nonnull
+	private long[] allocateIds(@Nonnull final Connection dbc, final int count) throws SQLException {
+		long[] res = new long[count];
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			switch(m_dbtype){
+				case ORACLE:
+					ps = dbc.prepareStatement("select " + m_tableName + "_SQ.nextval from dual connect by level <= ?");
+					break;
+
+				case POSTGRES:
+					ps = dbc.prepareStatement("select nextval('" + m_tableName + "_SQ') from generate_series(1, ?)");
+					break;
+
+				default:
+					//-- Counter table: the update locks the counter until the posting transaction ends.
+					ps = dbc.prepareStatement("update " + m_tableName + "_SQ set val=val+?");
+					ps.setInt(1, count);
+					if(ps.executeUpdate() != 1)
+						throw new SQLException("The counter table " + m_tableName + "_SQ must have exactly one row");
+					ps.close();
+					ps = dbc.prepareStatement("select val from " + m_tableName + "_SQ");
+					rs = ps.executeQuery();
+					if(!rs.next())
+						throw new SQLException("No result from select-from-counter!?");
+					long last = rs.getLong(1);
+					for(int i = 0; i < count; i++)
+						res[i] = last - count + 1 + i;
+					return res;
+			}
+			ps.setInt(1, count);
+			rs = ps.executeQuery();
+			int ix = 0;
+			while(rs.next() && ix < count)
+				res[ix++] = rs.getLong(1);
+			if(ix != count)
+				throw new SQLException("No result from select-from-sequence!?");
+			Arrays.sort(res);
+			return res;
+		} finally {
 			FileTool.closeAll(rs, ps);
 		}
 	}
@@ -880,12 +1130,11 @@ public class VpEventManager implements Runnable {
 	 * @throws Exception
 	 */
 	public void postDelayedEvent(@Nonnull final Connection dbc, @Nonnull final List< ? extends AppEventBase> ae) throws Exception {
-		for(AppEventBase a : ae) {
-			if(inJUnitTestMode()) {
+		if(inJUnitTestMode()) {
+			for(AppEventBase a : ae)
 				callListeners(a, true, true); 			// Call all listeners that need the event immediately. ORDER IMPORTANT: must be after sendEvent.
-			} else {
-				sendEventMain(dbc, a, false, false);	// First save the thingy everywhere, ORDER IMPORTANT!!
-			}
+		} else {
+			sendEventsMain(dbc, ae, false, false);		// First save the thingy everywhere, ORDER IMPORTANT!!
 		}
 	}
 
@@ -901,11 +1150,10 @@ public class VpEventManager implements Runnable {
 	 */
 	public void postEvent(@Nonnull final Connection dbc, @Nonnull final List< ? extends AppEventBase> aelist) throws Exception {
 		if(!inJUnitTestMode()) {
-			for(AppEventBase ae : aelist) {
-				sendEventMain(dbc, ae, false, true); // First save the thingy everywhere, ORDER IMPORTANT!!
-			}
+			sendEventsMain(dbc, aelist, false, true); // First save the thingy everywhere, ORDER IMPORTANT!!
 		}
 		dbc.commit();
+		requestScan();
 
 		//-- Call all local handlers immediately.
 		for(AppEventBase ae : aelist) {
@@ -917,6 +1165,66 @@ public class VpEventManager implements Runnable {
 		return m_lastHandled;
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Statistics.                                      	*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * The #of events posted by this server.
+	 */
+	public synchronized long getPostCount() {
+		return m_postCount;
+	}
+
+	/**
+	 * The #of batches the posted events were stored in.
+	 */
+	public synchronized long getPostBatchCount() {
+		return m_postBatchCount;
+	}
+
+	/**
+	 * The average time to store a batch of events, in nanoseconds.
+	 */
+	public synchronized long getAveragePostTime() {
+		return m_postBatchCount == 0 ? 0 : m_postNanos / m_postBatchCount;
+	}
+
+	/**
+	 * The #of scans of the event table.
+	 */
+	public synchronized long getScanCount() {
+		return m_scanCount;
+	}
+
+	/**
+	 * The #of events read by the scanner.
+	 */
+	public synchronized long getReceivedCount() {
+		return m_receivedCount;
+	}
+
+	/**
+	 * The average time, in milliseconds, between posting an event and calling its delayed listeners. Events
+	 * from other servers include the difference between the server clocks.
+	 */
+	public synchronized long getAverageDeliveryLatency() {
+		return m_receivedCount == 0 ? 0 : m_latencyTotal / m_receivedCount;
+	}
+
+	/**
+	 * The longest time, in milliseconds, between posting an event and calling its delayed listeners.
+	 */
+	public synchronized long getMaxDeliveryLatency() {
+		return m_maxLatency;
+	}
+
+	/**
+	 * The current time between scans, in milliseconds.
+	 */
+	public synchronized long getPollInterval() {
+		return m_pollInterval;
+	}
+
 	/**
 	 * Sleep until the specified event has been handled. This waits for max. one minute.
 	 * @param value
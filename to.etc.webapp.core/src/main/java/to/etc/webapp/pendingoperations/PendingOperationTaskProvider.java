@@ -32,12 +32,20 @@ import java.util.Date;
 import javax.annotation.*;
 import javax.sql.*;
 
+import to.etc.dbpool.*;
 import to.etc.util.*;
 
 /**
  * This polled task provider checks for tasks to execute in the sys_pending_operations table. It
  * handles all polling chores and properly handles all order requirements for pending operations. Operations
- * here are checked only every 5 minutes.
+ * here are checked only every minute, or as soon as a new one is saved.
+ *
+ * <p>Each scan claims a small batch of operations for this server, so that several servers can share
+ * the table without locking it for each other. The scan only reads the operations that can run now:
+ * loose operations, and the first member of each order group. On PostgreSQL the candidates are locked
+ * with FOR UPDATE SKIP LOCKED, so that candidates locked by another server are skipped. On other
+ * databases a loose operation is claimed with a conditional update that only succeeds when no other
+ * server claimed it first. Order groups are always claimed with the group locked.</p>
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Mar 4, 2009
@@ -54,7 +62,30 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 	/** The single-thread usage baton. */
 	private boolean m_inUse;
 
-	private int m_lastSelectedIndex;
+	/** The max #of operations (or operation groups) claimed in one scan. */
+	private int m_claimBatchSize = 4;
+
+	/** The max #of candidate operations read in one scan. */
+	private int m_scanSize = 50;
+
+	/** The id of the last operation claimed; the next scan starts after it so that all candidates get their turn. */
+	private long m_lastClaimedId;
+
+	/** Tasks claimed by this server that have not yet been handed to a worker. */
+	private final LinkedList<PendingOperationTask> m_claimedTasks = new LinkedList<PendingOperationTask>();
+
+	/** The database type, determined at the first scan. */
+	private DbType m_dbType;
+
+	private long m_scanCount;
+
+	private long m_scanNanos;
+
+	private long m_maxScanNanos;
+
+	private long m_claimCount;
+
+	private long m_claimConflictCount;
 
 	private long m_tsNextCheck;
 
@@ -62,12 +93,17 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 
 	private List<IPendingOperationListener> m_listeners = Collections.EMPTY_LIST;
 
-	//	private PendingOperationTaskProvider(final DataSource ds, final String serverID) {
-	//		m_ds = ds;
-	//		m_serverID = serverID;
-	//	}
 	private PendingOperationTaskProvider() {}
 
+	/**
+	 * Creates a provider that is not registered with a worker queue, so that several "servers" can share one
+	 * table in a single JVM. The caller asks it for tasks and runs them.
+	 */
+	PendingOperationTaskProvider(final DataSource ds, final String serverID) {
+		m_ds = ds;
+		m_serverID = serverID;
+	}
+
 	/**
 	 * Initializes this thing, and adds it to the worker queue handler.
 	 * @param serverID
@@ -159,6 +195,14 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 		long cts = System.currentTimeMillis();
 		boolean cleanup = false;
 		synchronized(this) {
+			//-- Hand out tasks claimed by an earlier scan first
+			PendingOperationTask pot = m_claimedTasks.poll();
+			if(null != pot) {
+				if(m_claimedTasks.size() > 0)
+					signalWorkers();
+				return pot;
+			}
+
 			if(m_inUse || cts < m_tsNextCheck) { // Not yet time to check again?
 			//				System.out.println("potp: no need to scan for PendingOperation");
 				return null;
@@ -179,7 +223,7 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 			Runnable task = findBestTask();
 			//			System.out.println("potp: got task="+task);
 			if(task != null) {
-				m_executor.checkProvider(this); // Notify, allowing another thread to check for task actions too.
+				signalWorkers(); // Notify, allowing another thread to check for task actions too.
 			}
 			return task;
 		} finally {
@@ -189,6 +233,24 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 		}
 	}
 
+	/**
+	 * Tells the worker queue that there is more work, so that another worker asks for it. A provider that
+	 * is not registered has no queue.
+	 */
+	private void signalWorkers() {
+		PollingWorkerQueue executor = m_executor;
+		if(null != executor)
+			executor.checkProvider(this);
+	}
+
+	/**
+	 * Makes the next call to getRunnableTask() scan the table, instead of waiting for the next minute.
+	 */
+	synchronized void scheduleScan() {
+		m_tsNextCheck = 0;
+		notify();
+	}
+
 	/**
 	 * Checks whether it's time to cleanup the database.
 	 */
@@ -232,95 +294,233 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 	}
 
 	/**
-	 * Opens sys_pending_operations in LOCK mode, then allocates the next-task(set)-to-run from it.
-	 * @return
+	 * Claims the next batch of operations to run, and returns the first one. The rest is handed out by
+	 * the next calls to getRunnableTask().
 	 */
 	private Runnable findBestTask() throws Exception {
+		long ts = System.nanoTime();
+		List<PendingOperationTask> claimed = claimTasks();
+		ts = System.nanoTime() - ts;
+
+		synchronized(this) {
+			m_scanCount++;
+			m_scanNanos += ts;
+			if(ts > m_maxScanNanos)
+				m_maxScanNanos = ts;
+			m_claimCount += claimed.size();
+
+			if(claimed.size() == 0) {
+				//-- Nothing to run: check again in a minute, or when a new operation is saved.
+				m_tsNextCheck = System.currentTimeMillis() + 1 * 60 * 1000;
+				return null;
+			}
+			m_claimedTasks.addAll(claimed);
+			return m_claimedTasks.poll();
+		}
+	}
+
+	/**
+	 * Claims a batch of operations in a single transaction. The scan starts after the last operation
+	 * claimed, and wraps around if nothing could be claimed there.
+	 */
+	private List<PendingOperationTask> claimTasks() throws Exception {
 		Connection dbc = m_ds.getConnection();
+		try {
+			dbc.setAutoCommit(false); // Make very certain stuff's not commited.
+			boolean skipLocked = getDbType(dbc) == DbType.POSTGRES;
+			long from;
+			synchronized(this) {
+				from = m_lastClaimedId;
+			}
+			List<PendingOperationTask> res = new ArrayList<PendingOperationTask>();
+			claimFrom(dbc, skipLocked, from, res);
+			if(res.size() == 0 && from > 0)
+				claimFrom(dbc, skipLocked, 0, res);
+			dbc.commit();
+			return res;
+		} finally {
+			try {
+				dbc.rollback();
+			} catch(Exception x) {}
+			try {
+				dbc.close();
+			} catch(Exception x) {}
+		}
+	}
+
+	private synchronized DbType getDbType(final Connection dbc) throws SQLException {
+		if(m_dbType == null)
+			m_dbType = DbPoolUtil.getDbTypeByDriverName(dbc.getMetaData().getDriverName());
+		return m_dbType;
+	}
+
+	/**
+	 * Reads the candidate operations with an id above fromId, and claims them until the batch is full. A
+	 * candidate is an operation that can run now and that either has no order group, or that has no
+	 * other retryable or executing operations before it in its group.
+	 */
+	private void claimFrom(final Connection dbc, final boolean skipLocked, final long fromId, final List<PendingOperationTask> res) throws SQLException {
+		int scanSize, batchSize;
+		synchronized(this) {
+			scanSize = m_scanSize;
+			batchSize = m_claimBatchSize;
+		}
 		PreparedStatement ps = null;
 		ResultSet rs = null;
-		//		long ts	= System.nanoTime();
+		List<PendingOperation> candidates = new ArrayList<PendingOperation>();
 		try {
-			Date now = new Date();
-			dbc.setAutoCommit(false); // Make very certain stuff's not commited.
-			ps = dbc.prepareStatement("select " + PendingOperation.FIELDS + " from sys_pending_operations" + " where spo_executing_server is null" // Only if not already executing
-				+ " and (spo_must_execute_on_server is null or spo_must_execute_on_server=?)" // Free or for this server
-				+ " and spo_state='RTRY'" // Not failed
-				+ " and (spo_date_next_try is null or spo_date_next_try <= ?)" // Time to try next has been exceeded
-				+ " order by spo_id" + " for update" // FORCE LOCK while scanning/editing
-			);
+			ps = dbc.prepareStatement(getCandidateSQL(skipLocked, scanSize));
+			ps.setMaxRows(scanSize);
 			ps.setString(1, m_serverID);
-			ps.setTimestamp(2, new Timestamp(now.getTime()));
+			ps.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+			ps.setLong(3, fromId);
 			rs = ps.executeQuery();
-			List<PendingOperation> ack = new ArrayList<PendingOperation>();
 			while(rs.next()) {
 				PendingOperation po = new PendingOperation();
 				po.initFromRS(rs); // Get all fields.
-				ack.add(po);
+				candidates.add(po);
 			}
-			rs.close();
-			//			System.out.println("potp: pending task scan resulted in "+ack.size()+" pending operations to consider");
+		} finally {
+			FileTool.closeAll(rs, ps);
+		}
 
-			//-- FIXME Integrate the code below with the select instead of reading everything in memory.
-			//-- Find the first BEST task to execute, starting at the "last index",
-			int todo = ack.size();
-			List<PendingOperation> resultlist = null;
-			for(;;) {
-				if(todo-- <= 0) {
-					//-- Could not allocate job- exit and try again in x minutes.
+		for(PendingOperation po : candidates) {
+			if(res.size() >= batchSize)
+				break;
+			List<PendingOperation> resultlist;
+			if(po.getOrderGroup() == null) { // Not a group-> claimable if nobody else has it
+				if(!skipLocked && !claimOperation(dbc, po)) {
 					synchronized(this) {
-						m_tsNextCheck = System.currentTimeMillis() + 1 * 60 * 1000; // Every 5 minutes if queue is empty
+						m_claimConflictCount++;
 					}
-					dbc.commit();
-					return null;
-				}
-				m_lastSelectedIndex++;
-				if(m_lastSelectedIndex >= ack.size())
-					m_lastSelectedIndex = 0;
-				PendingOperation po = ack.get(m_lastSelectedIndex);
-				if(po.getOrderGroup() == null) { // Not a group-> always claimable
-					resultlist = new ArrayList<PendingOperation>();
-					resultlist.add(po);
-					break;
-				}
-
-				//-- Load all other members in the group, and check if they are runnable/complete
-				List<PendingOperation> grouplist = loadGroup(dbc, po);
-				if(grouplist != null && grouplist.size() > 0) {
-					resultlist = grouplist;
-					break;
+					continue;
 				}
+				resultlist = new ArrayList<PendingOperation>();
+				resultlist.add(po);
+			} else {
+				//-- Lock and load all members in the group, and check if they are runnable/complete
+				resultlist = loadGroup(dbc, po);
+				if(resultlist == null || resultlist.size() == 0)
+					continue;
+			}
 
-				//-- Thingy is invalid- continue.
+			//-- We have a thing to run. Mark it and all other members of the group as EXECUTING.
+			markTasksExecuting(dbc, resultlist);
+			res.add(new PendingOperationTask(this, resultlist));
+			synchronized(this) {
+				m_lastClaimedId = po.getId();
 			}
+		}
+	}
 
-			//-- We have a thing to run. Mark it and all other members of the group as EXECUTING, then return it;
-			markTasksExecuting(dbc, resultlist); // Mark all of these as EXECUTING,
-			dbc.commit();
+	/**
+	 * The query for the candidates with an id above the 3rd parameter. With skipLocked (PostgreSQL) the
+	 * candidates are locked, skipping those already locked by another server.
+	 */
+	static String getCandidateSQL(final boolean skipLocked, final int scanSize) {
+		String sql = "select " + PendingOperation.FIELDS + " from sys_pending_operations p" //
+			+ " where spo_executing_server is null" // Only if not already executing
+			+ " and (spo_must_execute_on_server is null or spo_must_execute_on_server=?)" // Free or for this server
+			+ " and spo_state='RTRY'" // Not failed
+			+ " and (spo_date_next_try is null or spo_date_next_try <= ?)" // Time to try next has been exceeded
+			+ " and spo_id > ?" // Start after the last one claimed
+			+ " and (spo_order_groupname is null or not exists (select 1 from sys_pending_operations g" // No group, or first to run in the group
+			+ " where g.spo_order_groupname=p.spo_order_groupname and g.spo_state in ('RTRY','EXEC')" //
+			+ " and (g.spo_order_timestamp < p.spo_order_timestamp or (g.spo_order_timestamp = p.spo_order_timestamp and g.spo_order_sub < p.spo_order_sub))))" //
+			+ " order by spo_id";
+		if(skipLocked)
+			sql += " limit " + scanSize + " for update skip locked"; // Lock the candidates, skipping those locked by others
+		return sql;
+	}
 
-			//-- Return a grouplist runnable for this thing.
-			return new PendingOperationTask(this, resultlist);
+	/**
+	 * Claims a single operation for this server, provided no other server claimed it since it was read.
+	 * @return false if another server was first.
+	 */
+	boolean claimOperation(final Connection dbc, final PendingOperation po) throws SQLException {
+		PreparedStatement ps = null;
+		try {
+			ps = dbc.prepareStatement("update sys_pending_operations set spo_executing_server=?,spo_state='EXEC' where spo_id=? and spo_executing_server is null and spo_state='RTRY'");
+			ps.setString(1, m_serverID);
+			ps.setLong(2, po.getId());
+			return ps.executeUpdate() == 1;
 		} finally {
-			try {
-				if(ps != null)
-					ps.close();
-			} catch(Exception x) {}
-			try {
-				if(rs != null)
-					rs.close();
-			} catch(Exception x) {}
-			try {
-				dbc.rollback();
-			} catch(Exception x) {}
-			try {
-				if(dbc != null)
-					dbc.close();
-			} catch(Exception x) {}
-			//			ts	= System.nanoTime() - ts;
-			//			System.out.println("PendingOperationProvider: scan took "+StringTool.strNanoTime(ts));
+			FileTool.closeAll(ps);
 		}
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Claim settings and statistics.						*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Sets the max #of operations (or operation groups) claimed by a single scan. The claimed operations
+	 * belong to this server until they ran.
+	 */
+	public synchronized void setClaimBatchSize(final int claimBatchSize) {
+		if(claimBatchSize <= 0)
+			throw new IllegalArgumentException("The batch size must be > 0");
+		m_claimBatchSize = claimBatchSize;
+	}
+
+	public synchronized int getClaimBatchSize() {
+		return m_claimBatchSize;
+	}
+
+	/**
+	 * Sets the max #of candidate operations read by a single scan.
+	 */
+	public synchronized void setScanSize(final int scanSize) {
+		if(scanSize <= 0)
+			throw new IllegalArgumentException("The scan size must be > 0");
+		m_scanSize = scanSize;
+	}
+
+	public synchronized int getScanSize() {
+		return m_scanSize;
+	}
+
+	/**
+	 * The #of scans for new operations.
+	 */
+	public synchronized long getScanCount() {
+		return m_scanCount;
+	}
+
+	/**
+	 * The average time a scan took, in nanoseconds.
+	 */
+	public synchronized long getAverageScanTime() {
+		return m_scanCount == 0 ? 0 : m_scanNanos / m_scanCount;
+	}
+
+	/**
+	 * The longest time a scan took, in nanoseconds.
+	 */
+	public synchronized long getMaxScanTime() {
+		return m_maxScanNanos;
+	}
+
+	/**
+	 * The #of operations (or operation groups) claimed by this server.
+	 */
+	public synchronized long getClaimCount() {
+		return m_claimCount;
+	}
+
+	/**
+	 * The #of operations that were claimed by another server between reading and claiming them.
+	 */
+	public synchronized long getClaimConflictCount() {
+		return m_claimConflictCount;
+	}
+
+	/**
+	 * The #of operations claimed by this server that wait for a free worker.
+	 */
+	public synchronized int getClaimedQueueSize() {
+		return m_claimedTasks.size();
+	}
+
 	/**
 	 * Marks all of the tasks specified as "locked by server", and mark the 1st one as "EXECUTING".
 	 * @param dbc
@@ -343,6 +543,24 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 		}
 	}
 
+	/** The execution order of the members of a group: by order timestamp and sub index; members without a timestamp last. */
+	static private final Comparator<PendingOperation> GROUP_ORDER = new Comparator<PendingOperation>() {
+		@Override
+		public int compare(PendingOperation a, PendingOperation b) {
+			Date ta = a.getOrderTime();
+			Date tb = b.getOrderTime();
+			if(ta == null || tb == null) {
+				if(ta != tb)
+					return ta == null ? 1 : -1;
+			} else {
+				int rc = ta.compareTo(tb);
+				if(rc != 0)
+					return rc;
+			}
+			return Integer.compare(a.getOrderIndex(), b.getOrderIndex());
+		}
+	};
+
 	/**
 	 * Loads a group, and checks to see if it's executable. This is the case if all members of the group
 	 * can be executed or are retryable, and if the first group member to execute has met it's contained time.
@@ -359,8 +577,7 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 		try {
 			ps = dbc.prepareStatement("select " + PendingOperation.FIELDS + " from sys_pending_operations" + " where spo_order_groupname=?" // defines group
 				+ " and spo_state in ('RTRY','EXEC','FATL','BOOT') " //
-				+ " order by spo_order_timestamp, spo_order_sub" // defines order
-				+ " for update");
+				+ " for update"); // Not all databases (Derby) allow FOR UPDATE with an ORDER BY, so the members are sorted below.
 
 			ps.setString(1, inpo.getOrderGroup());
 			rs = ps.executeQuery();
@@ -370,6 +587,7 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 				po.initFromRS(rs);
 				res.add(po);
 			}
+			Collections.sort(res, GROUP_ORDER);
 
 			/*
 			 * Loop through all members, and
@@ -478,11 +696,7 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 			po.save(dbc);
 			po.saveStream(dbc, sis);
 			dbc.commit();
-
-			synchronized(this) {
-				m_tsNextCheck = 0;
-				notify();
-			}
+			scheduleScan();
 		} finally {
 			try {
 				if(dbc != null)
@@ -507,10 +721,7 @@ public class PendingOperationTaskProvider implements IPollQueueTaskProvider {
 			po.setSerializedObject(object);
 			po.saveSerialized(dbc);
 			dbc.commit();
-			synchronized(this) {
-				m_tsNextCheck = 0;
-				notify();
-			}
+			scheduleScan();
 		} finally {
 			try {
 				if(dbc != null)
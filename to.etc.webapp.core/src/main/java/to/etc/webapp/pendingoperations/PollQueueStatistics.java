@@ -0,0 +1,153 @@
+package to.etc.webapp.pendingoperations;
+
+/**
+ * Statistics for a task provider of the {@link PollingWorkerQueue}: how often it was polled, how long it
+ * took to obtain a task from it (the claim latency) and how many of its tasks were run. The queue keeps
+ * one instance per provider; the instances returned by the queue are copies.
+ *
+ * Created on Oct 18, 2026
+ */
+final public class PollQueueStatistics {
+	private final long m_since;
+
+	private long m_pollCount;
+
+	private long m_pollNanos;
+
+	private long m_claimCount;
+
+	private long m_claimNanos;
+
+	private long m_maxClaimNanos;
+
+	private long m_completedCount;
+
+	private long m_failedCount;
+
+	private long m_runNanos;
+
+	PollQueueStatistics(long since) {
+		m_since = since;
+	}
+
+	synchronized void poll(long nanos, boolean claimed) {
+		m_pollCount++;
+		m_pollNanos += nanos;
+		if(claimed) {
+			m_claimCount++;
+			m_claimNanos += nanos;
+			if(nanos > m_maxClaimNanos)
+				m_maxClaimNanos = nanos;
+		}
+	}
+
+	synchronized void taskCompleted(long nanos, boolean failed) {
+		if(failed)
+			m_failedCount++;
+		else
+			m_completedCount++;
+		m_runNanos += nanos;
+	}
+
+	/**
+	 * Adds the counts of another instance to this one.
+	 */
+	synchronized void add(PollQueueStatistics s) {
+		synchronized(s) {
+			m_pollCount += s.m_pollCount;
+			m_pollNanos += s.m_pollNanos;
+			m_claimCount += s.m_claimCount;
+			m_claimNanos += s.m_claimNanos;
+			m_maxClaimNanos = Math.max(m_maxClaimNanos, s.m_maxClaimNanos);
+			m_completedCount += s.m_completedCount;
+			m_failedCount += s.m_failedCount;
+			m_runNanos += s.m_runNanos;
+		}
+	}
+
+	synchronized PollQueueStatistics copy() {
+		PollQueueStatistics s = new PollQueueStatistics(m_since);
+		s.add(this);
+		return s;
+	}
+
+	/**
+	 * The time (in millis) at which these statistics started.
+	 */
+	public long getSince() {
+		return m_since;
+	}
+
+	/**
+	 * The #of times the provider was asked for a task.
+	 */
+	public synchronized long getPollCount() {
+		return m_pollCount;
+	}
+
+	/**
+	 * The average time, in nanoseconds, to ask the provider for a task, including the polls that did not return one.
+	 */
+	public synchronized long getAveragePollTime() {
+		return m_pollCount == 0 ? 0 : m_pollNanos / m_pollCount;
+	}
+
+	/**
+	 * The #of tasks obtained from the provider.
+	 */
+	public synchronized long getClaimCount() {
+		return m_claimCount;
+	}
+
+	/**
+	 * The average time, in nanoseconds, it took to obtain a task from the provider.
+	 */
+	public synchronized long getAverageClaimTime() {
+		return m_claimCount == 0 ? 0 : m_claimNanos / m_claimCount;
+	}
+
+	/**
+	 * The longest time, in nanoseconds, it took to obtain a task from the provider.
+	 */
+	public synchronized long getMaxClaimTime() {
+		return m_maxClaimNanos;
+	}
+
+	/**
+	 * The #of tasks that ran without throwing an exception.
+	 */
+	public synchronized long getCompletedCount() {
+		return m_completedCount;
+	}
+
+	/**
+	 * The #of tasks that ended with an exception.
+	 */
+	public synchronized long getFailedCount() {
+		return m_failedCount;
+	}
+
+	/**
+	 * The average run time of a task, in nanoseconds.
+	 */
+	public synchronized long getAverageRunTime() {
+		long n = m_completedCount + m_failedCount;
+		return n == 0 ? 0 : m_runNanos / n;
+	}
+
+	/**
+	 * The #of tasks run per second since these statistics started.
+	 */
+	public synchronized double getThroughput() {
+		long dt = System.currentTimeMillis() - m_since;
+		if(dt <= 0)
+			return 0;
+		return (m_completedCount + m_failedCount) * 1000.0 / dt;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "polls=" + m_pollCount + ", claimed=" + m_claimCount + ", avgClaim=" + getAverageClaimTime() / 1000 + "us, maxClaim=" + m_maxClaimNanos / 1000 + "us, completed=" + m_completedCount
+			+ ", failed=" + m_failedCount + ", avgRun=" + getAverageRunTime() / 1000 + "us";
+	}
+}
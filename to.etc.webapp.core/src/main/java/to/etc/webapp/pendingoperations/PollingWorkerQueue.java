@@ -59,6 +59,9 @@ public class PollingWorkerQueue {
 
 	private final PolledActionQueue m_actionQueue = new PolledActionQueue();
 
+	/** Polling and execution statistics per provider. */
+	private final Map<IPollQueueTaskProvider, PollQueueStatistics> m_statisticsMap = new HashMap<IPollQueueTaskProvider, PollQueueStatistics>();
+
 	static public void initialize() throws Exception {
 		m_instance.init();
 	}
@@ -110,6 +113,7 @@ public class PollingWorkerQueue {
 			if(m_providerList.contains(provider))
 				throw new IllegalStateException("Duplicate registration of provider=" + provider);
 			m_providerList.add(provider);
+			m_statisticsMap.put(provider, new PollQueueStatistics(System.currentTimeMillis()));
 			notifyAll();
 
 			try {
@@ -150,6 +154,27 @@ public class PollingWorkerQueue {
 		return m_runningThreads;
 	}
 
+	/**
+	 * Returns a copy of the polling and execution statistics for the specified provider, or null if it is not registered.
+	 */
+	public synchronized PollQueueStatistics getStatistics(final IPollQueueTaskProvider provider) {
+		PollQueueStatistics s = m_statisticsMap.get(provider);
+		return s == null ? null : s.copy();
+	}
+
+	/**
+	 * Returns the polling and execution statistics of all providers combined.
+	 */
+	public synchronized PollQueueStatistics getStatistics() {
+		long since = System.currentTimeMillis();
+		for(PollQueueStatistics s : m_statisticsMap.values())
+			since = Math.min(since, s.getSince());
+		PollQueueStatistics total = new PollQueueStatistics(since);
+		for(PollQueueStatistics s : m_statisticsMap.values())
+			total.add(s);
+		return total;
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Worker thread code.									*/
 	/*--------------------------------------------------------------*/
@@ -191,6 +216,7 @@ public class PollingWorkerQueue {
 
 			//-- Select a provider to query for work, and handle blocking if all of them were queried.
 			IPollQueueTaskProvider provider;
+			PollQueueStatistics stats;
 			synchronized(this) {
 				if(m_terminating) // Normal termination -> exit immediately
 					return;
@@ -219,15 +245,18 @@ public class PollingWorkerQueue {
 				if(m_nextProviderIndex >= pls)
 					m_nextProviderIndex = 0;
 				provider = m_providerList.get(m_nextProviderIndex++);
+				stats = m_statisticsMap.get(provider);
 			}
 
 			//-- Outside of the main lock, ask the provider for work.
 			Runnable task = null;
+			long ts = System.nanoTime();
 			try {
 				task = provider.getRunnableTask();
 			} catch(Exception x) {
 				x.printStackTrace(); // Just dump && ignore
 			}
+			stats.poll(System.nanoTime() - ts, task != null);
 
 			//-- If there's nothing to do - decrement the check count and loop further.
 			if(task == null) {
@@ -244,11 +273,15 @@ public class PollingWorkerQueue {
 					}
 				}
 			}
+			boolean failed = true;
+			ts = System.nanoTime();
 			try {
 				task.run();
+				failed = false;
 			} catch(Exception x) {
 				x.printStackTrace(); // On failure just dump;
 			} finally {
+				stats.taskCompleted(System.nanoTime() - ts, failed);
 				synchronized(this) {
 					m_threadsExecutingTasks--;
 				}
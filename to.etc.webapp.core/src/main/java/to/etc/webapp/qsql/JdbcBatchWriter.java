@@ -0,0 +1,329 @@
+package to.etc.webapp.qsql;
+
+import java.sql.*;
+import java.util.*;
+
+import javax.annotation.*;
+
+import to.etc.util.*;
+
+/**
+ * Writes rows using JDBC batches. Every distinct SQL statement gets one prepared statement, and rows for it
+ * are added with addBatch(); when one of the statements has batchSize rows pending all pending statements are
+ * executed. The statements are executed in the order in which they were first used since the last execute,
+ * so inserting parents before their children, or deleting children before their parents, works as long as
+ * that order is kept in the calls. This also means that a statement is not executed exactly at the point it
+ * was added: code that needs its effect must call {@link #flush()} first.
+ *
+ * <p>Instances of {@link JdbcClassMeta} mapped classes can be inserted, updated or deleted; update and delete
+ * need a primary key. Any other SQL can be batched with {@link #execute(String, Object...)}. When the connection
+ * comes from the pool the batches are reported to the pool's statistics like any other batch.</p>
+ *
+ * <p>The writer must be closed; close() executes the remaining rows and closes the statements. It does not
+ * commit.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class JdbcBatchWriter implements AutoCloseable {
+	static public final int DEFAULT_BATCH_SIZE = 500;
+
+	static private final int INSERT = 0;
+
+	static private final int UPDATE = 1;
+
+	static private final int DELETE = 2;
+
+	static private final class Batch {
+		@Nonnull
+		final PreparedStatement m_ps;
+
+		int m_count;
+
+		Batch(@Nonnull PreparedStatement ps) {
+			m_ps = ps;
+		}
+	}
+
+	@Nullable
+	private Connection m_dbc;
+
+	final private int m_batchSize;
+
+	/** All statements by SQL; they stay open until the writer is closed. */
+	final private Map<String, Batch> m_batchMap = new HashMap<String, Batch>();
+
+	/** The statements with pending rows, in the order in which they were first used since the last execute. */
+	final private List<Batch> m_pendingList = new ArrayList<Batch>();
+
+	/** The insert, update and delete statement per mapped class, built on first use. */
+	final private Map<Class< ? >, String[]> m_sqlMap = new HashMap<Class< ? >, String[]>();
+
+	private int m_batchCount;
+
+	private int m_statementCount;
+
+	private int m_rowCount;
+
+	public JdbcBatchWriter(@Nonnull Connection dbc, int batchSize) {
+		if(batchSize <= 0)
+			throw new IllegalArgumentException("The batch size must be > 0");
+		m_dbc = dbc;
+		m_batchSize = batchSize;
+	}
+
+	public JdbcBatchWriter(@Nonnull Connection dbc) {
+		this(dbc, DEFAULT_BATCH_SIZE);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Adding rows.										*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Insert all non-transient properties of the instance.
+	 */
+	public void insert(@Nonnull Object instance) throws Exception {
+		JdbcClassMeta cm = JdbcMetaManager.getMeta(instance.getClass());
+		Batch b = getBatch(getSQL(cm)[INSERT]);
+		int ix = 1;
+		for(JdbcPropertyMeta pm : cm.getPropertyList()) {
+			if(!pm.isTransient())
+				ix = assign(b, ix, pm, instance);
+		}
+		add(b);
+	}
+
+	/**
+	 * Update all non-transient properties of the instance, by primary key.
+	 */
+	public void update(@Nonnull Object instance) throws Exception {
+		JdbcClassMeta cm = JdbcMetaManager.getMeta(instance.getClass());
+		JdbcPropertyMeta pkpm = getPrimaryKey(cm, instance);
+		String sql = getSQL(cm)[UPDATE];
+		if(null == sql)
+			throw new IllegalStateException(cm.getDataClass() + " has no columns to update");
+		Batch b = getBatch(sql);
+		int ix = 1;
+		for(JdbcPropertyMeta pm : cm.getPropertyList()) {
+			if(!pm.isTransient() && !pm.isPrimaryKey())
+				ix = assign(b, ix, pm, instance);
+		}
+		assign(b, ix, pkpm, instance);
+		add(b);
+	}
+
+	/**
+	 * Delete the instance by primary key.
+	 */
+	public void delete(@Nonnull Object instance) throws Exception {
+		JdbcClassMeta cm = JdbcMetaManager.getMeta(instance.getClass());
+		JdbcPropertyMeta pkpm = getPrimaryKey(cm, instance);
+		Batch b = getBatch(getSQL(cm)[DELETE]);
+		assign(b, 1, pkpm, instance);
+		add(b);
+	}
+
+	/**
+	 * Add a row for a literal SQL statement. The parameters are set like {@link JdbcUtil#setParameters(PreparedStatement, int, Object[])} does.
+	 */
+	public void execute(@Nonnull String sql, @Nullable Object... parameters) throws Exception {
+		Batch b = getBatch(sql);
+		JdbcUtil.setParameters(b.m_ps, 1, parameters);
+		add(b);
+	}
+
+	private int assign(@Nonnull Batch b, int ix, @Nonnull JdbcPropertyMeta pm, @Nonnull Object instance) throws Exception {
+		IJdbcType type = pm.getTypeConverter();
+		type.assignParameter(b.m_ps, ix, pm, pm.getPropertyValue(instance));
+		return ix + type.columnCount();
+	}
+
+	@Nonnull
+	static private JdbcPropertyMeta getPrimaryKey(@Nonnull JdbcClassMeta cm, @Nonnull Object instance) throws Exception {
+		JdbcPropertyMeta pkpm = cm.getPrimaryKey();
+		if(null == pkpm)
+			throw new IllegalStateException("No primary key defined on " + cm.getDataClass());
+		if(pkpm.getPropertyValue(instance) == null)
+			throw new IllegalStateException("The primary key of " + instance + " is null");
+		return pkpm;
+	}
+
+	@Nonnull
+	private Batch getBatch(@Nonnull String sql) throws SQLException {
+		Connection dbc = m_dbc;
+		if(null == dbc)
+			throw new IllegalStateException("This batch writer has been closed");
+		Batch b = m_batchMap.get(sql);
+		if(null == b) {
+			b = new Batch(dbc.prepareStatement(sql));
+			m_batchMap.put(sql, b);
+		}
+		return b;
+	}
+
+	private void add(@Nonnull Batch b) throws Exception {
+		b.m_ps.addBatch();
+		if(b.m_count++ == 0)
+			m_pendingList.add(b);
+		if(b.m_count >= m_batchSize)
+			flush();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	SQL generation.										*/
+	/*--------------------------------------------------------------*/
+	@Nonnull
+	private String[] getSQL(@Nonnull JdbcClassMeta cm) {
+		String[] res = m_sqlMap.get(cm.getDataClass());
+		if(null == res) {
+			res = new String[]{createInsert(cm), createUpdate(cm), createDelete(cm)};
+			m_sqlMap.put(cm.getDataClass(), res);
+		}
+		return res;
+	}
+
+	@Nonnull
+	static private String createInsert(@Nonnull JdbcClassMeta cm) {
+		StringBuilder sb = new StringBuilder(128);
+		StringBuilder values = new StringBuilder(64);
+		sb.append("insert into ").append(cm.getTableName()).append(" (");
+		for(JdbcPropertyMeta pm : cm.getPropertyList()) {
+			if(pm.isTransient())
+				continue;
+			for(String col : pm.getColumnNames()) {
+				if(values.length() > 0) {
+					sb.append(",");
+					values.append(",");
+				}
+				sb.append(col);
+				values.append("?");
+			}
+		}
+		sb.append(") values (").append(values).append(")");
+		return sb.toString();
+	}
+
+	/**
+	 * Returns null if the class has no primary key or nothing but a primary key.
+	 */
+	@Nullable
+	static private String createUpdate(@Nonnull JdbcClassMeta cm) {
+		JdbcPropertyMeta pkpm = cm.getPrimaryKey();
+		if(null == pkpm)
+			return null;
+		StringBuilder sb = new StringBuilder(128);
+		sb.append("update ").append(cm.getTableName()).append(" set ");
+		int ct = 0;
+		for(JdbcPropertyMeta pm : cm.getPropertyList()) {
+			if(pm.isTransient() || pm.isPrimaryKey())
+				continue;
+			for(String col : pm.getColumnNames()) {
+				if(ct++ > 0)
+					sb.append(",");
+				sb.append(col).append("=?");
+			}
+		}
+		if(ct == 0)
+			return null;
+		appendPrimaryKey(sb, pkpm);
+		return sb.toString();
+	}
+
+	@Nullable
+	static private String createDelete(@Nonnull JdbcClassMeta cm) {
+		JdbcPropertyMeta pkpm = cm.getPrimaryKey();
+		if(null == pkpm)
+			return null;
+		StringBuilder sb = new StringBuilder(64);
+		sb.append("delete from ").append(cm.getTableName());
+		appendPrimaryKey(sb, pkpm);
+		return sb.toString();
+	}
+
+	static private void appendPrimaryKey(@Nonnull StringBuilder sb, @Nonnull JdbcPropertyMeta pkpm) {
+		sb.append(" where ");
+		int ct = 0;
+		for(String col : pkpm.getColumnNames()) {
+			if(ct++ > 0)
+				sb.append(" and ");
+			sb.append(col).append("=?");
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Executing.											*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Execute all pending rows, statement by statement in the order in which the statements were first used.
+	 * If one of them fails the rows of the other statements are discarded too.
+	 */
+	public void flush() throws Exception {
+		if(m_pendingList.size() == 0)
+			return;
+		try {
+			for(Batch b : m_pendingList) {
+				int[] rc = b.m_ps.executeBatch();
+				b.m_count = 0;
+				m_batchCount++;
+				for(int count : rc) {
+					m_statementCount++;
+					if(count > 0)
+						m_rowCount += count;
+				}
+			}
+		} catch(Exception x) {
+			for(Batch b : m_pendingList) {
+				if(b.m_count > 0) {
+					b.m_count = 0;
+					try {
+						b.m_ps.clearBatch();
+					} catch(Exception xx) {}
+				}
+			}
+			throw x;
+		} finally {
+			m_pendingList.clear();
+		}
+	}
+
+	/**
+	 * Execute the remaining rows and close all statements. The statements are closed even when executing fails.
+	 */
+	@Override
+	public void close() throws Exception {
+		if(null == m_dbc)
+			return;
+		try {
+			flush();
+		} finally {
+			for(Batch b : m_batchMap.values())
+				FileTool.closeAll(b.m_ps);
+			m_batchMap.clear();
+			m_dbc = null;
+		}
+	}
+
+	/**
+	 * The #of executeBatch() calls done.
+	 */
+	public int getBatchCount() {
+		return m_batchCount;
+	}
+
+	/**
+	 * The #of rows executed.
+	 */
+	public int getStatementCount() {
+		return m_statementCount;
+	}
+
+	/**
+	 * The #of database rows changed, as far as the driver reports it.
+	 */
+	public int getRowCount() {
+		return m_rowCount;
+	}
+
+	public int getBatchSize() {
+		return m_batchSize;
+	}
+}
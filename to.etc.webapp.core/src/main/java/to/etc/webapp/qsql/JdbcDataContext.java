@@ -29,6 +29,7 @@ import java.util.*;
 
 import javax.annotation.*;
 
+import to.etc.function.*;
 import to.etc.webapp.core.*;
 import to.etc.webapp.query.*;
 
@@ -130,6 +131,19 @@ public class JdbcDataContext implements QDataContext {
 		unsupported();
 	}
 
+	/**
+	 * Delete all instances of JDBC mapped classes by primary key, using a {@link JdbcBatchWriter}.
+	 * @see to.etc.webapp.query.QDataContext#deleteAll(java.util.List, int)
+	 */
+	@Override
+	public void deleteAll(@Nonnull List< ? > list, int batchSize) throws Exception {
+		unclosed();
+		try(JdbcBatchWriter bw = new JdbcBatchWriter(internalGetConnection(), batchSize)) {
+			for(Object o : list)
+				bw.delete(o);
+		}
+	}
+
 	/**
 	 * Locate the specified record by PK.
 	 * @see to.etc.webapp.query.QDataContext#find(java.lang.Class, java.lang.Object)
@@ -197,6 +211,34 @@ public class JdbcDataContext implements QDataContext {
 		return JdbcQuery.query(this, sel);
 	}
 
+	@Override
+	public @Nonnull <T> IQueryCursor<T> cursor(@Nonnull QCriteria<T> q, int fetchSize) throws Exception {
+		unclosed();
+		return JdbcQuery.cursor(this, q, fetchSize);
+	}
+
+	@Override
+	public @Nonnull IQueryCursor<Object[]> cursor(@Nonnull QSelection< ? > sel, int fetchSize) throws Exception {
+		unclosed();
+		return JdbcQuery.cursor(this, sel, fetchSize);
+	}
+
+	@Override
+	public <T> void forEach(@Nonnull QCriteria<T> q, int fetchSize, @Nonnull ConsumerEx<T> consumer) throws Exception {
+		try(IQueryCursor<T> cursor = cursor(q, fetchSize)) {
+			while(cursor.next())
+				consumer.accept(cursor.get());
+		}
+	}
+
+	@Override
+	public void forEach(@Nonnull QSelection< ? > sel, int fetchSize, @Nonnull ConsumerEx<Object[]> consumer) throws Exception {
+		try(IQueryCursor<Object[]> cursor = cursor(sel, fetchSize)) {
+			while(cursor.next())
+				consumer.accept(cursor.get());
+		}
+	}
+
 	@Override
 	public <T> T queryOne(@Nonnull QCriteria<T> q) throws Exception {
 		unclosed();
@@ -254,6 +296,20 @@ public class JdbcDataContext implements QDataContext {
 		unsupported();
 	}
 
+	/**
+	 * Insert all instances of JDBC mapped classes using a {@link JdbcBatchWriter}. To update rows or to mix
+	 * statements use a JdbcBatchWriter directly.
+	 * @see to.etc.webapp.query.QDataContext#saveAll(java.util.List, int)
+	 */
+	@Override
+	public void saveAll(@Nonnull List< ? > list, int batchSize) throws Exception {
+		unclosed();
+		try(JdbcBatchWriter bw = new JdbcBatchWriter(internalGetConnection(), batchSize)) {
+			for(Object o : list)
+				bw.insert(o);
+		}
+	}
+
 	@Override
 	public void setIgnoreClose(boolean on) {
 		m_ignoreClose = on;
@@ -0,0 +1,69 @@
+package to.etc.webapp.qsql;
+
+import javax.annotation.*;
+
+/**
+ * A parameter marker in generated SQL: the statement index and the property whose converter
+ * is used to set it. It is part of a {@link JdbcQueryPlan}, and creates the {@link IQValueSetter}
+ * for a value each time the plan is used.
+ *
+ * Created on Oct 18, 2026
+ */
+final class JdbcParameter {
+	enum Kind {
+		/** A value converted by the property's type converter. */
+		VALUE,
+
+		/** The string pattern for a like or ilike. */
+		LIKE,
+
+		/** A compound instance, which sets all of the compound's columns from the index on. */
+		COMPOUND
+	}
+
+	@Nonnull
+	final private Kind m_kind;
+
+	final private int m_index;
+
+	@Nonnull
+	final private JdbcPropertyMeta m_property;
+
+	/** The property as it was named in the query, for error messages. */
+	@Nonnull
+	final private String m_propertyPath;
+
+	JdbcParameter(@Nonnull Kind kind, int index, @Nonnull JdbcPropertyMeta property, @Nonnull String propertyPath) {
+		m_kind = kind;
+		m_index = index;
+		m_property = property;
+		m_propertyPath = propertyPath;
+	}
+
+	/**
+	 * Check the value and create the setter that assigns it.
+	 */
+	@Nonnull
+	IQValueSetter bind(@Nullable Object value) {
+		switch(m_kind){
+			default:
+				throw new IllegalStateException("Unknown parameter kind " + m_kind);
+
+			case VALUE:
+				return new ValSetter(m_index, value, m_property.getTypeConverter(), m_property);
+
+			case LIKE:
+				if(!(value instanceof String))
+					throw new QQuerySyntaxException("Invalid value type " + value + " for LIKE operation - expecting string.");
+				return new LikeSetter(m_index, (String) value, m_property);
+
+			case COMPOUND:
+				if(value != null) {
+					if(!m_property.getActualClass().isAssignableFrom(value.getClass()))
+						throw new QQuerySyntaxException("The value of type " + value.getClass() + " is not assignment-compatible with the compound type=" + m_property.getActualClass()
+							+ " in property " + m_propertyPath);
+				}
+				return new ValSetter(m_index, value, m_property.getTypeConverter(), m_property);
+		}
+	}
+}
@@ -24,8 +24,6 @@
  */
 package to.etc.webapp.qsql;
 
-import java.lang.reflect.*;
-
 import javax.annotation.*;
 
 import to.etc.util.*;
@@ -190,24 +188,14 @@ public class JdbcPropertyMeta {
 	public Object getPropertyValue(@Nonnull Object inst) throws Exception {
 		if(inst == null)
 			throw new IllegalArgumentException("Null instance not allowed");
-		try {
-			return m_pi.getGetter().invoke(inst);
-		} catch(InvocationTargetException itx) {
-			throw WrappedException.unwrap(itx);
-		}
+		return m_pi.getValue(inst);
 	}
 
 	public void setPropertyValue(@Nonnull Object inst, @Nullable Object value) throws Exception {
 		if(inst == null)
 			throw new IllegalArgumentException("Null instance not allowed");
-		try {
-			Method setter = m_pi.getSetter();
-			if(null == setter)
-				throw new IllegalArgumentException("Property " + m_pi + " is read-only");
-
-			setter.invoke(inst, value);
-		} catch(InvocationTargetException itx) {
-			throw WrappedException.unwrap(itx);
-		}
+		if(null == m_pi.getSetter())
+			throw new IllegalArgumentException("Property " + m_pi + " is read-only");
+		m_pi.setValue(inst, value);
 	}
 }
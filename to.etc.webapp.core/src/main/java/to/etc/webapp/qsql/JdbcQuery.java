@@ -87,15 +87,7 @@ public class JdbcQuery<T> {
 						throw new IllegalStateException("Your query result has > 10.000 rows. I aborted to prevent OOM.\nThe query was:\n" + m_sql);
 					}
 
-					if(m_rowMaker.size() == 1) {
-						res.add(m_rowMaker.get(0).make(dc, rs));
-					} else {
-						Object[] row = new Object[m_rowMaker.size()];
-						for(int i = 0; i < m_rowMaker.size(); i++) {
-							row[i] = m_rowMaker.get(i).make(dc, rs);
-						}
-						res.add(row);
-					}
+					res.add(makeRow(dc, rs));
 				}
 				rownum++;
 			}
@@ -117,16 +109,138 @@ public class JdbcQuery<T> {
 		}
 	}
 
+	private Object makeRow(QDataContext dc, ResultSet rs) throws Exception {
+		if(m_rowMaker.size() == 1)
+			return m_rowMaker.get(0).make(dc, rs);
+		Object[] row = new Object[m_rowMaker.size()];
+		for(int i = 0; i < m_rowMaker.size(); i++) {
+			row[i] = m_rowMaker.get(i).make(dc, rs);
+		}
+		return row;
+	}
+
+	/**
+	 * Execute the query and return a cursor over its result. Unlike {@link #query(QDataContext)} this has
+	 * no limit on the #of rows, as the rows are only read when the cursor moves.
+	 */
+	public IQueryCursor<Object> cursor(QDataContext dc, int fetchSize) throws Exception {
+		if(m_showSQL) {
+			System.out.println("jdbc: " + m_sql);
+		}
+		PreparedStatement ps = null;
+		try {
+			ps = dc.getConnection().prepareStatement(m_sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			for(IQValueSetter vs : m_valList)
+				vs.assign(ps);
+			if(m_timeout > 0)
+				ps.setQueryTimeout(m_timeout);
+			if(fetchSize > 0)
+				ps.setFetchSize(fetchSize);
+			ResultSet rs = ps.executeQuery();
+			Cursor c = new Cursor(dc, ps, rs);
+			ps = null;
+			return c;
+		} catch(Exception x) {
+			QDbException dx = QDbException.findTranslation(x);
+			if(dx != null)
+				throw dx;
+			throw x;
+		} finally {
+			try {
+				if(ps != null)
+					ps.close();
+			} catch(Exception x) {}
+		}
+	}
+
+	/**
+	 * The cursor over a query's result set; it honours the query's start and limit.
+	 */
+	private final class Cursor implements IQueryCursor<Object> {
+		final private QDataContext m_dc;
+
+		private PreparedStatement m_ps;
+
+		private ResultSet m_rs;
+
+		private Object m_current;
+
+		private int m_rowCount;
+
+		Cursor(QDataContext dc, PreparedStatement ps, ResultSet rs) {
+			m_dc = dc;
+			m_ps = ps;
+			m_rs = rs;
+		}
+
+		@Override
+		public boolean next() throws Exception {
+			ResultSet rs = m_rs;
+			if(rs == null)
+				return false;
+			try {
+				if(m_rowCount == 0) {
+					for(int i = 0; i < m_start; i++) {
+						if(!rs.next()) {
+							close();
+							return false;
+						}
+					}
+				}
+				if((m_limit > 0 && m_rowCount >= m_limit) || !rs.next()) {
+					close();
+					return false;
+				}
+				m_current = makeRow(m_dc, rs);
+				m_rowCount++;
+				return true;
+			} catch(Exception x) {
+				close();
+				QDbException dx = QDbException.findTranslation(x);
+				if(dx != null)
+					throw dx;
+				throw x;
+			}
+		}
+
+		@Override
+		public Object get() {
+			Object current = m_current;
+			if(null == current)
+				throw new IllegalStateException("The cursor is not on a row");
+			return current;
+		}
+
+		@Override
+		public int getRowCount() {
+			return m_rowCount;
+		}
+
+		@Override
+		public void close() {
+			m_current = null;
+			try {
+				if(m_rs != null)
+					m_rs.close();
+			} catch(Exception x) {}
+			try {
+				if(m_ps != null)
+					m_ps.close();
+			} catch(Exception x) {}
+			m_rs = null;
+			m_ps = null;
+		}
+	}
+
+	/**
+	 * Create the query for a criteria. The SQL is reused from the {@link JdbcQueryPlanCache} when a query of the same shape was created before.
+	 */
 	static public <T> JdbcQuery<T> create(QCriteria<T> q) throws Exception {
-		JdbcSQLGenerator qg = new JdbcSQLGenerator();
-		qg.visitCriteria(q);
-		return (JdbcQuery<T>) qg.getQuery();
+		return JdbcQueryPlanCache.create(q);
 	}
 
 	static public <T> JdbcQuery<T> create(QSelection<T> q) throws Exception {
-		JdbcSQLGenerator qg = new JdbcSQLGenerator();
-		qg.visitSelection(q);
-		return (JdbcQuery<T>) qg.getQuery();
+		return JdbcQueryPlanCache.create(q);
 	}
 
 
@@ -194,6 +308,16 @@ public class JdbcQuery<T> {
 		return (List<Object[]>) query.query(dc);
 	}
 
+	static public <T> IQueryCursor<T> cursor(QDataContext dc, QCriteria<T> q, int fetchSize) throws Exception {
+		JdbcQuery<T> query = JdbcQuery.create(q);
+		return (IQueryCursor<T>) query.cursor(dc, fetchSize);
+	}
+
+	static public IQueryCursor<Object[]> cursor(QDataContext dc, QSelection< ? > sel, int fetchSize) throws Exception {
+		JdbcQuery< ? > query = JdbcQuery.create(sel);
+		return (IQueryCursor<Object[]>) (IQueryCursor< ? >) query.cursor(dc, fetchSize);
+	}
+
 	static public <T> T queryOne(QDataContext dc, QCriteria<T> q) throws Exception {
 		List<T> res = query(dc, q);
 		if(res.size() == 0)
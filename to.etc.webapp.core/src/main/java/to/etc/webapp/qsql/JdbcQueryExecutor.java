@@ -103,6 +103,16 @@ public class JdbcQueryExecutor implements IQueryExecutor<QDataContext>, IQueryEx
 		return JdbcQuery.query(root, sel);
 	}
 
+	@Override
+	public @Nonnull <T> IQueryCursor<T> cursor(@Nonnull QDataContext root, @Nonnull QCriteria<T> q, int fetchSize) throws Exception {
+		return JdbcQuery.cursor(root, q, fetchSize);
+	}
+
+	@Override
+	public @Nonnull IQueryCursor<Object[]> cursor(@Nonnull QDataContext root, @Nonnull QSelection< ? > sel, int fetchSize) throws Exception {
+		return JdbcQuery.cursor(root, sel, fetchSize);
+	}
+
 	@Override
 	public void refresh(@Nonnull QDataContext root, @Nonnull Object o) throws Exception {
 	//-- Noop
@@ -118,6 +128,28 @@ public class JdbcQueryExecutor implements IQueryExecutor<QDataContext>, IQueryEx
 		throw new IllegalStateException("delete operation not implemented for QJdbc classes");
 	}
 
+	/**
+	 * Inserts all objects through a {@link JdbcBatchWriter} on the context's connection.
+	 */
+	@Override
+	public void saveAll(@Nonnull QDataContext root, @Nonnull List< ? > list, int batchSize) throws Exception {
+		try(JdbcBatchWriter bw = new JdbcBatchWriter(root.getConnection(), batchSize)) {
+			for(Object o : list)
+				bw.insert(o);
+		}
+	}
+
+	/**
+	 * Deletes all objects through a {@link JdbcBatchWriter} on the context's connection.
+	 */
+	@Override
+	public void deleteAll(@Nonnull QDataContext root, @Nonnull List< ? > list, int batchSize) throws Exception {
+		try(JdbcBatchWriter bw = new JdbcBatchWriter(root.getConnection(), batchSize)) {
+			for(Object o : list)
+				bw.delete(o);
+		}
+	}
+
 	@Override
 	public void attach(@Nonnull QDataContext root, @Nonnull Object o) throws Exception {
 		throw new IllegalStateException("attach operation not implemented for QJdbc classes");
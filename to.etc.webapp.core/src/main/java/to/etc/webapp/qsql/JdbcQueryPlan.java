@@ -0,0 +1,68 @@
+package to.etc.webapp.qsql;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+/**
+ * The reusable part of a generated query: the SQL, the row makers and the parameter markers. A plan
+ * does not contain any of the values from the criteria it was generated from; {@link #bind(List)}
+ * creates a {@link JdbcQuery} for a new set of values. Plans are immutable and shared between
+ * threads by the {@link JdbcQueryPlanCache}.
+ *
+ * Created on Oct 18, 2026
+ */
+final class JdbcQueryPlan {
+	@Nonnull
+	final private Class< ? > m_rootClass;
+
+	@Nonnull
+	final private String m_sql;
+
+	@Nonnull
+	final private List<IInstanceMaker> m_retrieverList;
+
+	@Nonnull
+	final private List<JdbcParameter> m_parameterList;
+
+	final private int m_start, m_limit;
+
+	final private int m_timeout;
+
+	JdbcQueryPlan(@Nonnull Class< ? > rootClass, @Nonnull String sql, @Nonnull List<IInstanceMaker> retrieverList, @Nonnull List<JdbcParameter> parameterList, int start, int limit, int timeout) {
+		m_rootClass = rootClass;
+		m_sql = sql;
+		m_retrieverList = Collections.unmodifiableList(new ArrayList<IInstanceMaker>(retrieverList));
+		m_parameterList = Collections.unmodifiableList(new ArrayList<JdbcParameter>(parameterList));
+		m_start = start;
+		m_limit = limit;
+		m_timeout = timeout;
+	}
+
+	@Nonnull
+	public Class< ? > getRootClass() {
+		return m_rootClass;
+	}
+
+	@Nonnull
+	public String getSQL() {
+		return m_sql;
+	}
+
+	public int getParameterCount() {
+		return m_parameterList.size();
+	}
+
+	/**
+	 * Create a query from this plan, with the values in the order of the parameter markers.
+	 */
+	@Nonnull
+	public JdbcQuery< ? > bind(@Nonnull List<Object> values) {
+		if(values.size() != m_parameterList.size())
+			throw new IllegalStateException("Plan has " + m_parameterList.size() + " parameters but " + values.size() + " values were passed");
+		List<IQValueSetter> vl = new ArrayList<IQValueSetter>(values.size());
+		for(int i = 0; i < values.size(); i++)
+			vl.add(m_parameterList.get(i).bind(values.get(i)));
+		return new JdbcQuery<Object>(m_sql, m_retrieverList, vl, m_start, m_limit, m_timeout);
+	}
+}
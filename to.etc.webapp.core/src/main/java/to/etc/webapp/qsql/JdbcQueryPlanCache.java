@@ -0,0 +1,197 @@
+package to.etc.webapp.qsql;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import to.etc.util.*;
+import to.etc.webapp.query.*;
+
+/**
+ * Caches the SQL generated for criteria and selections by the shape of the query, so that a
+ * query that differs from an earlier one only in its values reuses the SQL, the row makers and
+ * the parameter markers and only binds the new values. The shape is determined by {@link JdbcQueryShape}.
+ *
+ * <p>The cache is bounded; the least recently used plan is removed when it is full. It can be
+ * disabled with the developer option domui.jdbc.plancache=false. The hit and miss counts and the
+ * #of plans are available through the static getters.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final public class JdbcQueryPlanCache {
+	static private final int MAX_PLANS = 512;
+
+	static private final boolean m_enabled = DeveloperOptions.getBool("domui.jdbc.plancache", true);
+
+	static private final Map<String, JdbcQueryPlan> m_planMap = new LinkedHashMap<String, JdbcQueryPlan>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, JdbcQueryPlan> eldest) {
+			return size() > MAX_PLANS;
+		}
+	};
+
+	static private long m_hitCount;
+
+	static private long m_missCount;
+
+	static private long m_uncachedCount;
+
+	private JdbcQueryPlanCache() {}
+
+	static <T> JdbcQuery<T> create(@Nonnull QCriteria<T> q) throws Exception {
+		if(!m_enabled) {
+			JdbcSQLGenerator qg = new JdbcSQLGenerator();
+			qg.visitCriteria(q);
+			return (JdbcQuery<T>) qg.getQuery();
+		}
+
+		JdbcQueryShape shape = new JdbcQueryShape();
+		shape.visitCriteria(q);
+		JdbcQuery< ? > query = findQuery(q.getBaseClass(), shape);
+		if(null == query) {
+			JdbcSQLGenerator qg = new JdbcSQLGenerator();
+			qg.visitCriteria(q);
+			query = store(shape, qg);
+		}
+		return (JdbcQuery<T>) query;
+	}
+
+	static <T> JdbcQuery<T> create(@Nonnull QSelection<T> q) throws Exception {
+		if(!m_enabled) {
+			JdbcSQLGenerator qg = new JdbcSQLGenerator();
+			qg.visitSelection(q);
+			return (JdbcQuery<T>) qg.getQuery();
+		}
+
+		JdbcQueryShape shape = new JdbcQueryShape();
+		shape.visitSelection(q);
+		JdbcQuery< ? > query = findQuery(q.getBaseClass(), shape);
+		if(null == query) {
+			JdbcSQLGenerator qg = new JdbcSQLGenerator();
+			qg.visitSelection(q);
+			query = store(shape, qg);
+		}
+		return (JdbcQuery<T>) query;
+	}
+
+	/**
+	 * Find a plan for the shape and bind the shape's values to it. The plan must be for the same root class
+	 * instance, so that plans for a class that was reloaded are not used.
+	 */
+	@Nullable
+	static private JdbcQuery< ? > findQuery(@Nullable Class< ? > rootClass, @Nonnull JdbcQueryShape shape) {
+		if(!shape.isCacheable() || null == rootClass)
+			return null;
+		JdbcQueryPlan plan;
+		synchronized(m_planMap) {
+			plan = m_planMap.get(shape.getKey());
+			if(null == plan || plan.getRootClass() != rootClass || plan.getParameterCount() != shape.getValues().size())
+				return null;
+			m_hitCount++;
+		}
+		return plan.bind(shape.getValues());
+	}
+
+	/**
+	 * Store the plan for a freshly generated query. The values the generator bound must be the ones found
+	 * in the shape, in the same order; if they are not the shape does not describe the query and it is not
+	 * cached.
+	 */
+	@Nonnull
+	static private JdbcQuery< ? > store(@Nonnull JdbcQueryShape shape, @Nonnull JdbcSQLGenerator qg) throws Exception {
+		boolean cacheable = shape.isCacheable();
+		if(cacheable) {
+			List<Object> generated = qg.getParameterValues();
+			List<Object> values = shape.getValues();
+			if(generated.size() != values.size()) {
+				cacheable = false;
+			} else {
+				for(int i = 0; i < values.size(); i++) {
+					if(generated.get(i) != values.get(i)) {
+						cacheable = false;
+						break;
+					}
+				}
+			}
+		}
+
+		synchronized(m_planMap) {
+			if(cacheable) {
+				m_missCount++;
+				m_planMap.put(shape.getKey(), qg.getPlan());
+			} else
+				m_uncachedCount++;
+		}
+		return qg.getQuery();
+	}
+
+	/**
+	 * The #of queries that used a cached plan.
+	 */
+	static public long getHitCount() {
+		synchronized(m_planMap) {
+			return m_hitCount;
+		}
+	}
+
+	/**
+	 * The #of queries that were generated and then cached.
+	 */
+	static public long getMissCount() {
+		synchronized(m_planMap) {
+			return m_missCount;
+		}
+	}
+
+	/**
+	 * The #of queries that were generated but could not be cached, because they contain something the shape cannot describe.
+	 */
+	static public long getUncachedCount() {
+		synchronized(m_planMap) {
+			return m_uncachedCount;
+		}
+	}
+
+	/**
+	 * The hit rate as a percentage of all queries created.
+	 */
+	static public double getHitRate() {
+		synchronized(m_planMap) {
+			long total = m_hitCount + m_missCount + m_uncachedCount;
+			return total == 0 ? 0.0 : m_hitCount * 100.0 / total;
+		}
+	}
+
+	/**
+	 * The #of plans currently cached.
+	 */
+	static public int getPlanCount() {
+		synchronized(m_planMap) {
+			return m_planMap.size();
+		}
+	}
+
+	static public boolean isEnabled() {
+		return m_enabled;
+	}
+
+	/**
+	 * Remove all plans and reset the counters.
+	 */
+	static public void clear() {
+		synchronized(m_planMap) {
+			m_planMap.clear();
+			m_hitCount = 0;
+			m_missCount = 0;
+			m_uncachedCount = 0;
+		}
+	}
+
+	@Nonnull
+	static public String getStatistics() {
+		synchronized(m_planMap) {
+			return "JDBC query plans: " + m_planMap.size() + " cached, " + m_hitCount + " hits, " + m_missCount + " misses, " + m_uncachedCount + " not cacheable, hit rate "
+				+ String.format("%.1f", Double.valueOf(getHitRate())) + "%";
+		}
+	}
+}
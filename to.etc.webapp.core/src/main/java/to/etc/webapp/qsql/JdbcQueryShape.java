@@ -0,0 +1,222 @@
+package to.etc.webapp.qsql;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import to.etc.webapp.query.*;
+
+/**
+ * Walks a criteria or selection and creates a key that describes its shape: the root class, the
+ * restriction tree with its operators and properties, the ordering and the limits, but not the
+ * values. The values are collected separately, in the order in which {@link JdbcSQLGenerator}
+ * creates its parameter markers. Two queries with the same key generate the same SQL.
+ *
+ * <p>Anything that the JDBC generator does not support, or renders in a way that depends on a
+ * value, makes the shape uncacheable; such queries are always generated.</p>
+ *
+ * Created on Oct 18, 2026
+ */
+final class JdbcQueryShape extends QNodeVisitorBase {
+	final private StringBuilder m_key = new StringBuilder(128);
+
+	final private List<Object> m_values = new ArrayList<Object>();
+
+	private boolean m_cacheable = true;
+
+	@Nonnull
+	public String getKey() {
+		return m_key.toString();
+	}
+
+	@Nonnull
+	public List<Object> getValues() {
+		return m_values;
+	}
+
+	public boolean isCacheable() {
+		return m_cacheable;
+	}
+
+	private void key(@Nonnull String s) {
+		m_key.append(s);
+	}
+
+	/**
+	 * Add a string that is not an identifier, prefixed by its length so that it cannot be confused with the rest of the key.
+	 */
+	private void keyText(@Nonnull String s) {
+		m_key.append(s.length()).append(':').append(s);
+	}
+
+	private void value(@Nonnull QOperatorNode n) {
+		if(n instanceof QLiteral)
+			m_values.add(((QLiteral) n).getValue());
+		else
+			m_cacheable = false;
+	}
+
+	@Override
+	public void visitCriteria(@Nonnull QCriteria< ? > qc) throws Exception {
+		Class< ? > clz = qc.getBaseClass();
+		if(null == clz) {
+			m_cacheable = false;
+			return;
+		}
+		key("C ");
+		key(clz.getName());
+		key(" ");
+		key(qc.getStart() + "," + qc.getLimit() + "," + qc.getTimeout());
+		super.visitCriteria(qc);
+	}
+
+	@Override
+	public void visitSelection(@Nonnull QSelection< ? > s) throws Exception {
+		Class< ? > clz = s.getBaseClass();
+		if(null == clz) {
+			m_cacheable = false;
+			return;
+		}
+		key("S ");
+		key(clz.getName());
+		key(" ");
+		key(s.getStart() + "," + s.getLimit());
+		super.visitSelection(s);
+	}
+
+	@Override
+	public void visitRestrictionsBase(@Nonnull QCriteriaQueryBase< ? > n) throws Exception {
+		QOperatorNode r = n.getRestrictions();
+		QOperatorNode.prune(r);
+		key(" W");
+		if(r != null)
+			r.visit(this);
+	}
+
+	@Override
+	public void visitOrderList(@Nonnull List<QOrder> orderlist) throws Exception {
+		key(" O");
+		super.visitOrderList(orderlist);
+	}
+
+	@Override
+	public void visitOrder(@Nonnull QOrder o) throws Exception {
+		key("(" + o.getProperty() + " " + o.getDirection() + ")");
+	}
+
+	@Override
+	public void visitPropertySelection(@Nonnull QPropertySelection n) throws Exception {
+		key("(" + n.getFunction() + " " + n.getProperty() + ")");
+	}
+
+	@Override
+	public void visitSelectionItem(@Nonnull QSelectionItem n) throws Exception {
+		m_cacheable = false;
+	}
+
+	@Override
+	public void visitMultiSelection(@Nonnull QMultiSelection n) throws Exception {
+		m_cacheable = false;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Restrictions.										*/
+	/*--------------------------------------------------------------*/
+	@Override
+	public void visitMulti(@Nonnull QMultiNode n) throws Exception {
+		key("(" + n.getOperation());
+		for(QOperatorNode c : n.getChildren()) {
+			key(" ");
+			c.visit(this);
+		}
+		key(")");
+	}
+
+	@Override
+	public void visitUnaryNode(@Nonnull QUnaryNode n) throws Exception {
+		QOperatorNode node = n.getNode();
+		if(n.getOperation() == QOperation.SQL && node instanceof QLiteral) {
+			Object sql = ((QLiteral) node).getValue();
+			if(!(sql instanceof String)) {
+				m_cacheable = false;
+				return;
+			}
+			key("(SQL ");
+			keyText((String) sql);
+			key(")");
+			return;
+		}
+		key("(" + n.getOperation());
+		if(node != null) {
+			key(" ");
+			node.visit(this);
+		}
+		key(")");
+	}
+
+	@Override
+	public void visitPropertyComparison(@Nonnull QPropertyComparison n) throws Exception {
+		key("(" + n.getOperation() + " " + n.getProperty() + ")");
+		value(n.getExpr());
+	}
+
+	@Override
+	public void visitPropertyIn(@Nonnull QPropertyIn n) throws Exception {
+		QOperatorNode expr = n.getExpr();
+		if(!(expr instanceof QLiteral) || !(((QLiteral) expr).getValue() instanceof List)) {
+			m_cacheable = false;
+			return;
+		}
+		List<Object> list = (List<Object>) ((QLiteral) expr).getValue();
+		key("(IN " + n.getProperty() + " " + list.size() + ")");
+		m_values.addAll(list);
+	}
+
+	@Override
+	public void visitUnaryProperty(@Nonnull QUnaryProperty n) throws Exception {
+		key("(" + n.getOperation() + " " + n.getProperty() + ")");
+	}
+
+	@Override
+	public void visitBetween(@Nonnull QBetweenNode n) throws Exception {
+		key("(" + n.getOperation() + " " + n.getProp() + ")");
+		value(n.getA());
+		value(n.getB());
+	}
+
+	@Override
+	public void visitSqlRestriction(@Nonnull QSqlRestriction v) throws Exception {
+		if(v.getParameters().length != 0) {
+			m_cacheable = false;
+			return;
+		}
+		key("(SQLR ");
+		keyText(v.getSql());
+		key(")");
+	}
+
+	@Override
+	public void visitLiteral(@Nonnull QLiteral n) throws Exception {
+		m_cacheable = false;
+	}
+
+	@Override
+	public void visitPropertyJoinComparison(@Nonnull QPropertyJoinComparison qPropertyJoinComparison) throws Exception {
+		m_cacheable = false;
+	}
+
+	@Override
+	public void visitExistsSubquery(@Nonnull QExistsSubquery< ? > q) throws Exception {
+		m_cacheable = false;
+	}
+
+	@Override
+	public void visitSubquery(@Nonnull QSubQuery< ? , ? > n) throws Exception {
+		m_cacheable = false;
+	}
+
+	@Override
+	public void visitSelectionSubquery(@Nonnull QSelectionSubquery n) throws Exception {
+		m_cacheable = false;
+	}
+}
@@ -57,6 +57,11 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 
 	private List<IQValueSetter> m_valList = new ArrayList<IQValueSetter>();
 
+	/** The parameter markers, in the same order as m_valList, and the values they were bound to. */
+	private List<JdbcParameter> m_paramList = new ArrayList<JdbcParameter>();
+
+	private List<Object> m_paramValues = new ArrayList<Object>();
+
 	/** FIXME Need some better way to set this */
 	private boolean m_oracle = true;
 
@@ -125,6 +130,8 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 		m_root = new PClassRef(qc.getBaseClass(), "this_");
 		m_tblMap.put(m_root.getAlias(), m_root);
 		m_rootMeta = JdbcMetaManager.getMeta(qc.getBaseClass());
+		m_start = qc.getStart();
+		m_limit = qc.getLimit();
 		m_timeout = 60;
 
 
@@ -235,6 +242,28 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 		return new JdbcQuery<Object>(getSQL(), m_retrieverList, m_valList, m_start, m_limit, m_timeout);
 	}
 
+	/**
+	 * Return the generated query without its values, so that it can be reused for a query with the same shape.
+	 */
+	@Nonnull
+	JdbcQueryPlan getPlan() throws Exception {
+		return new JdbcQueryPlan(m_root.getDataClass(), getSQL(), m_retrieverList, m_paramList, m_start, m_limit, m_timeout);
+	}
+
+	/**
+	 * The values of all parameters, in parameter order.
+	 */
+	@Nonnull
+	List<Object> getParameterValues() {
+		return m_paramValues;
+	}
+
+	private void addParameter(@Nonnull JdbcParameter p, @Nullable Object value) {
+		m_valList.add(p.bind(value));
+		m_paramList.add(p);
+		m_paramValues.add(value);
+	}
+
 	@Override
 	public void visitOrder(@Nonnull QOrder o) throws Exception {
 		if(m_order == null)
@@ -345,11 +374,8 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 			throw new QQuerySyntaxException("Unexpected argument to " + n + ": " + n.getExpr());
 		QLiteral ql = (QLiteral) n.getExpr();
 		Object inst = ql.getValue();
-		if(inst != null) {
-			if(!pm.getActualClass().isAssignableFrom(inst.getClass()))
-				throw new QQuerySyntaxException("The value of type " + inst.getClass() + " is not assignment-compatible with the compound type=" + pm.getActualClass() + " in property "
-					+ n.getProperty());
-		}
+		JdbcParameter p = new JdbcParameter(JdbcParameter.Kind.COMPOUND, m_nextWhereIndex, pm, n.getProperty());
+		IQValueSetter vs = p.bind(inst);							// Checks the instance's type
 
 		//-- Generate the compound's where part.
 		appendWhere("(");
@@ -364,11 +390,10 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 		}
 		appendWhere(")");
 
-		int index = m_nextWhereIndex;
-		IJdbcType tc = pm.getTypeConverter();
-		m_nextWhereIndex += tc.columnCount();
-		ValSetter vs = new ValSetter(index, inst, tc, pm);
+		m_nextWhereIndex += pm.getTypeConverter().columnCount();
 		m_valList.add(vs);
+		m_paramList.add(p);
+		m_paramValues.add(inst);
 	}
 
 	/**
@@ -383,10 +408,7 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 
 	private void appendValueSetter(JdbcPropertyMeta pm, Object value) {
 		appendWhere("?");
-		int index = m_nextWhereIndex++;
-		IJdbcType tc = pm.getTypeConverter();
-		ValSetter vs = new ValSetter(index, value, tc, pm);
-		m_valList.add(vs);
+		addParameter(new JdbcParameter(JdbcParameter.Kind.VALUE, m_nextWhereIndex++, pm, pm.getName()), value);
 	}
 
 	/**
@@ -395,12 +417,8 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 	 * @param expr
 	 */
 	private void appendLikeValueSetter(JdbcPropertyMeta pm, QLiteral expr) {
-		if(!(expr.getValue() instanceof String))
-			throw new QQuerySyntaxException("Invalid value type " + expr.getValue() + " for LIKE operation - expecting string.");
 		appendWhere("?");
-		int index = m_nextWhereIndex++;
-		LikeSetter vs = new LikeSetter(index, (String) expr.getValue(), pm);
-		m_valList.add(vs);
+		addParameter(new JdbcParameter(JdbcParameter.Kind.LIKE, m_nextWhereIndex++, pm, pm.getName()), expr.getValue());
 	}
 
 	private JdbcPropertyMeta resolveProperty(String pname) throws Exception {
@@ -263,6 +263,19 @@ public class JdbcUtil {
 		}
 	}
 
+	/**
+	 * Execute the statement once for every parameter set, using JDBC batches of at most batchSize rows.
+	 * @return	the #of rows changed, as far as the driver reports it.
+	 */
+	public static int executeBatch(@Nonnull Connection dbc, @Nonnull String sql, @Nonnull List<Object[]> parameterList, int batchSize) throws Exception {
+		try(JdbcBatchWriter bw = new JdbcBatchWriter(dbc, batchSize)) {
+			for(Object[] params : parameterList)
+				bw.execute(sql, params);
+			bw.flush();
+			return bw.getRowCount();
+		}
+	}
+
 	public static void setParameters(@Nonnull PreparedStatement ps, int startindex, @Nullable Object[] params) throws SQLException {
 		if(params == null)
 			return;
@@ -15,22 +15,20 @@ import to.etc.webapp.query.*;
  */
 public class SelectorColumnsResultMaker implements IInstanceMaker {
 
-	private final @Nonnull
-	QSelection< ? > m_selection;
+	/** The #of selected columns; the selection itself is not kept because the maker is reused by cached query plans. */
+	private final int m_columnCount;
 
 	SelectorColumnsResultMaker(@Nonnull QSelection< ? > selection) {
-		m_selection = selection;
+		m_columnCount = selection.getColumnList().size();
 	}
 
 	@Override
 	public @Nonnull
 	Object make(@Nonnull QDataContext dc, @Nonnull ResultSet rs) throws Exception {
 		//has to be returned as array of size 1
-		Object[] res = new Object[m_selection.getColumnList().size()];
-		int index = 0;
-		for(QSelectionColumn selCol : m_selection.getColumnList()) {
+		Object[] res = new Object[m_columnCount];
+		for(int index = 0; index < m_columnCount; index++) {
 			res[index] = rs.getObject(index + 1);
-			index++;
 		}
 		return res;
 	}
@@ -4,6 +4,8 @@ import java.util.*;
 
 import javax.annotation.*;
 
+import to.etc.util.*;
+
 /**
  * EXPERIMENTAL Default implementation of a before-image collecting cache, used for {@link QDataContext#original()}.
  *
@@ -18,6 +20,10 @@ public class DefaultBeforeImageCache implements IBeforeImageCache {
 	@Nonnull
 	final private Map<Object, Object> m_copyMap = new HashMap<Object, Object>();
 
+	/** Loaded states of instances whose before image has not been built yet. */
+	@Nonnull
+	final private Map<Object, IBeforeImageSnapshot> m_snapshotMap = new HashMap<Object, IBeforeImageSnapshot>();
+
 	private boolean m_wasNew;
 
 	@Nonnull
@@ -50,21 +56,56 @@ public class DefaultBeforeImageCache implements IBeforeImageCache {
 	public <T> T findBeforeImage(@Nonnull T source) {
 		T res = (T) m_copyMap.get(source);
 //		System.out.println("     >> " + source + " maps to " + res);
-		return res;
+		IBeforeImageSnapshot snapshot = m_snapshotMap.remove(source);
+		if(null == snapshot)
+			return res;
+
+		//-- Build the image from the loaded state. Register it first, so that relations back to this instance find it.
+		T image = res;
+		boolean uninitialized = false;
+		try {
+			if(null == image) {
+				image = (T) snapshot.getImageClass().newInstance();
+				m_copyMap.put(source, image);
+			} else
+				uninitialized = m_uninitializedSet.remove(image);
+			snapshot.initializeImage(image);
+		} catch(Exception x) {
+			//-- Undo, so that the next call tries again instead of returning a half-built image.
+			m_snapshotMap.put(source, snapshot);
+			if(null == res)
+				m_copyMap.remove(source);
+			else if(uninitialized)
+				m_uninitializedSet.add(res);
+			throw WrappedException.wrap(x);
+		}
+		return image;
 	}
 
 	@Override
 	public <T> T getBeforeImage(@Nonnull T instance) {
-		T copy = (T) m_copyMap.get(instance);
+		T copy = findBeforeImage(instance);
 		if(null == copy)
 			return null;
 		if(!isLoaded(copy))
 			throw new IllegalStateException("Trying to get the before image of an unloaded instance");
-		return null;
+		return copy;
 	}
 
 	@Override
 	public <T> boolean isLoaded(@Nonnull T beforeImage) {
 		return !m_uninitializedSet.contains(beforeImage);
 	}
+
+	@Override
+	public void registerSnapshot(@Nonnull Object instance, @Nonnull IBeforeImageSnapshot snapshot) {
+		m_snapshotMap.put(instance, snapshot);
+	}
+
+	/**
+	 * The #of instances whose before image has not been built yet.
+	 */
+	public int getSnapshotCount() {
+		return m_snapshotMap.size();
+	}
 }
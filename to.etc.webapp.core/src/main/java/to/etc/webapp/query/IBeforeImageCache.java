@@ -23,4 +23,11 @@ public interface IBeforeImageCache {
 	public <T> T getBeforeImage(@Nonnull T instance);
 
 	public <T> boolean isLoaded(@Nonnull T beforeImage);
+
+	/**
+	 * Register the loaded state of an instance, from which its before image is built only when it is first
+	 * asked for. Registering a new snapshot for an instance that already has an image re-initializes that
+	 * image when it is asked for again.
+	 */
+	public void registerSnapshot(@Nonnull Object instance, @Nonnull IBeforeImageSnapshot snapshot);
 }
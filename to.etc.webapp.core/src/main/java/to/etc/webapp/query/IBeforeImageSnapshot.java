@@ -0,0 +1,23 @@
+package to.etc.webapp.query;
+
+import javax.annotation.*;
+
+/**
+ * The state of an instance as it was loaded, registered with {@link IBeforeImageCache#registerSnapshot(Object, IBeforeImageSnapshot)}
+ * by persistence layers that can build the before image from it later, so that no copy has to be made for
+ * instances whose original is never asked for.
+ *
+ * Created on Oct 18, 2026
+ */
+public interface IBeforeImageSnapshot {
+	/**
+	 * The class of the before image to create.
+	 */
+	@Nonnull
+	Class< ? > getImageClass();
+
+	/**
+	 * Set the properties of the just created (or still uninitialized) before image from the loaded state.
+	 */
+	void initializeImage(@Nonnull Object image) throws Exception;
+}
@@ -0,0 +1,36 @@
+package to.etc.webapp.query;
+
+import javax.annotation.*;
+
+/**
+ * A forward-only cursor over the result of a query, as returned by {@link QDataContext#cursor(QCriteria, int)}.
+ * Rows are read from the database in batches of the fetch size while the cursor is moved, so the
+ * memory used does not depend on the size of the result. The cursor holds an open statement and
+ * result set, so it must always be closed, preferably with try-with-resources; it closes itself
+ * when {@link #next()} reaches the end of the result.
+ *
+ * Created on Oct 18, 2026
+ */
+public interface IQueryCursor<T> extends AutoCloseable {
+	/**
+	 * Move to the next row. Returns false, and closes the cursor, when there are no more rows.
+	 */
+	boolean next() throws Exception;
+
+	/**
+	 * Return the current row.
+	 */
+	@Nonnull
+	T get();
+
+	/**
+	 * The #of rows returned so far.
+	 */
+	int getRowCount();
+
+	/**
+	 * Release the statement and result set. This can be called at any time, and more than once.
+	 */
+	@Override
+	void close();
+}
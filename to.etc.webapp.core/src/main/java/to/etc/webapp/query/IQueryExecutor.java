@@ -50,6 +50,18 @@ public interface IQueryExecutor<C extends QDataContext> {
 	@Nonnull
 	List<Object[]> query(@Nonnull C root, @Nonnull QSelection< ? > sel) throws Exception;
 
+	/**
+	 * Open a cursor over the result of the query; see {@link QDataContext#cursor(QCriteria, int)}.
+	 */
+	@Nonnull
+	<T> IQueryCursor<T> cursor(@Nonnull C root, @Nonnull QCriteria<T> q, int fetchSize) throws Exception;
+
+	/**
+	 * Open a cursor over the result of the selection; see {@link QDataContext#cursor(QSelection, int)}.
+	 */
+	@Nonnull
+	IQueryCursor<Object[]> cursor(@Nonnull C root, @Nonnull QSelection< ? > sel, int fetchSize) throws Exception;
+
 	/**
 	 * Load the persistent object with the specified type and primary key from the database. This will
 	 * execute an actual select in the database if the object is not yet cached, ensuring that the
@@ -108,5 +120,15 @@ public interface IQueryExecutor<C extends QDataContext> {
 	 */
 	void delete(@Nonnull C root, @Nonnull Object o) throws Exception;
 
+	/**
+	 * Insert all objects in batches of at most batchSize rows, and execute all statements before returning.
+	 */
+	void saveAll(@Nonnull C root, @Nonnull List< ? > list, int batchSize) throws Exception;
+
+	/**
+	 * Delete all objects in batches of at most batchSize rows, and execute all statements before returning.
+	 */
+	void deleteAll(@Nonnull C root, @Nonnull List< ? > list, int batchSize) throws Exception;
+
 	void attach(@Nonnull C root, @Nonnull Object o) throws Exception;
 }
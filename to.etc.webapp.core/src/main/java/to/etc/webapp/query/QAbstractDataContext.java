@@ -28,6 +28,8 @@ import java.util.*;
 
 import javax.annotation.*;
 
+import to.etc.function.*;
+
 /**
  * A QDataContext proxy which allows queries to be sent to multiple rendering/selecting implementations. It delegates
  * all query handling to the appropriate query handler.
@@ -133,6 +135,36 @@ abstract public class QAbstractDataContext implements QDataContext {
 		return getHandlerFactory().getHandler(this, sel).query(this, sel);
 	}
 
+	@Override
+	@Nonnull
+	public <T> IQueryCursor<T> cursor(@Nonnull QCriteria<T> q, int fetchSize) throws Exception {
+		getFactory().getEventListeners().callOnBeforeQuery(this, q);
+		return getHandlerFactory().getHandler(this, q).cursor(this, q, fetchSize);
+	}
+
+	@Override
+	@Nonnull
+	public IQueryCursor<Object[]> cursor(@Nonnull QSelection< ? > sel, int fetchSize) throws Exception {
+		getFactory().getEventListeners().callOnBeforeQuery(this, sel);
+		return getHandlerFactory().getHandler(this, sel).cursor(this, sel, fetchSize);
+	}
+
+	@Override
+	public <T> void forEach(@Nonnull QCriteria<T> q, int fetchSize, @Nonnull ConsumerEx<T> consumer) throws Exception {
+		try(IQueryCursor<T> cursor = cursor(q, fetchSize)) {
+			while(cursor.next())
+				consumer.accept(cursor.get());
+		}
+	}
+
+	@Override
+	public void forEach(@Nonnull QSelection< ? > sel, int fetchSize, @Nonnull ConsumerEx<Object[]> consumer) throws Exception {
+		try(IQueryCursor<Object[]> cursor = cursor(sel, fetchSize)) {
+			while(cursor.next())
+				consumer.accept(cursor.get());
+		}
+	}
+
 	@Override
 	@Nonnull
 	public <R> List<R> query(@Nonnull Class<R> resultInterface, @Nonnull QSelection< ? > sel) throws Exception {
@@ -207,6 +239,51 @@ abstract public class QAbstractDataContext implements QDataContext {
 		}
 	}
 
+	/**
+	 * Each run of objects that are handled by the same executor is passed to that executor in one call.
+	 * @see to.etc.webapp.query.QDataContext#saveAll(java.util.List, int)
+	 */
+	@Override
+	public void saveAll(@Nonnull List< ? > list, int batchSize) throws Exception {
+		if(batchSize <= 0)
+			throw new IllegalArgumentException("The batch size must be > 0");
+		int start = 0;
+		while(start < list.size()) {
+			IQueryExecutor<QDataContext> handler = getHandlerFactory().getHandler(this, list.get(start));
+			int end = start + 1;
+			while(end < list.size() && getHandlerFactory().getHandler(this, list.get(end)) == handler)
+				end++;
+			handler.saveAll(this, list.subList(start, end), batchSize);
+			start = end;
+		}
+		for(Object o : list) {
+			if(o instanceof IIdentifyable) {
+				for(IQDataContextListener icl : m_qDataContextListeners) {
+					icl.instanceSaved((IIdentifyable< ? >) o);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Each run of objects that are handled by the same executor is passed to that executor in one call.
+	 * @see to.etc.webapp.query.QDataContext#deleteAll(java.util.List, int)
+	 */
+	@Override
+	public void deleteAll(@Nonnull List< ? > list, int batchSize) throws Exception {
+		if(batchSize <= 0)
+			throw new IllegalArgumentException("The batch size must be > 0");
+		int start = 0;
+		while(start < list.size()) {
+			IQueryExecutor<QDataContext> handler = getHandlerFactory().getHandler(this, list.get(start));
+			int end = start + 1;
+			while(end < list.size() && getHandlerFactory().getHandler(this, list.get(end)) == handler)
+				end++;
+			handler.deleteAll(this, list.subList(start, end), batchSize);
+			start = end;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * @see to.etc.webapp.query.QDataContext#refresh(java.lang.Object)
@@ -29,6 +29,7 @@ import java.util.*;
 
 import javax.annotation.*;
 
+import to.etc.function.*;
 import to.etc.webapp.core.*;
 
 /**
@@ -108,6 +109,48 @@ public interface QDataContext extends AutoCloseable {
 	@Nonnull
 	public <R> List<R> query(@Nonnull Class<R> resultInterface, @Nonnull QSelection< ? > sel) throws Exception;
 
+	/**
+	 * Open a cursor over the result of the query, for results that are too big to load as a list. The rows are
+	 * fetched from the database in batches of fetchSize rows; use 0 for the driver's default. The cursor
+	 * must be closed. For Hibernate, every entity returned is evicted from the session when the cursor moves on,
+	 * unless it was already in the session when the cursor was opened or it was changed before moving on.
+	 * @param q
+	 * @param fetchSize
+	 * @return
+	 * @throws Exception
+	 */
+	@Nonnull
+	<T> IQueryCursor<T> cursor(@Nonnull QCriteria<T> q, int fetchSize) throws Exception;
+
+	/**
+	 * Open a cursor over the result of a selection query. See {@link #cursor(QCriteria, int)}.
+	 * @param sel
+	 * @param fetchSize
+	 * @return
+	 * @throws Exception
+	 */
+	@Nonnull
+	IQueryCursor<Object[]> cursor(@Nonnull QSelection< ? > sel, int fetchSize) throws Exception;
+
+	/**
+	 * Call the consumer for every row in the result of the query, reading the result through a cursor
+	 * (see {@link #cursor(QCriteria, int)}). The cursor is closed when the consumer throws an exception.
+	 * @param q
+	 * @param fetchSize
+	 * @param consumer
+	 * @throws Exception
+	 */
+	<T> void forEach(@Nonnull QCriteria<T> q, int fetchSize, @Nonnull ConsumerEx<T> consumer) throws Exception;
+
+	/**
+	 * Call the consumer for every row in the result of the selection query, reading the result through a cursor.
+	 * @param sel
+	 * @param fetchSize
+	 * @param consumer
+	 * @throws Exception
+	 */
+	void forEach(@Nonnull QSelection< ? > sel, int fetchSize, @Nonnull ConsumerEx<Object[]> consumer) throws Exception;
+
 	/**
 	 * Execute the selection query specified by q, and expect and return at most 1 result. If the query has no
 	 * result this will return null. If more than one result is obtained this will throw an IllegalStateException.
@@ -227,6 +270,29 @@ public interface QDataContext extends AutoCloseable {
 	 */
 	void delete(@Nonnull Object o) throws Exception;
 
+	/**
+	 * Insert all objects, like {@link #save(Object)}, sending the statements to the database in JDBC batches of
+	 * at most batchSize rows where the implementation supports that. All statements have been executed when
+	 * this returns. Implementations that send the batches by flushing a session, like Hibernate's, flush all
+	 * pending changes of the session, not just those of the objects in the list.
+	 * @param list
+	 * @param batchSize	the max #of rows per batch; must be > 0.
+	 * @throws IllegalArgumentException when batchSize is not > 0.
+	 * @throws Exception
+	 */
+	void saveAll(@Nonnull List< ? > list, int batchSize) throws Exception;
+
+	/**
+	 * Delete all objects, like {@link #delete(Object)}, in JDBC batches of at most batchSize rows where the
+	 * implementation supports that. All statements have been executed when this returns. Like
+	 * {@link #saveAll(List, int)} this can flush all pending changes of the session.
+	 * @param list
+	 * @param batchSize	the max #of rows per batch; must be > 0.
+	 * @throws IllegalArgumentException when batchSize is not > 0.
+	 * @throws Exception
+	 */
+	void deleteAll(@Nonnull List< ? > list, int batchSize) throws Exception;
+
 
 	void startTransaction() throws Exception;
 
@@ -29,6 +29,7 @@ import java.util.*;
 
 import javax.annotation.*;
 
+import to.etc.function.*;
 import to.etc.webapp.core.*;
 import to.etc.webapp.query.*;
 
@@ -106,6 +107,28 @@ public class TestDataContextStub implements QDataContext {
 		return null;
 	}
 
+	@Override
+	@Nonnull
+	public <T> IQueryCursor<T> cursor(@Nonnull QCriteria<T> q, int fetchSize) throws Exception {
+		throw new IllegalStateException("Cannot use this");
+	}
+
+	@Override
+	@Nonnull
+	public IQueryCursor<Object[]> cursor(@Nonnull QSelection< ? > sel, int fetchSize) throws Exception {
+		throw new IllegalStateException("Cannot use this");
+	}
+
+	@Override
+	public <T> void forEach(@Nonnull QCriteria<T> q, int fetchSize, @Nonnull ConsumerEx<T> consumer) throws Exception {
+		throw new IllegalStateException("Cannot use this");
+	}
+
+	@Override
+	public void forEach(@Nonnull QSelection< ? > sel, int fetchSize, @Nonnull ConsumerEx<Object[]> consumer) throws Exception {
+		throw new IllegalStateException("Cannot use this");
+	}
+
 	@Override
 	public void refresh(final @Nonnull Object o) throws Exception {}
 
@@ -115,6 +138,12 @@ public class TestDataContextStub implements QDataContext {
 	@Override
 	public void save(final @Nonnull Object o) throws Exception {}
 
+	@Override
+	public void saveAll(@Nonnull List< ? > list, int batchSize) throws Exception {}
+
+	@Override
+	public void deleteAll(@Nonnull List< ? > list, int batchSize) throws Exception {}
+
 	@Override
 	public void startTransaction() throws Exception {}
 
@@ -0,0 +1,199 @@
+package to.etc.test.webapp.qsql;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.dbpool.*;
+import to.etc.dbpool.info.*;
+import to.etc.webapp.qsql.*;
+import to.etc.webapp.query.*;
+
+/**
+ * Writes rows with {@link JdbcBatchWriter} and {@link QDataContext#saveAll(List, int)} on an embedded Derby
+ * database, and checks that the pool's statistics see the batches. The Derby driver is loaded from the jar in
+ * the derbydata module; the test is skipped if it is not there.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestJdbcBatchWriter {
+	static private final File DERBY_JAR = new File("../to.etc.domui.derbydata/derby.jar");
+
+	static private ConnectionPool m_pool;
+
+	static private File m_derbyHome;
+
+	@QJdbcTable(table = "batch_rows")
+	static public class BatchRow {
+		private Long m_id;
+
+		private String m_name;
+
+		public BatchRow() {}
+
+		public BatchRow(long id, String name) {
+			m_id = Long.valueOf(id);
+			m_name = name;
+		}
+
+		@QJdbcId
+		@QJdbcColumn(name = "id", nullable = false)
+		public Long getId() {
+			return m_id;
+		}
+
+		public void setId(Long id) {
+			m_id = id;
+		}
+
+		@QJdbcColumn(name = "name", length = 40)
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			m_name = name;
+		}
+	}
+
+	@BeforeClass
+	static public void setUp() throws Exception {
+		Assume.assumeTrue("Derby jar not found at " + DERBY_JAR.getAbsolutePath(), DERBY_JAR.exists());
+		m_derbyHome = Files.createTempDirectory("jdbcbatch").toFile();
+		System.setProperty("derby.system.home", m_derbyHome.getAbsolutePath());
+
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+		t.setDriverPath(DERBY_JAR.getAbsoluteFile());
+		t.setUrl("jdbc:derby:memory:jdbcbatch;create=true");
+		t.setUid("");
+		t.setPw("");
+		t.setMinConns(1);
+		t.setMaxConns(4);
+		m_pool = PoolManager.getInstance().definePool("jdbcbatch", new PoolConfig(t));
+		m_pool.initialize();
+
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			try(Statement st = dbc.createStatement()) {
+				st.executeUpdate("create table batch_rows(id bigint not null primary key, name varchar(40))");
+			}
+			dbc.commit();
+		}
+	}
+
+	@AfterClass
+	static public void tearDown() throws Exception {
+		if(null != m_pool)
+			PoolManager.getInstance().destroyPool("jdbcbatch");
+		File home = m_derbyHome;
+		if(null != home) {
+			File[] list = home.listFiles();
+			if(null != list) {
+				for(File f : list)
+					f.delete();
+			}
+			home.delete();
+		}
+	}
+
+	@After
+	public void clearTable() throws Exception {
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			try(Statement st = dbc.createStatement()) {
+				st.executeUpdate("delete from batch_rows");
+			}
+			dbc.commit();
+		}
+	}
+
+	static private JdbcDataContext createContext() throws Exception {
+		return new JdbcDataContext(null, m_pool.getPooledDataSource().getConnection());
+	}
+
+	static private List<BatchRow> createRows(int count) {
+		List<BatchRow> list = new ArrayList<BatchRow>();
+		for(int i = 0; i < count; i++)
+			list.add(new BatchRow(i, "name " + i));
+		return list;
+	}
+
+	@Test
+	public void testWriter() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			List<BatchRow> list = createRows(250);
+			try(JdbcBatchWriter bw = new JdbcBatchWriter(dc.getConnection(), 100)) {
+				for(BatchRow r : list)
+					bw.insert(r);
+				bw.flush();
+				Assert.assertEquals(3, bw.getBatchCount());
+				Assert.assertEquals(250, bw.getRowCount());
+
+				for(BatchRow r : list) {
+					r.setName("changed " + r.getId());
+					if(r.getId().longValue() % 2 == 0)
+						bw.update(r);
+					else
+						bw.delete(r);
+				}
+			}
+			dc.commit();
+
+			List<BatchRow> res = dc.query(QCriteria.create(BatchRow.class).ascending("id"));
+			Assert.assertEquals(125, res.size());
+			for(BatchRow r : res) {
+				Assert.assertEquals(0, r.getId().longValue() % 2);
+				Assert.assertEquals("changed " + r.getId(), r.getName());
+			}
+		}
+	}
+
+	@Test
+	public void testSaveAllAndDeleteAll() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			List<BatchRow> list = createRows(1234);
+			dc.saveAll(list, 100);
+			dc.commit();
+			Assert.assertEquals(1234, JdbcUtil.selectOne(dc.getConnection(), Integer.class, "select count(*) from batch_rows").intValue());
+
+			dc.deleteAll(list.subList(0, 1000), 100);
+			dc.commit();
+			Assert.assertEquals(234, JdbcUtil.selectOne(dc.getConnection(), Integer.class, "select count(*) from batch_rows").intValue());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBatchSize() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			dc.saveAll(createRows(10), 0);
+		}
+	}
+
+	@Test
+	public void testStatisticsSeeBatches() throws Exception {
+		PoolManager pm = PoolManager.getInstance();
+		boolean collecting = pm.isCollectStatistics();
+		pm.setCollectStatistics(true);
+		StatisticsCollector sc = new StatisticsCollector("batch", null, false);
+		try {
+			Assert.assertTrue(pm.startCollecting("batch", sc));
+			try(JdbcDataContext dc = createContext()) {
+				List<Object[]> params = new ArrayList<Object[]>();
+				for(int i = 0; i < 300; i++)
+					params.add(new Object[]{Long.valueOf(i), "row " + i});
+				Assert.assertEquals(300, JdbcUtil.executeBatch(dc.getConnection(), "insert into batch_rows(id, name) values(?, ?)", params, 50));
+				dc.commit();
+			}
+		} finally {
+			pm.stopCollecting("batch");
+			pm.setCollectStatistics(collecting);
+		}
+		Assert.assertEquals(300, sc.getNExecutes());
+		Assert.assertEquals(300, sc.getNUpdatedRows());
+		StatementStatistics ss = sc.getStatementMap().get("insert into batch_rows(id, name) values(?, ?)");
+		Assert.assertNotNull(ss);
+		Assert.assertEquals(300, ss.getExecutions());
+	}
+}
@@ -0,0 +1,181 @@
+package to.etc.test.webapp.qsql;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+
+import org.junit.*;
+
+import to.etc.dbpool.*;
+import to.etc.webapp.qsql.*;
+import to.etc.webapp.query.*;
+
+/**
+ * Reads a result that is too big for {@link QDataContext#query(QCriteria)} through a cursor, on an embedded
+ * Derby database, and checks that the statement is closed when the consumer stops early. The Derby driver
+ * is loaded from the jar in the derbydata module through the pool's driver path; the test is skipped if
+ * it is not there.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestJdbcCursor {
+	static private final File DERBY_JAR = new File("../to.etc.domui.derbydata/derby.jar");
+
+	static private final int ROWS = 25000;
+
+	static private ConnectionPool m_pool;
+
+	static private File m_derbyHome;
+
+	@QJdbcTable(table = "cursor_rows")
+	static public class CursorRow {
+		private Long m_id;
+
+		private String m_name;
+
+		@QJdbcId
+		@QJdbcColumn(name = "id", nullable = false)
+		public Long getId() {
+			return m_id;
+		}
+
+		public void setId(Long id) {
+			m_id = id;
+		}
+
+		@QJdbcColumn(name = "name", length = 40)
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			m_name = name;
+		}
+	}
+
+	@BeforeClass
+	static public void setUp() throws Exception {
+		Assume.assumeTrue("Derby jar not found at " + DERBY_JAR.getAbsolutePath(), DERBY_JAR.exists());
+		m_derbyHome = Files.createTempDirectory("jdbccursor").toFile();
+		System.setProperty("derby.system.home", m_derbyHome.getAbsolutePath());
+
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+		t.setDriverPath(DERBY_JAR.getAbsoluteFile());
+		t.setUrl("jdbc:derby:memory:jdbccursor;create=true");
+		t.setUid("");
+		t.setPw("");
+		t.setMinConns(1);
+		t.setMaxConns(4);
+		m_pool = PoolManager.getInstance().definePool("jdbccursor", new PoolConfig(t));
+		m_pool.initialize();
+
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			try(Statement st = dbc.createStatement()) {
+				st.executeUpdate("create table cursor_rows(id bigint not null primary key, name varchar(40))");
+			}
+			try(PreparedStatement ps = dbc.prepareStatement("insert into cursor_rows values(?, ?)")) {
+				for(int i = 0; i < ROWS; i++) {
+					ps.setLong(1, i);
+					ps.setString(2, "name " + i);
+					ps.addBatch();
+					if(i % 1000 == 999)
+						ps.executeBatch();
+				}
+			}
+			dbc.commit();
+		}
+	}
+
+	@AfterClass
+	static public void tearDown() throws Exception {
+		if(null != m_pool)
+			PoolManager.getInstance().destroyPool("jdbccursor");
+		File home = m_derbyHome;
+		if(null != home) {
+			File[] list = home.listFiles();
+			if(null != list) {
+				for(File f : list)
+					f.delete();
+			}
+			home.delete();
+		}
+	}
+
+	static private JdbcDataContext createContext() throws Exception {
+		return new JdbcDataContext(null, m_pool.getPooledDataSource().getConnection());
+	}
+
+	private void checkClosed() {
+		Assert.assertEquals("open result sets", 0, m_pool.getPoolStatistics().getResultsetOpenCount());
+		Assert.assertEquals("open statements", 0, m_pool.getPoolStatistics().getStatementOpenCount());
+	}
+
+	@Test
+	public void testQueryIsLimited() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			dc.query(QCriteria.create(CursorRow.class));
+			Assert.fail("A query with more than 10.000 rows should fail");
+		} catch(IllegalStateException x) {
+			//-- Expected
+		}
+		checkClosed();
+	}
+
+	@Test
+	public void testCursorReadsAll() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			long expected = 0;
+			try(IQueryCursor<CursorRow> cursor = dc.cursor(QCriteria.create(CursorRow.class).ascending("id"), 500)) {
+				while(cursor.next()) {
+					CursorRow row = cursor.get();
+					Assert.assertEquals(expected, row.getId().longValue());
+					Assert.assertEquals("name " + expected, row.getName());
+					expected++;
+				}
+				Assert.assertEquals(ROWS, cursor.getRowCount());
+				Assert.assertFalse(cursor.next());
+			}
+			Assert.assertEquals(ROWS, expected);
+		}
+		checkClosed();
+	}
+
+	@Test
+	public void testSelectionCursor() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			int[] count = new int[1];
+			dc.forEach(QSelection.create(CursorRow.class).selectProperty("name").ascending("id"), 1000, row -> {
+				Assert.assertEquals("name " + count[0], row[0]);
+				count[0]++;
+			});
+			Assert.assertEquals(ROWS, count[0]);
+		}
+		checkClosed();
+	}
+
+	/**
+	 * A consumer that stops early, by throwing or by closing the cursor, must not leave the statement open.
+	 */
+	@Test
+	public void testEarlyAbort() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			try {
+				dc.forEach(QCriteria.create(CursorRow.class), 100, row -> {
+					if(row.getId().longValue() == 10)
+						throw new IOException("Stop");
+				});
+				Assert.fail("The consumer's exception must be passed on");
+			} catch(IOException x) {
+				//-- Expected
+			}
+			checkClosed();
+
+			try(IQueryCursor<CursorRow> cursor = dc.cursor(QCriteria.create(CursorRow.class), 100)) {
+				for(int i = 0; i < 5; i++)
+					Assert.assertTrue(cursor.next());
+			}
+			checkClosed();
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package to.etc.test.webapp.qsql;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.dbpool.*;
+import to.etc.webapp.qsql.*;
+import to.etc.webapp.query.*;
+
+/**
+ * Checks that queries that only differ in their values reuse the cached plan and still return the rows
+ * for their own values, on an embedded Derby database. The Derby driver is loaded from the jar in the
+ * derbydata module; the test is skipped if it is not there.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestJdbcQueryPlanCache {
+	static private final File DERBY_JAR = new File("../to.etc.domui.derbydata/derby.jar");
+
+	static private ConnectionPool m_pool;
+
+	static private File m_derbyHome;
+
+	@QJdbcTable(table = "plan_rows")
+	static public class PlanRow {
+		private Long m_id;
+
+		private String m_name;
+
+		@QJdbcId
+		@QJdbcColumn(name = "id", nullable = false)
+		public Long getId() {
+			return m_id;
+		}
+
+		public void setId(Long id) {
+			m_id = id;
+		}
+
+		@QJdbcColumn(name = "name", length = 40)
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			m_name = name;
+		}
+	}
+
+	@BeforeClass
+	static public void setUp() throws Exception {
+		Assume.assumeTrue("Derby jar not found at " + DERBY_JAR.getAbsolutePath(), DERBY_JAR.exists());
+		m_derbyHome = Files.createTempDirectory("jdbcplan").toFile();
+		System.setProperty("derby.system.home", m_derbyHome.getAbsolutePath());
+
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+		t.setDriverPath(DERBY_JAR.getAbsoluteFile());
+		t.setUrl("jdbc:derby:memory:jdbcplan;create=true");
+		t.setUid("");
+		t.setPw("");
+		t.setMinConns(1);
+		t.setMaxConns(4);
+		m_pool = PoolManager.getInstance().definePool("jdbcplan", new PoolConfig(t));
+		m_pool.initialize();
+
+		try(Connection dbc = m_pool.getUnpooledDataSource().getConnection()) {
+			try(Statement st = dbc.createStatement()) {
+				st.executeUpdate("create table plan_rows(id bigint not null primary key, name varchar(40))");
+			}
+			try(PreparedStatement ps = dbc.prepareStatement("insert into plan_rows values(?, ?)")) {
+				for(int i = 0; i < 100; i++) {
+					ps.setLong(1, i);
+					ps.setString(2, "name " + i);
+					ps.addBatch();
+				}
+				ps.executeBatch();
+			}
+			dbc.commit();
+		}
+	}
+
+	@AfterClass
+	static public void tearDown() throws Exception {
+		if(null != m_pool)
+			PoolManager.getInstance().destroyPool("jdbcplan");
+		File home = m_derbyHome;
+		if(null != home) {
+			File[] list = home.listFiles();
+			if(null != list) {
+				for(File f : list)
+					f.delete();
+			}
+			home.delete();
+		}
+	}
+
+	@Before
+	public void clearCache() {
+		Assume.assumeTrue(JdbcQueryPlanCache.isEnabled());
+		JdbcQueryPlanCache.clear();
+	}
+
+	static private JdbcDataContext createContext() throws Exception {
+		return new JdbcDataContext(null, m_pool.getPooledDataSource().getConnection());
+	}
+
+	@Test
+	public void testSameShapeIsReused() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			for(int i = 0; i < 10; i++) {
+				PlanRow row = dc.queryOne(QCriteria.create(PlanRow.class).eq("id", Long.valueOf(i)));
+				Assert.assertNotNull(row);
+				Assert.assertEquals("name " + i, row.getName());
+			}
+		}
+		Assert.assertEquals(1, JdbcQueryPlanCache.getPlanCount());
+		Assert.assertEquals(1, JdbcQueryPlanCache.getMissCount());
+		Assert.assertEquals(9, JdbcQueryPlanCache.getHitCount());
+		Assert.assertEquals(90.0, JdbcQueryPlanCache.getHitRate(), 0.001);
+	}
+
+	@Test
+	public void testBindsAllValues() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			for(int i = 0; i < 5; i++) {
+				QCriteria<PlanRow> q = QCriteria.create(PlanRow.class)
+					.between("id", Long.valueOf(i * 10), Long.valueOf(i * 10 + 20))
+					.like("name", "name " + i + "%")
+					.in("id", Arrays.asList(Long.valueOf(i), Long.valueOf(i * 10 + 1), Long.valueOf(i * 10 + 3)))
+					.ascending("id");
+				List<PlanRow> res = dc.query(q);
+				Assert.assertEquals(i == 0 ? 1 : 2, res.size());
+				if(i != 0) {
+					Assert.assertEquals(i * 10 + 1, res.get(0).getId().longValue());
+					Assert.assertEquals(i * 10 + 3, res.get(1).getId().longValue());
+				}
+			}
+		}
+		Assert.assertEquals(1, JdbcQueryPlanCache.getPlanCount());
+		Assert.assertEquals(4, JdbcQueryPlanCache.getHitCount());
+	}
+
+	@Test
+	public void testDifferentShapes() throws Exception {
+		try(JdbcDataContext dc = createContext()) {
+			Assert.assertEquals(1, dc.query(QCriteria.create(PlanRow.class).eq("name", "name 5")).size());
+			Assert.assertEquals(1, dc.query(QCriteria.create(PlanRow.class).ne("name", "name 5").eq("id", Long.valueOf(6))).size());
+			Assert.assertEquals(2, dc.query(QCriteria.create(PlanRow.class).in("id", Arrays.asList(Long.valueOf(1), Long.valueOf(2)))).size());
+			Assert.assertEquals(3, dc.query(QCriteria.create(PlanRow.class).in("id", Arrays.asList(Long.valueOf(1), Long.valueOf(2), Long.valueOf(3)))).size());
+			Assert.assertEquals(0, dc.query(QCriteria.create(PlanRow.class).eq("name", "name 5").ascending("id").isnull("name")).size());
+
+			List<Object[]> res = dc.query(QSelection.create(PlanRow.class).selectProperty("name").eq("id", Long.valueOf(7)));
+			Assert.assertEquals("name 7", res.get(0)[0]);
+			res = dc.query(QSelection.create(PlanRow.class).selectProperty("name").eq("id", Long.valueOf(8)));
+			Assert.assertEquals("name 8", res.get(0)[0]);
+		}
+		Assert.assertEquals(6, JdbcQueryPlanCache.getPlanCount());
+		Assert.assertEquals(1, JdbcQueryPlanCache.getHitCount());
+	}
+}
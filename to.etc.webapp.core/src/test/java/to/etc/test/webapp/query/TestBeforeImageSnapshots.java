@@ -0,0 +1,185 @@
+package to.etc.test.webapp.query;
+
+import javax.annotation.*;
+
+import org.junit.*;
+
+import to.etc.webapp.query.*;
+
+/**
+ * Checks that {@link DefaultBeforeImageCache} builds before images from registered snapshots only when they
+ * are asked for, and only once.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestBeforeImageSnapshots {
+	static public class Node {
+		private String m_name;
+
+		private Node m_parent;
+
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			m_name = name;
+		}
+
+		public Node getParent() {
+			return m_parent;
+		}
+
+		public void setParent(Node parent) {
+			m_parent = parent;
+		}
+	}
+
+	/**
+	 * The loaded state of a node: its name and the instance of its parent.
+	 */
+	static private class NodeSnapshot implements IBeforeImageSnapshot {
+		@Nonnull
+		final private DefaultBeforeImageCache m_cache;
+
+		final private String m_name;
+
+		final private Node m_parent;
+
+		int m_buildCount;
+
+		NodeSnapshot(@Nonnull DefaultBeforeImageCache cache, @Nonnull Node instance) {
+			m_cache = cache;
+			m_name = instance.getName();
+			m_parent = instance.getParent();
+		}
+
+		@Nonnull
+		@Override
+		public Class< ? > getImageClass() {
+			return Node.class;
+		}
+
+		@Override
+		public void initializeImage(@Nonnull Object image) throws Exception {
+			m_buildCount++;
+			Node n = (Node) image;
+			n.setName(m_name);
+			Node parent = m_parent;
+			n.setParent(parent == null ? null : m_cache.findBeforeImage(parent));
+		}
+	}
+
+	@Nonnull
+	static private Node node(@Nonnull String name, @Nullable Node parent) {
+		Node n = new Node();
+		n.setName(name);
+		n.setParent(parent);
+		return n;
+	}
+
+	@Test
+	public void testImageIsBuiltWhenAsked() throws Exception {
+		DefaultBeforeImageCache cache = new DefaultBeforeImageCache();
+		Node a = node("a", null);
+		NodeSnapshot sa = new NodeSnapshot(cache, a);
+		cache.registerSnapshot(a, sa);
+		a.setName("changed");
+		Assert.assertEquals(0, sa.m_buildCount);
+		Assert.assertEquals(1, cache.getSnapshotCount());
+
+		Node ia = cache.findBeforeImage(a);
+		Assert.assertNotNull(ia);
+		Assert.assertNotSame(a, ia);
+		Assert.assertEquals("a", ia.getName());
+		Assert.assertSame(ia, cache.getBeforeImage(a));
+		Assert.assertEquals(1, sa.m_buildCount);
+		Assert.assertEquals(0, cache.getSnapshotCount());
+	}
+
+	@Test
+	public void testRelationsUseImages() throws Exception {
+		DefaultBeforeImageCache cache = new DefaultBeforeImageCache();
+		Node a = node("a", null);
+		Node b = node("b", a);
+		a.setParent(b);											// A cycle must resolve to the image being built
+		cache.registerSnapshot(a, new NodeSnapshot(cache, a));
+		cache.registerSnapshot(b, new NodeSnapshot(cache, b));
+
+		Node ib = cache.findBeforeImage(b);
+		Assert.assertNotNull(ib);
+		Node ia = ib.getParent();
+		Assert.assertNotNull(ia);
+		Assert.assertSame(ia, cache.findBeforeImage(a));
+		Assert.assertSame(ib, ia.getParent());
+	}
+
+	@Test
+	public void testReloadReinitializes() throws Exception {
+		DefaultBeforeImageCache cache = new DefaultBeforeImageCache();
+		Node a = node("a", null);
+		cache.registerSnapshot(a, new NodeSnapshot(cache, a));
+		Node ia = cache.findBeforeImage(a);
+		Assert.assertNotNull(ia);
+
+		a.setName("reloaded");
+		cache.registerSnapshot(a, new NodeSnapshot(cache, a));
+		Assert.assertSame(ia, cache.findBeforeImage(a));
+		Assert.assertEquals("reloaded", ia.getName());
+	}
+
+	/**
+	 * When building an image fails, the snapshot stays registered and no half-built image is returned later.
+	 */
+	@Test
+	public void testFailedBuildIsRetried() throws Exception {
+		DefaultBeforeImageCache cache = new DefaultBeforeImageCache();
+		Node a = node("a", null);
+		NodeSnapshot failing = new NodeSnapshot(cache, a) {
+			@Override
+			public void initializeImage(@Nonnull Object image) throws Exception {
+				super.initializeImage(image);
+				if(m_buildCount == 1)
+					throw new IllegalStateException("Cannot build the image");
+			}
+		};
+		cache.registerSnapshot(a, failing);
+		try {
+			cache.findBeforeImage(a);
+			Assert.fail("Expected the build to fail");
+		} catch(IllegalStateException x) {
+			//-- Expected
+		}
+		Assert.assertEquals(1, cache.getSnapshotCount());
+
+		Node ia = cache.findBeforeImage(a);
+		Assert.assertNotNull(ia);
+		Assert.assertEquals("a", ia.getName());
+		Assert.assertEquals(2, failing.m_buildCount);
+		Assert.assertEquals(0, cache.getSnapshotCount());
+	}
+
+	/**
+	 * A failed build of an image that was created unloaded leaves it unloaded.
+	 */
+	@Test
+	public void testFailedBuildKeepsUnloadedImage() throws Exception {
+		DefaultBeforeImageCache cache = new DefaultBeforeImageCache();
+		Node a = node("a", null);
+		Node copy = cache.createImage(Node.class, a, false);
+		cache.registerSnapshot(a, new NodeSnapshot(cache, a) {
+			@Override
+			public void initializeImage(@Nonnull Object image) throws Exception {
+				throw new IllegalStateException("Cannot build the image");
+			}
+		});
+		try {
+			cache.findBeforeImage(a);
+			Assert.fail("Expected the build to fail");
+		} catch(IllegalStateException x) {
+			//-- Expected
+		}
+		Assert.assertFalse(cache.isLoaded(copy));
+		Assert.assertEquals(1, cache.getSnapshotCount());
+	}
+}
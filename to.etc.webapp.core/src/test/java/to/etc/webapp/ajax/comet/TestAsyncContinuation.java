@@ -0,0 +1,210 @@
+package to.etc.webapp.ajax.comet;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+import javax.servlet.http.*;
+
+import org.junit.*;
+
+/**
+ * Runs {@link AsyncContinuation} against stand-ins for the Servlet 3 async API: the build uses the
+ * Servlet 2.5 API, so {@link AsyncServletSupport} is created with these types instead of the container's.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestAsyncContinuation {
+	/** Stands in for a Servlet 3 ServletRequest. */
+	public interface StubRequest extends HttpServletRequest {
+		boolean isAsyncSupported();
+
+		Object startAsync();
+	}
+
+	/** Stands in for javax.servlet.AsyncListener. */
+	public interface StubAsyncListener {
+		void onComplete(Object event);
+
+		void onTimeout(Object event);
+
+		void onError(Object event);
+
+		void onStartAsync(Object event);
+	}
+
+	/** Stands in for javax.servlet.AsyncContext; start() runs the task immediately, or fails when m_failStart is set. */
+	static public class StubAsyncContext {
+		long m_timeout = -1;
+
+		boolean m_failStart;
+
+		StubAsyncListener m_listener;
+
+		int m_completeCount;
+
+		final CountDownLatch m_completed = new CountDownLatch(1);
+
+		public void setTimeout(long timeout) {
+			m_timeout = timeout;
+		}
+
+		public void addListener(StubAsyncListener listener) {
+			m_listener = listener;
+		}
+
+		public void start(Runnable task) {
+			if(m_failStart)
+				throw new IllegalStateException("Not in async mode");
+			task.run();
+		}
+
+		public synchronized void complete() {
+			m_completeCount++;
+			m_completed.countDown();
+		}
+	}
+
+	/**
+	 * Records the responses. When m_resumeInBegin is set, the continuation is resumed during begin().
+	 */
+	static private class RecordingContext implements CometContext {
+		final List<Boolean> m_responses = Collections.synchronizedList(new ArrayList<Boolean>());
+
+		boolean m_resumeInBegin;
+
+		@Override
+		public void begin(HttpServlet slet, HttpServletRequest req, Continuation cont) throws Exception {
+			if(m_resumeInBegin)
+				cont.resume();
+		}
+
+		@Override
+		public void respond(HttpServletResponse resp, boolean timeout) throws Exception {
+			m_responses.add(Boolean.valueOf(timeout));
+		}
+	}
+
+	private StubAsyncContext m_asyncContext;
+
+	private int m_startAsyncCount;
+
+	private StubRequest m_request;
+
+	private AsyncServletSupport m_support;
+
+	@Before
+	public void setUp() throws Exception {
+		AsyncContinuation.acquireTimer();
+		m_asyncContext = new StubAsyncContext();
+		m_support = new AsyncServletSupport(StubRequest.class, StubAsyncContext.class, StubAsyncListener.class);
+		m_request = (StubRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class< ? >[]{StubRequest.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if("isAsyncSupported".equals(method.getName()))
+					return Boolean.TRUE;
+				if("startAsync".equals(method.getName())) {
+					m_startAsyncCount++;
+					return m_asyncContext;
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	@After
+	public void tearDown() {
+		AsyncContinuation.releaseTimer();
+	}
+
+	@Nonnull
+	private AsyncContinuation begin(@Nonnull RecordingContext ctx, long maxTimeout) throws Exception {
+		AsyncContinuation ac = new AsyncContinuation(null, m_support);
+		ctx.begin(null, m_request, ac);
+		ac.suspend(ctx, m_request, maxTimeout);
+		return ac;
+	}
+
+	@Test
+	public void testSupportDetection() throws Exception {
+		Assert.assertTrue(m_support.isAsyncSupported(m_request));
+		Assert.assertFalse("The Servlet 2.5 API in this build has no async support", AsyncServletSupport.DEFAULT.isAsyncSupported(m_request));
+	}
+
+	@Test
+	public void testResumeDuringBegin() throws Exception {
+		RecordingContext ctx = new RecordingContext();
+		ctx.m_resumeInBegin = true;
+		begin(ctx, 60000);
+		Assert.assertEquals(0, m_startAsyncCount);
+		Assert.assertEquals(Arrays.asList(Boolean.FALSE), ctx.m_responses);
+	}
+
+	@Test
+	public void testResumeAfterSuspend() throws Exception {
+		RecordingContext ctx = new RecordingContext();
+		AsyncContinuation ac = begin(ctx, 60000);
+		Assert.assertEquals(1, m_startAsyncCount);
+		Assert.assertEquals("The container's timeout must be off", 0, m_asyncContext.m_timeout);
+		Assert.assertNotNull(m_asyncContext.m_listener);
+		Assert.assertEquals(0, ctx.m_responses.size());
+
+		ac.resume();
+		Assert.assertEquals(Arrays.asList(Boolean.FALSE), ctx.m_responses);
+		Assert.assertEquals(1, m_asyncContext.m_completeCount);
+
+		//-- A late container error does not respond again.
+		m_asyncContext.m_listener.onError(null);
+		ac.resume();
+		Assert.assertEquals(1, ctx.m_responses.size());
+		Assert.assertEquals(1, m_asyncContext.m_completeCount);
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		RecordingContext ctx = new RecordingContext();
+		AsyncContinuation ac = new AsyncContinuation(null, m_support);
+		ac.setTimeout(10);
+		ac.suspend(ctx, m_request, 60000);
+		Assert.assertTrue(m_asyncContext.m_completed.await(30, TimeUnit.SECONDS));
+		ac.resume();
+		Assert.assertEquals(Arrays.asList(Boolean.TRUE), ctx.m_responses);
+		synchronized(m_asyncContext) {
+			Assert.assertEquals(1, m_asyncContext.m_completeCount);
+		}
+	}
+
+	@Test
+	public void testContainerTimeout() throws Exception {
+		RecordingContext ctx = new RecordingContext();
+		begin(ctx, 60000);
+		m_asyncContext.m_listener.onTimeout(null);
+		Assert.assertEquals(Arrays.asList(Boolean.TRUE), ctx.m_responses);
+		Assert.assertEquals(1, m_asyncContext.m_completeCount);
+	}
+
+	/**
+	 * When the timeout cannot be scheduled the request must end at once, as the container's timeout is off.
+	 */
+	@Test
+	public void testTimeoutNotScheduled() throws Exception {
+		RecordingContext ctx = new RecordingContext();
+		begin(ctx, -1);											// Timer.schedule rejects a negative delay
+		Assert.assertEquals(Arrays.asList(Boolean.TRUE), ctx.m_responses);
+		Assert.assertEquals(1, m_asyncContext.m_completeCount);
+	}
+
+	/**
+	 * When the response cannot be started on a container thread the request must still complete.
+	 */
+	@Test
+	public void testStartFailure() throws Exception {
+		RecordingContext ctx = new RecordingContext();
+		AsyncContinuation ac = begin(ctx, 60000);
+		m_asyncContext.m_failStart = true;
+		ac.resume();
+		Assert.assertEquals(0, ctx.m_responses.size());
+		Assert.assertEquals(1, m_asyncContext.m_completeCount);
+	}
+}
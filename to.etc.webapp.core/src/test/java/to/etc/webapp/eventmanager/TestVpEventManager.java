@@ -0,0 +1,211 @@
+package to.etc.webapp.eventmanager;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+import javax.sql.*;
+
+import org.junit.*;
+
+import to.etc.dbpool.*;
+
+/**
+ * Runs two event managers, as if on two servers, on an embedded Derby database. Checks that events
+ * posted on one are delivered on the other, and measures the posting rate and the delivery latency.
+ * The Derby driver is loaded from the jar in the derbydata module through the pool's driver path; the
+ * test is skipped if it is not there.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestVpEventManager {
+	static private final File DERBY_JAR = new File("../to.etc.domui.derbydata/derby.jar");
+
+	static private final int EVENTS = 2000;
+
+	static private final int BATCH = 50;
+
+	static private ConnectionPool m_pool;
+
+	static private File m_derbyHome;
+
+	static public class TestEvent extends AppEventBase {
+		private final int m_value;
+
+		public TestEvent(int value) {
+			m_value = value;
+		}
+
+		public int getValue() {
+			return m_value;
+		}
+	}
+
+	static private final IEventMarshaller MARSHALLER = new IEventMarshaller() {
+		@Override
+		public <T extends AppEventBase> T unmarshalEvent(String varchar) throws Exception {
+			return (T) new TestEvent(Integer.parseInt(varchar));
+		}
+
+		@Override
+		public String marshalEvent(AppEventBase event) throws Exception {
+			return Integer.toString(((TestEvent) event).getValue());
+		}
+	};
+
+	private VpEventManager m_poster;
+
+	private VpEventManager m_receiver;
+
+	@BeforeClass
+	static public void setUpClass() throws Exception {
+		Assume.assumeTrue("Derby jar not found at " + DERBY_JAR.getAbsolutePath(), DERBY_JAR.exists());
+		m_derbyHome = Files.createTempDirectory("eventmanager").toFile();
+		System.setProperty("derby.system.home", m_derbyHome.getAbsolutePath());
+
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+		t.setDriverPath(DERBY_JAR.getAbsoluteFile());
+		t.setUrl("jdbc:derby:memory:eventmanager;create=true");
+		t.setUid("");
+		t.setPw("");
+		t.setMinConns(1);
+		t.setMaxConns(8);
+		m_pool = PoolManager.getInstance().definePool("eventmanager", new PoolConfig(t));
+		m_pool.initialize();
+	}
+
+	@AfterClass
+	static public void tearDownClass() throws Exception {
+		if(null != m_pool)
+			PoolManager.getInstance().destroyPool("eventmanager");
+		File home = m_derbyHome;
+		if(null != home) {
+			File[] list = home.listFiles();
+			if(null != list) {
+				for(File f : list)
+					f.delete();
+			}
+			home.delete();
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		DataSource ds = m_pool.getPooledDataSource();
+		m_poster = new VpEventManager(ds, "test_events", MARSHALLER);
+		m_poster.init();
+		m_receiver = new VpEventManager(ds, "test_events", MARSHALLER);
+		m_receiver.init();
+		m_receiver.setPollInterval(10, 200);
+		m_receiver.startHandler();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		m_receiver.stop();
+	}
+
+	/**
+	 * Post events in batches, and check that the other server receives all of them, in order.
+	 */
+	@Test
+	public void testBatchedDelivery() throws Exception {
+		List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+		CountDownLatch done = new CountDownLatch(EVENTS);
+		m_receiver.addListener(TestEvent.class, ListenerType.DELAYED, new AppEventListener<TestEvent>() {
+			@Override
+			public void handleEvent(@Nonnull TestEvent obj) throws Exception {
+				received.add(Integer.valueOf(obj.getValue()));
+				done.countDown();
+			}
+		});
+
+		try(Connection dbc = m_pool.getPooledDataSource().getConnection()) {
+			for(int i = 0; i < EVENTS; i += BATCH) {
+				List<TestEvent> list = new ArrayList<TestEvent>();
+				for(int j = 0; j < BATCH; j++)
+					list.add(new TestEvent(i + j));
+				m_poster.sendEventsMain(dbc, list, true, false);
+			}
+		}
+		Assert.assertTrue("Not all events were delivered", done.await(30, TimeUnit.SECONDS));
+
+		for(int i = 0; i < EVENTS; i++)
+			Assert.assertEquals(Integer.valueOf(i), received.get(i));
+		Assert.assertEquals(EVENTS, m_poster.getPostCount());
+		Assert.assertEquals(EVENTS / BATCH, m_poster.getPostBatchCount());
+		Assert.assertEquals(EVENTS, m_receiver.getReceivedCount());
+		Assert.assertTrue(m_receiver.getScanCount() > 0);
+		Assert.assertTrue(m_receiver.getAverageDeliveryLatency() >= 0);
+		Assert.assertTrue(m_receiver.getMaxDeliveryLatency() >= m_receiver.getAverageDeliveryLatency());
+	}
+
+	/**
+	 * While nothing happens the poll interval must grow to its maximum, and the first event must bring it back.
+	 */
+	@Test
+	public void testAdaptivePolling() throws Exception {
+		long ets = System.currentTimeMillis() + 5000;
+		while(m_receiver.getPollInterval() < 200 && System.currentTimeMillis() < ets)
+			Thread.sleep(20);
+		Assert.assertEquals(200, m_receiver.getPollInterval());
+
+		CountDownLatch done = new CountDownLatch(1);
+		m_receiver.addListener(TestEvent.class, ListenerType.DELAYED, new AppEventListener<TestEvent>() {
+			@Override
+			public void handleEvent(@Nonnull TestEvent obj) throws Exception {
+				done.countDown();
+			}
+		});
+		try(Connection dbc = m_pool.getPooledDataSource().getConnection()) {
+			m_poster.sendEventMain(dbc, new TestEvent(1), true, false);
+		}
+		Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+		Assert.assertTrue("latency " + m_receiver.getMaxDeliveryLatency(), m_receiver.getMaxDeliveryLatency() < 1000);
+	}
+
+	/**
+	 * A notifier that keeps failing must be dropped, after which the scanner polls.
+	 */
+	@Test
+	public void testFailingNotifierIsDropped() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch closed = new CountDownLatch(1);
+		m_receiver.setNotifier(new IEventNotifier() {
+			@Override
+			public void eventsPosted(@Nonnull Connection dbc) throws Exception {}
+
+			@Override
+			public boolean waitForEvents(long timeout) throws Exception {
+				calls.incrementAndGet();
+				throw new SQLException("LISTEN is not supported");
+			}
+
+			@Override
+			public void close() {
+				closed.countDown();
+			}
+		});
+		Assert.assertTrue("The failing notifier was not dropped", closed.await(10, TimeUnit.SECONDS));
+		Assert.assertNull(m_receiver.getNotifier());
+		Assert.assertEquals(5, calls.get());
+
+		CountDownLatch done = new CountDownLatch(1);
+		m_receiver.addListener(TestEvent.class, ListenerType.DELAYED, new AppEventListener<TestEvent>() {
+			@Override
+			public void handleEvent(@Nonnull TestEvent obj) throws Exception {
+				done.countDown();
+			}
+		});
+		try(Connection dbc = m_pool.getPooledDataSource().getConnection()) {
+			m_poster.sendEventMain(dbc, new TestEvent(2), true, false);
+		}
+		Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(5, calls.get());
+	}
+}
@@ -0,0 +1,366 @@
+package to.etc.webapp.pendingoperations;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+import javax.sql.*;
+
+import org.junit.*;
+
+import to.etc.dbpool.*;
+import to.etc.util.*;
+
+/**
+ * Lets two providers, as if on two servers, claim operations from one sys_pending_operations table on an
+ * embedded Derby database, and checks that every operation runs exactly once and that order groups run
+ * in order. The Derby driver is loaded from the jar in the derbydata module through the pool's driver
+ * path; the test is skipped if it is not there. Derby has no SKIP LOCKED, so the PostgreSQL path is only
+ * checked for its query.
+ *
+ * Created on Oct 18, 2026
+ */
+public class TestPendingOperationClaims {
+	static private final File DERBY_JAR = new File("../to.etc.domui.derbydata/derby.jar");
+
+	static private final String TYPE = "count";
+
+	static private ConnectionPool m_pool;
+
+	static private File m_derbyHome;
+
+	/** Records each operation run; the operations of a group are also recorded per group, in the order they ran. */
+	static private class CountingExecutor implements IPendingOperationExecutor {
+		final Map<Long, AtomicInteger> m_runCount = new ConcurrentHashMap<Long, AtomicInteger>();
+
+		final Map<String, List<Long>> m_groupOrder = new ConcurrentHashMap<String, List<Long>>();
+
+		final AtomicInteger m_total = new AtomicInteger();
+
+		@Override
+		public void executePendingOperation(@Nonnull PendingOperation po, @Nonnull ILogSink ls) throws Exception {
+			AtomicInteger count = m_runCount.get(Long.valueOf(po.getId()));
+			if(null == count) {
+				m_runCount.put(Long.valueOf(po.getId()), new AtomicInteger());
+				count = m_runCount.get(Long.valueOf(po.getId()));
+			}
+			count.incrementAndGet();
+			String group = po.getOrderGroup();
+			if(null != group) {
+				List<Long> order = m_groupOrder.get(group);
+				if(null == order) {
+					order = Collections.synchronizedList(new ArrayList<Long>());
+					m_groupOrder.put(group, order);
+				}
+				order.add(Long.valueOf(po.getId()));
+			}
+			po.setState(PendingOperationState.DONE);
+			m_total.incrementAndGet();
+		}
+	}
+
+	@BeforeClass
+	static public void setUpClass() throws Exception {
+		Assume.assumeTrue("Derby jar not found at " + DERBY_JAR.getAbsolutePath(), DERBY_JAR.exists());
+		m_derbyHome = Files.createTempDirectory("pendingoperations").toFile();
+		System.setProperty("derby.system.home", m_derbyHome.getAbsolutePath());
+
+		PoolConfig.Template t = new PoolConfig.Template();
+		t.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+		t.setDriverPath(DERBY_JAR.getAbsoluteFile());
+		t.setUrl("jdbc:derby:memory:pendingoperations;create=true");
+		t.setUid("");
+		t.setPw("");
+		t.setMinConns(1);
+		t.setMaxConns(8);
+		m_pool = PoolManager.getInstance().definePool("pendingoperations", new PoolConfig(t));
+		m_pool.initialize();
+
+		try(Connection dbc = m_pool.getPooledDataSource().getConnection()) {
+			try(Statement st = dbc.createStatement()) {
+				st.execute("create table sys_pending_operations(spo_id bigint generated always as identity primary key" //
+					+ ",spo_xident varchar(60),spo_issuing_server varchar(60),spo_date_created timestamp,spo_must_execute_on_server varchar(60)" //
+					+ ",spo_executing_server varchar(60),spo_last_execute_started timestamp,spo_last_execute_completed timestamp" //
+					+ ",spo_state varchar(4) not null,spo_retries integer,spo_date_next_try timestamp,spo_order_groupname varchar(60)" //
+					+ ",spo_order_timestamp timestamp,spo_order_sub integer,spo_type varchar(30),spo_arg1 varchar(250),spo_arg2 varchar(4000)" //
+					+ ",spo_lasterror varchar(250),spo_errorlog clob,spo_userid varchar(60),spo_description varchar(250),spo_submitsource varchar(60)" //
+					+ ",progress_path varchar(250),progress_percentage integer,spo_serialized blob)");
+				st.execute("create index spo_group_ix on sys_pending_operations(spo_order_groupname)");
+
+				//-- Two servers can deadlock on locks taken in different orders; let Derby find out fast.
+				st.execute("call syscs_util.syscs_set_database_property('derby.locks.deadlockTimeout', '1')");
+				st.execute("call syscs_util.syscs_set_database_property('derby.locks.waitTimeout', '10')");
+			}
+			dbc.commit();
+		}
+	}
+
+	@AfterClass
+	static public void tearDownClass() throws Exception {
+		if(null != m_pool)
+			PoolManager.getInstance().destroyPool("pendingoperations");
+		File home = m_derbyHome;
+		if(null != home) {
+			File[] list = home.listFiles();
+			if(null != list) {
+				for(File f : list)
+					f.delete();
+			}
+			home.delete();
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		execute("delete from sys_pending_operations");
+	}
+
+	static private void execute(@Nonnull String sql) throws Exception {
+		try(Connection dbc = m_pool.getPooledDataSource().getConnection()) {
+			try(Statement st = dbc.createStatement()) {
+				st.executeUpdate(sql);
+			}
+			dbc.commit();
+		}
+	}
+
+	/**
+	 * Adds a runnable operation.
+	 * @param orderTime		for group members, the order timestamp in millis.
+	 */
+	static private long insert(@Nullable String group, long orderTime, int orderSub) throws Exception {
+		try(Connection dbc = m_pool.getPooledDataSource().getConnection()) {
+			long id;
+			try(PreparedStatement ps = dbc.prepareStatement("insert into sys_pending_operations(spo_issuing_server,spo_date_created,spo_state,spo_retries,spo_order_groupname,spo_order_timestamp,spo_order_sub,spo_type,progress_percentage)"
+				+ " values('test',current_timestamp,'RTRY',0,?,?,?,?,0)", Statement.RETURN_GENERATED_KEYS)) {
+				ps.setString(1, group);
+				ps.setTimestamp(2, group == null ? null : new Timestamp(orderTime));
+				ps.setInt(3, orderSub);
+				ps.setString(4, TYPE);
+				ps.executeUpdate();
+				try(ResultSet rs = ps.getGeneratedKeys()) {
+					rs.next();
+					id = rs.getLong(1);
+				}
+			}
+			dbc.commit();
+			return id;
+		}
+	}
+
+	@Nonnull
+	static private PendingOperationTaskProvider createProvider(@Nonnull String serverID, @Nonnull CountingExecutor executor) {
+		PendingOperationTaskProvider p = new PendingOperationTaskProvider(m_pool.getPooledDataSource(), serverID);
+		p.registerPendingOperationType(TYPE, executor);
+		return p;
+	}
+
+	@Nonnull
+	static private String getState(long id) throws Exception {
+		try(Connection dbc = m_pool.getPooledDataSource().getConnection()) {
+			try(PreparedStatement ps = dbc.prepareStatement("select spo_state, spo_executing_server from sys_pending_operations where spo_id=?")) {
+				ps.setLong(1, id);
+				try(ResultSet rs = ps.executeQuery()) {
+					Assert.assertTrue(rs.next());
+					String server = rs.getString(2);
+					return rs.getString(1) + (server == null ? "" : "@" + server);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Asks the provider for tasks and runs them until the executor ran the expected #of operations. When
+	 * the provider has nothing it is told to scan again, as if a new operation was saved.
+	 */
+	static private void runWorker(@Nonnull PendingOperationTaskProvider p, @Nonnull CountingExecutor executor, int expected, long deadline) throws Exception {
+		while(executor.m_total.get() < expected && System.currentTimeMillis() < deadline) {
+			Runnable task;
+			try {
+				task = p.getRunnableTask();
+			} catch(SQLException x) {
+				//-- Claims that deadlocked with the other server were rolled back; retry them like the worker queue does.
+				task = null;
+			}
+			if(task == null) {
+				p.scheduleScan();
+				Thread.yield();
+			} else
+				task.run();
+		}
+	}
+
+	/**
+	 * Two servers with two workers each drain a queue with loose operations and order groups. Each
+	 * operation must run exactly once, and the members of a group in their order.
+	 */
+	@Test
+	public void testTwoServersRunEachOperationOnce() throws Exception {
+		List<Long> ids = new ArrayList<Long>();
+		Map<String, List<Long>> groups = new HashMap<String, List<Long>>();
+		long now = System.currentTimeMillis() - 60000;
+		for(int i = 0; i < 60; i++) {
+			ids.add(Long.valueOf(insert(null, 0, 0)));
+			if(i % 10 == 0) {
+				//-- A group whose members are inserted in reverse order: the order is by timestamp and sub index, not by id.
+				String name = "group" + i;
+				List<Long> members = new ArrayList<Long>();
+				for(int j = 4; j >= 0; j--)
+					members.add(0, Long.valueOf(insert(name, now + (j / 2) * 1000, j)));
+				groups.put(name, members);
+				ids.addAll(members);
+			}
+		}
+
+		CountingExecutor executor = new CountingExecutor();
+		PendingOperationTaskProvider a = createProvider("server-a", executor);
+		PendingOperationTaskProvider b = createProvider("server-b", executor);
+		a.setScanSize(10);
+		b.setScanSize(10);
+		int expected = ids.size();
+		long deadline = System.currentTimeMillis() + 60000;
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for(final PendingOperationTaskProvider p : Arrays.asList(a, b, a, b)) {
+				futures.add(pool.submit(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						runWorker(p, executor, expected, deadline);
+						return null;
+					}
+				}));
+			}
+			for(Future<Object> f : futures)
+				f.get();
+		} finally {
+			pool.shutdown();
+		}
+
+		Assert.assertEquals(expected, executor.m_total.get());
+		for(Long id : ids) {
+			AtomicInteger count = executor.m_runCount.get(id);
+			Assert.assertNotNull("Operation " + id + " did not run", count);
+			Assert.assertEquals("Operation " + id + " ran more than once", 1, count.get());
+			Assert.assertEquals("DONE", getState(id.longValue()));
+		}
+		for(Map.Entry<String, List<Long>> me : groups.entrySet())
+			Assert.assertEquals(me.getKey(), me.getValue(), executor.m_groupOrder.get(me.getKey()));
+
+		//-- Every loose operation and every group was claimed once, by either server.
+		Assert.assertEquals(60 + groups.size(), a.getClaimCount() + b.getClaimCount());
+		Assert.assertEquals(0, a.getClaimedQueueSize());
+		Assert.assertEquals(0, b.getClaimedQueueSize());
+	}
+
+	/**
+	 * A scan claims a batch; the rest of the batch is handed out without scanning again.
+	 */
+	@Test
+	public void testClaimedTasksAreHandedOut() throws Exception {
+		List<Long> ids = new ArrayList<Long>();
+		for(int i = 0; i < 6; i++)
+			ids.add(Long.valueOf(insert(null, 0, 0)));
+		CountingExecutor executor = new CountingExecutor();
+		PendingOperationTaskProvider p = createProvider("server-a", executor);
+
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		tasks.add(p.getRunnableTask());
+		Assert.assertEquals(1, p.getScanCount());
+		Assert.assertEquals(4, p.getClaimCount());
+		Assert.assertEquals(3, p.getClaimedQueueSize());
+		for(int i = 0; i < 4; i++)
+			Assert.assertEquals("EXEC@server-a", getState(ids.get(i).longValue()));
+		Assert.assertEquals("RTRY", getState(ids.get(4).longValue()));
+
+		for(int i = 0; i < 3; i++)
+			tasks.add(p.getRunnableTask());
+		Assert.assertEquals(1, p.getScanCount());
+		Assert.assertEquals(0, p.getClaimedQueueSize());
+
+		//-- The next scan starts after the last one claimed.
+		tasks.add(p.getRunnableTask());
+		Assert.assertEquals(2, p.getScanCount());
+		Assert.assertEquals(6, p.getClaimCount());
+		tasks.add(p.getRunnableTask());
+		Assert.assertNull(p.getRunnableTask());						// Nothing left, and not yet time to scan again
+
+		for(Runnable r : tasks) {
+			Assert.assertNotNull(r);
+			r.run();
+		}
+		Assert.assertEquals(6, executor.m_total.get());
+		for(Long id : ids)
+			Assert.assertEquals("DONE", getState(id.longValue()));
+	}
+
+	/**
+	 * The conditional update claims an operation only for the first server.
+	 */
+	@Test
+	public void testConditionalClaim() throws Exception {
+		long id = insert(null, 0, 0);
+		CountingExecutor executor = new CountingExecutor();
+		PendingOperationTaskProvider a = createProvider("server-a", executor);
+		PendingOperationTaskProvider b = createProvider("server-b", executor);
+		PendingOperation po = new PendingOperation();
+		po.setId(id);
+
+		try(Connection dbc = m_pool.getPooledDataSource().getConnection()) {
+			Assert.assertTrue(a.claimOperation(dbc, po));
+			dbc.commit();
+			Assert.assertFalse(b.claimOperation(dbc, po));
+			Assert.assertFalse(a.claimOperation(dbc, po));
+			dbc.commit();
+		}
+		Assert.assertEquals("EXEC@server-a", getState(id));
+
+		//-- The claimed operation is no candidate for the other server.
+		Assert.assertNull(b.getRunnableTask());
+		Assert.assertEquals(0, b.getClaimCount());
+	}
+
+	@Test
+	public void testCandidateQuery() {
+		String sql = PendingOperationTaskProvider.getCandidateSQL(true, 25);
+		Assert.assertTrue(sql, sql.endsWith(" order by spo_id limit 25 for update skip locked"));
+		sql = PendingOperationTaskProvider.getCandidateSQL(false, 25);
+		Assert.assertTrue(sql, sql.endsWith(" order by spo_id"));
+	}
+
+	@Test
+	public void testStatistics() {
+		PollQueueStatistics s = new PollQueueStatistics(System.currentTimeMillis() - 1000);
+		s.poll(100, false);
+		s.poll(300, true);
+		s.poll(500, true);
+		s.taskCompleted(1000, false);
+		s.taskCompleted(3000, true);
+		Assert.assertEquals(3, s.getPollCount());
+		Assert.assertEquals(300, s.getAveragePollTime());
+		Assert.assertEquals(2, s.getClaimCount());
+		Assert.assertEquals(400, s.getAverageClaimTime());
+		Assert.assertEquals(500, s.getMaxClaimTime());
+		Assert.assertEquals(1, s.getCompletedCount());
+		Assert.assertEquals(1, s.getFailedCount());
+		Assert.assertEquals(2000, s.getAverageRunTime());
+		Assert.assertTrue(s.getThroughput() > 0);
+
+		PollQueueStatistics c = s.copy();
+		s.poll(900, true);
+		Assert.assertEquals(3, c.getPollCount());
+		Assert.assertEquals(500, c.getMaxClaimTime());
+		Assert.assertEquals(s.getSince(), c.getSince());
+
+		c.add(s);
+		Assert.assertEquals(7, c.getPollCount());
+		Assert.assertEquals(5, c.getClaimCount());
+		Assert.assertEquals(900, c.getMaxClaimTime());
+		Assert.assertEquals(4, c.getCompletedCount() + c.getFailedCount());
+	}
+}